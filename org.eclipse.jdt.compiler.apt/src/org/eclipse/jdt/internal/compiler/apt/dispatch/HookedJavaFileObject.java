@@ -21,9 +21,11 @@ import javax.tools.JavaFileObject;
 
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
 import org.eclipse.jdt.internal.compiler.env.IBinaryType;
+import org.eclipse.jdt.internal.compiler.env.INameEnvironment;
 import org.eclipse.jdt.internal.compiler.lookup.BinaryTypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.ReferenceBinding;
 
@@ -242,6 +244,9 @@ public class HookedJavaFileObject extends
 						// ignore
 					}
 					if (binaryType != null) {
+						INameEnvironment environment = this._filer._env._compiler.lookupEnvironment.nameEnvironment;
+						if (environment instanceof FileSystem)
+							((FileSystem) environment).directoriesChanged(); // the class file may be on the classpath, and looked up before
 						char[] name = binaryType.getName();
 						ReferenceBinding type = this._filer._env._compiler.lookupEnvironment.getType(CharOperation.splitOn('/', name));
 						if (type != null && type.isValidBinding()) {
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.benchmarks;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.Compiler;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
+import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of {@link ClassFileReader} decoding the class files of the compiled corpus.
+ * <p>
+ * <code>read</code> only decodes what the constructor reads eagerly, as the name environments do,
+ * <code>readFully</code> also decodes the methods and their signatures, as the binary type bindings do.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ClassFileReaderBenchmark {
+
+	@Param({"100"})
+	public int corpusSize;
+
+	private byte[][] classFiles;
+	private char[][] fileNames;
+
+	@Setup
+	public void setup() {
+		final List<ClassFile> compiled = new ArrayList<>();
+		ICompilerRequestor requestor = new ICompilerRequestor() {
+			public void acceptResult(CompilationResult result) {
+				if (result.hasErrors())
+					throw new IllegalStateException("the corpus has errors: " + new String(result.getFileName())); //$NON-NLS-1$
+				for (ClassFile classFile : result.getClassFiles())
+					compiled.add(classFile);
+			}
+		};
+		FileSystem environment = new FileSystem(SyntheticCorpus.getClasspath(), null /*initialFileNames*/, null /*encoding*/);
+		try {
+			new Compiler(environment, DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+				new CompilerOptions(SyntheticCorpus.getCompilerSettings()), requestor, new DefaultProblemFactory(),
+				new PrintWriter(new StringWriter()), null /*progress*/).compile(new SyntheticCorpus(this.corpusSize).getCompilationUnits());
+		} finally {
+			environment.cleanup();
+		}
+		this.classFiles = new byte[compiled.size()][];
+		this.fileNames = new char[compiled.size()][];
+		for (int i = 0, size = compiled.size(); i < size; i++) {
+			ClassFile classFile = compiled.get(i);
+			this.classFiles[i] = classFile.getBytes();
+			this.fileNames[i] = classFile.fileName();
+		}
+	}
+
+	@Benchmark
+	public void read(Blackhole blackhole) throws ClassFormatException {
+		for (int i = 0, length = this.classFiles.length; i < length; i++)
+			blackhole.consume(new ClassFileReader(this.classFiles[i], this.fileNames[i]));
+	}
+
+	@Benchmark
+	public void readFully(Blackhole blackhole) throws ClassFormatException {
+		for (int i = 0, length = this.classFiles.length; i < length; i++) {
+			ClassFileReader reader = new ClassFileReader(this.classFiles[i], this.fileNames[i], true /*fullyInitialize*/);
+			IBinaryMethod[] methods = reader.getMethods();
+			if (methods != null) {
+				for (IBinaryMethod method : methods)
+					blackhole.consume(method.getGenericSignature());
+			}
+			blackhole.consume(reader);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.benchmarks;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.Compiler;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of a full {@link Compiler#compile(ICompilationUnit[])} of the corpus against the
+ * class libraries of the running VM, from parsing to class file generation.
+ * <p>
+ * Like the batch compiler, each compilation creates its own name environment, so the time spent
+ * opening the archives of the class path and finding their packages is included.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+public class CompilerBenchmark {
+
+	@Param({"100"})
+	public int corpusSize;
+
+	private SyntheticCorpus corpus;
+	private CompilerOptions options;
+	private String[] classpath;
+	private ClassFileCounter requestor;
+
+	static class ClassFileCounter implements ICompilerRequestor {
+		int classFiles;
+		int errors;
+		public void acceptResult(CompilationResult result) {
+			ClassFile[] classFiles = result.getClassFiles();
+			this.classFiles += classFiles.length;
+			if (result.hasErrors())
+				this.errors++;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		this.corpus = new SyntheticCorpus(this.corpusSize);
+		this.options = new CompilerOptions(SyntheticCorpus.getCompilerSettings());
+		this.classpath = SyntheticCorpus.getClasspath();
+		this.requestor = new ClassFileCounter();
+		compile();
+		if (this.requestor.errors > 0)
+			throw new IllegalStateException(this.requestor.errors + " units of the corpus have errors"); //$NON-NLS-1$
+	}
+
+	@Benchmark
+	public int compile() {
+		FileSystem environment = new FileSystem(this.classpath, null /*initialFileNames*/, null /*encoding*/);
+		try {
+			Compiler compiler = new Compiler(environment, DefaultErrorHandlingPolicies.proceedWithAllProblems(), this.options,
+				this.requestor, new DefaultProblemFactory(), new PrintWriter(new StringWriter()), null /*progress*/);
+			compiler.compile(this.corpus.getCompilationUnits()); // the compiler releases the units it is given
+		} finally {
+			environment.cleanup();
+		}
+		return this.requestor.classFiles;
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.core.formatter.CodeFormatter;
+import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
+import org.eclipse.jdt.internal.formatter.DefaultCodeFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of {@link DefaultCodeFormatter#format(int, String, int, int, int, String)} formatting
+ * every unit of the corpus with the Eclipse built-in profile.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class FormatterBenchmark {
+
+	@Param({"100"})
+	public int corpusSize;
+
+	private String[] sources;
+	private DefaultCodeFormatter formatter;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		SyntheticCorpus corpus = new SyntheticCorpus(this.corpusSize);
+		this.sources = new String[corpus.size()];
+		for (int i = 0; i < this.sources.length; i++)
+			this.sources[i] = new String(corpus.getSource(i));
+		Map<String, String> options = DefaultCodeFormatterConstants.getEclipseDefaultSettings();
+		options.putAll(SyntheticCorpus.getCompilerSettings());
+		this.formatter = new DefaultCodeFormatter(options);
+	}
+
+	@Benchmark
+	public void format(Blackhole blackhole) {
+		for (int i = 0, length = this.sources.length; i < length; i++) {
+			String source = this.sources[i];
+			blackhole.consume(this.formatter.format(CodeFormatter.K_COMPILATION_UNIT, source, 0, source.length(), 0, "\n")); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.parser.Parser;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of {@link Parser#parse(ICompilationUnit, CompilationResult)} over the whole corpus,
+ * parsing method bodies like the compiler does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ParserBenchmark {
+
+	@Param({"100"})
+	public int corpusSize;
+
+	private ICompilationUnit[] units;
+	private CompilerOptions options;
+	private Parser parser;
+
+	@Setup
+	public void setup() {
+		this.units = new SyntheticCorpus(this.corpusSize).getCompilationUnits();
+		this.options = new CompilerOptions(SyntheticCorpus.getCompilerSettings());
+		ProblemReporter problemReporter = new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+			this.options, new DefaultProblemFactory());
+		this.parser = new Parser(problemReporter, this.options.parseLiteralExpressionsAsConstants);
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) {
+		for (int i = 0, length = this.units.length; i < length; i++) {
+			CompilationResult result = new CompilationResult(this.units[i], i, length, this.options.maxProblemsPerUnit);
+			CompilationUnitDeclaration unit = this.parser.parse(this.units[i], result);
+			this.parser.getMethodBodies(unit);
+			blackhole.consume(unit);
+		}
+	}
+}
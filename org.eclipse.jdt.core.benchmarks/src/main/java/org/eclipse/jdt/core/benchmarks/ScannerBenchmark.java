@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.parser.Scanner;
+import org.eclipse.jdt.internal.compiler.parser.TerminalTokens;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of {@link Scanner#getNextToken()} over the whole corpus, with and without comment tokens,
+ * and of the identifiers answered by {@link Scanner#getCurrentIdentifierSource()}, with and without
+ * {@link Scanner#internIdentifiers(int) interning}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ScannerBenchmark {
+
+	@Param({"100"})
+	public int corpusSize;
+
+	@Param({"false", "true"})
+	public boolean tokenizeComments;
+
+	@Param({"0", "4096"})
+	public int identifierTableSize;
+
+	private SyntheticCorpus corpus;
+	private Scanner scanner;
+
+	@Setup
+	public void setup() {
+		this.corpus = new SyntheticCorpus(this.corpusSize);
+		this.scanner = new Scanner(this.tokenizeComments, false /*whitespace*/, false /*nls*/, ClassFileConstants.JDK1_8,
+			ClassFileConstants.JDK1_8, null /*taskTags*/, null /*taskPriorities*/, true /*taskCaseSensitive*/);
+		this.scanner.internIdentifiers(this.identifierTableSize);
+	}
+
+	@Benchmark
+	public int scan() throws InvalidInputException {
+		int tokens = 0;
+		for (int i = 0, size = this.corpus.size(); i < size; i++) {
+			this.scanner.setSource(this.corpus.getSource(i));
+			while (this.scanner.getNextToken() != TerminalTokens.TokenNameEOF)
+				tokens++;
+		}
+		return tokens;
+	}
+
+	@Benchmark
+	public void scanIdentifiers(Blackhole blackhole) throws InvalidInputException {
+		for (int i = 0, size = this.corpus.size(); i < size; i++) {
+			this.scanner.setSource(this.corpus.getSource(i));
+			int token;
+			while ((token = this.scanner.getNextToken()) != TerminalTokens.TokenNameEOF) {
+				if (token == TerminalTokens.TokenNameIdentifier)
+					blackhole.consume(this.scanner.getCurrentIdentifierSource());
+			}
+		}
+	}
+}
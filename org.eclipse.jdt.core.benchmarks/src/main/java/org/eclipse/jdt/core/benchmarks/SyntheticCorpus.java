@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.util.Util;
+
+/**
+ * A deterministic set of compilation units used as input by all benchmarks.
+ * <p>
+ * The units of a corpus depend on each other, use generics, lambdas, inner classes, javadoc and
+ * string constants, so that every phase of the compiler has some work to do. The same size always
+ * produces the same sources, which keeps results of different runs comparable.
+ * </p>
+ */
+public class SyntheticCorpus {
+
+	private final char[][] sources;
+	private final String[] fileNames;
+
+	public SyntheticCorpus(int size) {
+		this.sources = new char[size][];
+		this.fileNames = new String[size];
+		for (int i = 0; i < size; i++) {
+			this.sources[i] = generate(i, size).toCharArray();
+			this.fileNames[i] = "p" + (i % 10) + "/X" + i + ".java"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	public int size() {
+		return this.sources.length;
+	}
+
+	public char[] getSource(int i) {
+		return this.sources[i];
+	}
+
+	public ICompilationUnit[] getCompilationUnits() {
+		ICompilationUnit[] units = new ICompilationUnit[this.sources.length];
+		for (int i = 0; i < units.length; i++)
+			units[i] = new CompilationUnit(this.sources[i], this.fileNames[i], "UTF-8"); //$NON-NLS-1$
+		return units;
+	}
+
+	/**
+	 * Answers the settings used to scan, parse and compile the corpus.
+	 */
+	public static Map<String, String> getCompilerSettings() {
+		Map<String, String> settings = new HashMap<>();
+		settings.put(CompilerOptions.OPTION_Compliance, CompilerOptions.VERSION_1_8);
+		settings.put(CompilerOptions.OPTION_Source, CompilerOptions.VERSION_1_8);
+		settings.put(CompilerOptions.OPTION_TargetPlatform, CompilerOptions.VERSION_1_8);
+		settings.put(CompilerOptions.OPTION_DocCommentSupport, CompilerOptions.ENABLED);
+		return settings;
+	}
+
+	/**
+	 * Answers the existing archives of the running VM boot class path, to compile the corpus against.
+	 */
+	public static String[] getClasspath() {
+		List<String> classpath = new ArrayList<>();
+		for (String name : Util.collectFilesNames()) {
+			if (new File(name).exists())
+				classpath.add(name);
+		}
+		return classpath.toArray(new String[classpath.size()]);
+	}
+
+	private static String generate(int index, int size) {
+		String packageName = "p" + (index % 10); //$NON-NLS-1$
+		String typeName = "X" + index; //$NON-NLS-1$
+		// each unit refers to the previous one, possibly in another package
+		int previous = index == 0 ? -1 : index - 1;
+		StringBuilder buffer = new StringBuilder(4096);
+		buffer.append("package ").append(packageName).append(";\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("import java.util.*;\n"); //$NON-NLS-1$
+		buffer.append("import java.util.function.*;\n\n"); //$NON-NLS-1$
+		buffer.append("/**\n * Generated type number ").append(index).append(" of ").append(size).append(".\n */\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		buffer.append("public class ").append(typeName).append("<T extends Comparable<T>> implements Iterable<T> {\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("\tpublic static final String NAME = \"").append(typeName).append("\";\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("\tprivate final List<T> elements = new ArrayList<>();\n"); //$NON-NLS-1$
+		buffer.append("\tprivate final Map<String, Integer> counts = new HashMap<>();\n"); //$NON-NLS-1$
+		buffer.append("\tprotected int modCount;\n"); //$NON-NLS-1$
+		if (previous >= 0)
+			buffer.append("\tprivate p").append(previous % 10).append(".X").append(previous).append("<String> previous;\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		buffer.append('\n');
+		for (int m = 0; m < 8; m++) {
+			buffer.append("\t/**\n\t * Adds the given element unless it is already present.\n"); //$NON-NLS-1$
+			buffer.append("\t * @param element the element to add\n\t * @return whether it was added\n\t */\n"); //$NON-NLS-1$
+			buffer.append("\tpublic boolean add").append(m).append("(T element) {\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t\tfor (int i = 0, l = this.elements.size(); i < l; i++) {\n"); //$NON-NLS-1$
+			buffer.append("\t\t\tif (this.elements.get(i).compareTo(element) == 0) return false; // duplicate\n"); //$NON-NLS-1$
+			buffer.append("\t\t}\n"); //$NON-NLS-1$
+			buffer.append("\t\tthis.counts.merge(\"add").append(m).append("\" + element, 1, Integer::sum);\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t\tthis.modCount += ").append(m + 1).append(";\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t\treturn this.elements.add(element);\n"); //$NON-NLS-1$
+			buffer.append("\t}\n\n"); //$NON-NLS-1$
+			buffer.append("\tpublic int count").append(m).append("(Predicate<? super T> filter) {\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t\tint count = 0;\n"); //$NON-NLS-1$
+			buffer.append("\t\tfor (T element : this.elements) {\n"); //$NON-NLS-1$
+			buffer.append("\t\t\tswitch (element.hashCode() % 3) {\n"); //$NON-NLS-1$
+			buffer.append("\t\t\t\tcase 0 : count += filter.test(element) ? 2 : 0; break;\n"); //$NON-NLS-1$
+			buffer.append("\t\t\t\tcase 1 : count++; break;\n"); //$NON-NLS-1$
+			buffer.append("\t\t\t\tdefault : count += (int) 0x").append(Integer.toHexString(m * 31 + index)).append("L;\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			buffer.append("\t\t\t}\n\t\t}\n"); //$NON-NLS-1$
+			buffer.append("\t\treturn count;\n\t}\n\n"); //$NON-NLS-1$
+		}
+		buffer.append("\tpublic <R> List<R> map(Function<? super T, ? extends R> function) {\n"); //$NON-NLS-1$
+		buffer.append("\t\tList<R> result = new ArrayList<>(this.elements.size());\n"); //$NON-NLS-1$
+		buffer.append("\t\tthis.elements.forEach(e -> result.add(function.apply(e)));\n"); //$NON-NLS-1$
+		buffer.append("\t\treturn result;\n\t}\n\n"); //$NON-NLS-1$
+		buffer.append("\t@Override\n\tpublic Iterator<T> iterator() {\n"); //$NON-NLS-1$
+		buffer.append("\t\treturn new Iterator<T>() {\n"); //$NON-NLS-1$
+		buffer.append("\t\t\tprivate int position;\n"); //$NON-NLS-1$
+		buffer.append("\t\t\tpublic boolean hasNext() { return this.position < ").append(typeName).append(".this.elements.size(); }\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("\t\t\tpublic T next() { return ").append(typeName).append(".this.elements.get(this.position++); }\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		buffer.append("\t\t};\n\t}\n\n"); //$NON-NLS-1$
+		buffer.append("\t@Override\n\tpublic String toString() {\n"); //$NON-NLS-1$
+		buffer.append("\t\treturn NAME + '[' + this.elements + \", \" + this.counts + ']'"); //$NON-NLS-1$
+		if (previous >= 0)
+			buffer.append(" + (this.previous == null ? \"\" : this.previous.toString())"); //$NON-NLS-1$
+		buffer.append(";\n\t}\n\n"); //$NON-NLS-1$
+		buffer.append("\tstatic class Entry implements Comparable<Entry> {\n"); //$NON-NLS-1$
+		buffer.append("\t\tfinal String key;\n\t\tfinal long value;\n"); //$NON-NLS-1$
+		buffer.append("\t\tEntry(String key, long value) { this.key = key; this.value = value; }\n"); //$NON-NLS-1$
+		buffer.append("\t\tpublic int compareTo(Entry other) { return Long.compare(this.value, other.value); }\n"); //$NON-NLS-1$
+		buffer.append("\t}\n}\n"); //$NON-NLS-1$
+		return buffer.toString();
+	}
+}
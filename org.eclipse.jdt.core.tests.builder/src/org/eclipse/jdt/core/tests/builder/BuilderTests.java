@@ -521,11 +521,13 @@ public class BuilderTests extends TestCase {
 			IncrementalTests18.class,
 			MultiProjectTests.class,
 			MultiSourceFolderAndOutputFolderTests.class,
+			ParallelBuildTests.class,
 			OutputFolderTests.class,
 			PackageTests.class,
 			StaticFinalTests.class,
 			GetResourcesTests.class,
 			FriendDependencyTests.class,
+			StateTests.class,
 		};
 
 		if ((AbstractCompilerTest.getPossibleComplianceLevels()  & AbstractCompilerTest.F_1_5) != 0) {
@@ -408,4 +408,86 @@ public class EfficiencyTests extends BuilderTests {
 		expectingCompiledClasses(new String[]{"p1.X", "p2.Y","p2.Z"}); //$NON-NLS-1$ //$NON-NLS-2$
 		expectingCompilingOrder(new String[]{"p2.Z", "p2.Y", "p1.X" }); //$NON-NLS-1$ //$NON-NLS-2$
 	}
+
+	public void testMemberChange() throws JavaModelException {
+
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		fullBuild(projectPath);
+
+		// remove old package fragment root so that names don't collide
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p1;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	public int f;\n" + //$NON-NLS-1$
+			"	public void foo() {\n" + //$NON-NLS-1$
+			"	}\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+
+		env.addClass(root, "p2", "Y", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p2;\n"+ //$NON-NLS-1$
+			"import p1.*;\n"+ //$NON-NLS-1$
+			"public class Y extends X {\n"+ //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+
+		env.addClass(root, "p2", "Z", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p2;\n"+ //$NON-NLS-1$
+			"import p1.*;\n"+ //$NON-NLS-1$
+			"public class Z {\n"+ //$NON-NLS-1$
+			"	void zoo(X x) {\n" + //$NON-NLS-1$
+			"		x.foo();\n" + //$NON-NLS-1$
+			"	}\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+
+		env.addClass(root, "p2", "W", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p2;\n"+ //$NON-NLS-1$
+			"import p1.*;\n"+ //$NON-NLS-1$
+			"public class W {\n"+ //$NON-NLS-1$
+			"	int woo(X x) {\n" + //$NON-NLS-1$
+			"		return x.f;\n" + //$NON-NLS-1$
+			"	}\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+
+		fullBuild(projectPath);
+
+		// only the subtype can see the new method
+		env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p1;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	public int f;\n" + //$NON-NLS-1$
+			"	public void foo() {\n" + //$NON-NLS-1$
+			"	}\n" + //$NON-NLS-1$
+			"	public void bar() {\n" + //$NON-NLS-1$
+			"	}\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+
+		incrementalBuild(projectPath);
+		expectingCompiledClasses(new String[]{"p1.X", "p2.Y"}); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// the type of the field changed
+		env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p1;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	public short f;\n" + //$NON-NLS-1$
+			"	public void foo() {\n" + //$NON-NLS-1$
+			"	}\n" + //$NON-NLS-1$
+			"	public void bar() {\n" + //$NON-NLS-1$
+			"	}\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+
+		incrementalBuild(projectPath);
+		expectingCompiledClasses(new String[]{"p1.X", "p2.W", "p2.Y"}); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		expectingNoProblems();
+	}
 }
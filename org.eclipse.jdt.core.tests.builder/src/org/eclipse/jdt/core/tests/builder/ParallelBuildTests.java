@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.builder;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.core.builder.ParallelBuildDriver;
+
+/**
+ * Tests the builds of several projects on several threads, see {@link JavaCore#buildProjects(IJavaProject[], int, IProgressMonitor)}.
+ */
+public class ParallelBuildTests extends BuilderTests {
+
+	static final int THREADS = 4;
+
+	public ParallelBuildTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return buildTestSuite(ParallelBuildTests.class);
+	}
+
+	IPath addProject(String name, IPath requiredProject, String className, String superclassName) throws CoreException {
+		IPath projectPath = env.addProject(name);
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		if (requiredProject != null)
+			env.addRequiredProject(projectPath, requiredProject);
+		IPath root = env.getPackageFragmentRootPath(projectPath, "");
+		env.addClass(root, "", className,
+			"public class " + className + (superclassName == null ? "" : " extends " + superclassName) + " {\n" +
+			"}\n"
+			);
+		return projectPath;
+	}
+
+	/*
+	 * Builds the given projects on several threads.
+	 */
+	void build(int kind, IPath[] projectPaths) throws CoreException {
+		IJavaProject[] projects = new IJavaProject[projectPaths.length];
+		for (int i = 0; i < projectPaths.length; i++)
+			projects[i] = env.getJavaProject(projectPaths[i]);
+		String previous = System.getProperty(ParallelBuildDriver.BUILD_THREADS_PROPERTY);
+		System.setProperty(ParallelBuildDriver.BUILD_THREADS_PROPERTY, String.valueOf(THREADS));
+		this.debugRequestor.clearResult();
+		this.debugRequestor.activate();
+		try {
+			JavaCore.buildProjects(projects, kind, null);
+		} finally {
+			this.debugRequestor.deactivate();
+			if (previous == null)
+				System.clearProperty(ParallelBuildDriver.BUILD_THREADS_PROPERTY);
+			else
+				System.setProperty(ParallelBuildDriver.BUILD_THREADS_PROPERTY, previous);
+		}
+	}
+
+	/*
+	 * Ensures that two independent chains of projects are built, and that the incremental build
+	 * only compiles the changed unit and its dependents.
+	 */
+	public void testIndependentProjects() throws CoreException {
+		IPath p1 = addProject("P1", null, "A", null);
+		IPath p2 = addProject("P2", p1, "B", "A");
+		IPath p3 = addProject("P3", null, "C", null);
+		IPath p4 = addProject("P4", p3, "D", "C");
+		IPath[] projects = new IPath[] {p1, p2, p3, p4};
+		env.waitForManualRefresh();
+
+		build(IncrementalProjectBuilder.FULL_BUILD, projects);
+		expectingNoProblems();
+		expectingCompiledClasses(new String[] {"A", "B", "C", "D"});
+
+		env.addClass(env.getPackageFragmentRootPath(p1, ""), "", "A",
+			"public class A {\n" +
+			"	int x;\n" +
+			"}\n"
+			);
+		env.waitForManualRefresh();
+		build(IncrementalProjectBuilder.INCREMENTAL_BUILD, projects);
+		expectingNoProblems();
+		expectingCompiledClasses(new String[] {"A", "B"});
+
+		for (int i = 0; i < projects.length; i++)
+			env.removeProject(projects[i]);
+	}
+
+	/*
+	 * Ensures that a project is built after its prerequisites, whatever the order of the given projects.
+	 */
+	public void testPrerequisitesFirst() throws CoreException {
+		IPath p1 = addProject("P1", null, "A", null);
+		IPath p2 = addProject("P2", p1, "B", "A");
+		IPath p3 = addProject("P3", p2, "C", "B");
+		env.waitForManualRefresh();
+
+		build(IncrementalProjectBuilder.FULL_BUILD, new IPath[] {p3, p2, p1});
+		expectingNoProblems();
+		expectingCompilingOrder(new String[] {"A", "B", "C"});
+
+		env.removeProject(p3);
+		env.removeProject(p2);
+		env.removeProject(p1);
+	}
+
+	/*
+	 * Ensures that the projects are built on the caller thread when the caller owns the workspace rule.
+	 */
+	public void testCallerRule() throws CoreException {
+		IPath p1 = addProject("P1", null, "A", null);
+		IPath p2 = addProject("P2", p1, "B", "A");
+		IPath p3 = addProject("P3", null, "C", null);
+		final IPath[] projects = new IPath[] {p2, p3, p1};
+		env.waitForManualRefresh();
+
+		env.getWorkspace().run(new IWorkspaceRunnable() {
+			public void run(IProgressMonitor monitor) throws CoreException {
+				build(IncrementalProjectBuilder.FULL_BUILD, projects);
+			}
+		}, env.getWorkspace().getRoot(), 0, null);
+		expectingNoProblems();
+		expectingCompilingOrder(new String[] {"C", "A", "B"});
+
+		for (int i = 0; i < projects.length; i++)
+			env.removeProject(projects[i]);
+	}
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.builder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.builder.JavaBuilder;
+import org.eclipse.jdt.internal.core.builder.ReferenceCollection;
+import org.eclipse.jdt.internal.core.builder.State;
+
+/**
+ * Tests the reference collections of a build state once saved and read again.
+ */
+public class StateTests extends BuilderTests {
+
+	static final String[] QUALIFIED_NAMES = { "p1", "p2", "p1/X", "p2/Y", "java/util", "java/util/List", "q" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+	static final String[] SIMPLE_NAMES = { "X", "Y", "Z", "Z2", "List", "Missing" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+	static final String[] ROOT_NAMES = { "p1", "p2", "java", "q" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	static final String[] MEMBER_NAMES = { "f", "foo", "bar" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	public StateTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return buildTestSuite(StateTests.class);
+	}
+
+	byte[] write(State state) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		JavaBuilder.writeState(state, out);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	State read(IProject project, byte[] bytes) throws IOException {
+		return JavaBuilder.readState(project, new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	char[][] simpleNames(String[] names) {
+		char[][] result = new char[names.length][];
+		for (int i = 0; i < names.length; i++)
+			result[i] = names[i].toCharArray();
+		return ReferenceCollection.internSimpleNames(result, false);
+	}
+
+	/*
+	 * Answers what the reference collections of the given state include, one line per source file.
+	 */
+	String references(State state) {
+		char[][][] qualifiedNames = new char[QUALIFIED_NAMES.length][][];
+		for (int i = 0; i < QUALIFIED_NAMES.length; i++)
+			qualifiedNames[i] = CharOperation.splitOn('/', QUALIFIED_NAMES[i].toCharArray());
+		qualifiedNames = ReferenceCollection.internQualifiedNames(qualifiedNames, false);
+		char[][] simpleNames = simpleNames(SIMPLE_NAMES);
+		char[][] rootNames = simpleNames(ROOT_NAMES);
+		char[][] memberNames = simpleNames(MEMBER_NAMES);
+
+		SimpleLookupTable references = state.getReferences();
+		String[] lines = new String[references.elementSize];
+		int index = 0;
+		for (int i = 0, l = references.keyTable.length; i < l; i++) {
+			String typeLocator = (String) references.keyTable[i];
+			if (typeLocator == null) continue;
+			ReferenceCollection collection = (ReferenceCollection) references.valueTable[i];
+			StringBuffer buffer = new StringBuffer(typeLocator);
+			buffer.append(" defines ").append(CharOperation.toString(state.getDefinedTypeNamesFor(typeLocator))); //$NON-NLS-1$
+			for (int q = 0; q < qualifiedNames.length; q++) {
+				for (int s = 0; s < simpleNames.length; s++) {
+					for (int r = 0; r < rootNames.length; r++) {
+						if (collection.includes(new char[][][] {qualifiedNames[q]}, new char[][] {simpleNames[s]}, new char[][] {rootNames[r]}))
+							buffer.append(' ').append(CharOperation.toString(qualifiedNames[q])).append('/')
+								.append(simpleNames[s]).append('@').append(rootNames[r]);
+					}
+				}
+			}
+			for (int s = 0; s < simpleNames.length; s++) {
+				for (int m = 0; m < memberNames.length; m++) {
+					if (collection.includesMembers(new char[][] {simpleNames[s]}, new char[][] {memberNames[m]}))
+						buffer.append(' ').append(simpleNames[s]).append('.').append(memberNames[m]);
+				}
+			}
+			lines[index++] = buffer.toString();
+		}
+		Arrays.sort(lines);
+		StringBuffer buffer = new StringBuffer();
+		for (int i = 0; i < lines.length; i++)
+			buffer.append(lines[i]).append('\n');
+		return buffer.toString();
+	}
+
+	String line(String references, String typeLocator) {
+		int start = references.indexOf(typeLocator + " defines "); //$NON-NLS-1$
+		assertTrue(references, start >= 0);
+		return references.substring(start, references.indexOf('\n', start));
+	}
+
+	/*
+	 * The collections read from a saved state include the same names as the ones of the built state,
+	 * also when the state is saved again before its collections are decoded.
+	 */
+	public void testReferencesRoundTrip() throws IOException {
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+
+		// remove old package fragment root so that names don't collide
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		env.addClass(root, "p1", "X", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p1;\n"+ //$NON-NLS-1$
+			"public class X {\n"+ //$NON-NLS-1$
+			"	public int f;\n" + //$NON-NLS-1$
+			"	public void foo() {\n" + //$NON-NLS-1$
+			"	}\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+		env.addClass(root, "p2", "Y", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p2;\n"+ //$NON-NLS-1$
+			"import p1.X;\n"+ //$NON-NLS-1$
+			"public class Y extends X {\n"+ //$NON-NLS-1$
+			"	java.util.List<String> list;\n" + //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+		env.addClass(root, "p2", "Z", //$NON-NLS-1$ //$NON-NLS-2$
+			"package p2;\n"+ //$NON-NLS-1$
+			"public class Z {\n"+ //$NON-NLS-1$
+			"	int zoo(p1.X x) {\n" + //$NON-NLS-1$
+			"		x.foo();\n" + //$NON-NLS-1$
+			"		return x.f;\n" + //$NON-NLS-1$
+			"	}\n" + //$NON-NLS-1$
+			"}\n" + //$NON-NLS-1$
+			"class Z2 {\n"+ //$NON-NLS-1$
+			"}\n" //$NON-NLS-1$
+			);
+		fullBuild(projectPath);
+		expectingNoProblems();
+
+		IProject project = env.getProject(projectPath);
+		State state = (State) JavaModelManager.getJavaModelManager().getLastBuiltState(project, null);
+		String expected = references(state);
+		assertTrue(expected, line(expected, "src/p2/Y.java").indexOf(" p1.X/X@p1") > 0); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue(expected, line(expected, "src/p2/Z.java").indexOf("Z2") > 0); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue(expected, line(expected, "src/p2/Z.java").indexOf(" X.foo") > 0); //$NON-NLS-1$ //$NON-NLS-2$
+
+		byte[] bytes = write(state);
+		// saved again without being queried, then queried
+		State savedTwice = read(project, write(read(project, bytes)));
+		assertEquals(expected, references(savedTwice));
+		assertEquals(expected, references(read(project, bytes)));
+	}
+}
@@ -44,6 +44,7 @@ import java.io.PrintWriter;
 import java.io.StringReader;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -1701,6 +1702,10 @@ public void test012(){
         "                       default)\n" +
         "    -log <file>        log to a file. If the file extension is ''.xml'', then\n" +
         "                       the log will be a xml file.\n" +
+        "    -metrics <file>    write the time spent in each phase and the memory\n" +
+        "                       allocated to compile each source file, the slowest\n" +
+        "                       first. If the file extension is ''.csv'', then the\n" +
+        "                       metrics will be in CSV, otherwise in JSON.\n" +
         "    -proceedOnError[:Fatal]\n" + 
         "                       do not stop at first error, dumping class files with\n" + 
         "                       problem methods\n" + 
@@ -1712,6 +1717,14 @@ public void test012(){
         "    -noExit            do not call System.exit(n) at end of compilation (n==0\n" +
         "                       if no error)\n" +
         "    -repeat <n>        repeat compilation process <n> times for perf analysis\n" +
+        "    -processingWorkers <n>\n" +
+        "                       parse method bodies and generate code on <n> worker\n" +
+        "                       threads, units are resolved one at a time (1 by\n" +
+        "                       default)\n" +
+        "    -incremental <dir> only compile the source files which changed since the\n" +
+        "                       previous compilation and their dependents, using the\n" +
+        "                       state saved in <dir>. Requires -d <dir>; all the\n" +
+        "                       source files are compiled when processing annotations\n" +
         "    -inlineJSR         inline JSR bytecode (implicit if target >= 1.5)\n" +
         "    -enableJavadoc     consider references in javadoc\n" +
         "    -parameters        generate method parameters attribute (for target >= 1.8)\n" +
@@ -2090,6 +2103,7 @@ public void test012b(){
 			"		<option key=\"org.eclipse.jdt.core.compiler.problem.unusedWarningToken\" value=\"warning\"/>\n" + 
 			"		<option key=\"org.eclipse.jdt.core.compiler.problem.varargsArgumentNeedCast\" value=\"warning\"/>\n" + 
 			"		<option key=\"org.eclipse.jdt.core.compiler.processAnnotations\" value=\"disabled\"/>\n" + 
+			"		<option key=\"org.eclipse.jdt.core.compiler.processingWorkers\" value=\"1\"/>\n" + 
 			"		<option key=\"org.eclipse.jdt.core.compiler.source\" value=\"1.5\"/>\n" + 
 			"		<option key=\"org.eclipse.jdt.core.compiler.storeAnnotations\" value=\"disabled\"/>\n" +
 			"		<option key=\"org.eclipse.jdt.core.compiler.taskCaseSensitive\" value=\"enabled\"/>\n" + 
@@ -14562,6 +14576,201 @@ public void test439750() {
 			true);
 }
 
+// units parsed and generated by several processing workers
+public void testProcessingWorkers() throws Exception {
+	this.runConformTest(
+		new String[] {
+			"p/X.java",
+			"package p;\n" +
+			"public class X {\n" +
+			"	Y y = new Y();\n" +
+			"	Z z = new Z();\n" +
+			"}\n",
+			"p/Y.java",
+			"package p;\n" +
+			"public class Y {\n" +
+			"	X x;\n" +
+			"	void foo(java.util.List l) {}\n" +
+			"}\n",
+			"p/Z.java",
+			"package p;\n" +
+			"public class Z extends Y {\n" +
+			"	int bar() { return x == null ? 0 : 1; }\n" +
+			"}\n"
+			},
+			"\"" + OUTPUT_DIR +  File.separator + "p" + File.separator + "X.java\""
+			+ " \"" + OUTPUT_DIR +  File.separator + "p" + File.separator + "Y.java\""
+			+ " \"" + OUTPUT_DIR +  File.separator + "p" + File.separator + "Z.java\""
+			+ " -1.5 -warn:raw -processingWorkers 2 -proc:none -d \"" + OUTPUT_DIR + "\"",
+			"",
+			"----------\n" +
+			"1. WARNING in ---OUTPUT_DIR_PLACEHOLDER---/p/Y.java (at line 4)\n" +
+			"	void foo(java.util.List l) {}\n" +
+			"	         ^^^^^^^^^^^^^^\n" +
+			"List is a raw type. References to generic type List<E> should be parameterized\n" +
+			"----------\n" +
+			"1 problem (1 warning)\n",
+			true);
+	String expectedOutput = "public class p.Z extends p.Y {";
+	checkDisassembledClassFile(OUTPUT_DIR + File.separator + "p" + File.separator + "Z.class", "Z", expectedOutput);
+}
+
+/*
+ * Ensures that many units using array types, generics and enum switches, which create types during code generation,
+ * are compiled by several workers to the same class files as by a single worker.
+ */
+public void testProcessingWorkers2() throws Exception {
+	int unitCount = 60;
+	String[] testFiles = new String[(unitCount + 1) * 2];
+	StringBuffer commandLine = new StringBuffer();
+	testFiles[0] = "p/E.java";
+	testFiles[1] =
+		"package p;\n" +
+		"public enum E { A, B, C }\n";
+	commandLine.append('"').append(OUTPUT_DIR).append(File.separator).append("p").append(File.separator).append("E.java\"");
+	for (int i = 0; i < unitCount; i++) {
+		String name = "C" + i, previous = "C" + ((i + unitCount - 1) % unitCount);
+		testFiles[(i + 1) * 2] = "p/" + name + ".java";
+		testFiles[(i + 1) * 2 + 1] =
+			"package p;\n" +
+			"import java.util.*;\n" +
+			"public class " + name + " {\n" +
+			"	List<" + previous + ">[] lists;\n" +
+			"	Map<String, " + name + "[][]> map = new HashMap<String, " + name + "[][]>();\n" +
+			"	E e = E.A;\n" +
+			"	int size(List<? extends Number>[]... all) {\n" +
+			"		int n = 0;\n" +
+			"		for (List<? extends Number>[] array : all)\n" +
+			"			for (List<? extends Number> list : array)\n" +
+			"				n += list.size();\n" +
+			"		return n;\n" +
+			"	}\n" +
+			"	String name() {\n" +
+			"		switch (this.e) {\n" +
+			"			case A : return \"a\" + this.map.size();\n" +
+			"			case B : return \"b\" + this.lists.length;\n" +
+			"			default : return String.valueOf(new int[" + i + "][" + i + "][].length);\n" +
+			"		}\n" +
+			"	}\n" +
+			"	<T extends Comparable<? super T>> T[] sort(T[] array) {\n" +
+			"		Arrays.sort(array);\n" +
+			"		return array;\n" +
+			"	}\n" +
+			"	Object[][] matrix() {\n" +
+			"		return new " + previous + "[][] { { new " + previous + "() } };\n" +
+			"	}\n" +
+			"}\n";
+		commandLine.append(" \"").append(OUTPUT_DIR).append(File.separator).append("p").append(File.separator).append(name).append(".java\"");
+	}
+	String sequentialOutput = OUTPUT_DIR + File.separator + "bin1";
+	String concurrentOutput = OUTPUT_DIR + File.separator + "bin4";
+	this.runConformTest(
+		testFiles,
+		commandLine + " -1.5 -nowarn -proc:none -d \"" + sequentialOutput + "\"",
+		"",
+		"",
+		true);
+	this.runConformTest(
+		null,
+		commandLine + " -1.5 -nowarn -proc:none -processingWorkers 4 -d \"" + concurrentOutput + "\"",
+		"",
+		"",
+		false);
+	File[] classFiles = new File(sequentialOutput, "p").listFiles();
+	assertEquals("Unexpected number of class files", unitCount + 1, classFiles.length);
+	for (int i = 0; i < classFiles.length; i++) {
+		byte[] expected = org.eclipse.jdt.internal.compiler.util.Util.getFileByteContent(classFiles[i]);
+		byte[] actual = org.eclipse.jdt.internal.compiler.util.Util.getFileByteContent(new File(concurrentOutput + File.separator + "p", classFiles[i].getName()));
+		assertTrue("Different class file " + classFiles[i].getName(), Arrays.equals(expected, actual));
+	}
+}
+
+/*
+ * Ensures that many units capturing wildcards, inferring generic methods and creating parameterized, wildcard,
+ * intersection and array types both while they are resolved and while their code is generated, are compiled
+ * by several workers racing on the type system to the same class files as by a single worker.
+ */
+public void testProcessingWorkers3() throws Exception {
+	int unitCount = 80;
+	String[] testFiles = new String[(unitCount + 1) * 2];
+	StringBuffer commandLine = new StringBuffer();
+	testFiles[0] = "p/Box.java";
+	testFiles[1] =
+		"package p;\n" +
+		"import java.util.*;\n" +
+		"public class Box<T extends Comparable<? super T>> {\n" +
+		"	List<? extends T> items = new ArrayList<T>();\n" +
+		"	static <U extends Comparable<? super U>> Box<U> of(Collection<? extends U> c) {\n" +
+		"		Box<U> box = new Box<U>();\n" +
+		"		box.items = new ArrayList<U>(c);\n" +
+		"		return box;\n" +
+		"	}\n" +
+		"	<R extends Number & Comparable<? super R>> R max(List<? extends R> l) {\n" +
+		"		return Collections.max(l);\n" +
+		"	}\n" +
+		"}\n";
+	commandLine.append('"').append(OUTPUT_DIR).append(File.separator).append("p").append(File.separator).append("Box.java\"");
+	for (int i = 0; i < unitCount; i++) {
+		String name = "G" + i, previous = "G" + ((i + unitCount - 1) % unitCount);
+		testFiles[(i + 1) * 2] = "p/" + name + ".java";
+		testFiles[(i + 1) * 2 + 1] =
+			"package p;\n" +
+			"import java.util.*;\n" +
+			"import java.util.function.*;\n" +
+			"public class " + name + "<K extends Comparable<K>, V extends List<? super K>> implements Comparable<" + name + "<K, V>> {\n" +
+			"	Map<? extends K, ? super V>[] maps;\n" +
+			"	" + previous + "<? extends K, ?> previous;\n" +
+			"	public int compareTo(" + name + "<K, V> other) { return 0; }\n" +
+			"	static <X> void swap(List<X> l) { if (l.size() > 1) l.set(0, l.set(1, l.get(0))); }\n" +
+			"	void swapAll(List<?>[] lists) {\n" +
+			"		for (List<?> l : lists)\n" +
+			"			swap(l);\n" +
+			"	}\n" +
+			"	Object first(Map<?, ? extends List<? extends K>> m) {\n" +
+			"		for (Map.Entry<?, ? extends List<? extends K>> e : m.entrySet())\n" +
+			"			return e.getValue().isEmpty() ? e.getKey() : e.getValue().get(0);\n" +
+			"		return null;\n" +
+			"	}\n" +
+			"	<T extends Comparable<? super T>> List<T>[][] split(Collection<? extends T> c) {\n" +
+			"		@SuppressWarnings(\"unchecked\")\n" +
+			"		List<T>[][] result = (List<T>[][]) new List<?>[" + (i % 3 + 1) + "][2];\n" +
+			"		Box<T> box = Box.of(c);\n" +
+			"		result[0][0] = new ArrayList<T>(box.items);\n" +
+			"		return result;\n" +
+			"	}\n" +
+			"	int sum(List<? extends Integer> l) {\n" +
+			"		Function<? super List<? extends Integer>, ? extends Integer> f = x -> x.stream().mapToInt(Integer::intValue).sum();\n" +
+			"		return f.apply(l) + new Box<Integer>().max(Arrays.asList(" + i + ", 1));\n" +
+			"	}\n" +
+			"	<S extends " + name + "<K, V> & Runnable> S run(S s) { s.run(); return s; }\n" +
+			"}\n";
+		commandLine.append(" \"").append(OUTPUT_DIR).append(File.separator).append("p").append(File.separator).append(name).append(".java\"");
+	}
+	String sequentialOutput = OUTPUT_DIR + File.separator + "bin1";
+	this.runConformTest(
+		testFiles,
+		commandLine + " -1.8 -nowarn -proc:none -d \"" + sequentialOutput + "\"",
+		"",
+		"",
+		true);
+	File[] classFiles = new File(sequentialOutput, "p").listFiles();
+	assertEquals("Unexpected number of class files", unitCount + 1, classFiles.length);
+	for (int run = 0; run < 3; run++) {
+		String concurrentOutput = OUTPUT_DIR + File.separator + "bin" + run;
+		this.runConformTest(
+			null,
+			commandLine + " -1.8 -nowarn -proc:none -processingWorkers 4 -d \"" + concurrentOutput + "\"",
+			"",
+			"",
+			false);
+		for (int i = 0; i < classFiles.length; i++) {
+			byte[] expected = org.eclipse.jdt.internal.compiler.util.Util.getFileByteContent(classFiles[i]);
+			byte[] actual = org.eclipse.jdt.internal.compiler.util.Util.getFileByteContent(new File(concurrentOutput + File.separator + "p", classFiles[i].getName()));
+			assertTrue("Different class file " + classFiles[i].getName() + " in run " + run, Arrays.equals(expected, actual));
+		}
+	}
+}
+
 /**
  * A fast exit/result is expected when secondary types are searched with the reserved class name "package-info",
  * because there can not exist a secondary type with the name "package-info", because it is a reserved class name.
@@ -14599,4 +14808,83 @@ public void testFileSystem_findSecondaryInClass() {
 		}
 	}
 }
+
+/*
+ * A type is looked up in the entries of the classpath containing its package, the first one answering it wins.
+ * The packages and the missing types are found again once the directories of the classpath changed.
+ */
+public void testFileSystem_packageLookup() throws IOException {
+	String root = OUTPUT_DIR + File.separator + "packageLookup";
+	String lib1 = root + File.separator + "lib1.jar";
+	String bin2 = root + File.separator + "bin2";
+	String lib3 = root + File.separator + "lib3.jar";
+	String generated = root + File.separator + "generated";
+	try {
+		new File(root).mkdirs();
+		Util.createJar(new String[] {
+				"p/A.java",
+				"package p;\n" +
+				"public class A {}",
+				"p/C.java",
+				"package p;\n" +
+				"public class C { int one; }"
+			}, lib1, "1.5");
+		Util.createClassFolder(new String[] {
+				"p/B.java",
+				"package p;\n" +
+				"public class B {}",
+				"q/D.java",
+				"package q;\n" +
+				"public class D {}"
+			}, bin2, "1.5");
+		Util.createJar(new String[] {
+				"r/E.java",
+				"package r;\n" +
+				"public class E {}",
+				"p/C.java",
+				"package p;\n" +
+				"public class C { int three; }"
+			}, lib3, "1.5");
+		Util.createClassFolder(new String[] {
+				"p/Missing.java",
+				"package p;\n" +
+				"public class Missing {}",
+				"s/F.java",
+				"package s;\n" +
+				"public class F {}"
+			}, generated, "1.5");
+		FileSystem environment = new FileSystem(new String[] { lib1, bin2, lib3 }, null, null);
+		try {
+			char[][] p = new char[][] { "p".toCharArray() };
+			assertTrue(environment.isPackage(null, "p".toCharArray()));
+			assertTrue(environment.isPackage(null, "q".toCharArray()));
+			assertTrue(environment.isPackage(null, "r".toCharArray()));
+			assertFalse(environment.isPackage(null, "s".toCharArray()));
+			assertNotNull(environment.findType("A".toCharArray(), p));
+			assertNotNull(environment.findType("B".toCharArray(), p));
+			NameEnvironmentAnswer answer = environment.findType("C".toCharArray(), p);
+			assertEquals("one", new String(answer.getBinaryType().getFields()[0].getName()));
+			assertNotNull(environment.findType("D".toCharArray(), new char[][] { "q".toCharArray() }));
+			assertNotNull(environment.findType("E".toCharArray(), new char[][] { "r".toCharArray() }));
+			assertNull(environment.findType("E".toCharArray(), p));
+			assertNull(environment.findType("Missing".toCharArray(), p));
+
+			// class files written in a directory of the classpath during the compilation
+			Util.copy(generated + File.separator + "p" + File.separator + "Missing.class", bin2 + File.separator + "p");
+			new File(bin2, "s").mkdir();
+			Util.copy(generated + File.separator + "s" + File.separator + "F.class", bin2 + File.separator + "s");
+			assertNull(environment.findType("Missing".toCharArray(), p));
+			environment.directoriesChanged();
+			assertNotNull(environment.findType("Missing".toCharArray(), p));
+			assertTrue(environment.isPackage(null, "s".toCharArray()));
+			assertNotNull(environment.findType("F".toCharArray(), new char[][] { "s".toCharArray() }));
+			answer = environment.findType("C".toCharArray(), p);
+			assertEquals("one", new String(answer.getBinaryType().getFields()[0].getName()));
+		} finally {
+			environment.cleanup();
+		}
+	} finally {
+		Util.delete(root);
+	}
+}
 }
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.compiler.regression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+import junit.framework.Test;
+
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.compiler.batch.CompilerDaemon;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+
+@SuppressWarnings({ "rawtypes" })
+public class CompilerDaemonTest extends BatchCompilerTest {
+
+	public static Test suite() {
+		return buildUniqueComplianceTestSuite(testClass(), ClassFileConstants.JDK1_6);
+	}
+	public static Class testClass() {
+		return CompilerDaemonTest.class;
+	}
+	public CompilerDaemonTest(String name) {
+		super(name);
+	}
+
+	File tokenFile;
+	CompilerDaemon daemon;
+	Thread thread;
+	Throwable failure;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		new File(OUTPUT_DIR).mkdirs();
+		this.tokenFile = new File(OUTPUT_DIR, "daemon.token");
+		this.daemon = new CompilerDaemon(0, this.tokenFile);
+		this.thread = new Thread(new Runnable() {
+			public void run() {
+				try {
+					CompilerDaemonTest.this.daemon.serve();
+				} catch (Throwable t) {
+					CompilerDaemonTest.this.failure = t;
+				}
+			}
+		}, "Compiler daemon");
+		this.thread.start();
+	}
+	protected void tearDown() throws Exception {
+		if (this.thread.isAlive()) {
+			CompilerDaemon.stop(this.daemon.getPort(), this.tokenFile);
+			this.thread.join(10000);
+		}
+		assertNull(this.failure);
+		super.tearDown();
+	}
+	String[] compile(String[] arguments, int expectedStatus) throws IOException {
+		return compile(new File(System.getProperty("user.dir")), arguments, expectedStatus);
+	}
+	String[] compile(File directory, String[] arguments, int expectedStatus) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ByteArrayOutputStream err = new ByteArrayOutputStream();
+		int status = CompilerDaemon.compile(this.daemon.getPort(), this.tokenFile, directory, arguments,
+			new PrintStream(out, true, "UTF-8"), new PrintStream(err, true, "UTF-8"));
+		String[] result = new String[] { out.toString("UTF-8"), err.toString("UTF-8") };
+		assertEquals(result[1], expectedStatus, status);
+		return result;
+	}
+	String[] sources(String name) {
+		return new String[] {
+			"X.java",
+			"public class X {\n" +
+			"	" + name + " y;\n" +
+			"}",
+			"Y.java",
+			"public class Y {\n" +
+			"}"
+		};
+	}
+	void writeFiles(String directory, String[] files) {
+		new File(directory).mkdirs();
+		for (int i = 0; i < files.length; i += 2)
+			Util.writeToFile(files[i + 1], directory + File.separator + files[i]);
+	}
+	String[] arguments(String directory) {
+		return new String[] {
+			"-1.5", "-proc:none", "-d", directory + File.separator + "bin",
+			directory + File.separator + "X.java", directory + File.separator + "Y.java"
+		};
+	}
+	/*
+	 * Sends the given ints after the token, then the request of a compilation, which still succeeds.
+	 */
+	void assertMalformed(byte[] token, int[] request) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (int i = 0; i < request.length; i++)
+			out.writeInt(request[i]);
+		assertMalformed(token, bytes.toByteArray());
+	}
+	void assertMalformed(byte[] token, byte[] request) throws IOException {
+		Socket socket = new Socket(InetAddress.getByName(null), this.daemon.getPort());
+		try {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			try {
+				out.write(token);
+				out.write(request);
+				out.flush();
+				socket.shutdownOutput();
+				new DataInputStream(socket.getInputStream()).readInt();
+				fail("Request accepted");
+			} catch (EOFException e) {
+				// dropped by the daemon
+			} catch (IOException e) {
+				// reset by the daemon
+			}
+		} finally {
+			socket.close();
+		}
+		assertTrue(this.thread.isAlive());
+		String directory = OUTPUT_DIR + File.separator + "malformed";
+		writeFiles(directory, sources("Y"));
+		compile(arguments(directory), 0);
+	}
+	public void testCompile() throws IOException {
+		String directory = OUTPUT_DIR + File.separator + "compile";
+		writeFiles(directory, sources("Y"));
+		String[] result = compile(arguments(directory), 0);
+		assertEquals("", result[0]);
+		assertEquals("", result[1]);
+		assertTrue(new File(directory + File.separator + "bin" + File.separator + "X.class").exists());
+		assertTrue(new File(directory + File.separator + "bin" + File.separator + "Y.class").exists());
+	}
+	public void testCompileError() throws IOException {
+		String directory = OUTPUT_DIR + File.separator + "error";
+		writeFiles(directory, sources("Z"));
+		String[] result = compile(arguments(directory), -1);
+		assertTrue(result[1], result[1].indexOf("Z cannot be resolved to a type") > 0);
+		assertTrue(result[1], result[1].indexOf("1 problem (1 error)") > 0);
+		assertFalse(new File(directory + File.separator + "bin" + File.separator + "X.class").exists());
+		// the daemon keeps serving
+		writeFiles(directory, sources("Y"));
+		compile(arguments(directory), 0);
+	}
+	public void testStop() throws IOException, InterruptedException {
+		assertTrue(this.tokenFile.exists());
+		CompilerDaemon.stop(this.daemon.getPort(), this.tokenFile);
+		this.thread.join(10000);
+		assertFalse(this.thread.isAlive());
+		assertFalse(this.tokenFile.exists());
+	}
+	public void testTokenFile() throws IOException {
+		if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+			return;
+		assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(this.tokenFile.toPath())));
+	}
+	public void testWrongToken() throws IOException {
+		byte[] token = Files.readAllBytes(this.tokenFile.toPath());
+		token[0]++;
+		// a wrong token cannot stop the daemon either
+		assertMalformed(token, new int[] { -1 });
+	}
+	public void testNegativeArgumentCount() throws IOException {
+		assertMalformed(Files.readAllBytes(this.tokenFile.toPath()), new int[] { -2 });
+	}
+	public void testHugeArgumentCount() throws IOException {
+		assertMalformed(Files.readAllBytes(this.tokenFile.toPath()), new int[] { Integer.MAX_VALUE });
+	}
+	public void testNegativeStringLength() throws IOException {
+		assertMalformed(Files.readAllBytes(this.tokenFile.toPath()), new int[] { 1, -5 });
+	}
+	public void testHugeStringLength() throws IOException {
+		assertMalformed(Files.readAllBytes(this.tokenFile.toPath()), new int[] { 2, 0, Integer.MAX_VALUE });
+	}
+	public void testTruncatedRequest() throws IOException {
+		assertMalformed(Files.readAllBytes(this.tokenFile.toPath()), new int[] { 3, 4 });
+	}
+	public void testRelativeWorkingDirectory() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0);
+		writeString(out, "relative");
+		assertMalformed(Files.readAllBytes(this.tokenFile.toPath()), bytes.toByteArray());
+	}
+	/*
+	 * The length of a request is bounded in bytes, not in characters.
+	 */
+	public void testHugeRequest() throws IOException {
+		char[] chars = new char[3 * 1024 * 1024];
+		Arrays.fill(chars, '\u20ac'); // 3 bytes in UTF-8
+		String argument = new String(chars);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(2);
+		writeString(out, new File(OUTPUT_DIR).getAbsolutePath());
+		writeString(out, argument); // 9 MB
+		writeString(out, argument); // over the 16 MB of a request
+		assertMalformed(Files.readAllBytes(this.tokenFile.toPath()), bytes.toByteArray());
+	}
+	void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	/*
+	 * The relative paths of a request are resolved against the working directory of the client,
+	 * including the ones of an argument file.
+	 */
+	public void testRelativePaths() throws IOException {
+		String directory = OUTPUT_DIR + File.separator + "client";
+		writeFiles(directory + File.separator + "src", new String[] {
+			"X.java",
+			"public class X {\n" +
+			"	L l;\n" +
+			"}"
+		});
+		writeFiles(directory + File.separator + "lib", new String[] {
+			"L.java",
+			"public class L {\n" +
+			"}"
+		});
+		Util.writeToFile("-d bin\n-sourcepath lib", directory + File.separator + "options.txt");
+		String[] result = compile(new File(directory), new String[] { "-1.5", "-proc:none", "@options.txt", "src" + File.separator + "X.java" }, 0);
+		assertEquals("", result[1]);
+		assertTrue(new File(directory + File.separator + "bin" + File.separator + "X.class").exists());
+		assertTrue(new File(directory + File.separator + "bin" + File.separator + "L.class").exists());
+	}
+	public void testResolveArguments() throws IOException {
+		File directory = new File(OUTPUT_DIR).getAbsoluteFile();
+		String absolute = new File(directory, "abs").getPath();
+		String p = File.pathSeparator;
+		String[] resolved = CompilerDaemon.resolveArguments(new String[] {
+			"-1.5", "-encoding", "UTF-8", "-d", "none", "-log", "log.txt",
+			"-cp", "a.jar[+p/*" + p + "-**]" + p + absolute + p + "src[-d", "bin]",
+			"-annotationpath", "CLASSPATH", "-processor", "p.Processor",
+			"-nowarn:[gen" + p + absolute + "]", "X.java[UTF-8]", absolute
+		}, directory);
+		String d = directory.getPath() + File.separator;
+		assertEquals(Arrays.asList(
+			"-1.5", "-encoding", "UTF-8", "-d", "none", "-log", d + "log.txt",
+			"-cp", d + "a.jar[+p/*" + p + "-**]" + p + absolute + p + d + "src[-d " + d + "bin]",
+			"-annotationpath", "CLASSPATH", "-processor", "p.Processor",
+			"-nowarn:[" + d + "gen" + p + absolute + "]", d + "X.java[UTF-8]", absolute
+		).toString(), Arrays.asList(resolved).toString());
+	}
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.compiler.regression;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+
+import org.eclipse.jdt.core.compiler.batch.BatchCompiler;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+
+/**
+ * Tests the -incremental option of the batch compiler: which class files are written again
+ * by a compilation using the state saved by the previous one.
+ */
+@SuppressWarnings({ "rawtypes" })
+public class IncrementalBatchCompilerTest extends BatchCompilerTest {
+
+	public static Test suite() {
+		return buildUniqueComplianceTestSuite(testClass(), ClassFileConstants.JDK1_6);
+	}
+	public static Class testClass() {
+		return IncrementalBatchCompilerTest.class;
+	}
+	public IncrementalBatchCompilerTest(String name) {
+		super(name);
+	}
+
+	String root;
+	String errors;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.root = OUTPUT_DIR + File.separator + "incremental";
+		Util.delete(this.root);
+		new File(this.root, "src").mkdirs();
+	}
+	protected void tearDown() throws Exception {
+		Util.delete(this.root);
+		super.tearDown();
+	}
+	/*
+	 * Writes the given source file, with a newer modification time than its previous version.
+	 */
+	void writeSource(String path, String contents) {
+		File file = new File(this.root + File.separator + "src", path);
+		long previous = file.lastModified();
+		file.getParentFile().mkdirs();
+		Util.writeToFile(contents, file.getPath());
+		if (previous != 0)
+			file.setLastModified(previous + 2000);
+	}
+	void deleteSource(String path) {
+		assertTrue(new File(this.root + File.separator + "src", path).delete());
+	}
+	/*
+	 * Compiles the source directory and answers the class files written by the compilation.
+	 */
+	String compile(String options, boolean succeeds) {
+		String commandLine = "-1.5 -proc:none -verbose " + options +
+			" -incremental \"" + this.root + File.separator + "state\"" +
+			" -d \"" + this.root + File.separator + "bin\"" +
+			" \"" + this.root + File.separator + "src\"";
+		StringWriter out = new StringWriter();
+		StringWriter err = new StringWriter();
+		boolean result = BatchCompiler.compile(commandLine, new PrintWriter(out), new PrintWriter(err), null);
+		this.errors = err.toString();
+		assertEquals(this.errors, succeeds, result);
+		TreeSet<String> written = new TreeSet<String>();
+		String[] lines = out.toString().split("\n");
+		for (int i = 0; i < lines.length; i++) {
+			String line = lines[i].trim();
+			if (line.startsWith("[writing"))
+				written.add(line.substring("[writing".length(), line.lastIndexOf(" - #")).trim().replace(File.separatorChar, '/'));
+		}
+		return written.toString();
+	}
+	boolean exists(String classFile) {
+		return new File(this.root + File.separator + "bin", classFile).isFile();
+	}
+	void writeSources() {
+		writeSource("p/A.java",
+			"package p;\n" +
+			"public class A {\n" +
+			"	public int foo() { return 1; }\n" +
+			"}");
+		writeSource("q/B.java",
+			"package q;\n" +
+			"import p.*;\n" +
+			"public class B {\n" +
+			"	int bar(A a) { return a.foo(); }\n" +
+			"}");
+		writeSource("q/C.java",
+			"package q;\n" +
+			"public class C {\n" +
+			"}");
+	}
+	/*
+	 * Unchanged sources are not compiled again, a change of a method body only compiles its unit.
+	 */
+	public void testNoStructuralChange() {
+		writeSources();
+		assertEquals("[p/A.class, q/B.class, q/C.class]", compile("", true));
+		assertEquals("[]", compile("", true));
+		writeSource("p/A.java",
+			"package p;\n" +
+			"public class A {\n" +
+			"	public int foo() { return 2; }\n" +
+			"}");
+		assertEquals("[p/A.class]", compile("", true));
+	}
+	/*
+	 * A change of a method signature compiles the units referencing its type.
+	 */
+	public void testSignatureChange() {
+		writeSources();
+		assertEquals("[p/A.class, q/B.class, q/C.class]", compile("", true));
+		writeSource("p/A.java",
+			"package p;\n" +
+			"public class A {\n" +
+			"	public String foo() { return null; }\n" +
+			"}");
+		assertEquals("[p/A.class]", compile("", false));
+		assertTrue(this.errors, this.errors.indexOf("Type mismatch: cannot convert from String to int") > 0);
+		// the unit with errors is compiled again
+		writeSource("q/B.java",
+			"package q;\n" +
+			"import p.*;\n" +
+			"public class B {\n" +
+			"	String bar(A a) { return a.foo(); }\n" +
+			"}");
+		assertEquals("[q/B.class]", compile("", true));
+		assertEquals("[]", compile("", true));
+	}
+	/*
+	 * A deleted type compiles the units referencing it, and its class file is deleted.
+	 */
+	public void testDeletedType() {
+		writeSources();
+		assertEquals("[p/A.class, q/B.class, q/C.class]", compile("", true));
+		deleteSource("p/A.java");
+		assertEquals("[]", compile("", false));
+		assertTrue(this.errors, this.errors.indexOf("A cannot be resolved to a type") > 0);
+		assertFalse(exists("p/A.class"));
+		assertTrue(exists("q/C.class"));
+	}
+	/*
+	 * A new type hiding a type of an imported package compiles the units referencing the hidden type.
+	 */
+	public void testNewHidingType() {
+		writeSources();
+		assertEquals("[p/A.class, q/B.class, q/C.class]", compile("", true));
+		writeSource("q/A.java",
+			"package q;\n" +
+			"public class A {\n" +
+			"}");
+		assertEquals("[q/A.class]", compile("", false));
+		assertTrue(this.errors, this.errors.indexOf("The method foo() is undefined for the type A") > 0);
+		// the previous class file of a unit with errors is kept
+		assertTrue(exists("q/B.class"));
+		deleteSource("q/A.java");
+		assertEquals("[q/B.class]", compile("", true));
+		assertFalse(exists("q/A.class"));
+	}
+	/*
+	 * A change of the visibility of a method compiles the units referencing its type.
+	 */
+	public void testVisibilityChange() {
+		writeSources();
+		assertEquals("[p/A.class, q/B.class, q/C.class]", compile("", true));
+		writeSource("p/A.java",
+			"package p;\n" +
+			"public class A {\n" +
+			"	int foo() { return 1; }\n" +
+			"}");
+		assertEquals("[p/A.class]", compile("", false));
+		assertTrue(this.errors, this.errors.indexOf("The method foo() from the type A is not visible") > 0);
+		writeSource("p/A.java",
+			"package p;\n" +
+			"public class A {\n" +
+			"	public int foo() { return 1; }\n" +
+			"}");
+		assertEquals("[p/A.class, q/B.class]", compile("", true));
+	}
+	/*
+	 * A change of the options compiles all the units.
+	 */
+	public void testOptionsChange() {
+		writeSources();
+		assertEquals("[p/A.class, q/B.class, q/C.class]", compile("", true));
+		assertEquals("[]", compile("", true));
+		assertEquals("[p/A.class, q/B.class, q/C.class]", compile("-g", true));
+		assertEquals("[]", compile("-g", true));
+	}
+}
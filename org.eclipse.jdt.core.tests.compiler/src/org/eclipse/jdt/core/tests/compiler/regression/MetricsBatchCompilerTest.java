@@ -0,0 +1,393 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.compiler.regression;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Test;
+
+import org.eclipse.jdt.core.compiler.batch.BatchCompiler;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileConstants;
+import org.eclipse.jdt.internal.compiler.impl.CompilerStats;
+import org.eclipse.jdt.internal.compiler.impl.CompilerStats.UnitStats;
+
+/**
+ * Tests the metrics written by the -metrics option of the batch compiler, in JSON and in CSV.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class MetricsBatchCompilerTest extends BatchCompilerTest {
+
+	static final String[] UNIT_KEYS = {
+		"fileName", "typeNames", "lineCount", "parseTime", "resolveTime", "analyzeTime", "generateTime", "totalTime", "allocatedBytes"
+	};
+	static final String[] TOTAL_KEYS = {
+		"elapsedTime", "lineCount", "parseTime", "resolveTime", "analyzeTime", "generateTime",
+		"binaryTypeCount", "typeLookupCount", "missingTypeLookupCount", "units"
+	};
+
+	public static Test suite() {
+		return buildUniqueComplianceTestSuite(testClass(), ClassFileConstants.JDK1_6);
+	}
+	public static Class testClass() {
+		return MetricsBatchCompilerTest.class;
+	}
+	public MetricsBatchCompilerTest(String name) {
+		super(name);
+	}
+
+	String root;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.root = OUTPUT_DIR + File.separator + "metrics";
+		Util.delete(this.root);
+		new File(this.root, "src").mkdirs();
+	}
+	protected void tearDown() throws Exception {
+		Util.delete(this.root);
+		super.tearDown();
+	}
+
+	/*
+	 * A minimal JSON parser, answering maps, lists, strings and longs.
+	 */
+	static class JSONParser {
+		String text;
+		int position;
+
+		JSONParser(String text) {
+			this.text = text;
+		}
+		Object parse() {
+			Object value = value();
+			skipSpaces();
+			assertEquals("Trailing characters", this.text.length(), this.position);
+			return value;
+		}
+		void skipSpaces() {
+			while (this.position < this.text.length() && Character.isWhitespace(this.text.charAt(this.position)))
+				this.position++;
+		}
+		void expect(char c) {
+			skipSpaces();
+			assertEquals("At " + this.position, c, this.text.charAt(this.position++));
+		}
+		boolean next(char c) {
+			skipSpaces();
+			if (this.text.charAt(this.position) != c)
+				return false;
+			this.position++;
+			return true;
+		}
+		Object value() {
+			skipSpaces();
+			char c = this.text.charAt(this.position);
+			if (c == '{') {
+				this.position++;
+				Map<String, Object> map = new LinkedHashMap<String, Object>();
+				if (next('}'))
+					return map;
+				do {
+					String key = string();
+					expect(':');
+					assertFalse("Duplicate " + key, map.containsKey(key));
+					map.put(key, value());
+				} while (next(','));
+				expect('}');
+				return map;
+			}
+			if (c == '[') {
+				this.position++;
+				List<Object> list = new ArrayList<Object>();
+				if (next(']'))
+					return list;
+				do {
+					list.add(value());
+				} while (next(','));
+				expect(']');
+				return list;
+			}
+			if (c == '"')
+				return string();
+			int start = this.position;
+			if (c == '-')
+				this.position++;
+			while (this.position < this.text.length() && Character.isDigit(this.text.charAt(this.position)))
+				this.position++;
+			return Long.valueOf(this.text.substring(start, this.position));
+		}
+		String string() {
+			expect('"');
+			StringBuffer buffer = new StringBuffer();
+			while (true) {
+				char c = this.text.charAt(this.position++);
+				if (c == '"')
+					return buffer.toString();
+				assertTrue("Control character at " + this.position, c >= 0x20);
+				if (c == '\\') {
+					c = this.text.charAt(this.position++);
+					switch (c) {
+						case '"' :
+						case '\\' :
+						case '/' :
+							buffer.append(c);
+							break;
+						case 'n' :
+							buffer.append('\n');
+							break;
+						case 't' :
+							buffer.append('\t');
+							break;
+						case 'r' :
+							buffer.append('\r');
+							break;
+						case 'u' :
+							buffer.append((char) Integer.parseInt(this.text.substring(this.position, this.position + 4), 16));
+							this.position += 4;
+							break;
+						default :
+							fail("Invalid escape \\" + c);
+					}
+				} else {
+					buffer.append(c);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Parses CSV as in RFC 4180: quoted fields may contain commas, line breaks and doubled quotes.
+	 */
+	static List<List<String>> parseCSV(String text) {
+		List<List<String>> rows = new ArrayList<List<String>>();
+		List<String> row = new ArrayList<String>();
+		StringBuffer field = new StringBuffer();
+		boolean quoted = false;
+		for (int i = 0, length = text.length(); i < length; i++) {
+			char c = text.charAt(i);
+			if (quoted) {
+				if (c == '"') {
+					if (i + 1 < length && text.charAt(i + 1) == '"') {
+						field.append('"');
+						i++;
+					} else {
+						quoted = false;
+					}
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				assertEquals("Quote inside a field", 0, field.length());
+				quoted = true;
+			} else if (c == ',') {
+				row.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\n') {
+				row.add(field.toString());
+				field.setLength(0);
+				rows.add(row);
+				row = new ArrayList<String>();
+			} else {
+				field.append(c);
+			}
+		}
+		assertFalse("Unterminated quote", quoted);
+		assertTrue("Missing line end", row.isEmpty() && field.length() == 0);
+		return rows;
+	}
+
+	void writeSource(String path, String contents) {
+		File file = new File(this.root + File.separator + "src", path);
+		file.getParentFile().mkdirs();
+		Util.writeToFile(contents, file.getPath());
+	}
+	String sourcePath(String path) {
+		return new File(this.root + File.separator + "src", path).getPath();
+	}
+	/*
+	 * Compiles the given source files and answers the metrics written in the given file.
+	 */
+	String compile(String metricsFile, String[] sourceFiles, String options) throws IOException {
+		String metrics = this.root + File.separator + metricsFile;
+		StringBuffer commandLine = new StringBuffer("-1.5 -proc:none -proceedOnError -nowarn ");
+		commandLine.append(options);
+		commandLine.append(" -d \"").append(this.root).append(File.separator).append("bin\"");
+		commandLine.append(" -metrics \"").append(metrics).append('"');
+		for (int i = 0; i < sourceFiles.length; i++)
+			commandLine.append(" \"").append(sourcePath(sourceFiles[i])).append('"');
+		StringWriter out = new StringWriter();
+		StringWriter err = new StringWriter();
+		BatchCompiler.compile(commandLine.toString(), new PrintWriter(out), new PrintWriter(err), null);
+		assertEquals("", out.toString());
+		return new String(org.eclipse.jdt.internal.compiler.util.Util.getFileCharContent(new File(metrics), "UTF-8"));
+	}
+	void writeSources() {
+		writeSource("p/X.java",
+			"package p;\n" +
+			"public class X {\n" +
+			"	q.Y y;\n" +
+			"}\n" +
+			"class X2 {\n" +
+			"}\n");
+		writeSource("q/Y.java",
+			"package q;\n" +
+			"public class Y {\n" +
+			"	java.util.List list;\n" +
+			"}\n");
+	}
+	Map unit(List units, String path) {
+		String fileName = sourcePath(path);
+		for (int i = 0; i < units.size(); i++) {
+			Map unit = (Map) units.get(i);
+			if (fileName.equals(unit.get("fileName")))
+				return unit;
+		}
+		fail("Missing unit " + fileName + " in " + units);
+		return null;
+	}
+	long count(Map map, String key) {
+		Long value = (Long) map.get(key);
+		assertNotNull("Missing " + key + " in " + map, value);
+		assertTrue(key + " is negative", value.longValue() >= 0 || key.equals("allocatedBytes") && value.longValue() == -1);
+		return value.longValue();
+	}
+	/*
+	 * The JSON has the totals and the counters of the lookups, then one object per unit, the slowest first.
+	 */
+	public void testJSON() throws IOException {
+		writeSources();
+		Map metrics = (Map) new JSONParser(compile("metrics.json", new String[] { "p/X.java", "q/Y.java" }, "")).parse();
+		assertEquals(Arrays.asList(TOTAL_KEYS).toString(), metrics.keySet().toString());
+		List units = (List) metrics.get("units");
+		assertEquals(2, units.size());
+		Map x = unit(units, "p/X.java");
+		Map y = unit(units, "q/Y.java");
+		assertEquals(Arrays.asList(UNIT_KEYS).toString(), x.keySet().toString());
+		assertEquals("[p.X, p.X2]", x.get("typeNames").toString());
+		assertEquals("[q.Y]", y.get("typeNames").toString());
+		assertEquals(6, count(x, "lineCount"));
+		assertEquals(4, count(y, "lineCount"));
+		assertEquals(count(x, "lineCount") + count(y, "lineCount"), count(metrics, "lineCount"));
+		long previousTime = Long.MAX_VALUE;
+		for (int i = 0; i < units.size(); i++) {
+			Map unit = (Map) units.get(i);
+			long totalTime = count(unit, "totalTime");
+			assertTrue("Not the slowest first", totalTime <= previousTime);
+			previousTime = totalTime;
+			// the phase times are truncated to microseconds separately
+			long phases = count(unit, "parseTime") + count(unit, "resolveTime") + count(unit, "analyzeTime") + count(unit, "generateTime");
+			assertTrue(phases <= totalTime && totalTime <= phases + 4);
+			count(unit, "allocatedBytes");
+		}
+		// java.util.List and the types of java.lang are read from class files
+		long binaryTypeCount = count(metrics, "binaryTypeCount");
+		long typeLookupCount = count(metrics, "typeLookupCount");
+		long missingTypeLookupCount = count(metrics, "missingTypeLookupCount");
+		assertTrue(binaryTypeCount > 0);
+		assertTrue(typeLookupCount >= binaryTypeCount);
+
+		// one more binary type, and lookups finding nothing
+		Util.createClassFolder(new String[] {
+			"r/Z.java",
+			"package r;\n" +
+			"public class Z {}"
+		}, this.root + File.separator + "lib", "1.5");
+		writeSource("q/Y.java",
+			"package q;\n" +
+			"public class Y {\n" +
+			"	java.util.List list;\n" +
+			"	r.Z z;\n" +
+			"	r.Missing missing;\n" +
+			"}\n");
+		metrics = (Map) new JSONParser(compile("metrics.json", new String[] { "p/X.java", "q/Y.java" },
+			"-cp \"" + this.root + File.separator + "lib\"")).parse();
+		// r.Z is found, while q.r, java.lang.r, r.Missing and r.package-info are not
+		assertEquals(binaryTypeCount + 1, count(metrics, "binaryTypeCount"));
+		assertEquals(typeLookupCount + 5, count(metrics, "typeLookupCount"));
+		assertEquals(missingTypeLookupCount + 4, count(metrics, "missingTypeLookupCount"));
+		assertEquals(6, count(unit((List) metrics.get("units"), "q/Y.java"), "lineCount"));
+	}
+	/*
+	 * The CSV has a header, then one row per unit, the slowest first.
+	 */
+	public void testCSV() throws IOException {
+		writeSources();
+		List<List<String>> rows = parseCSV(compile("metrics.CSV", new String[] { "p/X.java", "q/Y.java" }, ""));
+		assertEquals(3, rows.size());
+		assertEquals(Arrays.asList(UNIT_KEYS), rows.get(0));
+		long previousTime = Long.MAX_VALUE;
+		for (int i = 1; i < rows.size(); i++) {
+			List<String> row = rows.get(i);
+			assertEquals(UNIT_KEYS.length, row.size());
+			long totalTime = Long.parseLong(row.get(7));
+			assertTrue("Not the slowest first", totalTime <= previousTime);
+			previousTime = totalTime;
+			for (int j = 2; j < UNIT_KEYS.length; j++)
+				Long.parseLong(row.get(j));
+			if (row.get(0).equals(sourcePath("p/X.java"))) {
+				assertEquals("p.X p.X2", row.get(1));
+				assertEquals("6", row.get(2));
+			} else {
+				assertEquals(sourcePath("q/Y.java"), row.get(0));
+				assertEquals("q.Y", row.get(1));
+				assertEquals("4", row.get(2));
+			}
+		}
+	}
+	/*
+	 * File names with quotes, backslashes, commas, line breaks and control characters are read back unchanged.
+	 */
+	public void testEscaping() throws IOException {
+		String[] fileNames = {
+			"a \"quoted\" name.java",
+			"C:\\back\\slash.java",
+			"comma, and \"\"doubled\" quotes.java",
+			"line\nbreak\r\tand \u0001\u001fcontrol.java",
+			"unicode \u00e9\u4e2d.java"
+		};
+		CompilerStats stats = new CompilerStats();
+		stats.collectUnitStats();
+		for (int i = 0; i < fileNames.length; i++) {
+			CompilationResult result = new CompilationResult(fileNames[i].toCharArray(), i, fileNames.length, 10);
+			UnitStats unitStats = stats.getUnitStats(result);
+			unitStats.typeNames = new char[][] { ("p.T" + i).toCharArray(), fileNames[i].toCharArray() };
+			assertSame(unitStats, stats.unitCompiled(result));
+		}
+
+		StringWriter json = new StringWriter();
+		stats.writeJSON(json);
+		List units = (List) ((Map) new JSONParser(json.toString()).parse()).get("units");
+		assertEquals(fileNames.length, units.size());
+		StringWriter csv = new StringWriter();
+		stats.writeCSV(csv);
+		List<List<String>> rows = parseCSV(csv.toString());
+		assertEquals(fileNames.length + 1, rows.size());
+		for (int i = 0; i < fileNames.length; i++) {
+			Map unit = (Map) units.get(i);
+			int index = Arrays.asList(fileNames).indexOf(unit.get("fileName"));
+			assertTrue("Unexpected " + unit.get("fileName"), index >= 0);
+			assertEquals("[p.T" + index + ", " + fileNames[index] + "]", unit.get("typeNames").toString());
+			List<String> row = rows.get(i + 1);
+			assertEquals(fileNames[index], row.get(0));
+			assertEquals("p.T" + index + ' ' + fileNames[index], row.get(1));
+		}
+	}
+}
@@ -12,6 +12,7 @@ package org.eclipse.jdt.core.tests.dom;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Map;
 
 import junit.framework.Test;
 
@@ -35,6 +36,7 @@ import org.eclipse.jdt.core.dom.IVariableBinding;
 import org.eclipse.jdt.core.dom.Type;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class BatchASTCreationTests extends AbstractASTTests {
@@ -2283,4 +2285,107 @@ public void test082() throws CoreException, IOException {
 					requestor.asts
 				);
 	}
+
+	/*
+	 * Ensures that the ASTs resolved on several workers are accepted in the order of the compilation units,
+	 * and share their bindings.
+	 */
+	public void testProcessingWorkers1() throws CoreException {
+		MarkerInfo[] markerInfos = createMarkerInfos(new String[] {
+			"/P/p1/X.java",
+			"package p1;\n" +
+			"public class X extends /*start*/Y/*end*/ {\n" +
+			"}",
+			"/P/p1/Y.java",
+			"package p1;\n" +
+			"/*start*/public class Y extends Z {\n" +
+			"}/*end*/",
+			"/P/p1/Z.java",
+			"package p1;\n" +
+			"public class Z {\n" +
+			"  int[] foo() {\n" +
+			"    return new int[0];\n" +
+			"  }\n" +
+			"}",
+		});
+		this.workingCopies = createWorkingCopies(markerInfos, this.owner);
+		TestASTRequestor requestor = new TestASTRequestor();
+		ASTParser parser = ASTParser.newParser(JLS3_INTERNAL);
+		parser.setResolveBindings(true);
+		parser.setProject(getJavaProject("P"));
+		Map options = getJavaProject("P").getOptions(true);
+		options.put(CompilerOptions.OPTION_ProcessingWorkers, "4");
+		parser.setCompilerOptions(options);
+		parser.createASTs(this.workingCopies, new String[] {}, requestor, null);
+
+		assertASTNodesEqual(
+			"package p1;\n" +
+			"public class X extends Y {\n" +
+			"}\n" +
+			"\n" +
+			"package p1;\n" +
+			"public class Y extends Z {\n" +
+			"}\n" +
+			"\n" +
+			"package p1;\n" +
+			"public class Z {\n" +
+			"  int[] foo(){\n" +
+			"    return new int[0];\n" +
+			"  }\n" +
+			"}\n" +
+			"\n",
+			requestor.asts
+		);
+
+		// compare the bindings coming from the 2 first ASTs
+		Type superX = (Type) findNode((CompilationUnit) requestor.asts.get(0), markerInfos[0]);
+		TypeDeclaration typeY = (TypeDeclaration) findNode((CompilationUnit) requestor.asts.get(1), markerInfos[1]);
+		assertTrue("Super of X and Y should be the same", superX.resolveBinding() == typeY.resolveBinding());
+	}
+
+	/*
+	 * Ensures that the ASTs resolved on several workers are accepted from the workers when the requestor asks for it.
+	 */
+	public void testProcessingWorkers2() throws CoreException {
+		this.workingCopies = createWorkingCopies(new String[] {
+			"/P/p1/X.java",
+			"package p1;\n" +
+			"public class X extends Y {\n" +
+			"}",
+			"/P/p1/Y.java",
+			"package p1;\n" +
+			"public class Y extends Z {\n" +
+			"}",
+			"/P/p1/Z.java",
+			"package p1;\n" +
+			"public class Z {\n" +
+			"}",
+		});
+		final Thread caller = Thread.currentThread();
+		final boolean[] acceptedOnCaller = new boolean[1];
+		TestASTRequestor requestor = new TestASTRequestor() {
+			public synchronized void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+				if (Thread.currentThread() == caller)
+					acceptedOnCaller[0] = true;
+				super.acceptAST(source, ast);
+			}
+			public boolean acceptsASTsFromWorkers() {
+				return true;
+			}
+		};
+		ASTParser parser = ASTParser.newParser(JLS3_INTERNAL);
+		parser.setResolveBindings(true);
+		parser.setProject(getJavaProject("P"));
+		Map options = getJavaProject("P").getOptions(true);
+		options.put(CompilerOptions.OPTION_ProcessingWorkers, "4");
+		parser.setCompilerOptions(options);
+		parser.createASTs(this.workingCopies, new String[] {}, requestor, null);
+
+		assertEquals("Unexpected number of ASTs", 3, requestor.asts.size());
+		assertFalse("ASTs should be accepted from the workers", acceptedOnCaller[0]);
+		for (int i = 0; i < 3; i++) {
+			TypeDeclaration type = (TypeDeclaration) ((CompilationUnit) requestor.asts.get(i)).types().get(0);
+			assertNotNull("Type should be resolved", type.resolveBinding());
+		}
+	}
 }
@@ -179,6 +179,30 @@ private static Class[] getAllTestClasses() {
 		// Create search participant tests
 		SearchParticipantTests.class,
 
+		// Disk index tests
+		DiskIndexTests.class,
+
+		// Job manager tests
+		JobManagerTests.class,
+
+		// Parallel JAR indexing tests
+		ParallelJarIndexerTests.class,
+
+		// Shared JAR index tests
+		SharedIndexCacheTests.class,
+
+		// Binary type cache tests
+		BinaryTypeCacheTests.class,
+
+		// Archive directory tests
+		ArchiveDirectoryTests.class,
+
+		// Java model cache tests
+		ClockCacheTests.class,
+
+		// Builder name filter tests
+		NameFilterTests.class,
+
 		// Class file tests
 		ClassFileTests.class,
 
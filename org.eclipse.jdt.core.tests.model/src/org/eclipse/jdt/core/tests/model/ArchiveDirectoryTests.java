@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.Test;
+
+import org.eclipse.jdt.core.tests.junit.extension.TestCase;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.compiler.util.SimpleSet;
+import org.eclipse.jdt.internal.core.builder.ArchiveDirectory;
+
+/**
+ * Tests the directories of the packages and class files of archives saved by the builder.
+ */
+public class ArchiveDirectoryTests extends TestCase {
+
+	static final long TIME_STAMP = 1400000000000L;
+
+	File root;
+	File folder;
+
+public ArchiveDirectoryTests(String name) {
+	super(name);
+}
+public static Test suite() {
+	return buildTestSuite(ArchiveDirectoryTests.class);
+}
+protected void setUp() throws Exception {
+	super.setUp();
+	this.root = new File(Util.getOutputDirectory(), "ArchiveDirectoryTests"); //$NON-NLS-1$
+	Util.flushDirectoryContent(this.root);
+	this.folder = new File(this.root, "archiveDirectories"); //$NON-NLS-1$
+}
+protected void tearDown() throws Exception {
+	Util.delete(this.root);
+	super.tearDown();
+}
+String createJar(String name, String[] entryNames) throws IOException {
+	File jarFile = new File(this.root, name);
+	jarFile.getParentFile().mkdirs();
+	ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jarFile));
+	try {
+		for (int i = 0; i < entryNames.length; i++) {
+			zip.putNextEntry(new ZipEntry(entryNames[i]));
+			zip.closeEntry();
+		}
+	} finally {
+		zip.close();
+	}
+	jarFile.setLastModified(TIME_STAMP);
+	return jarFile.getPath();
+}
+ArchiveDirectory create(String zipFilename) throws IOException {
+	ZipFile zipFile = new ZipFile(zipFilename);
+	try {
+		return ArchiveDirectory.create(zipFile, TIME_STAMP, new File(zipFilename).length());
+	} finally {
+		zipFile.close();
+	}
+}
+ArchiveDirectory createDirectory(int classFileCount) {
+	SimpleSet classFileNames = new SimpleSet(classFileCount);
+	for (int i = 0; i < classFileCount; i++)
+		classFileNames.add("p/X" + i + ".class"); //$NON-NLS-1$ //$NON-NLS-2$
+	SimpleSet packageSet = new SimpleSet(3);
+	packageSet.add(""); //$NON-NLS-1$
+	packageSet.add("p"); //$NON-NLS-1$
+	return new ArchiveDirectory(TIME_STAMP, 0, packageSet, classFileNames);
+}
+String toString(SimpleSet set) {
+	String[] values = new String[set.elementSize];
+	set.asArray(values);
+	Arrays.sort(values);
+	return Arrays.asList(values).toString();
+}
+String[] list(File directory) {
+	String[] names = directory.list();
+	if (names == null) return new String[0];
+	Arrays.sort(names);
+	return names;
+}
+/*
+ * The saved directory lists the same packages and class files as the archive.
+ */
+public void testWriteAndRead() throws IOException {
+	String zipFilename = createJar("lib.jar", new String[] { "X.class", "p/q/Y.class", "p/q/Z.class", "p/r/", "META-INF/MANIFEST.MF" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+	ArchiveDirectory directory = create(zipFilename);
+	assertEquals("[, META-INF, p, p/q, p/r]", toString(directory.packageSet)); //$NON-NLS-1$
+	assertEquals("[X.class, p/q/Y.class, p/q/Z.class]", toString(directory.classFileNames)); //$NON-NLS-1$
+	long fileSize = new File(zipFilename).length();
+	assertNull(ArchiveDirectory.read(this.folder, zipFilename, TIME_STAMP, fileSize));
+	directory.write(this.folder, zipFilename);
+	assertEquals(1, list(this.folder).length);
+	ArchiveDirectory read = ArchiveDirectory.read(this.folder, zipFilename, TIME_STAMP, fileSize);
+	assertNotNull(read);
+	assertEquals(toString(directory.packageSet), toString(read.packageSet));
+	assertEquals(toString(directory.classFileNames), toString(read.classFileNames));
+	// the archive changed
+	assertNull(ArchiveDirectory.read(this.folder, zipFilename, TIME_STAMP + 1000, fileSize));
+	assertNull(ArchiveDirectory.read(this.folder, zipFilename, TIME_STAMP, fileSize + 1));
+}
+/*
+ * The directories of deleted archives, the unused ones and the temporary files of old writes are deleted.
+ */
+public void testCleanUp() throws IOException {
+	String kept = createJar("kept.jar", new String[] { "p/X.class" }); //$NON-NLS-1$ //$NON-NLS-2$
+	String deleted = createJar("deleted.jar", new String[] { "p/X.class" }); //$NON-NLS-1$ //$NON-NLS-2$
+	String unused = createJar("unused.jar", new String[] { "p/X.class" }); //$NON-NLS-1$ //$NON-NLS-2$
+	create(kept).write(this.folder, kept);
+	create(deleted).write(this.folder, deleted);
+	create(unused).write(this.folder, unused);
+	File keptFile = new File(this.folder, Integer.toHexString(kept.hashCode()) + ".dir"); //$NON-NLS-1$
+	File unusedFile = new File(this.folder, Integer.toHexString(unused.hashCode()) + ".dir"); //$NON-NLS-1$
+	long now = System.currentTimeMillis();
+	unusedFile.setLastModified(now - ArchiveDirectory.MAX_UNUSED_TIME - 1000);
+	keptFile.setLastModified(now - ArchiveDirectory.MAX_UNUSED_TIME + 60000);
+	new File(deleted).delete();
+	File oldTemp = new File(this.folder, "1234.dir5678.tmp"); //$NON-NLS-1$
+	File newTemp = new File(this.folder, "1234.dir9012.tmp"); //$NON-NLS-1$
+	File other = new File(this.folder, "other.txt"); //$NON-NLS-1$
+	assertTrue(oldTemp.createNewFile());
+	assertTrue(newTemp.createNewFile());
+	assertTrue(other.createNewFile());
+	oldTemp.setLastModified(now - 2 * 60 * 60 * 1000);
+	ArchiveDirectory.cleanUp(this.folder, now - ArchiveDirectory.MAX_UNUSED_TIME);
+	assertEquals(
+		Arrays.asList(new String[] { "1234.dir9012.tmp", keptFile.getName(), "other.txt" }).toString(), //$NON-NLS-1$ //$NON-NLS-2$
+		Arrays.asList(list(this.folder)).toString());
+	// reading a directory uses it
+	assertNotNull(ArchiveDirectory.read(this.folder, kept, TIME_STAMP, new File(kept).length()));
+	assertTrue(keptFile.lastModified() >= now - 1000);
+}
+/*
+ * The cache keeps the most recently used directories up to the given number of class files.
+ */
+public void testCacheBound() {
+	ArchiveDirectory.Cache cache = new ArchiveDirectory.Cache(100);
+	ArchiveDirectory a = createDirectory(40);
+	ArchiveDirectory b = createDirectory(40);
+	ArchiveDirectory c = createDirectory(10);
+	cache.put("a.jar", a); //$NON-NLS-1$
+	cache.put("b.jar", b); //$NON-NLS-1$
+	assertSame(a, cache.get("a.jar")); //$NON-NLS-1$
+	cache.put("c.jar", c); //$NON-NLS-1$
+	assertSame(a, cache.get("a.jar")); //$NON-NLS-1$
+	assertSame(b, cache.get("b.jar")); //$NON-NLS-1$
+	assertSame(c, cache.get("c.jar")); //$NON-NLS-1$
+	// the least recently used one is evicted
+	cache.put("d.jar", createDirectory(40)); //$NON-NLS-1$
+	assertNull(cache.get("a.jar")); //$NON-NLS-1$
+	assertSame(b, cache.get("b.jar")); //$NON-NLS-1$
+	assertSame(c, cache.get("c.jar")); //$NON-NLS-1$
+	assertTrue(cache.getCurrentSpace() <= 100);
+	// a directory larger than the cache is not kept
+	cache.put("e.jar", createDirectory(200)); //$NON-NLS-1$
+	assertNull(cache.get("e.jar")); //$NON-NLS-1$
+	cache.flush();
+	assertNull(cache.get("b.jar")); //$NON-NLS-1$
+}
+}
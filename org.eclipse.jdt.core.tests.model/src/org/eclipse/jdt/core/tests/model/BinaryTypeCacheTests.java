@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.ZipFile;
+
+import junit.framework.Test;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.tests.junit.extension.TestCase;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.env.IBinaryField;
+import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
+import org.eclipse.jdt.internal.core.BinaryTypeCache;
+
+/**
+ * Tests the cache of the class file readers of archives shared by the builder and the model of all projects.
+ */
+public class BinaryTypeCacheTests extends TestCase {
+
+	static final String X_SOURCE =
+		"package p;\n" +
+		"public class X {\n" +
+		"	public int z;\n" +
+		"	public int a;\n" +
+		"	public void zeta() {}\n" +
+		"	public void alpha() {}\n" +
+		"}\n";
+	static final long TIME_STAMP = 1400000000000L;
+
+	File root;
+	String jarPath;
+	BinaryTypeCache cache;
+
+public BinaryTypeCacheTests(String name) {
+	super(name);
+}
+public static Test suite() {
+	return buildTestSuite(BinaryTypeCacheTests.class);
+}
+protected void setUp() throws Exception {
+	super.setUp();
+	this.root = new File(Util.getOutputDirectory(), "BinaryTypeCacheTests"); //$NON-NLS-1$
+	Util.flushDirectoryContent(this.root);
+	this.root.mkdirs();
+	this.jarPath = new File(this.root, "lib.jar").getCanonicalPath(); //$NON-NLS-1$
+	createJar(X_SOURCE, TIME_STAMP);
+	this.cache = new BinaryTypeCache();
+}
+protected void tearDown() throws Exception {
+	Util.delete(this.root);
+	super.tearDown();
+}
+void createJar(String source, long timeStamp) throws IOException {
+	Util.createJar(new String[] { "p/X.java", source }, this.jarPath, "1.5"); //$NON-NLS-1$ //$NON-NLS-2$
+	new File(this.jarPath).setLastModified(timeStamp);
+}
+ClassFileReader read(ZipFile zipFile) throws Exception {
+	return ClassFileReader.read(zipFile, "p/X.class", true); //$NON-NLS-1$
+}
+String names(IBinaryMethod[] methods) {
+	StringBuffer buffer = new StringBuffer();
+	for (int i = 0; i < methods.length; i++)
+		buffer.append(methods[i].getSelector()).append(' ');
+	return buffer.toString();
+}
+String names(IBinaryField[] fields) {
+	StringBuffer buffer = new StringBuffer();
+	for (int i = 0; i < fields.length; i++)
+		buffer.append(fields[i].getName()).append(' ');
+	return buffer.toString();
+}
+public void testPathAndTimeStamp() throws Exception {
+	ZipFile zipFile = new ZipFile(this.jarPath);
+	try {
+		ClassFileReader reader = read(zipFile);
+		assertNull(this.cache.get(this.jarPath, TIME_STAMP, "p/X.class")); //$NON-NLS-1$
+		this.cache.put(this.jarPath, TIME_STAMP, "p/X.class", reader); //$NON-NLS-1$
+		assertSame(reader, this.cache.get(this.jarPath, TIME_STAMP, "p/X.class")); //$NON-NLS-1$
+		assertNull(this.cache.get(this.jarPath, TIME_STAMP, "p/Y.class")); //$NON-NLS-1$
+		assertNull(this.cache.get(this.jarPath + "2", TIME_STAMP, "p/X.class")); //$NON-NLS-1$ //$NON-NLS-2$
+		// the archive changed, its readers are dropped
+		assertNull(this.cache.get(this.jarPath, TIME_STAMP + 1000, "p/X.class")); //$NON-NLS-1$
+		assertNull(this.cache.get(this.jarPath, TIME_STAMP, "p/X.class")); //$NON-NLS-1$
+	} finally {
+		zipFile.close();
+	}
+}
+public void testOpenArchives() throws Exception {
+	ZipFile zipFile1 = new ZipFile(this.jarPath);
+	ZipFile zipFile2 = new ZipFile(this.jarPath);
+	try {
+		ClassFileReader reader = read(zipFile1);
+		this.cache.put(zipFile1, "p/X.class", reader); //$NON-NLS-1$
+		assertSame(reader, this.cache.get(zipFile2, "p/X.class")); //$NON-NLS-1$
+		assertSame(reader, this.cache.get(this.jarPath, TIME_STAMP, "p/X.class")); //$NON-NLS-1$
+		// the time stamp of an open archive is only read once
+		new File(this.jarPath).setLastModified(TIME_STAMP + 1000);
+		assertSame(reader, this.cache.get(zipFile1, "p/X.class")); //$NON-NLS-1$
+	} finally {
+		zipFile1.close();
+		zipFile2.close();
+	}
+	// the time stamp of the archive opened again is read again
+	ZipFile zipFile3 = new ZipFile(this.jarPath);
+	try {
+		assertNull(this.cache.get(zipFile3, "p/X.class")); //$NON-NLS-1$
+	} finally {
+		zipFile3.close();
+	}
+}
+public void testClear() throws Exception {
+	ZipFile zipFile = new ZipFile(this.jarPath);
+	try {
+		this.cache.put(zipFile, "p/X.class", read(zipFile)); //$NON-NLS-1$
+		this.cache.clear();
+		assertNull(this.cache.get(zipFile, "p/X.class")); //$NON-NLS-1$
+	} finally {
+		zipFile.close();
+	}
+}
+/*
+ * A copy shares the decoded members of the reader under another file name.
+ */
+public void testCopy() throws Exception {
+	ZipFile zipFile = new ZipFile(this.jarPath);
+	try {
+		ClassFileReader reader = read(zipFile);
+		ClassFileReader copy = reader.copy("other/lib.jar|p/X.class".toCharArray()); //$NON-NLS-1$
+		assertEquals("other/lib.jar|p/X.class", new String(copy.getFileName())); //$NON-NLS-1$
+		assertTrue(CharOperation.equals(reader.getName(), copy.getName()));
+		assertSame(reader.getMethods(), copy.getMethods());
+		assertSame(reader.getFields(), copy.getFields());
+	} finally {
+		zipFile.close();
+	}
+}
+/*
+ * Comparing a shared reader with another version of its class file does not reorder its members.
+ */
+public void testStructuralChangesOfSharedReader() throws Exception {
+	ClassFileReader reader;
+	ZipFile zipFile = new ZipFile(this.jarPath);
+	try {
+		reader = read(zipFile);
+	} finally {
+		zipFile.close();
+	}
+	String methods = names(reader.getMethods());
+	String fields = names(reader.getFields());
+	assertEquals("<init> zeta alpha ", methods); //$NON-NLS-1$
+	assertEquals("z a ", fields); //$NON-NLS-1$
+	createJar(X_SOURCE.replace("public void alpha() {}", "public int alpha() { return 0; }"), TIME_STAMP + 1000); //$NON-NLS-1$ //$NON-NLS-2$
+	byte[] newBytes;
+	zipFile = new ZipFile(this.jarPath);
+	try {
+		newBytes = org.eclipse.jdt.internal.compiler.util.Util.getZipEntryByteContent(zipFile.getEntry("p/X.class"), zipFile); //$NON-NLS-1$
+	} finally {
+		zipFile.close();
+	}
+	assertTrue(reader.hasStructuralChanges(newBytes));
+	assertTrue(reader.hasStructuralChanges(newBytes, true, false));
+	char[][] changedMembers = reader.getStructurallyChangedMembers(newBytes);
+	assertEquals("alpha", CharOperation.toString(changedMembers)); //$NON-NLS-1$
+	assertEquals(methods, names(reader.getMethods()));
+	assertEquals(fields, names(reader.getFields()));
+}
+}
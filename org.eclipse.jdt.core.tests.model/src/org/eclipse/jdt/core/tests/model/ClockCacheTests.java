@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.eclipse.jdt.core.tests.junit.extension.TestCase;
+import org.eclipse.jdt.internal.core.util.ClockCache;
+
+/**
+ * Tests the cache read without locking by the Java model cache.
+ * See also the tests of the element caches in OverflowingCacheTests.
+ */
+public class ClockCacheTests extends TestCase {
+
+	/*
+	 * A cache whose keys are closed when evicted, unless they are pinned.
+	 * Like the element caches, closing a key removes it from the cache.
+	 */
+	static class TestCache extends ClockCache<String, String> {
+		Set<String> pinned = new HashSet<String>();
+		List<String> closed = new ArrayList<String>();
+
+		TestCache(int size) {
+			super(size);
+		}
+		TestCache(int size, double loadFactor) {
+			super(size);
+			this.loadFactor = loadFactor;
+		}
+		protected boolean close(String key, String value) {
+			if (this.pinned.contains(key))
+				return false;
+			this.closed.add(key);
+			remove(key);
+			return true;
+		}
+	}
+
+public ClockCacheTests(String name) {
+	super(name);
+}
+public static Test suite() {
+	return buildTestSuite(ClockCacheTests.class);
+}
+void fill(TestCache cache, int start, int end) {
+	for (int i = start; i < end; i++)
+		cache.put(key(i), value(i));
+}
+String key(int i) {
+	return "key" + i; //$NON-NLS-1$
+}
+String value(int i) {
+	return "value" + i; //$NON-NLS-1$
+}
+int present(TestCache cache, int start, int end) {
+	int present = 0;
+	for (int i = start; i < end; i++) {
+		String value = cache.peek(key(i));
+		if (value != null) {
+			assertEquals(value(i), value);
+			assertFalse(key(i) + " is closed", cache.closed.contains(key(i))); //$NON-NLS-1$
+			present++;
+		} else {
+			assertTrue(key(i) + " is not closed", cache.closed.contains(key(i))); //$NON-NLS-1$
+		}
+	}
+	return present;
+}
+public void testCreation() {
+	TestCache cache = new TestCache(10);
+	assertEquals(10, cache.getSpaceLimit());
+	assertEquals(0, cache.size());
+	assertEquals(0, cache.getOverflow());
+	assertNull(cache.get("key")); //$NON-NLS-1$
+}
+public void testGetPeekAndKey() {
+	TestCache cache = new TestCache(10);
+	String key = new String("key"); //$NON-NLS-1$
+	cache.put(key, "value"); //$NON-NLS-1$
+	assertEquals("value", cache.get("key")); //$NON-NLS-1$ //$NON-NLS-2$
+	assertEquals("value", cache.peek("key")); //$NON-NLS-1$ //$NON-NLS-2$
+	assertSame(key, cache.getKey(new String("key"))); //$NON-NLS-1$
+	String otherKey = new String("other"); //$NON-NLS-1$
+	assertSame(otherKey, cache.getKey(otherKey));
+	// a new value replaces the old one
+	cache.put("key", "new value"); //$NON-NLS-1$ //$NON-NLS-2$
+	assertEquals(1, cache.size());
+	assertEquals("new value", cache.get("key")); //$NON-NLS-1$ //$NON-NLS-2$
+	assertSame(key, cache.getKey("key")); //$NON-NLS-1$
+}
+public void testRemove() {
+	TestCache cache = new TestCache(10);
+	fill(cache, 0, 5);
+	assertEquals(value(2), cache.remove(key(2)));
+	assertNull(cache.remove(key(2)));
+	assertNull(cache.get(key(2)));
+	assertEquals(4, cache.size());
+	// the entry moved in place of the removed one is still found
+	assertEquals(value(4), cache.get(key(4)));
+	fill(cache, 5, 11);
+	assertEquals(10, cache.size());
+	assertTrue(cache.closed.isEmpty());
+}
+/*
+ * A full cache of 500 entries keeps all of them.
+ */
+public void testFill() {
+	TestCache cache = new TestCache(500);
+	fill(cache, 0, 500);
+	assertEquals(500, cache.size());
+	assertEquals(0, cache.getOverflow());
+	assertEquals(500, present(cache, 0, 500));
+}
+/*
+ * Adding 1000 entries to a cache of 500 leaves 334 entries: the 501st one closes 333 entries,
+ * the 833rd one 333 more.
+ */
+public void testUseNoOverflow() {
+	TestCache cache = new TestCache(500);
+	fill(cache, 0, 1000);
+	assertEquals(334, cache.size());
+	assertEquals(0, cache.getOverflow());
+	assertEquals(334, present(cache, 0, 1000));
+	// the entries added after the last sweep are all present
+	assertEquals(167, present(cache, 833, 1000));
+}
+/*
+ * Nine of every ten entries cannot be closed: the cache overflows, then shrinks back once they can.
+ */
+public void testUseOverflow() {
+	TestCache cache = new TestCache(500);
+	for (int i = 0; i < 1000; i++) {
+		if (i % 10 != 0)
+			cache.pinned.add(key(i));
+		cache.put(key(i), value(i));
+	}
+	assertEquals(900, cache.size());
+	assertEquals(400, cache.getOverflow());
+	for (int i = 0; i < 1000; i++)
+		if (i % 10 != 0)
+			assertEquals(value(i), cache.get(key(i)));
+
+	cache.pinned.clear();
+	cache.put(key(1000), value(1000));
+	assertEquals(168, cache.size());
+	assertEquals(0, cache.getOverflow());
+	assertTrue(cache.shrink());
+}
+/*
+ * The entries read since the last sweep are kept when the cache makes space, the ones only peeked at are not.
+ */
+public void testSecondChance() {
+	TestCache cache = new TestCache(500, 0.75); // reclaims 125 entries when full
+	fill(cache, 0, 501);
+	assertEquals(376, cache.size());
+	List<String> read = new ArrayList<String>();
+	List<String> peeked = new ArrayList<String>();
+	for (int i = 0; i < 500; i++) {
+		if (cache.peek(key(i)) == null)
+			continue;
+		if (read.size() <= peeked.size()) {
+			cache.get(key(i));
+			read.add(key(i));
+		} else {
+			peeked.add(key(i));
+		}
+	}
+	cache.closed.clear();
+	fill(cache, 501, 626);
+	assertEquals(376, cache.size());
+	assertEquals(125, cache.closed.size());
+	assertTrue(peeked.containsAll(cache.closed));
+	for (int i = 0; i < read.size(); i++)
+		assertNotNull(cache.peek(read.get(i)));
+}
+/*
+ * Lowering the space limit closes entries, raising it does not.
+ */
+public void testSetSpaceLimit() {
+	TestCache cache = new TestCache(100);
+	fill(cache, 0, 100);
+	cache.setSpaceLimit(200);
+	assertEquals(200, cache.getSpaceLimit());
+	fill(cache, 100, 200);
+	assertEquals(200, cache.size());
+	assertTrue(cache.closed.isEmpty());
+	cache.setSpaceLimit(50);
+	assertEquals(50, cache.getSpaceLimit());
+	assertTrue(cache.size() <= 50);
+	assertEquals(cache.size(), present(cache, 0, 200));
+}
+/*
+ * Readers never miss an entry which is not removed while a writer fills the cache.
+ */
+public void testConcurrentReads() throws InterruptedException {
+	final TestCache cache = new TestCache(1000);
+	for (int i = 0; i < 10; i++) {
+		cache.put(key(i), value(i));
+		cache.pinned.add(key(i));
+	}
+	final List<String> errors = new ArrayList<String>();
+	Thread[] readers = new Thread[3];
+	final boolean[] done = new boolean[1];
+	for (int t = 0; t < readers.length; t++) {
+		readers[t] = new Thread(new Runnable() {
+			public void run() {
+				while (true) {
+					synchronized (done) {
+						if (done[0]) return;
+					}
+					for (int i = 0; i < 10; i++) {
+						String value = cache.get(key(i));
+						if (!value(i).equals(value)) {
+							synchronized (errors) {
+								errors.add(key(i) + " -> " + value); //$NON-NLS-1$
+							}
+							return;
+						}
+					}
+				}
+			}
+		});
+		readers[t].start();
+	}
+	try {
+		fill(cache, 10, 20000);
+	} finally {
+		synchronized (done) {
+			done[0] = true;
+		}
+		for (int t = 0; t < readers.length; t++)
+			readers[t].join();
+	}
+	assertEquals("[]", errors.toString()); //$NON-NLS-1$
+	assertEquals(0, cache.getOverflow());
+}
+}
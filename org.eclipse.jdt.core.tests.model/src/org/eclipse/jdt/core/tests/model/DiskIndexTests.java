@@ -0,0 +1,520 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.tests.junit.extension.TestCase;
+import org.eclipse.jdt.internal.core.index.DiskIndex;
+import org.eclipse.jdt.internal.core.index.EntryResult;
+import org.eclipse.jdt.internal.core.index.FileIndexLocation;
+import org.eclipse.jdt.internal.core.index.Index;
+import org.eclipse.jdt.internal.core.index.SubtypeGraph;
+import org.eclipse.jdt.internal.core.search.indexing.IIndexConstants;
+
+/**
+ * Tests the queries of disk indexes, which are answered either from the index file mapped in memory
+ * or from its category tables read as a stream (see DiskIndex#MAP_INDEX_FILES).
+ */
+public class DiskIndexTests extends TestCase {
+
+	static final char[][] CATEGORIES = { IIndexConstants.TYPE_DECL, IIndexConstants.METHOD_REF };
+	static final int[] MATCH_RULES = {
+		SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_EXACT_MATCH,
+		SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_PREFIX_MATCH,
+		SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_PATTERN_MATCH,
+		SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_CAMELCASE_MATCH,
+	};
+	static final String[] KEYS = {
+		"Type1", "Type12", "Type", "type1", "Shared", "Pair7", "Pair", "Zzz", "A",
+		"Caf\u00e9", "Caf\u00e93", "\u65e5\u672c", "\u65e5\u672c2",
+		"T", "TX", "P", "*1?", "*\u00e9*", "?air*", "*",
+	};
+
+	// the categories of more than 1000 words are queried through their word gram index (see WordGramIndex#MIN_WORDS)
+	static final String[] GRAM_WORDS = {
+		"HashMap", "HashSet", "Hashtable", "MapEntry", "URLConnection", "XMLHttpRequest", "IOException",
+		"ioUtil", "a_b_C", "$Proxy", "Caf\u00e9Bar", "\u65e5\u672cType",
+	};
+	static final String[] GRAM_KEYS = {
+		"HM", "HaMa", "HashM", "hashm", "Hash", "hash", "H", "h", "HT", "URLC", "URLCo", "UC", "XMLHR", "XHR",
+		"IOE", "IOEx", "IE", "io", "ioU", "iU", "aBC", "a_b", "a_", "$P", "$p", "CB", "Caf\u00e9", "\u65e5\u672cT",
+		"HashMap12", "hashmap12", "HM12", "HashMap1", "ZZ", "zz", "Map",
+		"*Map*", "*map1*", "Hash*1?", "?ash*", "*Ex*ion*", "*\u00e9*", "*Http*", "*ttp*1", "*tp", "H*M*", "*",
+		"*xyz*", "??", "Hash???", "*12*3",
+	};
+	static final int[] GRAM_MATCH_RULES = {
+		SearchPattern.R_EXACT_MATCH,
+		SearchPattern.R_PREFIX_MATCH,
+		SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_PATTERN_MATCH,
+		SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_CAMELCASE_MATCH,
+		SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CASE_SENSITIVE,
+		SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH,
+		SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH | SearchPattern.R_CASE_SENSITIVE,
+	};
+
+	File indexFile;
+	boolean wasMapping;
+	int maxReferences;
+	// the entries of each category, as expected from the index: category -> word -> document names
+	Map<String, Map<String, Set<String>>> entries;
+
+public DiskIndexTests(String name) {
+	super(name);
+}
+public static Test suite() {
+	return buildTestSuite(DiskIndexTests.class);
+}
+protected void setUp() throws Exception {
+	super.setUp();
+	this.indexFile = File.createTempFile("DiskIndexTests", ".index"); //$NON-NLS-1$ //$NON-NLS-2$
+	this.wasMapping = DiskIndex.MAP_INDEX_FILES;
+	this.maxReferences = SubtypeGraph.MAX_REFERENCES;
+	this.entries = new TreeMap<String, Map<String, Set<String>>>();
+}
+protected void tearDown() throws Exception {
+	DiskIndex.MAP_INDEX_FILES = this.wasMapping;
+	SubtypeGraph.MAX_REFERENCES = this.maxReferences;
+	if (!this.indexFile.delete())
+		this.indexFile.deleteOnExit(); // still mapped
+	super.tearDown();
+}
+void addEntry(Index index, char[] category, String word, String documentName) {
+	index.addIndexEntry(category, word.toCharArray(), documentName);
+	String categoryName = new String(category);
+	Map<String, Set<String>> words = this.entries.get(categoryName);
+	if (words == null)
+		this.entries.put(categoryName, words = new TreeMap<String, Set<String>>());
+	Set<String> documentNames = words.get(word);
+	if (documentNames == null)
+		words.put(word, documentNames = new TreeSet<String>());
+	documentNames.add(documentName);
+}
+/*
+ * Adds the entries of the given documents: a word unique to each document, words shared by a few documents,
+ * a word shared by all of them and words whose characters are encoded on 2 and 3 bytes in the index file.
+ */
+void addDocuments(Index index, int start, int end) {
+	for (int i = start; i < end; i++) {
+		String documentName = "p" + (i % 10) + "/X" + i + ".class"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		addEntry(index, IIndexConstants.TYPE_DECL, "Type" + i, documentName); //$NON-NLS-1$
+		addEntry(index, IIndexConstants.TYPE_DECL, "Pair" + (i % 50), documentName); //$NON-NLS-1$
+		addEntry(index, IIndexConstants.TYPE_DECL, "Caf\u00e9" + (i % 7), documentName); //$NON-NLS-1$
+		addEntry(index, IIndexConstants.METHOD_REF, "\u65e5\u672c" + (i % 3), documentName); //$NON-NLS-1$
+		addEntry(index, IIndexConstants.METHOD_REF, "Shared", documentName); //$NON-NLS-1$
+		addEntry(index, IIndexConstants.METHOD_REF, "TypeX" + (i % 20), documentName); //$NON-NLS-1$
+	}
+}
+void removeDocuments(Index index, int start, int end) {
+	for (int i = start; i < end; i++) {
+		String documentName = "p" + (i % 10) + "/X" + i + ".class"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		index.remove(documentName);
+		for (Iterator<Map<String, Set<String>>> categories = this.entries.values().iterator(); categories.hasNext();) {
+			for (Iterator<Set<String>> words = categories.next().values().iterator(); words.hasNext();) {
+				Set<String> documentNames = words.next();
+				documentNames.remove(documentName);
+				if (documentNames.isEmpty())
+					words.remove();
+			}
+		}
+	}
+}
+/*
+ * Adds words of various camel case humps to the TYPE_DECL category, 2 per document.
+ */
+void addGramWords(Index index, int start, int end) {
+	for (int i = start; i < end; i++) {
+		String documentName = "p" + (i % 10) + "/X" + i + ".class"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		addEntry(index, IIndexConstants.TYPE_DECL, GRAM_WORDS[i % GRAM_WORDS.length] + i, documentName);
+		addEntry(index, IIndexConstants.TYPE_DECL, GRAM_WORDS[(i * 7) % GRAM_WORDS.length] + (i % 13) + "Ab", documentName); //$NON-NLS-1$
+	}
+}
+/*
+ * Compares the words answered from the candidates of the word gram index with the words matching the key.
+ */
+void assertGramQueryResults(Index index) throws IOException {
+	assertTrue(this.entries.get(new String(IIndexConstants.TYPE_DECL)).size() > 1000);
+	char[][] categories = { IIndexConstants.TYPE_DECL };
+	for (int i = 0; i < GRAM_KEYS.length; i++) {
+		for (int j = 0; j < GRAM_MATCH_RULES.length; j++) {
+			assertEquals("Entries matching " + GRAM_KEYS[i] + " with rule " + GRAM_MATCH_RULES[j], //$NON-NLS-1$ //$NON-NLS-2$
+				expectedResults(categories, GRAM_KEYS[i], GRAM_MATCH_RULES[j]),
+				queryResults(index, categories, GRAM_KEYS[i], GRAM_MATCH_RULES[j]));
+		}
+	}
+}
+/*
+ * Adds the super type references of the given documents, of the form
+ * superSimpleName/superQualification/simpleName/enclosingTypeName/typeParameters/packageName/superClassOrInterface classOrInterface.
+ */
+void addSuperTypeReferences(Index index, int start, int end, String otherSuperName) {
+	for (int i = start; i < end; i++) {
+		String documentName = "p" + (i % 10) + "/X" + i + ".class"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		String suffix = "/X" + i + "///p" + (i % 10) + "/CC"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		addEntry(index, IIndexConstants.SUPER_REF, "Object/java.lang" + suffix, documentName); //$NON-NLS-1$
+		addEntry(index, IIndexConstants.SUPER_REF, otherSuperName + (i % 5) + "/p" + suffix, documentName); //$NON-NLS-1$
+		if (i % 3 == 0)
+			addEntry(index, IIndexConstants.SUPER_REF, "Runnable/java.lang" + suffix.replace("CC", "IC"), documentName); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
+String expectedSuperTypeReferences(String superSimpleName) {
+	Map<String, Set<String>> results = new TreeMap<String, Set<String>>();
+	Map<String, Set<String>> words = this.entries.get(new String(IIndexConstants.SUPER_REF));
+	for (Iterator<Map.Entry<String, Set<String>>> iterator = words.entrySet().iterator(); iterator.hasNext();) {
+		Map.Entry<String, Set<String>> entry = iterator.next();
+		if (superSimpleName == null || entry.getKey().startsWith(superSimpleName + '/'))
+			results.put(entry.getKey(), entry.getValue());
+	}
+	return toString(results);
+}
+String querySuperTypeReferences(Index index, String superSimpleName) throws IOException {
+	Map<String, Set<String>> results = new TreeMap<String, Set<String>>();
+	index.startQuery();
+	try {
+		EntryResult[] entryResults = index.querySuperTypeReferences(superSimpleName == null ? null : superSimpleName.toCharArray());
+		if (entryResults != null) {
+			for (int i = 0; i < entryResults.length; i++) {
+				String word = new String(entryResults[i].getWord());
+				assertFalse("Duplicate result " + word, results.containsKey(word)); //$NON-NLS-1$
+				results.put(word, new TreeSet<String>(Arrays.asList(entryResults[i].getDocumentNames(index))));
+			}
+		}
+	} finally {
+		index.stopQuery();
+	}
+	return toString(results);
+}
+void assertSuperTypeReferences(Index index) throws IOException {
+	String[] superSimpleNames = { "Object", "Runnable", "Base0", "Base4", "Other2", "Base", "Missing", null }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+	for (int i = 0; i < superSimpleNames.length; i++)
+		assertEquals("Super type references to " + superSimpleNames[i], //$NON-NLS-1$
+			expectedSuperTypeReferences(superSimpleNames[i]),
+			querySuperTypeReferences(index, superSimpleNames[i]));
+}
+Index createIndex(int documentCount) throws IOException {
+	Index index = new Index(new FileIndexLocation(this.indexFile), "/P", false); //$NON-NLS-1$
+	addDocuments(index, 0, documentCount);
+	index.save();
+	return index;
+}
+Index readIndex(boolean mapped) throws IOException {
+	DiskIndex.MAP_INDEX_FILES = mapped;
+	return new Index(new FileIndexLocation(this.indexFile), "/P", true); //$NON-NLS-1$
+}
+String expectedResults(char[][] categories, String key, int matchRule) {
+	Map<String, Set<String>> results = new TreeMap<String, Set<String>>();
+	for (int i = 0; i < categories.length; i++) {
+		Map<String, Set<String>> words = this.entries.get(new String(categories[i]));
+		if (words == null) continue;
+		for (Iterator<Map.Entry<String, Set<String>>> iterator = words.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, Set<String>> entry = iterator.next();
+			if (key == null || Index.isMatch(key.toCharArray(), entry.getKey().toCharArray(), matchRule)) {
+				Set<String> documentNames = results.get(entry.getKey());
+				if (documentNames == null)
+					results.put(entry.getKey(), documentNames = new TreeSet<String>());
+				documentNames.addAll(entry.getValue());
+			}
+		}
+	}
+	return toString(results);
+}
+String queryResults(Index index, char[][] categories, String key, int matchRule) throws IOException {
+	Map<String, Set<String>> results = new TreeMap<String, Set<String>>();
+	index.startQuery();
+	try {
+		EntryResult[] entryResults = index.query(categories, key == null ? null : key.toCharArray(), matchRule);
+		if (entryResults != null) {
+			for (int i = 0; i < entryResults.length; i++) {
+				String word = new String(entryResults[i].getWord());
+				assertFalse("Duplicate result " + word, results.containsKey(word)); //$NON-NLS-1$
+				results.put(word, new TreeSet<String>(Arrays.asList(entryResults[i].getDocumentNames(index))));
+			}
+		}
+	} finally {
+		index.stopQuery();
+	}
+	return toString(results);
+}
+String toString(Map<String, Set<String>> results) {
+	StringBuffer buffer = new StringBuffer();
+	for (Iterator<Map.Entry<String, Set<String>>> iterator = results.entrySet().iterator(); iterator.hasNext();) {
+		Map.Entry<String, Set<String>> entry = iterator.next();
+		buffer.append(entry.getKey()).append(" -> ").append(entry.getValue()).append('\n'); //$NON-NLS-1$
+	}
+	return buffer.toString();
+}
+void assertQueryResults(Index index) throws IOException {
+	char[][][] categoryGroups = { CATEGORIES, { CATEGORIES[0] }, { CATEGORIES[1] }, { IIndexConstants.FIELD_DECL } };
+	for (int i = 0; i < categoryGroups.length; i++) {
+		char[][] categories = categoryGroups[i];
+		assertEquals("All entries of " + new String(categories[0]), //$NON-NLS-1$
+			expectedResults(categories, null, SearchPattern.R_EXACT_MATCH),
+			queryResults(index, categories, null, SearchPattern.R_EXACT_MATCH));
+		for (int j = 0; j < KEYS.length; j++) {
+			for (int k = 0; k < MATCH_RULES.length; k++) {
+				assertEquals("Entries of " + new String(categories[0]) + " matching " + KEYS[j] + " with rule " + MATCH_RULES[k], //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					expectedResults(categories, KEYS[j], MATCH_RULES[k]),
+					queryResults(index, categories, KEYS[j], MATCH_RULES[k]));
+			}
+		}
+	}
+}
+/*
+ * Less than 128 documents are referenced on a single byte.
+ */
+public void testMappedQueries1() throws IOException {
+	createIndex(100);
+	assertQueryResults(readIndex(true));
+}
+/*
+ * Documents are referenced on 2 bytes and the documents of the shared word are written before the category table.
+ */
+public void testMappedQueries2() throws IOException {
+	createIndex(600);
+	assertQueryResults(readIndex(true));
+}
+public void testMappedQueriesAfterMerge() throws IOException {
+	Index index = createIndex(600);
+	addDocuments(index, 600, 700);
+	removeDocuments(index, 100, 300);
+	index.save();
+	assertQueryResults(readIndex(true));
+}
+public void testMappedQueriesWithChanges() throws IOException {
+	createIndex(300);
+	Index index = readIndex(true);
+	addDocuments(index, 300, 350);
+	removeDocuments(index, 0, 20);
+	// answered from both the mapped file and the memory index
+	assertQueryResults(index);
+}
+public void testStreamedQueries() throws IOException {
+	createIndex(600);
+	assertQueryResults(readIndex(false));
+}
+public void testMappedAndStreamedQueries() throws IOException {
+	createIndex(600);
+	Index mapped = readIndex(true);
+	Index streamed = readIndex(false);
+	for (int i = 0; i < KEYS.length; i++) {
+		for (int j = 0; j < MATCH_RULES.length; j++) {
+			assertEquals("Entries matching " + KEYS[i] + " with rule " + MATCH_RULES[j], //$NON-NLS-1$ //$NON-NLS-2$
+				queryResults(streamed, CATEGORIES, KEYS[i], MATCH_RULES[j]),
+				queryResults(mapped, CATEGORIES, KEYS[i], MATCH_RULES[j]));
+		}
+	}
+}
+/*
+ * The subtype graph read on the first query follows the documents added to and removed from the index.
+ */
+public void testSubtypeGraph() throws IOException {
+	Index index = new Index(new FileIndexLocation(this.indexFile), "/P", false); //$NON-NLS-1$
+	addSuperTypeReferences(index, 0, 300, "Base"); //$NON-NLS-1$
+	index.save();
+	index = readIndex(true);
+	assertSuperTypeReferences(index);
+	addSuperTypeReferences(index, 300, 350, "Base"); //$NON-NLS-1$
+	removeDocuments(index, 0, 20);
+	assertSuperTypeReferences(index);
+	// documents indexed again with other super types
+	removeDocuments(index, 20, 40);
+	addSuperTypeReferences(index, 20, 40, "Other"); //$NON-NLS-1$
+	assertSuperTypeReferences(index);
+	index.save();
+	assertSuperTypeReferences(index);
+	assertSuperTypeReferences(readIndex(true));
+}
+/*
+ * The graphs of the least recently queried indexes are released beyond the maximum number of references,
+ * and read again with the changes of their index.
+ */
+public void testSubtypeGraphRelease() throws IOException {
+	File otherIndexFile = File.createTempFile("DiskIndexTests", ".index"); //$NON-NLS-1$ //$NON-NLS-2$
+	try {
+		Index index = new Index(new FileIndexLocation(this.indexFile), "/P", false); //$NON-NLS-1$
+		addSuperTypeReferences(index, 0, 30, "Base"); //$NON-NLS-1$
+		index.save();
+		Index otherIndex = new Index(new FileIndexLocation(otherIndexFile), "/P", false); //$NON-NLS-1$
+		for (int i = 0; i < 30; i++)
+			otherIndex.addIndexEntry(IIndexConstants.SUPER_REF, ("Object/java.lang/Y" + i + "///q/CC").toCharArray(), "q/Y" + i + ".class"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		otherIndex.save();
+		int references = 30 + 30 + 10; // see addSuperTypeReferences
+		SubtypeGraph.MAX_REFERENCES = references;
+
+		assertSuperTypeReferences(index);
+		assertEquals(references, SubtypeGraph.cachedReferences());
+		assertEquals(30, otherIndex.querySuperTypeReferences("Object".toCharArray()).length); //$NON-NLS-1$
+		assertEquals(30, SubtypeGraph.cachedReferences());
+		// released, then changed
+		addSuperTypeReferences(index, 30, 40, "Base"); //$NON-NLS-1$
+		removeDocuments(index, 0, 5);
+		assertSuperTypeReferences(index);
+		assertEquals(references + 24 - 12, SubtypeGraph.cachedReferences());
+		// cannot release the only graph
+		SubtypeGraph.MAX_REFERENCES = 0;
+		index.reset();
+		otherIndex.querySuperTypeReferences(null);
+		assertEquals(30, SubtypeGraph.cachedReferences());
+	} finally {
+		if (!otherIndexFile.delete())
+			otherIndexFile.deleteOnExit();
+	}
+}
+public void testMappedGramQueries() throws IOException {
+	Index index = new Index(new FileIndexLocation(this.indexFile), "/P", false); //$NON-NLS-1$
+	addGramWords(index, 0, 1100);
+	index.save();
+	assertGramQueryResults(readIndex(true));
+}
+public void testStreamedGramQueries() throws IOException {
+	Index index = new Index(new FileIndexLocation(this.indexFile), "/P", false); //$NON-NLS-1$
+	addGramWords(index, 0, 1100);
+	index.save();
+	assertGramQueryResults(readIndex(false));
+}
+public void testGramQueriesWithChanges() throws IOException {
+	Index index = new Index(new FileIndexLocation(this.indexFile), "/P", false); //$NON-NLS-1$
+	addGramWords(index, 0, 1100);
+	index.save();
+	index = readIndex(true);
+	addGramWords(index, 1100, 1150);
+	removeDocuments(index, 0, 30);
+	// candidates of the mapped file, merged with the memory index
+	assertGramQueryResults(index);
+	index = readIndex(false);
+	addGramWords(index, 1100, 1150);
+	removeDocuments(index, 0, 30);
+	assertGramQueryResults(index);
+}
+void addFieldDeclarations(Index index, int start, int end, String prefix) {
+	for (int i = start; i < end; i++) {
+		String documentName = "p" + (i % 10) + "/X" + i + ".class"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		addEntry(index, IIndexConstants.FIELD_DECL, prefix + (i % 30), documentName);
+	}
+}
+/*
+ * Checks all the entries of all the categories, and the document names.
+ */
+void assertAllEntries(Index index) throws IOException {
+	char[][] categories = { IIndexConstants.TYPE_DECL, IIndexConstants.METHOD_REF, IIndexConstants.FIELD_DECL, IIndexConstants.SUPER_REF };
+	for (int i = 0; i < categories.length; i++) {
+		assertEquals("All entries of " + new String(categories[i]), //$NON-NLS-1$
+			expectedResults(new char[][] { categories[i] }, null, SearchPattern.R_EXACT_MATCH),
+			queryResults(index, new char[][] { categories[i] }, null, SearchPattern.R_EXACT_MATCH));
+	}
+	Set<String> documentNames = new TreeSet<String>();
+	for (Iterator<Map<String, Set<String>>> words = this.entries.values().iterator(); words.hasNext();)
+		for (Iterator<Set<String>> names = words.next().values().iterator(); names.hasNext();)
+			documentNames.addAll(names.next());
+	String[] names = index.queryDocumentNames(null);
+	assertEquals(documentNames.toString(), new TreeSet<String>(names == null ? Arrays.<String>asList() : Arrays.asList(names)).toString());
+}
+/*
+ * A category which is only in the memory index is written after the ones of the file.
+ */
+public void testMergeNewCategories() throws IOException {
+	Index index = createIndex(300);
+	addFieldDeclarations(index, 300, 400, "field"); //$NON-NLS-1$
+	addSuperTypeReferences(index, 350, 450, "Base"); //$NON-NLS-1$
+	index.save();
+	assertAllEntries(index);
+	assertQueryResults(readIndex(true));
+	assertAllEntries(readIndex(false));
+}
+/*
+ * A category whose documents are all removed no longer has entries, the other categories keep theirs.
+ */
+public void testMergeRemovedCategory() throws IOException {
+	Index index = createIndex(300);
+	addFieldDeclarations(index, 300, 320, "field"); //$NON-NLS-1$
+	index.save();
+	removeDocuments(index, 300, 320);
+	index.save();
+	assertTrue(this.entries.get(new String(IIndexConstants.FIELD_DECL)).isEmpty());
+	assertAllEntries(index);
+	assertQueryResults(readIndex(true));
+}
+/*
+ * Documents indexed again with words of other categories: their old words are dropped from all the categories.
+ */
+public void testMergeChangedDocuments() throws IOException {
+	Index index = new Index(new FileIndexLocation(this.indexFile), "/P", false); //$NON-NLS-1$
+	addDocuments(index, 0, 600);
+	addFieldDeclarations(index, 0, 600, "field"); //$NON-NLS-1$
+	index.save();
+	removeDocuments(index, 100, 400);
+	addFieldDeclarations(index, 100, 250, "other"); //$NON-NLS-1$
+	addSuperTypeReferences(index, 250, 400, "Base"); //$NON-NLS-1$
+	index.save();
+	assertAllEntries(index);
+	assertQueryResults(readIndex(true));
+	assertQueryResults(readIndex(false));
+}
+/*
+ * Merging changes into an index file answers the same entries as writing the final documents at once.
+ */
+public void testMergeEqualsRebuild() throws IOException {
+	Index index = new Index(new FileIndexLocation(this.indexFile), "/P", false); //$NON-NLS-1$
+	addDocuments(index, 0, 600);
+	addFieldDeclarations(index, 0, 300, "field"); //$NON-NLS-1$
+	index.save();
+	addDocuments(index, 600, 800);
+	removeDocuments(index, 50, 150);
+	index.save();
+	removeDocuments(index, 700, 750);
+	// indexed again
+	removeDocuments(index, 0, 40);
+	addDocuments(index, 0, 40);
+	addSuperTypeReferences(index, 0, 40, "Base"); //$NON-NLS-1$
+	index.save();
+	index = readIndex(true);
+	File rebuiltFile = File.createTempFile("DiskIndexTests", ".index"); //$NON-NLS-1$ //$NON-NLS-2$
+	try {
+		Index rebuilt = new Index(new FileIndexLocation(rebuiltFile), "/P", false); //$NON-NLS-1$
+		for (Iterator<Map.Entry<String, Map<String, Set<String>>>> categories = this.entries.entrySet().iterator(); categories.hasNext();) {
+			Map.Entry<String, Map<String, Set<String>>> category = categories.next();
+			for (Iterator<Map.Entry<String, Set<String>>> words = category.getValue().entrySet().iterator(); words.hasNext();) {
+				Map.Entry<String, Set<String>> word = words.next();
+				for (Iterator<String> names = word.getValue().iterator(); names.hasNext();)
+					rebuilt.addIndexEntry(category.getKey().toCharArray(), word.getKey().toCharArray(), names.next());
+			}
+		}
+		rebuilt.save();
+		assertEquals(rebuiltFile.length(), this.indexFile.length());
+		char[][] categories = { IIndexConstants.TYPE_DECL, IIndexConstants.METHOD_REF, IIndexConstants.FIELD_DECL, IIndexConstants.SUPER_REF };
+		for (int i = 0; i < categories.length; i++)
+			for (int j = 0; j < KEYS.length; j++)
+				assertEquals("Entries of " + new String(categories[i]) + " matching " + KEYS[j], //$NON-NLS-1$ //$NON-NLS-2$
+					queryResults(rebuilt, new char[][] { categories[i] }, KEYS[j], SearchPattern.R_PATTERN_MATCH),
+					queryResults(index, new char[][] { categories[i] }, KEYS[j], SearchPattern.R_PATTERN_MATCH));
+		assertAllEntries(index);
+	} finally {
+		if (!rebuiltFile.delete())
+			rebuiltFile.deleteOnExit();
+	}
+}
+}
@@ -2769,4 +2769,52 @@ public class JavaSearchBugsTests2 extends AbstractJavaSearchTests {
 			deleteProject("P");
 		}
 	}
+	private int searchAllTypeNames(IJavaSearchScope scope, int maxMatches) throws JavaModelException {
+		TypeNameMatchCollector collector = new TypeNameMatchCollector();
+		new SearchEngine(this.workingCopies).searchAllTypeNames(
+				null, SearchPattern.R_EXACT_MATCH,
+				"Limited".toCharArray(), SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE,
+				IJavaSearchConstants.TYPE, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, maxMatches, null);
+		return collector.size();
+	}
+	/*
+	 * searchAllTypeNames stops once the maximum number of matches is reported, a value <= 0 meaning no limit.
+	 */
+	public void testSearchAllTypeNamesMaxMatches() throws Exception {
+		try {
+			IJavaProject p1 = createJavaProject("P1", new String[] {"src"}, new String[] {"JCL15_LIB"}, "bin", "1.5");
+			IJavaProject p2 = createJavaProject("P2", new String[] {"src"}, new String[] {"JCL15_LIB"}, "bin", "1.5");
+			createFolder("/P1/src/p");
+			createFolder("/P2/src/q");
+			for (int i = 0; i < 3; i++) {
+				createFile("/P1/src/p/Limited" + i + ".java", "package p;\npublic class Limited" + i + " {}\n");
+				createFile("/P2/src/q/Limited" + (i + 3) + ".java", "package q;\npublic class Limited" + (i + 3) + " {}\n");
+			}
+			createFile("/P1/src/p/Other.java", "package p;\npublic class Other {}\n");
+			waitUntilIndexesReady();
+			IJavaSearchScope scope = SearchEngine.createJavaSearchScope(new IJavaElement[] { p1, p2 });
+			// stops in the index of the first project, and after it
+			assertEquals(1, searchAllTypeNames(scope, 1));
+			assertEquals(2, searchAllTypeNames(scope, 2));
+			assertEquals(3, searchAllTypeNames(scope, 3));
+			assertEquals(4, searchAllTypeNames(scope, 4));
+			assertEquals(6, searchAllTypeNames(scope, 6));
+			assertEquals(6, searchAllTypeNames(scope, 7));
+			// no limit
+			assertEquals(6, searchAllTypeNames(scope, 0));
+			assertEquals(6, searchAllTypeNames(scope, -1));
+			assertEquals(6, searchAllTypeNames(scope, Integer.MIN_VALUE));
+			// the matches of the working copies are counted too
+			this.workingCopies = new ICompilationUnit[] {
+				getWorkingCopy("/P1/src/p/Limited6.java", "package p;\npublic class Limited6 {}\n")
+			};
+			assertEquals(7, searchAllTypeNames(scope, 0));
+			assertEquals(7, searchAllTypeNames(scope, 7));
+			assertEquals(6, searchAllTypeNames(scope, 6));
+			assertEquals(5, searchAllTypeNames(scope, 5));
+		} finally {
+			deleteProject("P1");
+			deleteProject("P2");
+		}
+	}
 }
\ No newline at end of file
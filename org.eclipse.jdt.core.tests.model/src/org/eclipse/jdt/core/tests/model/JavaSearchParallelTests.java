@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.search.*;
+import org.eclipse.jdt.core.tests.model.AbstractJavaSearchTests.JavaSearchResultCollector;
+import org.eclipse.jdt.internal.core.search.JavaSearchDocument;
+import org.eclipse.jdt.internal.core.search.JavaSearchParticipant;
+import org.eclipse.jdt.internal.core.search.matching.MatchLocator;
+
+/**
+ * Tests the Java search engine when the matches are located on several threads
+ * (see {@link MatchLocator#SEARCH_THREADS_PROPERTY}).
+ * <p>
+ * Each of the projects P2 and P3 holds enough units referencing the types of P1 to be located
+ * in several batches of {@link MatchLocator#MAX_AT_ONCE} units, so that the workers locate
+ * batches of both projects at the same time.
+ * </p>
+ */
+public class JavaSearchParallelTests extends ModifyingResourceTests implements IJavaSearchConstants {
+
+	static final int THREADS = 4;
+	static final int UNITS = MatchLocator.MAX_AT_ONCE * 2 + MatchLocator.MAX_AT_ONCE / 2;
+
+	IJavaProject[] projects;
+
+/*
+ * Collects the matches as a string, and checks that the matches are always reported on the thread of the search,
+ * one at a time.
+ */
+static class ThreadCheckingCollector extends JavaSearchResultCollector {
+	final Thread searchThread = Thread.currentThread();
+	boolean accepting;
+	String failure;
+	ThreadCheckingCollector() {
+		showProject();
+		showAccuracy(true);
+	}
+	public void acceptSearchMatch(SearchMatch searchMatch) throws CoreException {
+		if (Thread.currentThread() != this.searchThread && this.failure == null)
+			this.failure = "Match reported on " + Thread.currentThread().getName();
+		if (this.accepting && this.failure == null)
+			this.failure = "Match reported concurrently";
+		this.accepting = true;
+		try {
+			super.acceptSearchMatch(searchMatch);
+		} finally {
+			this.accepting = false;
+		}
+	}
+}
+
+/*
+ * Fails to read the contents of the given unit, as a failing batch would do.
+ */
+static class FailingParticipant extends JavaSearchParticipant {
+	final String failingPath;
+	FailingParticipant(String failingPath) {
+		this.failingPath = failingPath;
+	}
+	public SearchDocument getDocument(String documentPath) {
+		if (!documentPath.equals(this.failingPath))
+			return super.getDocument(documentPath);
+		return new JavaSearchDocument(documentPath, this) {
+			public char[] getCharContents() {
+				throw new IllegalStateException("Cannot read " + getPath());
+			}
+		};
+	}
+}
+
+public JavaSearchParallelTests(String name) {
+	super(name);
+}
+public static Test suite() {
+	return buildModelTestSuite(JavaSearchParallelTests.class);
+}
+// Use this static initializer to specify subset for tests
+// All specified tests which do not belong to the class are skipped...
+static {
+//	TESTS_NAMES = new String[] { "testCancel" };
+}
+
+public void setUpSuite() throws Exception {
+	super.setUpSuite();
+	getWorkspace().run(new IWorkspaceRunnable() {
+		public void run(IProgressMonitor monitor) throws CoreException {
+			IJavaProject p1 = createJavaProject("P1", new String[] {"src"}, new String[] {"JCL_LIB"}, "bin");
+			createFolder("/P1/src/p1");
+			createFile(
+				"/P1/src/p1/Target.java",
+				"package p1;\n" +
+				"public class Target {\n" +
+				"	public Target next;\n" +
+				"	public Target bar() { return this.next; }\n" +
+				"}"
+			);
+			createFile(
+				"/P1/src/p1/Generic.java",
+				"package p1;\n" +
+				"public class Generic<T extends Target> {\n" +
+				"	public T get(T t) { return t; }\n" +
+				"}"
+			);
+			JavaSearchParallelTests.this.projects = new IJavaProject[] {
+				p1,
+				createProject("P2", "p2"),
+				createProject("P3", "p3")
+			};
+		}
+	}, null);
+	waitUntilIndexesReady();
+}
+IJavaProject createProject(String name, String packageName) throws CoreException {
+	IJavaProject project = createJavaProject(name, new String[] {"src"}, new String[] {"JCL_LIB"}, new String[] {"/P1"}, "bin");
+	createFolder("/" + name + "/src/" + packageName);
+	for (int i = 0; i < UNITS; i++) {
+		String unitName = unitName(i);
+		createFile(
+			"/" + name + "/src/" + packageName + "/" + unitName + ".java",
+			"package " + packageName + ";\n" +
+			"import p1.*;\n" +
+			"public class " + unitName + " extends Target {\n" +
+			"	Generic<" + unitName + "> generic;\n" +
+			"	Target foo(Target t) {\n" +
+			"		return this.generic.get(this).bar() == t ? new Target() : t.next;\n" +
+			"	}\n" +
+			"}"
+		);
+	}
+	return project;
+}
+String unitName(int i) {
+	String index = "000" + i;
+	return "X" + index.substring(index.length() - 4);
+}
+public void tearDownSuite() throws Exception {
+	deleteProject("P3");
+	deleteProject("P2");
+	deleteProject("P1");
+	super.tearDownSuite();
+}
+
+/*
+ * Searches on the given number of threads.
+ */
+void search(SearchPattern pattern, SearchParticipant participant, SearchRequestor requestor, IProgressMonitor monitor, int threads) throws CoreException {
+	String previous = System.getProperty(MatchLocator.SEARCH_THREADS_PROPERTY);
+	System.setProperty(MatchLocator.SEARCH_THREADS_PROPERTY, String.valueOf(threads));
+	try {
+		new SearchEngine().search(
+			pattern,
+			new SearchParticipant[] {participant},
+			SearchEngine.createJavaSearchScope(this.projects),
+			requestor,
+			monitor);
+	} finally {
+		if (previous == null)
+			System.clearProperty(MatchLocator.SEARCH_THREADS_PROPERTY);
+		else
+			System.setProperty(MatchLocator.SEARCH_THREADS_PROPERTY, previous);
+		assertNoSearchWorker();
+	}
+}
+void assertNoSearchWorker() {
+	for (Thread thread : Thread.getAllStackTraces().keySet()) {
+		if (thread.isAlive() && thread.getName().startsWith("Java Search Worker"))
+			fail("Search worker still running: " + thread.getName());
+	}
+}
+/*
+ * Ensures that the matches found on several threads and their order are the same as on a single thread.
+ */
+void assertSameMatches(SearchPattern pattern, int expectedCount) throws CoreException {
+	ThreadCheckingCollector expected = new ThreadCheckingCollector();
+	search(pattern, SearchEngine.getDefaultSearchParticipant(), expected, null, 1);
+	assertEquals("Unexpected number of matches", expectedCount, expected.count);
+
+	ThreadCheckingCollector actual = new ThreadCheckingCollector();
+	search(pattern, SearchEngine.getDefaultSearchParticipant(), actual, null, THREADS);
+	assertNull(actual.failure, actual.failure);
+	assertEquals("Unexpected matches", expected.toString(), actual.toString());
+}
+
+public void testTypeReferences() throws CoreException {
+	SearchPattern pattern = SearchPattern.createPattern(this.projects[0].findType("p1.Target"), REFERENCES);
+	// P1 references Target 3 times and each unit 4 times
+	assertSameMatches(pattern, 3 + UNITS * 2 * 4);
+}
+public void testMethodReferences() throws CoreException {
+	SearchPattern pattern = SearchPattern.createPattern("bar", METHOD, REFERENCES, SearchPattern.R_EXACT_MATCH);
+	assertSameMatches(pattern, UNITS * 2);
+}
+public void testFieldReferences() throws CoreException {
+	SearchPattern pattern = SearchPattern.createPattern(this.projects[0].findType("p1.Target").getField("next"), REFERENCES);
+	assertSameMatches(pattern, 1 + UNITS * 2);
+}
+public void testGenericMethodReferences() throws CoreException {
+	SearchPattern pattern = SearchPattern.createPattern(this.projects[0].findType("p1.Generic").getMethods()[0], REFERENCES);
+	assertSameMatches(pattern, UNITS * 2);
+}
+public void testMethodDeclarations() throws CoreException {
+	SearchPattern pattern = SearchPattern.createPattern("foo", METHOD, DECLARATIONS, SearchPattern.R_EXACT_MATCH);
+	assertSameMatches(pattern, UNITS * 2);
+}
+/*
+ * Ensures that canceling a search on several threads stops the workers, and that the matches reported
+ * before the cancellation are the first matches of a search on a single thread.
+ */
+public void testCancel() throws CoreException {
+	SearchPattern pattern = SearchPattern.createPattern(this.projects[0].findType("p1.Target"), REFERENCES);
+	ThreadCheckingCollector expected = new ThreadCheckingCollector();
+	search(pattern, SearchEngine.getDefaultSearchParticipant(), expected, null, 1);
+
+	final NullProgressMonitor monitor = new NullProgressMonitor();
+	ThreadCheckingCollector actual = new ThreadCheckingCollector() {
+		public void acceptSearchMatch(SearchMatch searchMatch) throws CoreException {
+			super.acceptSearchMatch(searchMatch);
+			// cancel while the matches of the first batch of P2 are reported and the workers locate the next batches
+			if (this.count == MatchLocator.MAX_AT_ONCE)
+				monitor.setCanceled(true);
+		}
+	};
+	try {
+		search(pattern, SearchEngine.getDefaultSearchParticipant(), actual, monitor, THREADS);
+		fail("Should throw an OperationCanceledException");
+	} catch (OperationCanceledException e) {
+		// expected
+	}
+	assertNull(actual.failure, actual.failure);
+	assertTrue("Should report the matches of the first batches", actual.count >= MatchLocator.MAX_AT_ONCE);
+	assertTrue("Should not report all the matches", actual.count < expected.count);
+	String actualMatches = actual.toString();
+	assertTrue("Unexpected matches", expected.toString().startsWith(actualMatches));
+}
+/*
+ * Ensures that the failure of a batch located on a worker is rethrown by the search once the matches of the
+ * previous batches are reported, as on a single thread, and that the workers are stopped.
+ */
+public void testFailingBatch() throws CoreException {
+	// the first unit of the second batch of P3, the units of a project are located in the order of their paths
+	String failingPath = "/P3/src/p3/" + unitName(MatchLocator.MAX_AT_ONCE) + ".java";
+	SearchPattern pattern = SearchPattern.createPattern(this.projects[0].findType("p1.Target"), REFERENCES);
+	ThreadCheckingCollector expected = new ThreadCheckingCollector();
+	String expectedFailure = null;
+	try {
+		search(pattern, new FailingParticipant(failingPath), expected, null, 1);
+	} catch (IllegalStateException e) {
+		expectedFailure = e.getMessage();
+	}
+	assertEquals("Unexpected failure", "Cannot read " + failingPath, expectedFailure);
+
+	ThreadCheckingCollector actual = new ThreadCheckingCollector();
+	String actualFailure = null;
+	try {
+		search(pattern, new FailingParticipant(failingPath), actual, null, THREADS);
+	} catch (IllegalStateException e) {
+		actualFailure = e.getMessage();
+	}
+	assertEquals("Unexpected failure", expectedFailure, actualFailure);
+	assertNull(actual.failure, actual.failure);
+	assertEquals("Unexpected number of matches", 3 + (UNITS + MatchLocator.MAX_AT_ONCE) * 4, actual.count);
+	assertEquals("Unexpected matches", expected.toString(), actual.toString());
+}
+}
@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Test;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.tests.junit.extension.TestCase;
+import org.eclipse.jdt.internal.core.search.processing.IJob;
+import org.eclipse.jdt.internal.core.search.processing.JobManager;
+
+/**
+ * Tests the execution of the jobs of a job manager on several threads.
+ */
+public class JobManagerTests extends TestCase {
+
+	static final int THREADS = 3;
+
+	TestJobManager manager;
+	// the events of the jobs, in the order they happened
+	List<String> events;
+
+	class TestJobManager extends JobManager {
+		protected boolean canRunConcurrently(IJob job) {
+			return ((TestJob) job).concurrent;
+		}
+		protected int getParallelism() {
+			return THREADS;
+		}
+		public String processName() {
+			return "Test jobs"; //$NON-NLS-1$
+		}
+	}
+
+	class TestJob implements IJob {
+		String family;
+		String name;
+		boolean concurrent;
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch completed = new CountDownLatch(1);
+		CountDownLatch release; // blocks the execution until counted down, if not null
+		volatile boolean canceled;
+
+		TestJob(String family, String name, boolean concurrent) {
+			this.family = family;
+			this.name = name;
+			this.concurrent = concurrent;
+		}
+		public boolean belongsTo(String jobFamily) {
+			return this.family.equals(jobFamily);
+		}
+		public void cancel() {
+			this.canceled = true;
+			if (this.release != null)
+				this.release.countDown();
+		}
+		public void ensureReadyToRun() {
+			// always ready
+		}
+		public boolean execute(IProgressMonitor progress) {
+			addEvent("start " + this.name); //$NON-NLS-1$
+			this.started.countDown();
+			try {
+				if (this.release != null)
+					this.release.await();
+				else
+					Thread.sleep(5);
+			} catch (InterruptedException e) {
+				// ignore
+			}
+			addEvent("end " + this.name); //$NON-NLS-1$
+			this.completed.countDown();
+			return COMPLETE;
+		}
+		public String getJobFamily() {
+			return this.family;
+		}
+		public String toString() {
+			return this.name;
+		}
+	}
+
+public JobManagerTests(String name) {
+	super(name);
+}
+public static Test suite() {
+	return buildTestSuite(JobManagerTests.class);
+}
+protected void setUp() throws Exception {
+	super.setUp();
+	this.events = new ArrayList<String>();
+	this.manager = new TestJobManager();
+	this.manager.reset(); // starts the threads
+}
+protected void tearDown() throws Exception {
+	this.manager.shutdown();
+	super.tearDown();
+}
+synchronized void addEvent(String event) {
+	this.events.add(event);
+}
+synchronized int indexOf(String event) {
+	int index = this.events.indexOf(event);
+	assertTrue("Missing event " + event + " in " + this.events, index >= 0); //$NON-NLS-1$ //$NON-NLS-2$
+	return index;
+}
+TestJob request(String family, String name, boolean concurrent, boolean blocked) {
+	TestJob job = new TestJob(family, name, concurrent);
+	if (blocked)
+		job.release = new CountDownLatch(1);
+	this.manager.request(job);
+	return job;
+}
+void await(CountDownLatch latch) throws InterruptedException {
+	assertTrue("Timeout", latch.await(10, TimeUnit.SECONDS)); //$NON-NLS-1$
+}
+/*
+ * Waits until all the awaiting jobs have been executed, as a search does before querying the indexes.
+ */
+void waitUntilReady() {
+	TestJob search = new TestJob("search", "search", false); //$NON-NLS-1$ //$NON-NLS-2$
+	assertTrue(this.manager.performConcurrentJob(search, IJob.WaitUntilReady, null));
+	assertEquals(0, this.manager.awaitingJobsCount());
+}
+/*
+ * Jobs of different families are executed concurrently, the ones of a family in the order they were requested.
+ */
+public void testConcurrentJobs() throws InterruptedException {
+	TestJob a1 = request("A", "a1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	request("A", "a2", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	TestJob b1 = request("B", "b1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	request("B", "b2", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	request("C", "c1", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	// a1 and b1 are both executing
+	await(a1.started);
+	await(b1.started);
+	b1.release.countDown();
+	a1.release.countDown();
+	waitUntilReady();
+	assertTrue(indexOf("end a1") < indexOf("start a2")); //$NON-NLS-1$ //$NON-NLS-2$
+	assertTrue(indexOf("end b1") < indexOf("start b2")); //$NON-NLS-1$ //$NON-NLS-2$
+	indexOf("end c1"); //$NON-NLS-1$
+}
+/*
+ * A job which cannot run concurrently starts once the previous jobs have completed, and the following ones after it.
+ */
+public void testNonConcurrentJob() throws InterruptedException {
+	TestJob a1 = request("A", "a1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	request("B", "b1", false, false); //$NON-NLS-1$ //$NON-NLS-2$
+	request("C", "c1", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	await(a1.started);
+	Thread.sleep(100);
+	assertEquals("[start a1]", this.events.toString()); //$NON-NLS-1$
+	a1.release.countDown();
+	waitUntilReady();
+	assertEquals("[start a1, end a1, start b1, end b1, start c1, end c1, start search, end search]", this.events.toString()); //$NON-NLS-1$
+}
+/*
+ * Jobs completed before the first awaiting one are no longer counted.
+ */
+public void testAwaitingJobsCount() throws InterruptedException {
+	TestJob a1 = request("A", "a1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	TestJob b1 = request("B", "b1", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	TestJob a2 = request("A", "a2", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	await(b1.completed);
+	Thread.sleep(100); // b1 is removed from the queue once its thread has recorded its completion
+	assertEquals(2, this.manager.awaitingJobsCount());
+	assertSame(a1, this.manager.currentJob());
+	a1.release.countDown();
+	await(a2.completed);
+	waitUntilReady();
+}
+/*
+ * Discarding a family cancels and waits for its executing jobs, and removes its awaiting ones.
+ */
+public void testDiscardJobs() throws InterruptedException {
+	TestJob a1 = request("A", "a1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	TestJob a2 = request("A", "a2", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	TestJob b1 = request("B", "b1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	TestJob b2 = request("B", "b2", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	await(a1.started);
+	await(b1.started);
+	this.manager.discardJobs("A"); //$NON-NLS-1$
+	assertTrue(a1.canceled);
+	assertTrue(a2.canceled);
+	assertEquals(0, a1.completed.getCount());
+	assertFalse(b1.canceled);
+	assertEquals(2, this.manager.awaitingJobsCount());
+	b1.release.countDown();
+	await(b2.completed);
+	waitUntilReady();
+	assertFalse(this.events.contains("start a2")); //$NON-NLS-1$
+	assertFalse(b2.canceled);
+}
+/*
+ * Discarding all jobs leaves an empty queue, which accepts new jobs.
+ */
+public void testDiscardAllJobs() throws InterruptedException {
+	TestJob a1 = request("A", "a1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	request("B", "b1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	request("A", "a2", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	await(a1.started);
+	this.manager.discardJobs(null);
+	assertEquals(0, this.manager.awaitingJobsCount());
+	assertNull(this.manager.currentJob());
+	TestJob c1 = request("C", "c1", true, false); //$NON-NLS-1$ //$NON-NLS-2$
+	await(c1.completed);
+	waitUntilReady();
+}
+/*
+ * A task helping a job is run by the worker threads without job to execute, never by more threads than requested.
+ */
+public void testRequestHelp() throws InterruptedException {
+	final CountDownLatch helped = new CountDownLatch(THREADS - 1);
+	final CountDownLatch release = new CountDownLatch(1);
+	final List<String> helpers = new ArrayList<String>();
+	Runnable task = new Runnable() {
+		public void run() {
+			synchronized (helpers) {
+				helpers.add(Thread.currentThread().getName());
+			}
+			helped.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				// ignore
+			}
+		}
+	};
+	// the processing thread does not help
+	assertEquals(THREADS - 1, this.manager.requestHelp(task, 10));
+	await(helped);
+	assertEquals(THREADS - 1, new HashSet<String>(helpers).size());
+	release.countDown();
+	waitUntilReady();
+	assertEquals(THREADS - 1, helpers.size());
+	// the task is no longer run once withdrawn
+	TestJob b1 = request("B", "b1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	TestJob c1 = request("C", "c1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	TestJob d1 = request("D", "d1", true, true); //$NON-NLS-1$ //$NON-NLS-2$
+	await(b1.started);
+	await(c1.started);
+	await(d1.started);
+	assertEquals(THREADS - 1, this.manager.requestHelp(task, THREADS - 1));
+	this.manager.withdrawHelp(task);
+	b1.release.countDown();
+	c1.release.countDown();
+	d1.release.countDown();
+	waitUntilReady();
+	assertEquals(THREADS - 1, helpers.size());
+}
+/*
+ * Many jobs completing out of order: the queue keeps growing and shrinking without losing any of them.
+ */
+public void testManyJobs() throws InterruptedException {
+	int families = 7;
+	List<TestJob> jobs = new ArrayList<TestJob>();
+	for (int i = 0; i < 300; i++)
+		jobs.add(request("F" + (i % families), "j" + i, i % 50 != 0, false)); //$NON-NLS-1$ //$NON-NLS-2$
+	waitUntilReady();
+	for (int i = 0; i < jobs.size(); i++) {
+		assertEquals(0, jobs.get(i).completed.getCount());
+		if (i >= families)
+			assertTrue(indexOf("end j" + (i - families)) < indexOf("start j" + i)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import junit.framework.Test;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.tests.junit.extension.TestCase;
+import org.eclipse.jdt.internal.core.builder.NameFilter;
+
+/**
+ * Tests the Bloom filter of the names of the builder reference collections.
+ */
+public class NameFilterTests extends TestCase {
+
+	static final char[][][] NO_QUALIFIED_NAMES = new char[0][][];
+	static final int[] NO_KEYS = new int[0];
+
+public NameFilterTests(String name) {
+	super(name);
+}
+public static Test suite() {
+	return buildTestSuite(NameFilterTests.class);
+}
+char[][] names(String prefix, int count) {
+	char[][] names = new char[count][];
+	for (int i = 0; i < count; i++)
+		names[i] = (prefix + i).toCharArray();
+	return names;
+}
+char[][][] qualifiedNames(String prefix, int count) {
+	char[][][] names = new char[count][][];
+	for (int i = 0; i < count; i++)
+		names[i] = CharOperation.splitOn('.', ("p" + (i % 10) + '.' + prefix + i).toCharArray()); //$NON-NLS-1$
+	return names;
+}
+int[] simpleKeys(char[][] names) {
+	int[] keys = new int[names.length];
+	for (int i = 0; i < names.length; i++)
+		keys[i] = NameFilter.simpleKey(names[i]);
+	return keys;
+}
+int[] rootKeys(char[][] names) {
+	int[] keys = new int[names.length];
+	for (int i = 0; i < names.length; i++)
+		keys[i] = NameFilter.rootKey(names[i]);
+	return keys;
+}
+int[] qualifiedKeys(char[][][] names) {
+	int[] keys = new int[names.length];
+	for (int i = 0; i < names.length; i++)
+		keys[i] = NameFilter.qualifiedKey(names[i]);
+	return keys;
+}
+boolean mayIncludeSimple(long[] filter, char[] name) {
+	return NameFilter.mayInclude(filter, null, new int[] {NameFilter.simpleKey(name)}, null);
+}
+/*
+ * Every name added to the filter may be included, whatever its kind.
+ */
+public void testNoFalseNegative() {
+	char[][][] qualifiedNames = qualifiedNames("Q", 300); //$NON-NLS-1$
+	char[][] simpleNames = names("S", 500); //$NON-NLS-1$
+	char[][] rootNames = names("r", 20); //$NON-NLS-1$
+	long[] filter = NameFilter.create(qualifiedNames, simpleNames, rootNames);
+	for (int i = 0; i < qualifiedNames.length; i++)
+		assertTrue(CharOperation.toString(qualifiedNames[i]),
+			NameFilter.mayInclude(filter, new int[] {NameFilter.qualifiedKey(qualifiedNames[i])}, null, null));
+	for (int i = 0; i < simpleNames.length; i++)
+		assertTrue(new String(simpleNames[i]), mayIncludeSimple(filter, simpleNames[i]));
+	for (int i = 0; i < rootNames.length; i++)
+		assertTrue(new String(rootNames[i]), NameFilter.mayInclude(filter, null, null, new int[] {NameFilter.rootKey(rootNames[i])}));
+	assertTrue(NameFilter.mayInclude(filter, qualifiedKeys(qualifiedNames), simpleKeys(simpleNames), rootKeys(rootNames)));
+}
+/*
+ * Like the reference collections, the filter must find each kind of names: any of the root names,
+ * any of the simple names and any of the qualified names.
+ */
+public void testAllKindsOfNames() {
+	char[][] simpleNames = names("S", 10); //$NON-NLS-1$
+	char[][] rootNames = names("r", 2); //$NON-NLS-1$
+	char[][][] qualifiedNames = qualifiedNames("Q", 10); //$NON-NLS-1$
+	long[] filter = NameFilter.create(qualifiedNames, simpleNames, rootNames);
+	int[] otherSimpleKeys = simpleKeys(names("Other", 1)); //$NON-NLS-1$
+	int[] otherRootKeys = rootKeys(names("other", 1)); //$NON-NLS-1$
+	int[] otherQualifiedKeys = qualifiedKeys(qualifiedNames("Other", 1)); //$NON-NLS-1$
+	int[] someSimpleKeys = new int[] {otherSimpleKeys[0], NameFilter.simpleKey(simpleNames[3])};
+	assertTrue(NameFilter.mayInclude(filter, qualifiedKeys(qualifiedNames), someSimpleKeys, rootKeys(rootNames)));
+	assertFalse(NameFilter.mayInclude(filter, qualifiedKeys(qualifiedNames), otherSimpleKeys, rootKeys(rootNames)));
+	assertFalse(NameFilter.mayInclude(filter, qualifiedKeys(qualifiedNames), simpleKeys(simpleNames), otherRootKeys));
+	assertFalse(NameFilter.mayInclude(filter, otherQualifiedKeys, simpleKeys(simpleNames), rootKeys(rootNames)));
+	// null keys stand for a well known name, which every collection includes
+	assertTrue(NameFilter.mayInclude(filter, null, null, null));
+	assertTrue(NameFilter.mayInclude(filter, null, simpleKeys(simpleNames), null));
+	// no name at all is never included
+	assertFalse(NameFilter.mayInclude(filter, NO_KEYS, NO_KEYS, NO_KEYS));
+}
+/*
+ * The keys depend on the kind of name: a simple name is not taken for a root or qualified name with the same characters.
+ * A qualified name of one segment is kept as a simple name by the collections, so it has the key of the simple name.
+ */
+public void testKeys() {
+	char[] name = "java".toCharArray(); //$NON-NLS-1$
+	assertTrue(NameFilter.simpleKey(name) != NameFilter.rootKey(name));
+	assertTrue(NameFilter.simpleKey(name) != NameFilter.qualifiedKey(new char[][] {name, name}));
+	assertEquals(NameFilter.simpleKey(name), NameFilter.qualifiedKey(new char[][] {name}));
+	// the keys are saved with the state: they must not depend on the identity of the names, nor change without a new State.VERSION
+	assertEquals(NameFilter.qualifiedKey(new char[][] {"p".toCharArray(), "X".toCharArray()}), //$NON-NLS-1$ //$NON-NLS-2$
+		NameFilter.qualifiedKey(CharOperation.splitOn('.', "p.X".toCharArray()))); //$NON-NLS-1$
+	assertEquals(1134965146, NameFilter.qualifiedKey(CharOperation.splitOn('.', "java.util.List".toCharArray()))); //$NON-NLS-1$
+
+	long[] filter = NameFilter.create(NO_QUALIFIED_NAMES, CharOperation.NO_CHAR_CHAR, names("root", 200)); //$NON-NLS-1$
+	int falsePositives = 0;
+	char[][] names = names("root", 200); //$NON-NLS-1$
+	for (int i = 0; i < names.length; i++)
+		if (mayIncludeSimple(filter, names[i]))
+			falsePositives++;
+	assertTrue("False positives: " + falsePositives, falsePositives < 20); //$NON-NLS-1$
+}
+/*
+ * With 8 bits per name and 3 hash functions, about 3% of the names which were not added may be included.
+ */
+public void testFalsePositiveRate() {
+	long[] filter = NameFilter.create(qualifiedNames("Q", 1000), names("S", 3000), names("r", 50)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	assertEquals((4050 * 8 + 63) / 64, filter.length);
+	char[][] others = names("Other", 10000); //$NON-NLS-1$
+	int falsePositives = 0;
+	for (int i = 0; i < others.length; i++)
+		if (mayIncludeSimple(filter, others[i]))
+			falsePositives++;
+	assertTrue("False positives: " + falsePositives, falsePositives < 600); //$NON-NLS-1$
+}
+/*
+ * The filter of a collection without names has one word and includes no name.
+ */
+public void testEmpty() {
+	long[] filter = NameFilter.create(NO_QUALIFIED_NAMES, CharOperation.NO_CHAR_CHAR, CharOperation.NO_CHAR_CHAR);
+	assertEquals(1, filter.length);
+	assertEquals(0L, filter[0]);
+	char[][] names = names("S", 100); //$NON-NLS-1$
+	assertFalse(NameFilter.mayInclude(filter, NO_KEYS, simpleKeys(names), NO_KEYS));
+	assertFalse(NameFilter.mayInclude(filter, null, null, rootKeys(names)));
+}
+}
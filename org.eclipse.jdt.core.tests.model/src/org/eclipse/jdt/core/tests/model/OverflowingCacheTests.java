@@ -10,8 +10,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.core.tests.model;
 
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.resources.IResource;
@@ -164,7 +166,7 @@ public class OverflowingCacheTests extends ModifyingResourceTests {
 	}
 
 	/**
-	 * Simple implementation of IOpenable to test the ElementCache.
+	 * Simple implementation of IOpenable to test the ConcurrentElementCache.
 	 * A OverflowingTestBuffer is created with/without saved changes (determined
 	 * by client), and is opened on creation.
 	 */
@@ -180,13 +182,13 @@ public class OverflowingCacheTests extends ModifyingResourceTests {
 		/**
 		 * The cache this element is stored in
 		 */
-		public OverflowingLRUCache cache;
+		public ConcurrentElementCache cache;
 
 		/**
 		 * Constructs a new openable, with unsaved changes as specified,
 		 * that lives in the given cache, and opens it.
 		 */
-		public OverflowingTestOpenable(OverflowingTestBuffer buffer, OverflowingLRUCache cache) {
+		public OverflowingTestOpenable(OverflowingTestBuffer buffer, ConcurrentElementCache cache) {
 			super(null);
 			this.buffer = buffer;
 			buffer.owner = this;
@@ -549,104 +551,87 @@ public class OverflowingCacheTests extends ModifyingResourceTests {
 	}
 
 	/**
-	 * Creates an empty ElementCache and ensures that it answers correctly
-	 * for #getSpaceLimit, #getCurrentSpace, and #getOverlflow.
+	 * Creates an empty ConcurrentElementCache and ensures that it answers correctly
+	 * for #getSpaceLimit, #size, and #getOverlflow.
 	 */
 	public void testElementCacheCreation() {
-		int spaceLimit = 10, actualSpaceLimit;
-		int overflow = 0, actualOverflow;
-		int current = 0, actualCurrent;
-		OverflowingLRUCache cache = new ElementCache(spaceLimit);
-
-		actualSpaceLimit = cache.getSpaceLimit();
-		assertEquals("space limit incorrect ", spaceLimit, actualSpaceLimit);
-
-		actualCurrent = cache.getCurrentSpace();
-		assertEquals("current space incorrect ", current, actualCurrent);
+		int spaceLimit = 10;
+		ConcurrentElementCache cache = new ConcurrentElementCache(spaceLimit);
 
-		actualOverflow = cache.getOverflow();
-		assertEquals("overflow space incorrect ", overflow, actualOverflow);
+		assertEquals("space limit incorrect ", spaceLimit, cache.getSpaceLimit());
+		assertEquals("size incorrect ", 0, cache.size());
+		assertEquals("overflow space incorrect ", 0, cache.getOverflow());
 	}
 
 	/**
-	 * Creates an empty ElementCache of size 500, inserts 500 elements
+	 * Creates an empty ConcurrentElementCache of size 500, inserts 500 elements
 	 * and ensures that it is full, with zero overflow.
 	 */
 	public void testElementCacheFill() {
-		int spaceLimit = 500, actualSpaceLimit;
-		int overflow = 0, actualOverflow;
-		int current = 0, actualCurrent;
+		int spaceLimit = 500;
 
-		OverflowingLRUCache cache = new ElementCache(spaceLimit);
+		ConcurrentElementCache cache = new ConcurrentElementCache(spaceLimit);
 		OverflowingTestOpenable[] openables = new OverflowingTestOpenable[spaceLimit];
 		for(int i = 0; i < spaceLimit; i++) {
 			openables[i] = new OverflowingTestOpenable(new OverflowingTestBuffer(false, null), cache);
 			cache.put(openables[i], Integer.toString(i));
-			current++;
 		}
 
-		actualSpaceLimit = cache.getSpaceLimit();
-		assertEquals("space limit incorrect ", spaceLimit, actualSpaceLimit);
-
-		actualCurrent = cache.getCurrentSpace();
-		assertEquals("current space incorrect ", current, actualCurrent);
-
-		actualOverflow = cache.getOverflow();
-		assertEquals("overflow space incorrect ", overflow, actualOverflow);
+		assertEquals("space limit incorrect ", spaceLimit, cache.getSpaceLimit());
+		assertEquals("size incorrect ", spaceLimit, cache.size());
+		assertEquals("overflow space incorrect ", 0, cache.getOverflow());
 
 		for(int i = spaceLimit - 1; i >= 0; i--) {
 			Object value = cache.get(openables[i]);
 			assertEquals("wrong value (" + i + ")", Integer.toString(i), value);
+			assertTrue("element should be open (" + i + ")", openables[i].isOpen());
 		}
 	}
 
 	/**
-	 * Creates an empty ElementCache of size 500, inserts 1000 elements
+	 * Creates an empty ConcurrentElementCache of size 500, inserts 1000 elements
 	 * and ensures that the cache has 334 elements left in it. When the
-	 * 501st element is placed in the cache, the cache will remove 333
-	 * elements from the cache leaving 167 elements in the cache. When the
+	 * 501st element is placed in the cache, the cache closes 333
+	 * elements leaving 167 elements in the cache. When the
 	 * 833rd element is added, it will reach its space limit again, and
 	 * shrink to 167 entries. The remaining 167 elements will be added
 	 * the cache, leaving it with 334 entries.
 	 */
 	public void testElementCacheUseNoOverflow() {
-		int spaceLimit = 500, actualSpaceLimit;
-		int overflow = 0, actualOverflow;
-		int actualCurrent, predictedCurrent = 334;
+		int spaceLimit = 500;
+		int predictedSize = 334;
 		int entryCount = 1000;
 
-		OverflowingLRUCache cache = new ElementCache(spaceLimit);
+		ConcurrentElementCache cache = new ConcurrentElementCache(spaceLimit);
 		OverflowingTestOpenable[] openables = new OverflowingTestOpenable[entryCount];
 		for(int i = 0; i < entryCount; i++) {
 			openables[i] = new OverflowingTestOpenable(new OverflowingTestBuffer(false, null), cache);
 			cache.put(openables[i], Integer.toString(i));
 		}
 
-		actualSpaceLimit = cache.getSpaceLimit();
-		assertEquals("space limit incorrect ", spaceLimit, actualSpaceLimit);
-
-		actualCurrent = cache.getCurrentSpace();
-		assertEquals("current space incorrect ", predictedCurrent, actualCurrent);
-
-		actualOverflow = cache.getOverflow();
-		assertEquals("overflow space incorrect ", overflow, actualOverflow);
+		assertEquals("space limit incorrect ", spaceLimit, cache.getSpaceLimit());
+		assertEquals("size incorrect ", predictedSize, cache.size());
+		assertEquals("overflow space incorrect ", 0, cache.getOverflow());
 
-		for(int i = entryCount - 1; i >= entryCount - predictedCurrent; i--) {
-			Object value = cache.get(openables[i]);
-			assertEquals("wrong value (" + i + ")", Integer.toString(i), value);
-		}
-
-		// ensure first 500 entries swaped out
-		for(int i = 0; i < spaceLimit; i++) {
-			Object value = cache.get(openables[i]);
-			assertEquals("entry should not be present", null, value);
+		// the elements added after the last sweep are all present, the closed ones are not
+		int present = 0;
+		for(int i = 0; i < entryCount; i++) {
+			Object value = cache.peek(openables[i]);
+			if (i >= entryCount - predictedSize / 2)
+				assertEquals("wrong value (" + i + ")", Integer.toString(i), value);
+			if (value != null) {
+				assertEquals("wrong value (" + i + ")", Integer.toString(i), value);
+				present++;
+			}
+			assertEquals("element should be open only if present (" + i + ")", value != null, openables[i].isOpen());
 		}
+		assertEquals("present elements", predictedSize, present);
 	}
 
 	/**
-	 * Creates an empty ElementCache of size 500, inserts 1000 elements.
+	 * Creates an empty ConcurrentElementCache of size 500, inserts 1000 elements.
 	 * Nine of every ten entries cannot be removed - there are 1000 entries,
-	 * leaving 900 entries which can't be closed. Thetable size should equal
+	 * leaving 900 entries which can't be closed. The cache size should equal
 	 * 900 when done with an overflow of 400.
 	 *
 	 * @see #hasUnsavedChanges(int)
@@ -655,19 +640,15 @@ public class OverflowingCacheTests extends ModifyingResourceTests {
 		int spaceLimit = 500;
 		int entryCount = 1000;
 
-		OverflowingLRUCache cache = new ElementCache(spaceLimit);
+		ConcurrentElementCache cache = new ConcurrentElementCache(spaceLimit);
 		OverflowingTestOpenable[] openables = new OverflowingTestOpenable[entryCount];
 		for (int i = 0; i < entryCount; i++) {
 			openables[i] = new OverflowingTestOpenable(new OverflowingTestBuffer(hasUnsavedChanges(i), null), cache);
 			cache.put(openables[i], Integer.toString(i));
 		}
 
-		Hashtable table = cache.getEntryTable();
-		assertEquals("Hashtable wrong size", 900, table.size());
-		int actualCurrent = cache.getCurrentSpace();
-		assertEquals("current space incorrect", 900, actualCurrent);
-		int actualOverflow = cache.getOverflow();
-		assertEquals("overflow space incorrect", 400, actualOverflow);
+		assertEquals("size incorrect", 900, cache.size());
+		assertEquals("overflow space incorrect", 400, cache.getOverflow());
 
 		for (int i = entryCount - 1; i >= 0; i--) {
 			if (hasUnsavedChanges(i)) {
@@ -681,12 +662,58 @@ public class OverflowingCacheTests extends ModifyingResourceTests {
 			openables[i].save(null, false);
 		}
 		// now add another entry to remove saved openables.
-		cache.put(Integer.toString(1001), new OverflowingTestOpenable(new OverflowingTestBuffer(false, null), cache));
-		// now the size should be back to 500, with 0 overflow
-		actualCurrent = cache.getCurrentSpace();
-		assertEquals("current space incorrect (after flush)", 168, actualCurrent);
-		actualOverflow = cache.getOverflow();
-		assertEquals("overflow space incorrect (after flush)", 0, actualOverflow);
+		cache.put(new OverflowingTestOpenable(new OverflowingTestBuffer(false, null), cache), Integer.toString(1001));
+		// now the size should be back to 168, with 0 overflow
+		assertEquals("size incorrect (after flush)", 168, cache.size());
+		assertEquals("overflow space incorrect (after flush)", 0, cache.getOverflow());
+	}
+
+	/**
+	 * Creates an empty ConcurrentElementCache of size 500 which reclaims 125 entries when full, and
+	 * fills it, so that the next element closes 125 elements. Among the elements left, the ones read
+	 * since then are kept when the cache makes space again, some of the ones only peeked at are closed.
+	 */
+	public void testElementCacheSecondChance() {
+		int spaceLimit = 500;
+		int reclaimed = 125;
+
+		ConcurrentElementCache cache = new ConcurrentElementCache(spaceLimit) {
+			{
+				this.loadFactor = 0.75;
+			}
+		};
+		List<OverflowingTestOpenable> openables = new ArrayList<OverflowingTestOpenable>();
+		for (int i = 0; i <= spaceLimit; i++) {
+			OverflowingTestOpenable openable = new OverflowingTestOpenable(new OverflowingTestBuffer(false, null), cache);
+			cache.put(openable, Integer.toString(i));
+			openables.add(openable);
+		}
+		assertEquals("size incorrect", spaceLimit - reclaimed + 1, cache.size());
+		List<OverflowingTestOpenable> read = new ArrayList<OverflowingTestOpenable>();
+		List<OverflowingTestOpenable> peeked = new ArrayList<OverflowingTestOpenable>();
+		for (int i = 0; i < spaceLimit; i++) {
+			OverflowingTestOpenable openable = openables.get(i);
+			if (cache.peek(openable) == null)
+				continue;
+			if (read.size() <= peeked.size()) {
+				cache.get(openable);
+				read.add(openable);
+			} else {
+				peeked.add(openable);
+			}
+		}
+
+		// fill the cache again, the next element closes 125 elements which were not read
+		for (int i = spaceLimit + 1; i <= spaceLimit + reclaimed; i++)
+			cache.put(new OverflowingTestOpenable(new OverflowingTestBuffer(false, null), cache), Integer.toString(i));
+		assertEquals("size incorrect", spaceLimit - reclaimed + 1, cache.size());
+		for (int i = 0; i < read.size(); i++)
+			assertTrue("read element should be open", read.get(i).isOpen());
+		int closed = 0;
+		for (int i = 0; i < peeked.size(); i++)
+			if (!peeked.get(i).isOpen())
+				closed++;
+		assertEquals("closed elements", reclaimed, closed);
 	}
 
 }
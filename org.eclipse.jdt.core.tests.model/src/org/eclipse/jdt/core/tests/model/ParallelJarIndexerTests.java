@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.Test;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.tests.junit.extension.TestCase;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.core.index.EntryResult;
+import org.eclipse.jdt.internal.core.index.FileIndexLocation;
+import org.eclipse.jdt.internal.core.index.Index;
+import org.eclipse.jdt.internal.core.search.JavaSearchDocument;
+import org.eclipse.jdt.internal.core.search.JavaSearchParticipant;
+import org.eclipse.jdt.internal.core.search.indexing.BinaryIndexer;
+import org.eclipse.jdt.internal.core.search.indexing.IIndexConstants;
+import org.eclipse.jdt.internal.core.search.indexing.IndexRequest;
+import org.eclipse.jdt.internal.core.search.indexing.ParallelJarIndexer;
+import org.eclipse.jdt.internal.core.search.processing.JobManager;
+
+/**
+ * Tests the indexing of the class files of an archive with the help of the idle threads of a job manager.
+ */
+public class ParallelJarIndexerTests extends TestCase {
+
+	static final int THREADS = 3;
+	static final int PACKAGES = 40; // each class file is copied in every package
+	static final char[][] CATEGORIES = {
+		IIndexConstants.TYPE_DECL, IIndexConstants.SUPER_REF, IIndexConstants.METHOD_DECL, IIndexConstants.CONSTRUCTOR_DECL,
+		IIndexConstants.FIELD_DECL, IIndexConstants.REF, IIndexConstants.METHOD_REF, IIndexConstants.CONSTRUCTOR_REF,
+		IIndexConstants.ANNOTATION_REF
+	};
+
+	File root;
+	File jarFile;
+	JavaSearchParticipant participant;
+	JobManager manager;
+
+	class TestJobManager extends JobManager {
+		protected int getParallelism() {
+			return THREADS;
+		}
+		public String processName() {
+			return "Test jobs"; //$NON-NLS-1$
+		}
+	}
+
+	class TestRequest extends IndexRequest {
+		TestRequest() {
+			super(new Path(ParallelJarIndexerTests.this.jarFile.getPath()), null);
+		}
+		public boolean execute(IProgressMonitor progress) {
+			return COMPLETE;
+		}
+		public void cancel() {
+			this.isCancelled = true;
+		}
+	}
+
+public ParallelJarIndexerTests(String name) {
+	super(name);
+}
+public static Test suite() {
+	return buildTestSuite(ParallelJarIndexerTests.class);
+}
+protected void setUp() throws Exception {
+	super.setUp();
+	this.root = new File(Util.getOutputDirectory(), "ParallelJarIndexerTests"); //$NON-NLS-1$
+	Util.flushDirectoryContent(this.root);
+	this.root.mkdirs();
+	this.jarFile = createJar();
+	this.participant = new JavaSearchParticipant();
+	this.manager = new TestJobManager();
+	this.manager.reset(); // starts the threads
+}
+protected void tearDown() throws Exception {
+	this.manager.shutdown();
+	Util.delete(this.root);
+	super.tearDown();
+}
+/*
+ * Compiles a few types, then copies their class files in many packages.
+ */
+File createJar() throws IOException {
+	String compiledJar = new File(this.root, "compiled.jar").getPath(); //$NON-NLS-1$
+	Util.createJar(new String[] {
+		"p/X.java", //$NON-NLS-1$
+		"package p;\n" + //$NON-NLS-1$
+		"public class X extends java.util.ArrayList<String> implements Runnable {\n" + //$NON-NLS-1$
+		"	public int count;\n" + //$NON-NLS-1$
+		"	public X(int count) { this.count = count; }\n" + //$NON-NLS-1$
+		"	public void run() { add(String.valueOf(this.count)); }\n" + //$NON-NLS-1$
+		"	@Deprecated public Y y() { return new Y(); }\n" + //$NON-NLS-1$
+		"}\n", //$NON-NLS-1$
+		"p/Y.java", //$NON-NLS-1$
+		"package p;\n" + //$NON-NLS-1$
+		"public class Y {\n" + //$NON-NLS-1$
+		"	public static final String NAME = \"y\";\n" + //$NON-NLS-1$
+		"	public X x(int i) { return new X(i); }\n" + //$NON-NLS-1$
+		"	public interface I { void i(Y y); }\n" + //$NON-NLS-1$
+		"}\n" //$NON-NLS-1$
+	}, compiledJar, "1.5"); //$NON-NLS-1$
+	List<String> names = new ArrayList<String>();
+	List<byte[]> contents = new ArrayList<byte[]>();
+	ZipFile compiled = new ZipFile(compiledJar);
+	try {
+		for (Enumeration<? extends ZipEntry> entries = compiled.entries(); entries.hasMoreElements();) {
+			ZipEntry entry = entries.nextElement();
+			names.add(entry.getName().substring("p/".length())); //$NON-NLS-1$
+			contents.add(org.eclipse.jdt.internal.compiler.util.Util.getZipEntryByteContent(entry, compiled));
+		}
+	} finally {
+		compiled.close();
+	}
+	File file = new File(this.root, "lib.jar"); //$NON-NLS-1$
+	ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file));
+	try {
+		for (int i = 0; i < PACKAGES; i++) {
+			for (int j = 0; j < names.size(); j++) {
+				zip.putNextEntry(new ZipEntry("p" + i + '/' + names.get(j))); //$NON-NLS-1$
+				zip.write(contents.get(j));
+				zip.closeEntry();
+			}
+		}
+	} finally {
+		zip.close();
+	}
+	return file;
+}
+Index createIndex(String name) throws IOException {
+	Index index = new Index(new FileIndexLocation(new File(this.root, name)), this.jarFile.getPath(), false);
+	index.separator = IJavaSearchScope.JAR_FILE_ENTRY_SEPARATOR.charAt(0);
+	return index;
+}
+ZipEntry[] classFiles(ZipFile zip) {
+	List<ZipEntry> classFiles = new ArrayList<ZipEntry>();
+	for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();)
+		classFiles.add(entries.nextElement());
+	return classFiles.toArray(new ZipEntry[classFiles.size()]);
+}
+/*
+ * Indexes the class files one after the other, as AddJarFileToIndex does for small archives
+ * (see JavaSearchParticipant#indexDocument() for a class file).
+ */
+Index indexSequentially() throws IOException {
+	Index index = createIndex("sequential.index"); //$NON-NLS-1$
+	ZipFile zip = new ZipFile(this.jarFile);
+	try {
+		IPath zipFilePath = new Path(this.jarFile.getPath());
+		ZipEntry[] classFiles = classFiles(zip);
+		for (int i = 0; i < classFiles.length; i++) {
+			byte[] contents = org.eclipse.jdt.internal.compiler.util.Util.getZipEntryByteContent(classFiles[i], zip);
+			JavaSearchDocument document = new JavaSearchDocument(classFiles[i], zipFilePath, contents, this.participant);
+			document.setIndex(index);
+			new BinaryIndexer(document).indexDocument();
+		}
+	} finally {
+		zip.close();
+	}
+	return index;
+}
+Index indexInParallel(String name, IndexRequest request, int maxHelpers, boolean[] completed) throws IOException {
+	Index index = createIndex(name);
+	ZipFile zip = new ZipFile(this.jarFile);
+	try {
+		ParallelJarIndexer indexer = new ParallelJarIndexer(zip, new Path(this.jarFile.getPath()), this.participant, classFiles(zip));
+		completed[0] = indexer.indexInto(index, request, this.manager, maxHelpers);
+	} finally {
+		zip.close();
+	}
+	return index;
+}
+String allEntries(Index index) throws IOException {
+	Map<String, Set<String>> results = new TreeMap<String, Set<String>>();
+	index.startQuery();
+	try {
+		for (int i = 0; i < CATEGORIES.length; i++) {
+			EntryResult[] entryResults = index.query(new char[][] { CATEGORIES[i] }, null, SearchPattern.R_EXACT_MATCH);
+			if (entryResults == null) continue;
+			for (int j = 0; j < entryResults.length; j++) {
+				String word = new String(CATEGORIES[i]) + '/' + new String(entryResults[j].getWord());
+				results.put(word, new TreeSet<String>(Arrays.asList(entryResults[j].getDocumentNames(index))));
+			}
+		}
+	} finally {
+		index.stopQuery();
+	}
+	StringBuffer buffer = new StringBuffer();
+	buffer.append(new TreeSet<String>(Arrays.asList(index.queryDocumentNames(null)))).append('\n');
+	for (Map.Entry<String, Set<String>> entry : results.entrySet())
+		buffer.append(entry.getKey()).append(" -> ").append(entry.getValue()).append('\n'); //$NON-NLS-1$
+	return buffer.toString();
+}
+void assertSameEntries(Index expected, Index actual) throws IOException {
+	String expectedEntries = allEntries(expected);
+	assertTrue(expectedEntries.indexOf("p" + (PACKAGES - 1) + "/Y$I.class") > 0); //$NON-NLS-1$ //$NON-NLS-2$
+	assertEquals(expectedEntries, allEntries(actual));
+	// and once saved
+	expected.save();
+	actual.save();
+	assertEquals(expectedEntries, allEntries(actual));
+}
+/*
+ * The index has the same entries as the one built on a single thread.
+ */
+public void testSameEntries() throws IOException {
+	boolean[] completed = new boolean[1];
+	Index index = indexInParallel("parallel.index", new TestRequest(), THREADS - 1, completed); //$NON-NLS-1$
+	assertTrue(completed[0]);
+	assertSameEntries(indexSequentially(), index);
+}
+/*
+ * More helpers than idle threads: only the threads of the job manager index the class files.
+ */
+public void testMoreHelpersThanThreads() throws IOException {
+	boolean[] completed = new boolean[1];
+	Index index = indexInParallel("parallel.index", new TestRequest(), 16, completed); //$NON-NLS-1$
+	assertTrue(completed[0]);
+	assertSameEntries(indexSequentially(), index);
+}
+/*
+ * Without idle threads, the calling thread indexes all the class files.
+ */
+public void testNoHelper() throws IOException {
+	this.manager.shutdown(); // no worker thread left
+	boolean[] completed = new boolean[1];
+	Index index = indexInParallel("parallel.index", new TestRequest(), THREADS - 1, completed); //$NON-NLS-1$
+	assertTrue(completed[0]);
+	assertSameEntries(indexSequentially(), index);
+}
+/*
+ * A cancelled request stops the indexing.
+ */
+public void testCancel() throws IOException {
+	TestRequest request = new TestRequest();
+	request.cancel();
+	boolean[] completed = new boolean[1];
+	indexInParallel("parallel.index", request, THREADS - 1, completed); //$NON-NLS-1$
+	assertFalse(completed[0]);
+}
+}
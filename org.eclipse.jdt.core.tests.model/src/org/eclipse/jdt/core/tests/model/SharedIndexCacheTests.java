@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.tests.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.Test;
+
+import org.eclipse.jdt.core.tests.junit.extension.TestCase;
+import org.eclipse.jdt.core.tests.util.Util;
+import org.eclipse.jdt.internal.core.search.indexing.SharedIndexCache;
+
+/**
+ * Tests the directory of JAR index files shared by identical JARs.
+ */
+public class SharedIndexCacheTests extends TestCase {
+
+	static final long TIME_STAMP = 1400000000000L;
+
+	File root;
+	File cacheDirectory;
+
+public SharedIndexCacheTests(String name) {
+	super(name);
+}
+public static Test suite() {
+	return buildTestSuite(SharedIndexCacheTests.class);
+}
+protected void setUp() throws Exception {
+	super.setUp();
+	this.root = new File(Util.getOutputDirectory(), "SharedIndexCacheTests"); //$NON-NLS-1$
+	Util.flushDirectoryContent(this.root);
+	this.cacheDirectory = new File(this.root, "shared"); //$NON-NLS-1$
+}
+protected void tearDown() throws Exception {
+	Util.delete(this.root);
+	super.tearDown();
+}
+File createJar(String name, String[] entries) throws IOException {
+	File jarFile = new File(this.root, name);
+	jarFile.getParentFile().mkdirs();
+	ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jarFile));
+	try {
+		for (int i = 0; i < entries.length; i += 2) {
+			ZipEntry entry = new ZipEntry(entries[i]);
+			entry.setTime(TIME_STAMP);
+			zip.putNextEntry(entry);
+			zip.write(entries[i + 1].getBytes("UTF-8")); //$NON-NLS-1$
+			zip.closeEntry();
+		}
+		zip.setComment("a comment following the central directory"); //$NON-NLS-1$
+	} finally {
+		zip.close();
+	}
+	return jarFile;
+}
+File createFile(String name, int size) throws IOException {
+	File file = new File(this.root, name);
+	file.getParentFile().mkdirs();
+	FileOutputStream output = new FileOutputStream(file);
+	try {
+		output.write(new byte[size]);
+	} finally {
+		output.close();
+	}
+	return file;
+}
+/*
+ * Identical JARs have the same key, whatever their location.
+ */
+public void testIdenticalJars() throws IOException {
+	SharedIndexCache cache = new SharedIndexCache(this.cacheDirectory, 1024 * 1024);
+	String[] entries = { "p/X.class", "content of X", "p/Y.class", "content of Y" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	String key1 = cache.computeDigest(createJar("repository1/lib.jar", entries)); //$NON-NLS-1$
+	String key2 = cache.computeDigest(createJar("repository2/lib-copy.jar", entries)); //$NON-NLS-1$
+	assertNotNull(key1);
+	assertEquals(key1, key2);
+}
+/*
+ * A copy of a JAR with another time stamp, e.g. downloaded again in another repository, has the same key.
+ */
+public void testCopiedJar() throws IOException {
+	SharedIndexCache cache = new SharedIndexCache(this.cacheDirectory, 1024 * 1024);
+	File jarFile = createJar("repository1/lib.jar", new String[] { "p/X.class", "content of X" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	jarFile.setLastModified(TIME_STAMP);
+	File copy = new File(this.root, "repository2/lib.jar"); //$NON-NLS-1$
+	copy.getParentFile().mkdirs();
+	Util.copy(jarFile.getPath(), copy.getParent());
+	copy.setLastModified(TIME_STAMP + 3600000);
+	assertTrue(jarFile.lastModified() != copy.lastModified());
+	String key = cache.computeDigest(jarFile);
+	assertNotNull(key);
+	assertEquals(key, cache.computeDigest(copy));
+}
+/*
+ * JARs differing by the contents, name or number of their entries have different keys.
+ */
+public void testDifferentJars() throws IOException {
+	SharedIndexCache cache = new SharedIndexCache(this.cacheDirectory, 1024 * 1024);
+	String key = cache.computeDigest(createJar("lib.jar", new String[] { "p/X.class", "content 1" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	// same size and names, other CRC
+	String otherContents = cache.computeDigest(createJar("lib1.jar", new String[] { "p/X.class", "content 2" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	String otherName = cache.computeDigest(createJar("lib2.jar", new String[] { "p/Z.class", "content 1" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	String otherEntries = cache.computeDigest(createJar("lib3.jar", new String[] { "p/X.class", "content 1", "p/Y.class", "" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	String[] keys = { key, otherContents, otherName, otherEntries };
+	for (int i = 0; i < keys.length; i++) {
+		assertNotNull(keys[i]);
+		for (int j = i + 1; j < keys.length; j++)
+			assertFalse("Same keys " + i + " and " + j, keys[i].equals(keys[j])); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
+/*
+ * Files which are not ZIP files are not shared.
+ */
+public void testNotAJar() throws IOException {
+	SharedIndexCache cache = new SharedIndexCache(this.cacheDirectory, 1024 * 1024);
+	assertNull(cache.computeDigest(createFile("empty.jar", 0))); //$NON-NLS-1$
+	assertNull(cache.computeDigest(createFile("zeros.jar", 1000))); //$NON-NLS-1$
+	assertNull(cache.computeDigest(new File(this.root, "missing.jar"))); //$NON-NLS-1$
+}
+/*
+ * An index file published for a key is copied for the same key only.
+ */
+public void testPublishAndCopy() throws IOException {
+	SharedIndexCache cache = new SharedIndexCache(this.cacheDirectory, 1024 * 1024);
+	File indexFile = createFile("indexes/1.index", 100); //$NON-NLS-1$
+	String key = cache.computeDigest(createJar("lib.jar", new String[] { "p/X.class", "X" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	File copy = new File(this.root, "indexes/2.index"); //$NON-NLS-1$
+	assertFalse(cache.copyTo(key, copy));
+	assertFalse(copy.exists());
+	cache.publish(key, indexFile);
+	assertTrue(cache.copyTo(key, copy));
+	assertEquals(100, copy.length());
+	String otherKey = cache.computeDigest(createJar("other.jar", new String[] { "p/Y.class", "Y" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	assertFalse(cache.copyTo(otherKey, new File(this.root, "indexes/3.index"))); //$NON-NLS-1$
+	// no temporary file is left
+	assertEquals(1, this.cacheDirectory.list().length);
+}
+/*
+ * The least recently used index files are deleted once the directory exceeds its maximum size.
+ */
+public void testEviction() throws IOException {
+	SharedIndexCache cache = new SharedIndexCache(this.cacheDirectory, 2500);
+	File indexFile = createFile("indexes/1.index", 1000); //$NON-NLS-1$
+	cache.publish("aaa", indexFile); //$NON-NLS-1$
+	cache.publish("bbb", indexFile); //$NON-NLS-1$
+	new File(this.cacheDirectory, "aaa.index").setLastModified(TIME_STAMP); //$NON-NLS-1$
+	new File(this.cacheDirectory, "bbb.index").setLastModified(TIME_STAMP + 1000); //$NON-NLS-1$
+	// copying a file uses it
+	assertTrue(cache.copyTo("aaa", new File(this.root, "indexes/2.index"))); //$NON-NLS-1$ //$NON-NLS-2$
+	cache.publish("ccc", indexFile); //$NON-NLS-1$
+	assertTrue(new File(this.cacheDirectory, "aaa.index").exists()); //$NON-NLS-1$
+	assertFalse(new File(this.cacheDirectory, "bbb.index").exists()); //$NON-NLS-1$
+	assertTrue(new File(this.cacheDirectory, "ccc.index").exists()); //$NON-NLS-1$
+}
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.compiler.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
+
+/**
+ * The archives of the classpath kept open between compilations, see {@link CompilerDaemon}.
+ * <p>
+ * An archive keeps its packages and the class files read from it, which are decoded lazily, as long as the
+ * modification time and the length of its file do not change. An archive which is not used by a number of
+ * compilations is closed. The cache keeps a maximum number of class files for all the archives, the least
+ * recently used ones are read again when needed. The cache is used by one compilation at a time.
+ * </p>
+ */
+public class ArchiveCache {
+
+/**
+ * The number of compilations after which an archive which is not used is closed.
+ */
+static final int MAX_UNUSED_COMPILATIONS = 20;
+/**
+ * The maximum number of class files kept for all the archives.
+ */
+static final int MAX_CLASS_FILES = 8192;
+
+/*
+ * A class file of an archive.
+ */
+static class ClassFileKey {
+	final Archive archive;
+	final String name;
+
+	ClassFileKey(Archive archive, String name) {
+		this.archive = archive;
+		this.name = name;
+	}
+	public boolean equals(Object object) {
+		if (!(object instanceof ClassFileKey)) return false;
+		ClassFileKey other = (ClassFileKey) object;
+		return this.archive == other.archive && this.name.equals(other.name);
+	}
+	public int hashCode() {
+		return this.name.hashCode() * 31 + System.identityHashCode(this.archive);
+	}
+}
+
+/*
+ * The class files read from the archives, in the order of their last use.
+ */
+static class ClassFiles extends LinkedHashMap<ClassFileKey, ClassFileReader> {
+	private static final long serialVersionUID = 1L;
+
+	ClassFiles() {
+		super(16, 0.75f, true /* access order */);
+	}
+	protected boolean removeEldestEntry(Map.Entry<ClassFileKey, ClassFileReader> eldest) {
+		return size() > MAX_CLASS_FILES;
+	}
+}
+
+static class Archive {
+	final ArchiveCache cache;
+	final String path;
+	final long lastModified;
+	final long length;
+	ZipFile zipFile;
+	Hashtable packageCache; // see ClasspathJar#isPackage(String)
+	int lastUsed;
+
+	Archive(ArchiveCache cache, File file, String path) throws IOException {
+		this.cache = cache;
+		this.path = path;
+		this.lastModified = file.lastModified();
+		this.length = file.length();
+		this.zipFile = new ZipFile(file);
+	}
+	/*
+	 * Same as ClassFileReader#read(ZipFile, String), reads each class file once.
+	 */
+	ClassFileReader read(String qualifiedBinaryFileName) throws ClassFormatException, IOException {
+		ClassFileKey key = new ClassFileKey(this, qualifiedBinaryFileName);
+		ClassFiles classFiles = this.cache.classFiles;
+		ClassFileReader reader = classFiles.get(key);
+		if (reader == null && !classFiles.containsKey(key)) {
+			reader = ClassFileReader.read(this.zipFile, qualifiedBinaryFileName);
+			classFiles.put(key, reader); // null for missing class files
+		}
+		return reader;
+	}
+	void close() {
+		try {
+			this.zipFile.close();
+		} catch (IOException e) {
+			// ignore
+		}
+		for (Iterator<ClassFileKey> iterator = this.cache.classFiles.keySet().iterator(); iterator.hasNext();) {
+			if (iterator.next().archive == this)
+				iterator.remove();
+		}
+		this.packageCache = null;
+	}
+}
+
+private HashMap<String, Archive> archives = new HashMap<String, Archive>();
+final ClassFiles classFiles = new ClassFiles();
+private int compilations = 0;
+
+/**
+ * Answers the open archive of the given file, reopening it if the file changed since it was opened.
+ */
+Archive getArchive(File file) throws IOException {
+	String path = file.getCanonicalPath();
+	Archive archive = this.archives.get(path);
+	if (archive != null && (archive.lastModified != file.lastModified() || archive.length != file.length())) {
+		archive.close();
+		archive = null;
+	}
+	if (archive == null)
+		this.archives.put(path, archive = new Archive(this, file, path));
+	archive.lastUsed = this.compilations;
+	return archive;
+}
+/**
+ * Marks the end of a compilation, closing the archives which were not used recently.
+ */
+public void compilationDone() {
+	this.compilations++;
+	for (Iterator<Archive> iterator = this.archives.values().iterator(); iterator.hasNext();) {
+		Archive archive = iterator.next();
+		if (this.compilations - archive.lastUsed > MAX_UNUSED_COMPILATIONS) {
+			archive.close();
+			iterator.remove();
+		}
+	}
+}
+/**
+ * Closes all the archives.
+ */
+public void close() {
+	for (Iterator<Archive> iterator = this.archives.values().iterator(); iterator.hasNext();)
+		iterator.next().close();
+	this.archives.clear();
+	this.classFiles.clear();
+}
+}
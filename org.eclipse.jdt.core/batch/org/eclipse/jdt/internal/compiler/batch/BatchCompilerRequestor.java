@@ -38,6 +38,8 @@ public class BatchCompilerRequestor implements ICompilerRequestor {
         	this.compiler.logger.logProblems(compilationResult.getAllProblems(), compilationResult.compilationUnit.getContents(), this.compiler);
             reportProblems(compilationResult);
         }
+        if (this.compiler.incrementalState != null)
+            this.compiler.incrementalState.unitCompiled(compilationResult);
         this.compiler.outputClassFiles(compilationResult);
         this.compiler.logger.endLoggingSource();
     }
@@ -43,6 +43,9 @@ protected ZipFile annotationZipFile;
 protected boolean closeZipFileAtEnd;
 protected Hashtable packageCache;
 protected List<String> annotationPaths;
+protected ArchiveCache archiveCache; // null unless the archive is kept open between compilations
+protected boolean cacheClassFiles;
+ArchiveCache.Archive archive;
 
 public ClasspathJar(File file, boolean closeZipFileAtEnd,
 		AccessRuleSet accessRuleSet, String destinationPath) {
@@ -102,7 +105,10 @@ public NameEnvironmentAnswer findClass(char[] typeName, String qualifiedPackageN
 		return null; // most common case
 
 	try {
-		ClassFileReader reader = ClassFileReader.read(this.zipFile, qualifiedBinaryFileName);
+		// class files read from a shared archive must not be decorated with external annotations
+		ClassFileReader reader = this.archive != null && this.cacheClassFiles && this.annotationPaths == null
+			? this.archive.read(qualifiedBinaryFileName)
+			: ClassFileReader.read(this.zipFile, qualifiedBinaryFileName);
 		if (reader != null) {
 			if (this.annotationPaths != null) {
 				String qualifiedClassName = qualifiedBinaryFileName.substring(0, qualifiedBinaryFileName.length()-SuffixConstants.EXTENSION_CLASS.length()-1);
@@ -165,7 +171,13 @@ public char[][][] findTypeNames(String qualifiedPackageName) {
 }
 public void initialize() throws IOException {
 	if (this.zipFile == null) {
-		this.zipFile = new ZipFile(this.file);
+		if (this.archiveCache != null) {
+			this.archive = this.archiveCache.getArchive(this.file);
+			this.zipFile = this.archive.zipFile;
+			this.packageCache = this.archive.packageCache;
+		} else {
+			this.zipFile = new ZipFile(this.file);
+		}
 	}
 }
 public boolean isPackage(String qualifiedPackageName) {
@@ -189,9 +201,15 @@ public boolean isPackage(String qualifiedPackageName) {
 			last = packageName.lastIndexOf('/');
 		}
 	}
+	if (this.archive != null)
+		this.archive.packageCache = this.packageCache;
 	return this.packageCache.containsKey(qualifiedPackageName);
 }
 public void reset() {
+	if (this.archive != null) {
+		this.zipFile = null; // closed by the archive cache
+		this.archive = null;
+	}
 	if (this.closeZipFileAtEnd) {
 		if (this.zipFile != null) {
 			try {
@@ -212,6 +230,17 @@ public void reset() {
 	}
 	this.packageCache = null;
 }
+/**
+ * Reads the archive from the given cache, which keeps it open between compilations. The class files
+ * read from the archive are kept by the cache too if requested.
+ */
+public void setArchiveCache(ArchiveCache cache, boolean cacheClassFiles) {
+	if (this.archive == null && this.zipFile != null) {
+		reset(); // opened to fetch the linked jars
+	}
+	this.archiveCache = cache;
+	this.cacheClassFiles = cacheClassFiles;
+}
 public String toString() {
 	return "Classpath for jar file " + this.file.getPath(); //$NON-NLS-1$
 }
@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.compiler.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.StringTokenizer;
+
+import org.eclipse.jdt.internal.compiler.util.Util;
+
+/**
+ * A compiler which stays alive between compilations, so that the compilations requested by a build
+ * do not pay for starting a virtual machine and loading the compiler each time.
+ * <p>
+ * The daemon listens on a port of the local host and compiles the requests one at a time. A request
+ * has the same arguments as {@link Main}, and the working directory of the client: the relative paths of
+ * the arguments, including the ones of argument files, are resolved against it. Between compilations, the daemon keeps the archives of the classpath
+ * open and the class files read from them, see {@link ArchiveCache}.
+ * </p>
+ * <p>
+ * Any local process can connect to the port, so the daemon only serves the clients which send the random
+ * token it wrote in its token file. Only the owner of the daemon can read that file.
+ * </p>
+ * Usage:
+ * <ul>
+ * <li><code>CompilerDaemon -port &lt;port&gt; &lt;token file&gt;</code> starts a daemon, on any free port
+ * if the port is 0</li>
+ * <li><code>CompilerDaemon -connect &lt;port&gt; &lt;token file&gt; &lt;compiler arguments&gt;</code> compiles
+ * with the daemon and exits with the same status as {@link Main}</li>
+ * <li><code>CompilerDaemon -stop &lt;port&gt; &lt;token file&gt;</code> stops the daemon</li>
+ * </ul>
+ */
+public class CompilerDaemon {
+
+/*
+ * The batch compiler of a request, which reads the archives of the classpath from the cache of the daemon.
+ */
+static class DaemonMain extends Main {
+	final ArchiveCache archiveCache;
+
+	DaemonMain(PrintWriter outWriter, PrintWriter errWriter, ArchiveCache archiveCache) {
+		super(outWriter, errWriter, false /* systemExit */, null /* options */, null /* progress */);
+		this.archiveCache = archiveCache;
+	}
+	public FileSystem getLibraryAccess() {
+		// the external annotations found on the classpath are set on the class files read from it
+		boolean cacheClassFiles = !this.annotationsFromClasspath;
+		for (int i = 0, length = this.checkedClasspaths.length; i < length; i++)
+			if (this.checkedClasspaths[i] instanceof ClasspathJar)
+				((ClasspathJar) this.checkedClasspaths[i]).setArchiveCache(this.archiveCache, cacheClassFiles);
+		return super.getLibraryAccess();
+	}
+}
+
+private static final int STOP = -1; // sent instead of the number of arguments
+private static final int TOKEN_LENGTH = 32;
+private static final int MAX_ARGUMENTS = 65536;
+private static final int MAX_REQUEST_LENGTH = 16 * 1024 * 1024; // bytes of all the arguments of a request
+private static final int REQUEST_TIMEOUT = 60000; // a client which does not send its request in time is dropped
+
+// the options of Main followed by a path, by a list of paths, or by another value
+private static final String[] PATH_OPTIONS = { "-d", "-s", "-log", "-metrics", "-incremental", "-properties" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+private static final String[] PATH_LIST_OPTIONS = { "-classpath", "-cp", "-bootclasspath", "-sourcepath", "-extdirs", "-endorseddirs", "-processorpath", "-annotationpath" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+private static final String[] VALUE_OPTIONS = { "-encoding", "-source", "-target", "-repeat", "-maxProblems", "-processingWorkers", "-processor", "-classNames" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+
+private final ServerSocket serverSocket;
+private final File tokenFile;
+private final byte[] token;
+private final ArchiveCache archiveCache = new ArchiveCache();
+
+/**
+ * Creates a daemon listening on the given port of the local host, on any free port if the port is 0.
+ * The token expected from the clients is written in the given file, which only the current user can read.
+ */
+public CompilerDaemon(int port, File tokenFile) throws IOException {
+	this.token = new byte[TOKEN_LENGTH];
+	new SecureRandom().nextBytes(this.token);
+	writeToken(tokenFile, this.token);
+	this.tokenFile = tokenFile;
+	this.serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+}
+public int getPort() {
+	return this.serverSocket.getLocalPort();
+}
+/**
+ * Compiles the requests until a request to stop.
+ */
+public void serve() throws IOException {
+	try {
+		boolean stop = false;
+		while (!stop) {
+			Socket socket = this.serverSocket.accept();
+			try {
+				stop = !serve(socket);
+			} catch (IOException e) {
+				// the client went away or sent a malformed request, wait for the next one
+			} catch (RuntimeException e) {
+				// a request must not stop the daemon
+			} finally {
+				socket.close();
+			}
+		}
+	} finally {
+		this.archiveCache.close();
+		this.serverSocket.close();
+		this.tokenFile.delete();
+	}
+}
+/*
+ * Answers false if the client requested to stop the daemon.
+ */
+private boolean serve(Socket socket) throws IOException {
+	socket.setSoTimeout(REQUEST_TIMEOUT);
+	DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+	DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+	byte[] clientToken = new byte[TOKEN_LENGTH];
+	in.readFully(clientToken);
+	if (!MessageDigest.isEqual(this.token, clientToken))
+		throw new IOException("Invalid token"); //$NON-NLS-1$
+	int length = in.readInt();
+	if (length == STOP) {
+		out.writeInt(0);
+		out.flush();
+		return false;
+	}
+	if (length < 0 || length > MAX_ARGUMENTS)
+		throw new IOException("Invalid number of arguments: " + length); //$NON-NLS-1$
+	int remaining = MAX_REQUEST_LENGTH;
+	byte[] bytes = readBytes(in, remaining);
+	remaining -= bytes.length;
+	File directory = new File(new String(bytes, "UTF-8")); //$NON-NLS-1$
+	if (!directory.isAbsolute())
+		throw new IOException("Invalid working directory: " + directory); //$NON-NLS-1$
+	String[] arguments = new String[length];
+	for (int i = 0; i < length; i++) {
+		bytes = readBytes(in, remaining);
+		remaining -= bytes.length;
+		arguments[i] = new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+	socket.setSoTimeout(0); // the client waits for the compilation
+
+	StringWriter output = new StringWriter();
+	StringWriter errors = new StringWriter();
+	PrintWriter errWriter = new PrintWriter(errors);
+	boolean succeeded;
+	try {
+		arguments = resolveArguments(arguments, directory);
+		succeeded = new DaemonMain(new PrintWriter(output), errWriter, this.archiveCache).compile(arguments);
+	} catch (IOException e) {
+		// an argument file cannot be read
+		errWriter.println(e.toString());
+		errWriter.flush();
+		succeeded = false;
+	} catch (RuntimeException e) {
+		e.printStackTrace(errWriter);
+		errWriter.flush();
+		succeeded = false;
+	} finally {
+		this.archiveCache.compilationDone();
+	}
+	writeString(out, output.toString());
+	writeString(out, errors.toString());
+	out.writeInt(succeeded ? 0 : -1); // same as Main#compile(String[]) when it exits
+	out.flush();
+	return true;
+}
+/**
+ * Compiles with the daemon listening on the given port of the local host, and prints the messages
+ * of the compiler on the given streams. Answers the exit status of the compilation.
+ * The token of the daemon is read from the given file. The relative paths of the arguments
+ * are resolved against the working directory of the current process.
+ */
+public static int compile(int port, File tokenFile, String[] arguments, PrintStream outStream, PrintStream errStream) throws IOException {
+	return compile(port, tokenFile, new File(System.getProperty("user.dir")), arguments, outStream, errStream); //$NON-NLS-1$
+}
+/**
+ * Same as {@link #compile(int, File, String[], PrintStream, PrintStream)}, the relative paths
+ * of the arguments are resolved against the given directory.
+ */
+public static int compile(int port, File tokenFile, File directory, String[] arguments, PrintStream outStream, PrintStream errStream) throws IOException {
+	byte[] token = readToken(tokenFile);
+	Socket socket = new Socket(InetAddress.getByName(null), port);
+	try {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		out.write(token);
+		out.writeInt(arguments.length);
+		writeString(out, directory.getAbsolutePath());
+		for (int i = 0, length = arguments.length; i < length; i++)
+			writeString(out, arguments[i]);
+		out.flush();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		outStream.print(new String(readBytes(in, Integer.MAX_VALUE), "UTF-8")); //$NON-NLS-1$
+		errStream.print(new String(readBytes(in, Integer.MAX_VALUE), "UTF-8")); //$NON-NLS-1$
+		outStream.flush();
+		errStream.flush();
+		return in.readInt();
+	} finally {
+		socket.close();
+	}
+}
+/**
+ * Stops the daemon listening on the given port of the local host, whose token is read from the given file.
+ */
+public static void stop(int port, File tokenFile) throws IOException {
+	byte[] token = readToken(tokenFile);
+	Socket socket = new Socket(InetAddress.getByName(null), port);
+	try {
+		DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+		out.write(token);
+		out.writeInt(STOP);
+		out.flush();
+		new DataInputStream(socket.getInputStream()).readInt();
+	} finally {
+		socket.close();
+	}
+}
+/*
+ * Writes the token in a new file which only its owner can read and write.
+ */
+private static void writeToken(File file, byte[] token) throws IOException {
+	Path path = file.toPath();
+	Files.deleteIfExists(path);
+	if (path.getFileSystem().supportedFileAttributeViews().contains("posix")) { //$NON-NLS-1$
+		Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))); //$NON-NLS-1$
+	} else {
+		Files.createFile(path);
+		AclFileAttributeView view = Files.getFileAttributeView(path, AclFileAttributeView.class);
+		if (view == null) {
+			Files.delete(path);
+			throw new IOException("Cannot restrict the access to " + file); //$NON-NLS-1$
+		}
+		AclEntry entry = AclEntry.newBuilder()
+			.setType(AclEntryType.ALLOW)
+			.setPrincipal(view.getOwner())
+			.setPermissions(EnumSet.allOf(AclEntryPermission.class))
+			.build();
+		view.setAcl(Collections.singletonList(entry));
+	}
+	OutputStream stream = Files.newOutputStream(path);
+	try {
+		stream.write(token);
+	} finally {
+		stream.close();
+	}
+}
+private static byte[] readToken(File file) throws IOException {
+	byte[] token = Files.readAllBytes(file.toPath());
+	if (token.length != TOKEN_LENGTH)
+		throw new IOException("Invalid token file " + file); //$NON-NLS-1$
+	return token;
+}
+/*
+ * Reads the UTF-8 bytes of a string written by writeString(DataOutputStream, String).
+ * The arguments may be longer than what DataOutput#writeUTF(String) allows, e.g. a classpath.
+ */
+private static byte[] readBytes(DataInputStream in, int maxLength) throws IOException {
+	int length = in.readInt();
+	if (length < 0 || length > maxLength)
+		throw new IOException("Invalid string length: " + length); //$NON-NLS-1$
+	byte[] bytes = new byte[length];
+	in.readFully(bytes);
+	return bytes;
+}
+private static void writeString(DataOutputStream out, String string) throws IOException {
+	byte[] bytes = string.getBytes("UTF-8"); //$NON-NLS-1$
+	out.writeInt(bytes.length);
+	out.write(bytes);
+}
+/**
+ * Answers the given arguments of {@link Main} with their relative paths resolved against the given
+ * directory. The argument files are expanded, as their paths are relative to the same directory.
+ */
+public static String[] resolveArguments(String[] arguments, File directory) throws IOException {
+	ArrayList<String> resolved = new ArrayList<String>(arguments.length);
+	for (int i = 0, length = arguments.length; i < length; i++) {
+		String argument = arguments[i];
+		if (argument.startsWith("@")) { //$NON-NLS-1$
+			// same as Main#configure(String[])
+			File file = new File(resolve(argument.substring(1), directory));
+			LineNumberReader reader = new LineNumberReader(new StringReader(new String(Util.getFileCharContent(file, null))));
+			StringBuffer buffer = new StringBuffer();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (!line.startsWith("#")) //$NON-NLS-1$
+					buffer.append(line).append(' ');
+			}
+			String[] expanded = resolveArguments(Main.tokenize(buffer.toString()), directory);
+			for (int j = 0; j < expanded.length; j++)
+				resolved.add(expanded[j]);
+			continue;
+		}
+		resolved.add(argument);
+		if (isOption(argument, PATH_OPTIONS) && i + 1 < length) {
+			String path = arguments[++i];
+			resolved.add(argument.equals("-d") ? resolveDestination(path, directory) : resolve(path, directory)); //$NON-NLS-1$
+		} else if (isOption(argument, PATH_LIST_OPTIONS) && i + 1 < length) {
+			String paths = arguments[++i];
+			// the rules or the destination of an entry may span several arguments, e.g. "src[-d" "bin]"
+			while (bracketsBalance(paths) > 0 && i + 1 < length)
+				paths += ' ' + arguments[++i];
+			// see Main#ANNOTATION_SOURCE_CLASSPATH
+			boolean fromClasspath = argument.equals("-annotationpath") && paths.equals("CLASSPATH"); //$NON-NLS-1$ //$NON-NLS-2$
+			resolved.add(fromClasspath ? paths : resolvePaths(paths, directory));
+		} else if (isOption(argument, VALUE_OPTIONS) && i + 1 < length) {
+			resolved.add(arguments[++i]);
+		} else if (argument.startsWith("-nowarn:[") && argument.endsWith("]")) { //$NON-NLS-1$ //$NON-NLS-2$
+			resolved.set(resolved.size() - 1, "-nowarn:[" + resolvePaths(argument.substring(9, argument.length() - 1), directory) + ']'); //$NON-NLS-1$
+		} else if (!argument.startsWith("-") && !argument.startsWith("[")) { //$NON-NLS-1$ //$NON-NLS-2$
+			// a source file or directory, possibly followed by its encoding, e.g. "X.java[UTF-8]"
+			int bracket = argument.indexOf('[');
+			String path = bracket == -1 ? argument : argument.substring(0, bracket);
+			resolved.set(resolved.size() - 1, resolve(path, directory) + argument.substring(path.length()));
+		}
+	}
+	return resolved.toArray(new String[resolved.size()]);
+}
+private static boolean isOption(String argument, String[] options) {
+	for (int i = 0; i < options.length; i++)
+		if (options[i].equals(argument))
+			return true;
+	return false;
+}
+private static int bracketsBalance(String paths) {
+	int balance = 0;
+	for (int i = 0, length = paths.length(); i < length; i++) {
+		char c = paths.charAt(i);
+		if (c == '[')
+			balance++;
+		else if (c == ']')
+			balance--;
+	}
+	return balance;
+}
+/*
+ * Resolves the entries of a path list, and the destinations given to them, e.g. "src[-d bin]",
+ * but not their access rules. See Main#processPathEntries(int, ArrayList, String, String, boolean, boolean).
+ */
+private static String resolvePaths(String paths, File directory) {
+	StringBuffer buffer = new StringBuffer(paths.length());
+	StringTokenizer tokenizer = new StringTokenizer(paths, File.pathSeparator + "[]", true); //$NON-NLS-1$
+	boolean insideBrackets = false;
+	while (tokenizer.hasMoreTokens()) {
+		String token = tokenizer.nextToken();
+		if (token.equals("[")) { //$NON-NLS-1$
+			insideBrackets = true;
+		} else if (token.equals("]")) { //$NON-NLS-1$
+			insideBrackets = false;
+		} else if (!insideBrackets) {
+			if (!token.equals(File.pathSeparator))
+				token = resolve(token, directory);
+		} else if (token.startsWith("-d ")) { //$NON-NLS-1$
+			token = "-d " + resolveDestination(token.substring(3).trim(), directory); //$NON-NLS-1$
+		}
+		buffer.append(token);
+	}
+	return buffer.toString();
+}
+private static String resolveDestination(String path, File directory) {
+	return Main.NONE.equals(path) ? path : resolve(path, directory);
+}
+private static String resolve(String path, File directory) {
+	if (path.length() == 0 || new File(path).isAbsolute())
+		return path;
+	return new File(directory, path).getPath();
+}
+public static void main(String[] argv) {
+	Main main = new Main(new PrintWriter(System.out), new PrintWriter(System.err), false /* systemExit */, null /* options */, null /* progress */);
+	if (argv.length < 3) {
+		System.err.println(main.bind("daemon.usage")); //$NON-NLS-1$
+		System.exit(-1);
+	}
+	int port;
+	try {
+		port = Integer.parseInt(argv[1]);
+	} catch (NumberFormatException e) {
+		System.err.println(main.bind("daemon.usage")); //$NON-NLS-1$
+		System.exit(-1);
+		return;
+	}
+	File tokenFile = new File(argv[2]);
+	try {
+		if ("-port".equals(argv[0])) { //$NON-NLS-1$
+			CompilerDaemon daemon = new CompilerDaemon(port, tokenFile);
+			System.out.println(main.bind("daemon.listening", String.valueOf(daemon.getPort()))); //$NON-NLS-1$
+			daemon.serve();
+		} else if ("-connect".equals(argv[0])) { //$NON-NLS-1$
+			String[] arguments = new String[argv.length - 3];
+			System.arraycopy(argv, 3, arguments, 0, arguments.length);
+			System.exit(compile(port, tokenFile, arguments, System.out, System.err));
+		} else if ("-stop".equals(argv[0])) { //$NON-NLS-1$
+			stop(port, tokenFile);
+		} else {
+			System.err.println(main.bind("daemon.usage")); //$NON-NLS-1$
+			System.exit(-1);
+		}
+	} catch (IOException e) {
+		System.err.println(main.bind("daemon.ioError", String.valueOf(port), e.toString())); //$NON-NLS-1$
+		System.exit(-1);
+	}
+}
+}
@@ -15,6 +15,7 @@ package org.eclipse.jdt.internal.compiler.batch;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -114,6 +115,11 @@ public class FileSystem implements INameEnvironment, SuffixConstants {
 	protected Classpath[] classpaths;
 	Set knownFileNames;
 	protected boolean annotationsFromClasspath; // should annotation files be read from the classpath (vs. explicit separate path)?
+	// the entries of the classpath which contain a package, in classpath order, see getClasspaths(String, String)
+	private HashMap<String, Classpath[]> packageClasspaths = new HashMap<String, Classpath[]>();
+	// the qualified names of the types which were not found, see findClass(String, char[], boolean)
+	private HashSet<String> missingTypes = new HashSet<String>();
+	private HashSet<String> missingBinaryTypes = new HashSet<String>();
 
 /*
 	classPathNames is a collection is Strings representing the full path of each class path
@@ -256,6 +262,22 @@ private void initializeKnownFileNames(String[] initialFileNames) {
 public void cleanup() {
 	for (int i = 0, max = this.classpaths.length; i < max; i++)
 		this.classpaths[i].reset();
+	this.packageClasspaths.clear();
+	this.missingTypes.clear();
+	this.missingBinaryTypes.clear();
+}
+/**
+ * Forgets the packages and the types found on the classpath, and the types which were not found,
+ * since files were written in its directories, e.g. the class files generated by an annotation processor.
+ * Unlike cleanup(), the archives stay open.
+ */
+public void directoriesChanged() {
+	for (int i = 0, max = this.classpaths.length; i < max; i++)
+		if (this.classpaths[i] instanceof ClasspathDirectory)
+			this.classpaths[i].reset();
+	this.packageClasspaths.clear();
+	this.missingTypes.clear();
+	this.missingBinaryTypes.clear();
 }
 private static String convertPathSeparators(String path) {
 	return File.separatorChar == '/'
@@ -263,7 +285,14 @@ private static String convertPathSeparators(String path) {
 		 : path.replace('/', '\\');
 }
 private NameEnvironmentAnswer findClass(String qualifiedTypeName, char[] typeName, boolean asBinaryOnly){
+	// a type which was not found is not found as a binary type either
+	if (this.missingTypes.contains(qualifiedTypeName) || (asBinaryOnly && this.missingBinaryTypes.contains(qualifiedTypeName)))
+		return null;
 	NameEnvironmentAnswer answer = internalFindClass(qualifiedTypeName, typeName, asBinaryOnly);
+	if (answer == null) {
+		(asBinaryOnly ? this.missingBinaryTypes : this.missingTypes).add(qualifiedTypeName);
+		return null;
+	}
 	if (this.annotationsFromClasspath && answer != null && answer.getBinaryType() instanceof ClassFileReader) {
 		for (int i = 0, length = this.classpaths.length; i < length; i++) {
 			Classpath classpathEntry = this.classpaths[i];
@@ -289,10 +318,11 @@ private NameEnvironmentAnswer internalFindClass(String qualifiedTypeName, char[]
 			? Util.EMPTY_STRING
 			: qualifiedBinaryFileName.substring(0, qualifiedTypeName.length() - typeName.length - 1);
 	String qp2 = File.separatorChar == '/' ? qualifiedPackageName : qualifiedPackageName.replace('/', File.separatorChar);
+	Classpath[] entries = getClasspaths(qualifiedPackageName, qp2);
 	NameEnvironmentAnswer suggestedAnswer = null;
 	if (qualifiedPackageName == qp2) {
-		for (int i = 0, length = this.classpaths.length; i < length; i++) {
-			NameEnvironmentAnswer answer = this.classpaths[i].findClass(typeName, qualifiedPackageName, qualifiedBinaryFileName, asBinaryOnly);
+		for (int i = 0, length = entries.length; i < length; i++) {
+			NameEnvironmentAnswer answer = entries[i].findClass(typeName, qualifiedPackageName, qualifiedBinaryFileName, asBinaryOnly);
 			if (answer != null) {
 				if (!answer.ignoreIfBetter()) {
 					if (answer.isBetter(suggestedAnswer))
@@ -304,8 +334,8 @@ private NameEnvironmentAnswer internalFindClass(String qualifiedTypeName, char[]
 		}
 	} else {
 		String qb2 = qualifiedBinaryFileName.replace('/', File.separatorChar);
-		for (int i = 0, length = this.classpaths.length; i < length; i++) {
-			Classpath p = this.classpaths[i];
+		for (int i = 0, length = entries.length; i < length; i++) {
+			Classpath p = entries[i];
 			NameEnvironmentAnswer answer = (p instanceof ClasspathJar)
 				? p.findClass(typeName, qualifiedPackageName, qualifiedBinaryFileName, asBinaryOnly)
 				: p.findClass(typeName, qp2, qb2, asBinaryOnly);
@@ -393,17 +423,27 @@ public NameEnvironmentAnswer findType(char[] typeName, char[][] packageName) {
 public boolean isPackage(char[][] compoundName, char[] packageName) {
 	String qualifiedPackageName = new String(CharOperation.concatWith(compoundName, packageName, '/'));
 	String qp2 = File.separatorChar == '/' ? qualifiedPackageName : qualifiedPackageName.replace('/', File.separatorChar);
-	if (qualifiedPackageName == qp2) {
-		for (int i = 0, length = this.classpaths.length; i < length; i++)
-			if (this.classpaths[i].isPackage(qualifiedPackageName))
-				return true;
-	} else {
-		for (int i = 0, length = this.classpaths.length; i < length; i++) {
+	return getClasspaths(qualifiedPackageName, qp2).length > 0;
+}
+/*
+ * Answers the entries of the classpath which contain the given package, in classpath order.
+ * Each entry is asked once for a package, a lookup then only probes the entries containing its package.
+ */
+private Classpath[] getClasspaths(String qualifiedPackageName, String qp2) {
+	Classpath[] entries = this.packageClasspaths.get(qualifiedPackageName);
+	if (entries == null) {
+		int length = this.classpaths.length;
+		entries = new Classpath[length];
+		int count = 0;
+		for (int i = 0; i < length; i++) {
 			Classpath p = this.classpaths[i];
-			if ((p instanceof ClasspathJar) ? p.isPackage(qualifiedPackageName) : p.isPackage(qp2))
-				return true;
+			if ((qualifiedPackageName == qp2 || p instanceof ClasspathJar) ? p.isPackage(qualifiedPackageName) : p.isPackage(qp2))
+				entries[count++] = p;
 		}
+		if (count < length)
+			System.arraycopy(entries, 0, entries = new Classpath[count], 0, count);
+		this.packageClasspaths.put(qualifiedPackageName, entries);
 	}
-	return false;
+	return entries;
 }
 }
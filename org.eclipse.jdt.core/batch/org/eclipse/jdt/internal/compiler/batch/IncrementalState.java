@@ -0,0 +1,627 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.compiler.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
+import org.eclipse.jdt.internal.compiler.lookup.TypeConstants;
+import org.eclipse.jdt.internal.compiler.util.Util;
+
+/**
+ * The state of the incremental compilations of {@link Main}, saved in the directory given by the
+ * <code>-incremental</code> option.
+ * <p>
+ * Like the state of the Java builder, the state keeps for each compilation unit the class files generated from it
+ * and the names it references, along with the modification time and the length of its file. A compilation first
+ * compiles the units which changed since the previous compilation and the units which had errors, then the units
+ * referencing the types whose class files changed structurally, see {@link ClassFileReader#hasStructuralChanges(byte[])},
+ * were added or were removed, until the class files no longer change structurally. The types of the other units are
+ * read from their class files, since the destination directories are put first on the classpath.
+ * </p><p>
+ * All the units are compiled when the options or the classpath changed: the state keeps the options, the modification
+ * time and the length of the archives of the classpath, and the same for the class files of its directories. The files
+ * generated by annotation processors are not tracked, so Main does not use the state when processing annotations.
+ * </p>
+ */
+public class IncrementalState {
+
+static final byte VERSION = 0x0001;
+static final String STATE_FILE_NAME = "state.dat"; //$NON-NLS-1$
+static final int MAX_COMPILE_LOOPS = 5; // same as IncrementalImageBuilder
+static final CompilationUnit[] NO_UNITS = new CompilationUnit[0];
+static final String[] NO_STRINGS = new String[0];
+
+/*
+ * A compilation unit compiled by a previous compilation.
+ */
+static class Unit {
+	final String fileName;
+	long lastModified;
+	long length;
+	String encoding;
+	String destinationPath;
+	boolean ignoreOptionalProblems;
+	boolean hasErrors;
+	// the paths of the class files generated from the unit, and the qualified names of their types
+	ArrayList<String> classFileNames = new ArrayList<String>();
+	ArrayList<String> typeNames = new ArrayList<String>();
+	// sorted, the qualified names are of the form 'p1/p2'
+	String[] qualifiedReferences = NO_STRINGS;
+	String[] simpleNameReferences = NO_STRINGS;
+
+	Unit(String fileName) {
+		this.fileName = fileName;
+	}
+	/*
+	 * Answers whether the unit must be compiled again, whether or not it references a changed type.
+	 */
+	boolean hasChanged() {
+		if (this.hasErrors || this.destinationPath == Main.NONE)
+			return true; // report the errors again, or no class files to read its types from
+		File file = new File(this.fileName);
+		if (file.lastModified() != this.lastModified || file.length() != this.length)
+			return true;
+		for (int i = 0, l = this.classFileNames.size(); i < l; i++)
+			if (!new File(this.classFileNames.get(i)).isFile())
+				return true; // e.g. the destination directory was cleaned
+		return false;
+	}
+	boolean references(String packageName, String simpleName) {
+		if (Arrays.binarySearch(this.simpleNameReferences, simpleName) < 0)
+			return false;
+		if (packageName.length() == 0)
+			return true;
+		// a package name of one segment is kept as a simple name, see CompilationUnitScope#recordQualifiedReference(char[][])
+		return packageName.indexOf('/') < 0
+			? Arrays.binarySearch(this.simpleNameReferences, packageName) >= 0
+			: Arrays.binarySearch(this.qualifiedReferences, packageName) >= 0;
+	}
+	CompilationUnit toCompilationUnit() {
+		return new CompilationUnit(null, this.fileName, this.encoding, this.destinationPath, this.ignoreOptionalProblems);
+	}
+}
+
+private final File directory;
+private final Main main;
+private final String[] configuration;
+private HashMap<String, Unit> units = new HashMap<String, Unit>();
+private boolean isFullCompilation = true;
+
+// the unit which generated a class file, by path
+private HashMap<String, String> classFileOwners = new HashMap<String, String>();
+// during a compile loop: the previous state of the compiled units, their previous class files by path
+// and the names of their types
+private HashMap<String, Unit> previousUnits = new HashMap<String, Unit>();
+private HashMap<String, byte[]> previousClassFiles = new HashMap<String, byte[]>();
+private HashMap<String, String> previousTypeNames = new HashMap<String, String>();
+private HashSet<String> compiledUnits = new HashSet<String>();
+private HashSet<String> changedTypeNames = new HashSet<String>();
+private ArrayList<Unit> collidingUnits = new ArrayList<Unit>();
+private Unit currentUnit;
+private CompilationResult currentResult;
+
+/**
+ * Answers the state saved in the given directory by the previous compilation with the same configuration as
+ * the given compiler, or an empty state which compiles all the units.
+ */
+IncrementalState(File directory, Main main) {
+	this.directory = directory;
+	this.main = main;
+	this.configuration = getConfiguration(main);
+	File file = new File(directory, STATE_FILE_NAME);
+	if (file.isFile()) {
+		try {
+			read(file);
+		} catch (IOException e) {
+			// compile all the units
+			this.units.clear();
+			this.classFileOwners.clear();
+			this.isFullCompilation = true;
+		}
+	}
+}
+
+/*
+ * Answers the options, destination and classpath of the compiler, the units are all compiled when they change.
+ */
+private static String[] getConfiguration(Main main) {
+	ArrayList<String> configuration = new ArrayList<String>();
+	configuration.add(main.destinationPath);
+	for (Iterator<Map.Entry<String, String>> iterator = new TreeMap<String, String>(main.options).entrySet().iterator(); iterator.hasNext();) {
+		Map.Entry<String, String> entry = iterator.next();
+		configuration.add(entry.getKey() + '=' + entry.getValue());
+	}
+	HashSet<String> destinationPaths = new HashSet<String>();
+	destinationPaths.add(canonicalPath(main.destinationPath));
+	if (main.destinationPaths != null)
+		for (int i = 0, l = main.destinationPaths.length; i < l; i++)
+			if (main.destinationPaths[i] != null)
+				destinationPaths.add(canonicalPath(main.destinationPaths[i]));
+	for (int i = 0, l = main.checkedClasspaths.length; i < l; i++) {
+		FileSystem.Classpath classpath = main.checkedClasspaths[i];
+		if (classpath instanceof ClasspathLocation && ((ClasspathLocation) classpath).destinationPath != null)
+			destinationPaths.add(canonicalPath(((ClasspathLocation) classpath).destinationPath));
+	}
+	for (int i = 0, l = main.checkedClasspaths.length; i < l; i++) {
+		FileSystem.Classpath classpath = main.checkedClasspaths[i];
+		String path = classpath.getPath();
+		File file = new File(path);
+		if (classpath instanceof ClasspathDirectory) {
+			// the source files are tracked by the units, the class files of the destination directories by the state
+			if (((ClasspathDirectory) classpath).getMode() == ClasspathLocation.SOURCE || destinationPaths.contains(canonicalPath(path))) {
+				configuration.add(path);
+			} else {
+				long[] stamp = new long[3]; // class files, last modification and total length
+				addClassFilesStamp(file, stamp);
+				configuration.add(path + '|' + stamp[0] + '|' + stamp[1] + '|' + stamp[2]);
+			}
+		} else {
+			configuration.add(path + '|' + file.lastModified() + '|' + file.length());
+		}
+	}
+	return configuration.toArray(new String[configuration.size()]);
+}
+private static void addClassFilesStamp(File directory, long[] stamp) {
+	File[] files = directory.listFiles();
+	if (files == null) return;
+	for (int i = 0, l = files.length; i < l; i++) {
+		File file = files[i];
+		if (file.isDirectory()) {
+			addClassFilesStamp(file, stamp);
+		} else if (Util.isClassFileName(file.getName())) {
+			stamp[0]++;
+			stamp[1] = Math.max(stamp[1], file.lastModified());
+			stamp[2] += file.length();
+		}
+	}
+}
+private static String canonicalPath(String path) {
+	try {
+		return new File(path).getCanonicalPath();
+	} catch (IOException e) {
+		return path;
+	}
+}
+
+/**
+ * Answers whether the previous compilation could not be used, in which case all the units are compiled.
+ */
+boolean isFullCompilation() {
+	return this.isFullCompilation;
+}
+
+/**
+ * Answers the given classpath preceded by the destination directories of the previous compilation,
+ * so that the types of the units which are not compiled are read from their class files.
+ */
+FileSystem.Classpath[] getClasspaths(FileSystem.Classpath[] classpaths) {
+	ArrayList<FileSystem.Classpath> result = new ArrayList<FileSystem.Classpath>();
+	HashSet<String> destinationPaths = new HashSet<String>();
+	destinationPaths.add(this.main.destinationPath);
+	for (Iterator<Unit> iterator = this.units.values().iterator(); iterator.hasNext();) {
+		String destinationPath = iterator.next().destinationPath;
+		if (destinationPath != null && destinationPath != Main.NONE)
+			destinationPaths.add(destinationPath);
+	}
+	for (Iterator<String> iterator = destinationPaths.iterator(); iterator.hasNext();) {
+		File directory = new File(iterator.next());
+		if (directory.isDirectory())
+			result.add(new ClasspathDirectory(directory, null, ClasspathLocation.BINARY, null, null, null));
+	}
+	result.addAll(Arrays.asList(classpaths));
+	return result.toArray(new FileSystem.Classpath[result.size()]);
+}
+
+/**
+ * Answers the units to compile first: the given units and the units of the previous compilations which
+ * changed, and the units referencing the types of the units whose file was deleted.
+ */
+CompilationUnit[] getChangedUnits(CompilationUnit[] givenUnits) {
+	// a compilation which does not complete compiles all the units the next time
+	new File(this.directory, STATE_FILE_NAME).delete();
+	if (this.isFullCompilation)
+		return givenUnits;
+
+	ArrayList<CompilationUnit> changedUnits = new ArrayList<CompilationUnit>();
+	HashSet<String> givenFileNames = new HashSet<String>();
+	for (int i = 0, l = givenUnits.length; i < l; i++) {
+		CompilationUnit unit = givenUnits[i];
+		String fileName = new String(unit.fileName);
+		givenFileNames.add(fileName);
+		Unit previous = this.units.get(fileName);
+		if (previous == null
+				|| previous.hasChanged()
+				|| previous.destinationPath != unit.destinationPath && (previous.destinationPath == null || !previous.destinationPath.equals(unit.destinationPath))
+				|| previous.encoding != unit.encoding && (previous.encoding == null || !previous.encoding.equals(unit.encoding))
+				|| previous.ignoreOptionalProblems != unit.ignoreOptionalProblems())
+			changedUnits.add(unit);
+	}
+	// the units found on the source path by the previous compilations
+	for (Iterator<Unit> iterator = this.units.values().iterator(); iterator.hasNext();) {
+		Unit previous = iterator.next();
+		if (givenFileNames.contains(previous.fileName))
+			continue;
+		if (!new File(previous.fileName).isFile()) {
+			for (int i = 0, l = previous.classFileNames.size(); i < l; i++) {
+				String classFileName = previous.classFileNames.get(i);
+				new File(classFileName).delete();
+				this.classFileOwners.remove(classFileName);
+				this.changedTypeNames.add(previous.typeNames.get(i));
+			}
+			iterator.remove();
+		} else if (previous.hasChanged()) {
+			changedUnits.add(previous.toCompilationUnit());
+		}
+	}
+	for (int i = 0, l = changedUnits.size(); i < l; i++)
+		this.compiledUnits.add(new String(changedUnits.get(i).fileName));
+	addAffectedUnits(changedUnits);
+	return changedUnits.toArray(new CompilationUnit[changedUnits.size()]);
+}
+
+/**
+ * Answers all the units of the previous compilations, which are compiled when the structural changes
+ * are still propagating after {@link #MAX_COMPILE_LOOPS} compilations.
+ */
+CompilationUnit[] getAllUnits() {
+	CompilationUnit[] result = new CompilationUnit[this.units.size()];
+	int index = 0;
+	for (Iterator<Unit> iterator = this.units.values().iterator(); iterator.hasNext();)
+		result[index++] = iterator.next().toCompilationUnit();
+	return result;
+}
+
+/**
+ * Notifies that the given units are about to be compiled: their previous class files are kept in memory
+ * to be compared with the new ones, and deleted so that their removed types are not found.
+ */
+void compiling(CompilationUnit[] compilationUnits) {
+	this.compiledUnits.clear();
+	for (int i = 0, l = compilationUnits.length; i < l; i++) {
+		String fileName = new String(compilationUnits[i].fileName);
+		this.compiledUnits.add(fileName);
+		Unit previous = this.units.remove(fileName);
+		if (previous == null) continue;
+		this.previousUnits.put(fileName, previous);
+		for (int j = 0, m = previous.classFileNames.size(); j < m; j++) {
+			String classFileName = previous.classFileNames.get(j);
+			File file = new File(classFileName);
+			try {
+				this.previousClassFiles.put(classFileName, Util.getFileByteContent(file));
+				this.previousTypeNames.put(classFileName, previous.typeNames.get(j));
+			} catch (IOException e) {
+				// consider the type as added
+			}
+			file.delete();
+			this.classFileOwners.remove(classFileName);
+		}
+	}
+}
+
+/**
+ * Records the references of the given unit, before its class files are written.
+ */
+void unitCompiled(CompilationResult result) {
+	this.currentUnit = null;
+	this.currentResult = null;
+	if (!(result.compilationUnit instanceof CompilationUnit))
+		return;
+	CompilationUnit compilationUnit = (CompilationUnit) result.compilationUnit;
+	String fileName = canonicalPath(new String(compilationUnit.fileName));
+	File file = new File(fileName);
+	if (!file.isFile())
+		return; // a source file of an archive, see ClasspathSourceJar
+	Unit unit = new Unit(fileName);
+	unit.lastModified = file.lastModified();
+	unit.length = file.length();
+	unit.encoding = compilationUnit.encoding;
+	unit.destinationPath = compilationUnit.destinationPath;
+	unit.ignoreOptionalProblems = compilationUnit.ignoreOptionalProblems();
+	unit.hasErrors = result.hasErrors();
+	if (result.qualifiedReferences != null) {
+		String[] qualifiedReferences = new String[result.qualifiedReferences.length];
+		for (int i = 0, l = qualifiedReferences.length; i < l; i++)
+			qualifiedReferences[i] = new String(CharOperation.concatWith(result.qualifiedReferences[i], '/'));
+		Arrays.sort(qualifiedReferences);
+		unit.qualifiedReferences = qualifiedReferences;
+	}
+	if (result.simpleNameReferences != null) {
+		String[] simpleNameReferences = new String[result.simpleNameReferences.length];
+		for (int i = 0, l = simpleNameReferences.length; i < l; i++)
+			simpleNameReferences[i] = new String(result.simpleNameReferences[i]);
+		Arrays.sort(simpleNameReferences);
+		unit.simpleNameReferences = simpleNameReferences;
+	}
+	Unit previous = this.units.put(fileName, unit);
+	if (previous != null) {
+		// a unit found on the source path while compiling the given units
+		for (int i = 0, l = previous.classFileNames.size(); i < l; i++)
+			this.classFileOwners.remove(previous.classFileNames.get(i));
+	}
+	previous = this.previousUnits.remove(fileName);
+	if (previous != null && unit.hasErrors && !this.main.proceedOnError)
+		restoreClassFiles(previous, unit);
+	this.compiledUnits.add(fileName);
+	this.currentUnit = unit;
+	this.currentResult = result;
+}
+
+/*
+ * No class files are written for a unit with errors, keep its previous class files until the errors are fixed
+ * rather than compiling its dependents without its types.
+ */
+private void restoreClassFiles(Unit previous, Unit unit) {
+	for (int i = 0, l = previous.classFileNames.size(); i < l; i++) {
+		String classFileName = previous.classFileNames.get(i);
+		byte[] bytes = this.previousClassFiles.remove(classFileName);
+		String typeName = this.previousTypeNames.remove(classFileName);
+		if (bytes == null) continue;
+		try {
+			FileOutputStream output = new FileOutputStream(classFileName);
+			try {
+				output.write(bytes);
+			} finally {
+				output.close();
+			}
+			unit.classFileNames.add(classFileName);
+			unit.typeNames.add(typeName);
+			this.classFileOwners.put(classFileName, unit.fileName);
+		} catch (IOException e) {
+			this.changedTypeNames.add(typeName); // removed
+		}
+	}
+}
+
+/**
+ * Records a class file of the given unit, and compares it with the previous class file of its type.
+ */
+void classFileWritten(CompilationResult result, String destinationPath, String relativeFileName, char[] typeName, byte[] bytes) {
+	if (result != this.currentResult) return;
+	Unit unit = this.currentUnit;
+	String classFileName = new File(destinationPath, relativeFileName).getPath();
+	String qualifiedTypeName = new String(typeName);
+	unit.classFileNames.add(classFileName);
+	unit.typeNames.add(qualifiedTypeName);
+
+	String owner = this.classFileOwners.put(classFileName, unit.fileName);
+	if (owner != null && !owner.equals(unit.fileName)) {
+		// the type is also defined by a unit which was not compiled, compile it again to report the duplicate
+		Unit collidingUnit = this.units.get(owner);
+		if (collidingUnit != null && !this.compiledUnits.contains(owner))
+			this.collidingUnits.add(collidingUnit);
+	}
+	byte[] previousBytes = this.previousClassFiles.remove(classFileName);
+	this.previousTypeNames.remove(classFileName);
+	if (previousBytes == null) {
+		if (qualifiedTypeName.indexOf('$') < 0)
+			this.changedTypeNames.add(qualifiedTypeName); // a new type may hide a type of the same name
+	} else if (hasStructuralChanges(previousBytes, bytes, classFileName)) {
+		this.changedTypeNames.add(qualifiedTypeName);
+	}
+}
+private static boolean hasStructuralChanges(byte[] previousBytes, byte[] bytes, String classFileName) {
+	if (Arrays.equals(previousBytes, bytes))
+		return false;
+	try {
+		ClassFileReader reader = new ClassFileReader(previousBytes, classFileName.toCharArray());
+		// ignore local types since they're only visible inside a single method
+		if (reader.isLocal() || reader.isAnonymous())
+			return false;
+		return reader.hasStructuralChanges(bytes);
+	} catch (ClassFormatException e) {
+		return true;
+	}
+}
+
+/**
+ * Answers the units to compile after the last compile loop: the units which were not compiled by the loop and
+ * reference the types which changed structurally, were added or were removed.
+ */
+CompilationUnit[] getAffectedUnits() {
+	// the previous class files which were not generated again are of removed types
+	this.changedTypeNames.addAll(this.previousTypeNames.values());
+	this.previousUnits.clear();
+	this.previousClassFiles.clear();
+	this.previousTypeNames.clear();
+	ArrayList<CompilationUnit> affectedUnits = new ArrayList<CompilationUnit>();
+	for (int i = 0, l = this.collidingUnits.size(); i < l; i++) {
+		Unit unit = this.collidingUnits.get(i);
+		if (this.units.get(unit.fileName) == unit && !this.compiledUnits.contains(unit.fileName)) {
+			this.compiledUnits.add(unit.fileName);
+			affectedUnits.add(unit.toCompilationUnit());
+		}
+	}
+	this.collidingUnits.clear();
+	addAffectedUnits(affectedUnits);
+	return affectedUnits.toArray(new CompilationUnit[affectedUnits.size()]);
+}
+/*
+ * Adds the units which were not compiled by the last compile loop and reference a changed type.
+ */
+private void addAffectedUnits(ArrayList<CompilationUnit> affectedUnits) {
+	if (this.changedTypeNames.isEmpty())
+		return;
+	// the changed types, as package and simple names, see IncrementalImageBuilder#addDependentsOf(IPath, boolean)
+	ArrayList<String> packageNames = new ArrayList<String>();
+	ArrayList<String> simpleNames = new ArrayList<String>();
+	for (Iterator<String> iterator = this.changedTypeNames.iterator(); iterator.hasNext();) {
+		String typeName = iterator.next();
+		int memberIndex = typeName.indexOf('$');
+		if (memberIndex > 0)
+			typeName = typeName.substring(0, memberIndex);
+		int packageEnd = typeName.lastIndexOf('/');
+		String packageName = packageEnd < 0 ? "" : typeName.substring(0, packageEnd); //$NON-NLS-1$
+		String simpleName = typeName.substring(packageEnd + 1);
+		if (simpleName.equals(new String(TypeConstants.PACKAGE_INFO_NAME))) {
+			// the package-info file has changed so blame the package itself, unless it is the default package
+			if (packageEnd < 0) continue;
+			packageEnd = packageName.lastIndexOf('/');
+			simpleName = packageName.substring(packageEnd + 1);
+			packageName = packageEnd < 0 ? "" : packageName.substring(0, packageEnd); //$NON-NLS-1$
+		}
+		packageNames.add(packageName);
+		simpleNames.add(simpleName);
+	}
+	this.changedTypeNames.clear();
+
+	int count = packageNames.size();
+	next : for (Iterator<Unit> iterator = this.units.values().iterator(); iterator.hasNext();) {
+		Unit unit = iterator.next();
+		if (this.compiledUnits.contains(unit.fileName))
+			continue next;
+		for (int i = 0; i < count; i++) {
+			if (unit.references(packageNames.get(i), simpleNames.get(i))) {
+				this.compiledUnits.add(unit.fileName);
+				affectedUnits.add(unit.toCompilationUnit());
+				continue next;
+			}
+		}
+	}
+}
+
+private void read(File file) throws IOException {
+	DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+	try {
+		if (in.readByte() != VERSION)
+			return;
+		String[] savedConfiguration = new String[in.readInt()];
+		for (int i = 0, l = savedConfiguration.length; i < l; i++)
+			savedConfiguration[i] = readString(in);
+		if (!Arrays.equals(savedConfiguration, this.configuration))
+			return;
+
+		String[] names = new String[in.readInt()];
+		for (int i = 0, l = names.length; i < l; i++)
+			names[i] = in.readUTF();
+		for (int i = 0, l = in.readInt(); i < l; i++) {
+			Unit unit = new Unit(in.readUTF());
+			unit.lastModified = in.readLong();
+			unit.length = in.readLong();
+			unit.encoding = in.readBoolean() ? in.readUTF() : null;
+			if (in.readBoolean()) {
+				String destinationPath = in.readUTF();
+				unit.destinationPath = Main.NONE.equals(destinationPath) ? Main.NONE : destinationPath; // keep == comparison valid
+			}
+			unit.ignoreOptionalProblems = in.readBoolean();
+			unit.hasErrors = in.readBoolean();
+			for (int j = 0, m = in.readInt(); j < m; j++) {
+				String classFileName = in.readUTF();
+				unit.classFileNames.add(classFileName);
+				unit.typeNames.add(in.readUTF());
+				this.classFileOwners.put(classFileName, unit.fileName);
+			}
+			unit.qualifiedReferences = new String[in.readInt()];
+			for (int j = 0, m = unit.qualifiedReferences.length; j < m; j++)
+				unit.qualifiedReferences[j] = names[in.readInt()];
+			unit.simpleNameReferences = new String[in.readInt()];
+			for (int j = 0, m = unit.simpleNameReferences.length; j < m; j++)
+				unit.simpleNameReferences[j] = names[in.readInt()];
+			this.units.put(unit.fileName, unit);
+		}
+		this.isFullCompilation = false;
+	} finally {
+		in.close();
+	}
+}
+
+/**
+ * Saves the state in its directory for the next compilation.
+ */
+void save() throws IOException {
+	// the names referenced by the units are written once
+	HashMap<String, Integer> nameIndexes = new HashMap<String, Integer>();
+	ArrayList<String> names = new ArrayList<String>();
+	for (Iterator<Unit> iterator = this.units.values().iterator(); iterator.hasNext();) {
+		Unit unit = iterator.next();
+		addNames(unit.qualifiedReferences, nameIndexes, names);
+		addNames(unit.simpleNameReferences, nameIndexes, names);
+	}
+
+	this.directory.mkdirs();
+	DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(this.directory, STATE_FILE_NAME))));
+	try {
+		out.writeByte(VERSION);
+		out.writeInt(this.configuration.length);
+		for (int i = 0, l = this.configuration.length; i < l; i++)
+			writeString(out, this.configuration[i]);
+		out.writeInt(names.size());
+		for (int i = 0, l = names.size(); i < l; i++)
+			out.writeUTF(names.get(i));
+		out.writeInt(this.units.size());
+		for (Iterator<Unit> iterator = this.units.values().iterator(); iterator.hasNext();) {
+			Unit unit = iterator.next();
+			out.writeUTF(unit.fileName);
+			out.writeLong(unit.lastModified);
+			out.writeLong(unit.length);
+			out.writeBoolean(unit.encoding != null);
+			if (unit.encoding != null)
+				out.writeUTF(unit.encoding);
+			out.writeBoolean(unit.destinationPath != null);
+			if (unit.destinationPath != null)
+				out.writeUTF(unit.destinationPath);
+			out.writeBoolean(unit.ignoreOptionalProblems);
+			out.writeBoolean(unit.hasErrors);
+			out.writeInt(unit.classFileNames.size());
+			for (int i = 0, l = unit.classFileNames.size(); i < l; i++) {
+				out.writeUTF(unit.classFileNames.get(i));
+				out.writeUTF(unit.typeNames.get(i));
+			}
+			out.writeInt(unit.qualifiedReferences.length);
+			for (int i = 0, l = unit.qualifiedReferences.length; i < l; i++)
+				out.writeInt(nameIndexes.get(unit.qualifiedReferences[i]).intValue());
+			out.writeInt(unit.simpleNameReferences.length);
+			for (int i = 0, l = unit.simpleNameReferences.length; i < l; i++)
+				out.writeInt(nameIndexes.get(unit.simpleNameReferences[i]).intValue());
+		}
+	} finally {
+		out.close();
+	}
+}
+private static void addNames(String[] references, HashMap<String, Integer> nameIndexes, ArrayList<String> names) {
+	for (int i = 0, l = references.length; i < l; i++) {
+		if (!nameIndexes.containsKey(references[i])) {
+			nameIndexes.put(references[i], Integer.valueOf(names.size()));
+			names.add(references[i]);
+		}
+	}
+}
+/*
+ * A configuration entry may be longer than what DataOutput#writeUTF(String) allows, e.g. an option.
+ */
+private static String readString(DataInputStream in) throws IOException {
+	byte[] bytes = new byte[in.readInt()];
+	in.readFully(bytes);
+	return new String(bytes, "UTF-8"); //$NON-NLS-1$
+}
+private static void writeString(DataOutputStream out, String string) throws IOException {
+	byte[] bytes = string.getBytes("UTF-8"); //$NON-NLS-1$
+	out.writeInt(bytes.length);
+	out.write(bytes);
+}
+}
@@ -29,6 +29,7 @@
 package org.eclipse.jdt.internal.compiler.batch;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -43,6 +44,7 @@ import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.text.DateFormat;
 import java.text.MessageFormat;
@@ -1334,6 +1336,9 @@ public class Main implements ProblemSeverities, SuffixConstants {
 	public int exportedClassFilesCounter;
 	public String[] filenames;
 	public String[] classNames;
+	// directory of the state of the incremental compilations, see the -incremental option
+	public String incrementalDirectory;
+	protected IncrementalState incrementalState;
 	// overrides of destinationPath on a directory argument basis
 	public int globalErrorsCount;
 	public int globalProblemsCount;
@@ -1347,6 +1352,8 @@ public class Main implements ProblemSeverities, SuffixConstants {
 	public long lineCount0;
 
 	public String log;
+	// file receiving the stats of each compiled unit, in CSV if its extension is .csv, in JSON otherwise
+	public String metrics;
 
 	public Logger logger;
 	public int maxProblems;
@@ -1777,6 +1784,9 @@ public void configure(String[] argv) {
 	final int INSIDE_CLASS_NAMES = 20;
 	final int INSIDE_WARNINGS_PROPERTIES = 21;
 	final int INSIDE_ANNOTATIONPATH_start = 22;
+	final int INSIDE_PROCESSING_WORKERS = 23;
+	final int INSIDE_INCREMENTAL = 24;
+	final int INSIDE_METRICS = 25;
 
 	final int DEFAULT = 0;
 	ArrayList bootclasspaths = new ArrayList(DEFAULT_SIZE_CLASSPATH);
@@ -1976,6 +1986,13 @@ public void configure(String[] argv) {
 					mode = INSIDE_LOG;
 					continue;
 				}
+				if (currentArg.equals("-metrics")) { //$NON-NLS-1$
+					if (this.metrics != null)
+						throw new IllegalArgumentException(
+							this.bind("configure.duplicateMetrics", currentArg)); //$NON-NLS-1$
+					mode = INSIDE_METRICS;
+					continue;
+				}
 				if (currentArg.equals("-repeat")) { //$NON-NLS-1$
 					if (this.maxRepetition > 0)
 						throw new IllegalArgumentException(
@@ -1990,6 +2007,17 @@ public void configure(String[] argv) {
 					mode = INSIDE_MAX_PROBLEMS;
 					continue;
 				}
+				if (currentArg.equals("-processingWorkers")) { //$NON-NLS-1$
+					mode = INSIDE_PROCESSING_WORKERS;
+					continue;
+				}
+				if (currentArg.equals("-incremental")) { //$NON-NLS-1$
+					if (this.incrementalDirectory != null)
+						throw new IllegalArgumentException(
+							this.bind("configure.duplicateIncremental", currentArg)); //$NON-NLS-1$
+					mode = INSIDE_INCREMENTAL;
+					continue;
+				}
 				if (currentArg.equals("-source")) { //$NON-NLS-1$
 					mode = INSIDE_SOURCE;
 					continue;
@@ -2514,6 +2542,10 @@ public void configure(String[] argv) {
 				this.log = currentArg;
 				mode = DEFAULT;
 				continue;
+			case INSIDE_METRICS :
+				this.metrics = currentArg;
+				mode = DEFAULT;
+				continue;
 			case INSIDE_REPETITION :
 				try {
 					this.maxRepetition = Integer.parseInt(currentArg);
@@ -2537,6 +2569,21 @@ public void configure(String[] argv) {
 				}
 				mode = DEFAULT;
 				continue;
+			case INSIDE_PROCESSING_WORKERS :
+				try {
+					if (Integer.parseInt(currentArg) <= 0) {
+						throw new IllegalArgumentException(this.bind("configure.processingWorkers", currentArg)); //$NON-NLS-1$
+					}
+					this.options.put(CompilerOptions.OPTION_ProcessingWorkers, currentArg);
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException(this.bind("configure.processingWorkers", currentArg)); //$NON-NLS-1$
+				}
+				mode = DEFAULT;
+				continue;
+			case INSIDE_INCREMENTAL :
+				this.incrementalDirectory = currentArg;
+				mode = DEFAULT;
+				continue;
 			case INSIDE_SOURCE :
 				if (this.didSpecifySource) {
 					throw new IllegalArgumentException(
@@ -2857,6 +2904,11 @@ public void configure(String[] argv) {
 			endorsedDirClasspaths,
 			customEncoding);
 
+	if (this.incrementalDirectory != null && (this.destinationPath == null || this.destinationPath == NONE)) {
+		// the units which are not compiled are read from their class files
+		throw new IllegalArgumentException(this.bind("configure.incrementalDestinationPath")); //$NON-NLS-1$
+	}
+
 	if (specifiedEncodings != null && specifiedEncodings.size() > 1) {
 		this.logger.logWarning(this.bind("configure.multipleencodings", //$NON-NLS-1$
 				this.options.get(CompilerOptions.OPTION_Encoding),
@@ -3083,7 +3135,10 @@ public File getJavaHome() {
 }
 
 public FileSystem getLibraryAccess() {
-	return new FileSystem(this.checkedClasspaths, this.filenames, 
+	FileSystem.Classpath[] classpaths = this.checkedClasspaths;
+	if (this.incrementalState != null && !this.incrementalState.isFullCompilation())
+		classpaths = this.incrementalState.getClasspaths(classpaths);
+	return new FileSystem(classpaths, this.filenames, 
 					this.annotationsFromClasspath && CompilerOptions.ENABLED.equals(this.options.get(CompilerOptions.OPTION_AnnotationBasedNullAnalysis)));
 }
 
@@ -4121,6 +4176,8 @@ public void outputClassFiles(CompilationResult unitResult) {
 						currentDestinationPath,
 						relativeStringName,
 						classFile);
+					if (this.incrementalState != null)
+						this.incrementalState.classFileWritten(unitResult, currentDestinationPath, relativeStringName, filename, classFile.getBytes());
 					this.logger.logClassFile(
 						generateClasspathStructure,
 						currentDestinationPath,
@@ -4141,6 +4198,13 @@ public void performCompilation() {
 
 	this.startTime = System.currentTimeMillis();
 
+	this.incrementalState = null;
+	if (this.incrementalDirectory != null) {
+		if (CompilerOptions.ENABLED.equals(this.options.get(CompilerOptions.OPTION_Process_Annotations)))
+			new File(this.incrementalDirectory, IncrementalState.STATE_FILE_NAME).delete(); // the generated files are not tracked
+		else
+			this.incrementalState = new IncrementalState(new File(this.incrementalDirectory), this);
+	}
 	FileSystem environment = getLibraryAccess();
 	this.compilerOptions = new CompilerOptions(this.options);
 	this.compilerOptions.performMethodsFullRecovery = false;
@@ -4155,6 +4219,8 @@ public void performCompilation() {
 			this.out,
 			this.progress);
 	this.batchCompiler.remainingIterations = this.maxRepetition-this.currentRepetition/*remaining iterations including this one*/;
+	if (this.metrics != null)
+		this.batchCompiler.stats.collectUnitStats();
 	// temporary code to allow the compiler to revert to a single thread
 	String setting = System.getProperty("jdt.compiler.useSingleThread"); //$NON-NLS-1$
 	this.batchCompiler.useSingleThread = setting != null && setting.equals("true"); //$NON-NLS-1$
@@ -4174,10 +4240,13 @@ public void performCompilation() {
 
 	// set the non-externally configurable options.
 	this.compilerOptions.verbose = this.verbose;
-	this.compilerOptions.produceReferenceInfo = this.produceRefInfo;
+	this.compilerOptions.produceReferenceInfo = this.produceRefInfo || this.incrementalState != null;
 	try {
 		this.logger.startLoggingSources();
-		this.batchCompiler.compile(getCompilationUnits());
+		if (this.incrementalState != null)
+			compileIncrementally(environment);
+		else
+			this.batchCompiler.compile(getCompilationUnits());
 	} finally {
 		this.logger.endLoggingSources();
 	}
@@ -4190,10 +4259,52 @@ public void performCompilation() {
 		this.compilerStats[this.currentRepetition] = this.batchCompiler.stats;
 	}
 	this.logger.printStats();
+	if (this.metrics != null)
+		writeMetrics();
 
 	// cleanup
 	environment.cleanup();
 }
+/*
+ * Compiles the units which changed since the previous compilation, then their dependents
+ * as long as the types of the compiled units change, see IncrementalState.
+ */
+private void compileIncrementally(FileSystem environment) {
+	IncrementalState state = this.incrementalState;
+	CompilationUnit[] units = state.getChangedUnits(getCompilationUnits());
+	for (int loop = 1; units.length > 0; loop++) {
+		boolean compileAll = loop > IncrementalState.MAX_COMPILE_LOOPS;
+		if (compileAll)
+			units = state.getAllUnits();
+		state.compiling(units);
+		this.batchCompiler.compile(units);
+		environment.directoriesChanged(); // the next loop reads the class files written by this one
+		units = compileAll ? IncrementalState.NO_UNITS : state.getAffectedUnits();
+	}
+	try {
+		state.save();
+	} catch (IOException e) {
+		this.logger.logWarning(this.bind("incremental.cannotSave", this.incrementalDirectory, e.getMessage())); //$NON-NLS-1$
+	}
+}
+/*
+ * Writes the stats of the compilation to the metrics file, see the -metrics option.
+ */
+private void writeMetrics() {
+	try {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.metrics), "UTF-8")); //$NON-NLS-1$
+		try {
+			if (this.metrics.toLowerCase().endsWith(".csv")) //$NON-NLS-1$
+				this.batchCompiler.stats.writeCSV(writer);
+			else
+				this.batchCompiler.stats.writeJSON(writer);
+		} finally {
+			writer.close();
+		}
+	} catch (IOException e) {
+		this.logger.logWarning(this.bind("metrics.cannotWrite", this.metrics, e.getMessage())); //$NON-NLS-1$
+	}
+}
 protected void loggingExtraProblems() {
 	this.logger.loggingExtraProblems(this);
 }
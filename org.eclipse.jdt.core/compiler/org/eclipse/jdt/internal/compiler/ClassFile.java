@@ -2919,10 +2919,14 @@ public class ClassFile implements TypeConstants, TypeIds {
 		 }
 		*/
 		// Record inner classes for MethodHandles$Lookup
-		ReferenceBinding methodHandlesLookup = this.referenceBinding.scope.getJavaLangInvokeMethodHandlesLookup();
+		ReferenceBinding methodHandlesLookup, javaLangInvokeLambdaMetafactory;
+		// the member types of a binary type are resolved lazily, which must not race with the other processing workers
+		synchronized (this.referenceBinding.scope.environment()) {
+			methodHandlesLookup = this.referenceBinding.scope.getJavaLangInvokeMethodHandlesLookup();
+			javaLangInvokeLambdaMetafactory = this.referenceBinding.scope.getJavaLangInvokeLambdaMetafactory();
+		}
 		if (methodHandlesLookup == null) return 0; // skip bootstrap section, class path problem already reported, just avoid NPE.
 		recordInnerClasses(methodHandlesLookup); // Should be done, it's what javac does also
-		ReferenceBinding javaLangInvokeLambdaMetafactory = this.referenceBinding.scope.getJavaLangInvokeLambdaMetafactory(); 
 		
 		// Depending on the complexity of the expression it may be necessary to use the altMetafactory() rather than the metafactory()
 		int indexForMetaFactory = 0;
@@ -64,6 +64,8 @@ public class CompilationResult {
 	public char[][][] qualifiedReferences;
 	public char[][] simpleNameReferences;
 	public char[][] rootReferences;
+	public char[][] memberNameReferences; // fields & methods looked up by name
+	public char[][] superTypeNameReferences; // top level types in the hierarchy of the declared types
 	public boolean hasAnnotations = false;
 	public boolean hasFunctionalTypes = false;
 	public int lineSeparatorPositions[];
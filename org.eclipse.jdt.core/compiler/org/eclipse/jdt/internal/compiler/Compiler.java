@@ -16,6 +16,7 @@ package org.eclipse.jdt.internal.compiler;
 import org.eclipse.jdt.core.compiler.*;
 import org.eclipse.jdt.internal.compiler.env.*;
 import org.eclipse.jdt.internal.compiler.impl.*;
+import org.eclipse.jdt.internal.compiler.impl.CompilerStats.UnitStats;
 import org.eclipse.jdt.internal.compiler.ast.*;
 import org.eclipse.jdt.internal.compiler.lookup.*;
 import org.eclipse.jdt.internal.compiler.parser.*;
@@ -298,6 +299,7 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 //			new Exception("TRACE BINARY").printStackTrace(System.out);
 //		    System.out.println();
 		}
+		this.stats.binaryTypeCount++;
 		this.lookupEnvironment.createBinaryTypeFrom(binaryType, packageBinding, accessRestriction);
 	}
 
@@ -559,9 +561,15 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 
 					reportWorked(1, i);
 					this.stats.lineCount += unit.compilationResult.lineSeparatorPositions.length;
+					UnitStats unitStats = this.stats.getUnitStats(unit.compilationResult);
+					if (unitStats != null)
+						unitStats.startPhase();
 					long acceptStart = System.currentTimeMillis();
 					this.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
 					this.stats.generateTime += System.currentTimeMillis() - acceptStart; // record accept time as part of generation
+					if (unitStats != null)
+						unitStats.endPhase(UnitStats.GENERATE);
+					this.stats.unitCompiled(unit.compilationResult);
 					if (this.options.verbose)
 						this.out.println(
 							Messages.bind(Messages.compilation_done,
@@ -572,7 +580,7 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 							}));
 				}
 			} else {
-				processingTask = new ProcessTaskManager(this, startingIndex);
+				processingTask = new ProcessTaskManager(this, startingIndex, this.options.processingWorkers);
 				int acceptedCount = 0;
 				// process all units (some more could be injected in the loop by the lookup environment)
 				// the processTask can continue to process units until its fixed sized cache is full then it must wait
@@ -590,7 +598,13 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 					if (unit == null) break;
 					reportWorked(1, acceptedCount++);
 					this.stats.lineCount += unit.compilationResult.lineSeparatorPositions.length;
+					UnitStats unitStats = this.stats.getUnitStats(unit.compilationResult);
+					if (unitStats != null)
+						unitStats.startPhase();
 					this.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
+					if (unitStats != null)
+						unitStats.endPhase(UnitStats.GENERATE);
+					this.stats.unitCompiled(unit.compilationResult);
 					if (this.options.verbose)
 						this.out.println(
 							Messages.bind(Messages.compilation_done,
@@ -626,6 +640,8 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 				processingTask.shutdown();
 				processingTask = null;
 			}
+			this.stats.typeLookupCount += this.lookupEnvironment.typeLookupCount;
+			this.stats.missingTypeLookupCount += this.lookupEnvironment.missingTypeLookupCount;
 			reset();
 			this.annotationProcessorStartIndex  = 0;
 			this.stats.endTime = System.currentTimeMillis();
@@ -784,6 +800,18 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 		this.parser = new Parser(this.problemReporter, this.options.parseLiteralExpressionsAsConstants);
 	}
 
+	/**
+	 * Answer a new parser for a concurrent processing worker. It reports through its own
+	 * problem reporter, so that method bodies can be parsed while other workers are busy.
+	 */
+	protected Parser createWorkerParser() {
+		return new Parser(newProblemReporter(), this.options.parseLiteralExpressionsAsConstants);
+	}
+
+	protected ProblemReporter newProblemReporter() {
+		return new ProblemReporter(this.problemReporter.policy, this.options, this.problemReporter.problemFactory);
+	}
+
 	/**
 	 * Add the initial set of compilation units into the loop
 	 *  ->  build compilation unit declarations, their bindings and record their results.
@@ -808,6 +836,9 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 				// diet parsing for large collection of units
 				CompilationUnitDeclaration parsedUnit;
 				unitResult = new CompilationResult(sourceUnits[i], i, maxUnits, this.options.maxProblemsPerUnit);
+				UnitStats unitStats = this.stats.getUnitStats(unitResult);
+				if (unitStats != null)
+					unitStats.startPhase();
 				long parseStart = System.currentTimeMillis();
 				if (this.totalUnits < this.parseThreshold) {
 					parsedUnit = this.parser.parse(sourceUnits[i], unitResult);
@@ -816,9 +847,13 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 				}
 				long resolveStart = System.currentTimeMillis();
 				this.stats.parseTime += resolveStart - parseStart;
+				if (unitStats != null)
+					unitStats.endPhase(UnitStats.PARSE);
 				// initial type binding creation
 				this.lookupEnvironment.buildTypeBindings(parsedUnit, null /*no access restriction*/);
 				this.stats.resolveTime += System.currentTimeMillis() - resolveStart;
+				if (unitStats != null)
+					unitStats.endPhase(UnitStats.RESOLVE);
 				addCompilationUnit(sourceUnits[i], parsedUnit);
 				ImportReference currentPackage = parsedUnit.currentPackage;
 				if (currentPackage != null) {
@@ -848,12 +883,17 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 	 */
 	public void process(CompilationUnitDeclaration unit, int i) {
 		this.lookupEnvironment.unitBeingCompleted = unit;
+		UnitStats unitStats = this.stats.getUnitStats(unit.compilationResult);
+		if (unitStats != null)
+			unitStats.startPhase();
 		long parseStart = System.currentTimeMillis();
 
 		this.parser.getMethodBodies(unit);
 
 		long resolveStart = System.currentTimeMillis();
 		this.stats.parseTime += resolveStart - parseStart;
+		if (unitStats != null)
+			unitStats.endPhase(UnitStats.PARSE);
 
 		// fault in fields & methods
 		if (unit.scope != null)
@@ -868,12 +908,16 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 
 		long analyzeStart = System.currentTimeMillis();
 		this.stats.resolveTime += analyzeStart - resolveStart;
+		if (unitStats != null)
+			unitStats.endPhase(UnitStats.RESOLVE);
 		
 		//No need of analysis or generation of code if statements are not required		
 		if (!this.options.ignoreMethodBodies) unit.analyseCode(); // flow analysis
 
 		long generateStart = System.currentTimeMillis();
 		this.stats.analyzeTime += generateStart - analyzeStart;
+		if (unitStats != null)
+			unitStats.endPhase(UnitStats.ANALYZE);
 	
 		if (!this.options.ignoreMethodBodies) unit.generateCode(); // code generation
 		
@@ -885,6 +929,10 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 		unit.finalizeProblems();
 
 		this.stats.generateTime += System.currentTimeMillis() - generateStart;
+		if (unitStats != null) {
+			unitStats.endPhase(UnitStats.GENERATE);
+			unitStats.setTypeNames(unit);
+		}
 
 		// refresh the total number of units known at this stage
 		unit.compilationResult.totalUnitsKnown = this.totalUnits;
@@ -892,6 +940,83 @@ public class Compiler implements ITypeRequestor, ProblemSeverities {
 		this.lookupEnvironment.unitBeingCompleted = null;
 	}
 
+	/**
+	 * Process a compilation unit already parsed and build, on one of several concurrent
+	 * processing workers (see {@link CompilerOptions#processingWorkers}).
+	 * Method bodies are parsed with the worker's own parser and code is generated concurrently
+	 * with the other workers. Fault in, type checking and flow analysis complete bindings shared
+	 * by all units, and are therefore serialized on the lookup environment, which also guards
+	 * the lookups performed by code generation.
+	 */
+	public void process(CompilationUnitDeclaration unit, int i, Parser workerParser) {
+		// problems are reported with the reference context of their unit, which must not be shared across workers
+		unit.problemReporter = newProblemReporter();
+		UnitStats unitStats = this.stats.getUnitStats(unit.compilationResult);
+		if (unitStats != null)
+			unitStats.startPhase();
+		long parseStart = System.currentTimeMillis();
+
+		workerParser.getMethodBodies(unit);
+
+		long resolveStart = System.currentTimeMillis();
+		if (unitStats != null)
+			unitStats.endPhase(UnitStats.PARSE);
+		long analyzeStart, generateStart;
+		// the resolve time of a unit includes the time waiting for the other workers
+		synchronized (this.lookupEnvironment) {
+			this.lookupEnvironment.unitBeingCompleted = unit;
+			try {
+				// fault in fields & methods
+				if (unit.scope != null)
+					unit.scope.faultInTypes();
+
+				// verify inherited methods
+				if (unit.scope != null)
+					unit.scope.verifyMethods(this.lookupEnvironment.methodVerifier());
+
+				// type checking
+				unit.resolve();
+
+				analyzeStart = System.currentTimeMillis();
+				if (unitStats != null)
+					unitStats.endPhase(UnitStats.RESOLVE);
+
+				//No need of analysis or generation of code if statements are not required
+				if (!this.options.ignoreMethodBodies) unit.analyseCode(); // flow analysis
+
+				generateStart = System.currentTimeMillis();
+				if (unitStats != null)
+					unitStats.endPhase(UnitStats.ANALYZE);
+			} finally {
+				this.lookupEnvironment.unitBeingCompleted = null;
+			}
+		}
+
+		if (!this.options.ignoreMethodBodies) unit.generateCode(); // code generation
+
+		// reference info
+		if (this.options.produceReferenceInfo && unit.scope != null)
+			unit.scope.storeDependencyInfo();
+
+		// finalize problems (suppressWarnings)
+		unit.finalizeProblems();
+
+		long generateEnd = System.currentTimeMillis();
+		if (unitStats != null) {
+			unitStats.endPhase(UnitStats.GENERATE);
+			unitStats.setTypeNames(unit);
+		}
+		synchronized (this.stats) {
+			this.stats.parseTime += resolveStart - parseStart;
+			this.stats.resolveTime += analyzeStart - resolveStart;
+			this.stats.analyzeTime += generateStart - analyzeStart;
+			this.stats.generateTime += generateEnd - generateStart;
+		}
+
+		// refresh the total number of units known at this stage
+		unit.compilationResult.totalUnitsKnown = this.totalUnits;
+	}
+
 	protected void processAnnotations() {
 		int newUnitSize = 0;
 		int newClassFilesSize = 0;
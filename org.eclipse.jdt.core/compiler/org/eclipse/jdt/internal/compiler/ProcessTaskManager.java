@@ -12,13 +12,15 @@
 package org.eclipse.jdt.internal.compiler;
 
 import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.parser.Parser;
 import org.eclipse.jdt.internal.compiler.util.Messages;
 
 public class ProcessTaskManager implements Runnable {
 
 	Compiler compiler;
 	private int unitIndex;
-	private Thread processingThread;
+	private Thread[] processingThreads;
+	private int runningWorkers; // workers which have not yet run out of units to process
 	CompilationUnitDeclaration unitToProcess;
 	private Throwable caughtException;
 
@@ -29,25 +31,46 @@ public class ProcessTaskManager implements Runnable {
 	public static final int PROCESSED_QUEUE_SIZE = 12;
 
 public ProcessTaskManager(Compiler compiler, int startingIndex) {
+	this(compiler, startingIndex, 1);
+}
+
+/**
+ * Start the given number of processing threads. When more than one worker is requested,
+ * each worker parses the method bodies of its units on its own parser and generates their code
+ * concurrently, while their resolution is serialized, see
+ * {@link Compiler#process(CompilationUnitDeclaration, int, Parser)}.
+ */
+public ProcessTaskManager(Compiler compiler, int startingIndex, int workers) {
 	this.compiler = compiler;
 	this.unitIndex = startingIndex;
 
 	this.currentIndex = 0;
 	this.availableIndex = 0;
-	this.size = PROCESSED_QUEUE_SIZE;
-	this.sleepCount = 0; // 0 is no one, +1 is the processing thread & -1 is the writing/main thread
+	this.size = PROCESSED_QUEUE_SIZE * workers;
+	this.sleepCount = 0; // 0 is no one, +1 is a processing thread & -1 is the writing/main thread
 	this.units = new CompilationUnitDeclaration[this.size];
+	if (workers > 1)
+		compiler.lookupEnvironment.sharedByWorkers = true;
 
 	synchronized (this) {
-		this.processingThread = new Thread(this, "Compiler Processing Task"); //$NON-NLS-1$
-		this.processingThread.setDaemon(true);
-		this.processingThread.start();
+		this.processingThreads = new Thread[workers];
+		this.runningWorkers = workers;
+		for (int i = 0; i < workers; i++) {
+			Thread thread = workers == 1
+				? new Thread(this, "Compiler Processing Task") //$NON-NLS-1$
+				: new Thread(this, "Compiler Processing Task " + (i + 1)); //$NON-NLS-1$
+			thread.setDaemon(true);
+			this.processingThreads[i] = thread;
+		}
+		for (int i = 0; i < workers; i++)
+			this.processingThreads[i].start();
 	}
 }
 
 // add unit to the queue - wait if no space is available
 private synchronized void addNextUnit(CompilationUnitDeclaration newElement) {
 	while (this.units[this.availableIndex] != null) {
+		if (this.processingThreads == null) return; // shutting down, no one will accept the unit
 		//System.out.print('a');
 		//if (this.sleepCount < 0) throw new IllegalStateException(Integer.valueOf(this.sleepCount).toString());
 		this.sleepCount = 1;
@@ -63,7 +86,7 @@ private synchronized void addNextUnit(CompilationUnitDeclaration newElement) {
 	if (this.availableIndex >= this.size)
 		this.availableIndex = 0;
 	if (this.sleepCount <= -1)
-		notify(); // wake up writing thread to accept next unit - could be the last one - must avoid deadlock
+		notifyAll(); // wake up writing thread to accept next unit - could be the last one - must avoid deadlock
 }
 
 public CompilationUnitDeclaration removeNextUnit() throws Error {
@@ -73,7 +96,7 @@ public CompilationUnitDeclaration removeNextUnit() throws Error {
 		next = this.units[this.currentIndex];
 		if (next == null || this.caughtException != null) {
 			do {
-				if (this.processingThread == null) {
+				if (this.runningWorkers == 0) {
 					if (this.caughtException != null) {
 						// rethrow the caught exception from the processingThread in the main compiler thread
 						if (this.caughtException instanceof Error)
@@ -99,7 +122,7 @@ public CompilationUnitDeclaration removeNextUnit() throws Error {
 		if (this.currentIndex >= this.size)
 			this.currentIndex = 0;
 		if (this.sleepCount >= 1 && ++this.sleepCount > 4) {
-			notify(); // wake up processing thread to add next unit but only after removing some elements first
+			notifyAll(); // wake up processing threads to add next unit but only after removing some elements first
 			yield = this.sleepCount > 8;
 		}
 	}
@@ -110,70 +133,96 @@ public CompilationUnitDeclaration removeNextUnit() throws Error {
 
 public void run() {
 	boolean noAnnotations = this.compiler.annotationProcessorManager == null;
-	while (this.processingThread != null) {
-		this.unitToProcess = null;
-		int index = -1;
-		boolean cleanup = noAnnotations || this.compiler.shouldCleanup(this.unitIndex);
-		try {
+	Parser workerParser = null;
+	synchronized (this) {
+		if (this.processingThreads != null && this.processingThreads.length > 1)
+			workerParser = this.compiler.createWorkerParser();
+	}
+	CompilationUnitDeclaration currentUnit = null;
+	try {
+		while (true) {
+			currentUnit = null;
+			int index = -1;
+			boolean cleanup;
 			synchronized (this) {
-				if (this.processingThread == null) return;
+				if (this.processingThreads == null) return;
 
-				this.unitToProcess = this.compiler.getUnitToProcess(this.unitIndex);
-				if (this.unitToProcess == null) {
-					this.processingThread = null;
-					return;
-				}
+				cleanup = noAnnotations || this.compiler.shouldCleanup(this.unitIndex);
+				currentUnit = this.compiler.getUnitToProcess(this.unitIndex);
+				if (currentUnit == null) return;
 				index = this.unitIndex++;
-				if (this.unitToProcess.compilationResult.hasBeenAccepted)
+				if (workerParser == null)
+					this.unitToProcess = currentUnit;
+				if (currentUnit.compilationResult.hasBeenAccepted)
 					continue;
 			}
 
 			try {
-				this.compiler.reportProgress(Messages.bind(Messages.compilation_processing, new String(this.unitToProcess.getFileName())));
+				this.compiler.reportProgress(Messages.bind(Messages.compilation_processing, new String(currentUnit.getFileName())));
 				if (this.compiler.options.verbose)
 					this.compiler.out.println(
 						Messages.bind(Messages.compilation_process,
 						new String[] {
 							String.valueOf(index + 1),
 							String.valueOf(this.compiler.totalUnits),
-							new String(this.unitToProcess.getFileName())
+							new String(currentUnit.getFileName())
 						}));
-				this.compiler.process(this.unitToProcess, index);
+				if (workerParser == null)
+					this.compiler.process(currentUnit, index);
+				else
+					this.compiler.process(currentUnit, index, workerParser);
 			} finally {
 				// cleanup compilation unit result, but only if not annotation processed.
-				if (this.unitToProcess != null && cleanup)
-					this.unitToProcess.cleanUp();
+				if (cleanup)
+					currentUnit.cleanUp();
 			}
 
-			addNextUnit(this.unitToProcess);
-		} catch (Error e) {
-			synchronized (this) {
-				this.processingThread = null;
-				this.caughtException = e;
-			}
-			return;
-		} catch (RuntimeException e) {
-			synchronized (this) {
-				this.processingThread = null;
-				this.caughtException = e;
-			}
-			return;
+			addNextUnit(currentUnit);
+		}
+	} catch (Error e) {
+		synchronized (this) {
+			recordFailure(e, currentUnit);
+		}
+	} catch (RuntimeException e) {
+		synchronized (this) {
+			recordFailure(e, currentUnit);
+		}
+	} finally {
+		synchronized (this) {
+			this.runningWorkers--;
+			notifyAll(); // the writing thread may be waiting for the last unit
 		}
 	}
 }
 
+// only the first failure is rethrown in the main compiler thread, all workers stop
+private void recordFailure(Throwable e, CompilationUnitDeclaration unit) {
+	if (this.caughtException == null) {
+		this.caughtException = e;
+		this.unitToProcess = unit;
+	}
+	this.processingThreads = null;
+}
+
 public void shutdown() {
 	try {
-		Thread t = null;
+		Thread[] threads = null;
 		synchronized (this) {
-			if (this.processingThread != null) {
-				t = this.processingThread;
-				this.processingThread = null;
+			if (this.processingThreads != null) {
+				threads = this.processingThreads;
+				this.processingThreads = null;
 				notifyAll();
 			}
 		}
-		if (t != null)
-			t.join(250); // do not wait forever
+		if (threads != null) {
+			boolean stopped = true;
+			for (int i = 0; i < threads.length; i++) {
+				threads[i].join(250); // do not wait forever
+				stopped &= !threads[i].isAlive();
+			}
+			if (stopped && threads.length > 1)
+				this.compiler.lookupEnvironment.sharedByWorkers = false; // no worker can reach the environment anymore
+		}
 	} catch (InterruptedException ignored) {
 		// ignore
 	}
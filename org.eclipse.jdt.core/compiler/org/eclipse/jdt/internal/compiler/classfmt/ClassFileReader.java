@@ -35,6 +35,7 @@ import org.eclipse.jdt.internal.compiler.lookup.TagBits;
 import org.eclipse.jdt.internal.compiler.lookup.TypeConstants;
 import org.eclipse.jdt.internal.compiler.lookup.TypeIds;
 import org.eclipse.jdt.internal.compiler.lookup.BinaryTypeBinding.ExternalAnnotationStatus;
+import org.eclipse.jdt.internal.compiler.util.SimpleSetOfCharArray;
 import org.eclipse.jdt.internal.compiler.util.Util;
 
 public class ClassFileReader extends ClassFileStruct implements IBinaryType {
@@ -409,6 +410,51 @@ public ClassFileReader(byte[] classFileBytes, char[] fileName, boolean fullyInit
 	}
 }
 
+private ClassFileReader(ClassFileReader reader, char[] fileName) {
+	super(null, null, 0);
+	this.classFileName = fileName;
+	this.accessFlags = reader.accessFlags;
+	this.className = reader.className;
+	this.classNameIndex = reader.classNameIndex;
+	this.constantPoolCount = reader.constantPoolCount;
+	this.annotations = reader.annotations;
+	this.typeAnnotations = reader.typeAnnotations;
+	this.fields = reader.fields;
+	this.fieldsCount = reader.fieldsCount;
+	this.innerInfo = reader.innerInfo;
+	this.innerInfoIndex = reader.innerInfoIndex;
+	this.innerInfos = reader.innerInfos;
+	this.interfaceNames = reader.interfaceNames;
+	this.interfacesCount = reader.interfacesCount;
+	this.methods = reader.methods;
+	this.methodsCount = reader.methodsCount;
+	this.signature = reader.signature;
+	this.sourceName = reader.sourceName;
+	this.sourceFileName = reader.sourceFileName;
+	this.superclassName = reader.superclassName;
+	this.tagBits = reader.tagBits;
+	this.version = reader.version;
+	this.enclosingTypeName = reader.enclosingTypeName;
+	this.missingTypeNames = reader.missingTypeNames;
+	this.enclosingNameAndTypeIndex = reader.enclosingNameAndTypeIndex;
+	this.enclosingMethod = reader.enclosingMethod;
+}
+
+/**
+ * Answers a reader of the same class file named after the given file name, without external annotations.
+ * <p>
+ * The receiver must be fully initialized: its decoded fields, methods and attributes are never modified
+ * afterwards, so they are shared by the copy and both readers can be used by concurrent threads.
+ * </p>
+ * @param fileName the name of the file that contains the class file, can be null
+ * @return a new reader
+ */
+public ClassFileReader copy(char[] fileName) {
+	if (this.reference != null)
+		throw new IllegalStateException("Not fully initialized: " + String.valueOf(this.classFileName)); //$NON-NLS-1$
+	return new ClassFileReader(this, fileName);
+}
+
 /** Auxiliary interface for {@link #setExternalAnnotationProvider(String,String,ZipFile,ZipFileProducer)}. */
 public interface ZipFileProducer { ZipFile produce() throws IOException; }
 
@@ -967,57 +1013,8 @@ public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, bool
 		ClassFileReader newClassFile =
 			new ClassFileReader(newBytes, this.classFileName);
 		// type level comparison
-		// modifiers
-		if (getModifiers() != newClassFile.getModifiers())
-			return true;
-
-		// only consider a portion of the tagbits which indicate a structural change for dependents
-		// e.g. @Override change has no influence outside
-		long OnlyStructuralTagBits = TagBits.AnnotationTargetMASK // different @Target status ?
-			| TagBits.AnnotationDeprecated // different @Deprecated status ?
-			| TagBits.AnnotationRetentionMASK // different @Retention status ?
-			| TagBits.HierarchyHasProblems; // different hierarchy status ?
-
-		// meta-annotations
-		if ((getTagBits() & OnlyStructuralTagBits) != (newClassFile.getTagBits() & OnlyStructuralTagBits))
-			return true;
-		// annotations
-		if (hasStructuralAnnotationChanges(getAnnotations(), newClassFile.getAnnotations()))
+		if (hasStructuralTypeChanges(newClassFile))
 			return true;
-		if (this.version >= ClassFileConstants.JDK1_8
-				&& hasStructuralTypeAnnotationChanges(getTypeAnnotations(), newClassFile.getTypeAnnotations()))
-			return true;
-
-		// generic signature
-		if (!CharOperation.equals(getGenericSignature(), newClassFile.getGenericSignature()))
-			return true;
-		// superclass
-		if (!CharOperation.equals(getSuperclassName(), newClassFile.getSuperclassName()))
-			return true;
-		// interfaces
-		char[][] newInterfacesNames = newClassFile.getInterfaceNames();
-		if (this.interfaceNames != newInterfacesNames) { // TypeConstants.NoSuperInterfaces
-			int newInterfacesLength = newInterfacesNames == null ? 0 : newInterfacesNames.length;
-			if (newInterfacesLength != this.interfacesCount)
-				return true;
-			for (int i = 0, max = this.interfacesCount; i < max; i++)
-				if (!CharOperation.equals(this.interfaceNames[i], newInterfacesNames[i]))
-					return true;
-		}
-
-		// member types
-		IBinaryNestedType[] currentMemberTypes = getMemberTypes();
-		IBinaryNestedType[] otherMemberTypes = newClassFile.getMemberTypes();
-		if (currentMemberTypes != otherMemberTypes) { // TypeConstants.NoMemberTypes
-			int currentMemberTypeLength = currentMemberTypes == null ? 0 : currentMemberTypes.length;
-			int otherMemberTypeLength = otherMemberTypes == null ? 0 : otherMemberTypes.length;
-			if (currentMemberTypeLength != otherMemberTypeLength)
-				return true;
-			for (int i = 0; i < currentMemberTypeLength; i++)
-				if (!CharOperation.equals(currentMemberTypes[i].getName(), otherMemberTypes[i].getName())
-					|| currentMemberTypes[i].getModifiers() != otherMemberTypes[i].getModifiers())
-						return true;
-		}
 
 		// fields
 		FieldInfo[] otherFieldInfos = (FieldInfo[]) newClassFile.getFields();
@@ -1033,18 +1030,20 @@ public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, bool
 		if (compareFields) {
 			if (this.fieldsCount != otherFieldInfosLength && !excludesSynthetic)
 				return true;
+			FieldInfo[] fieldInfos = this.fields;
 			if (orderRequired) {
+				// the receiver may be shared, its fields are sorted in a copy
 				if (this.fieldsCount != 0)
-					Arrays.sort(this.fields);
+					Arrays.sort(fieldInfos = fieldInfos.clone());
 				if (otherFieldInfosLength != 0)
 					Arrays.sort(otherFieldInfos);
 			}
 			if (excludesSynthetic) {
-				if (hasNonSyntheticFieldChanges(this.fields, otherFieldInfos))
+				if (hasNonSyntheticFieldChanges(fieldInfos, otherFieldInfos))
 					return true;
 			} else {
 				for (int i = 0; i < this.fieldsCount; i++)
-					if (hasStructuralFieldChanges(this.fields[i], otherFieldInfos[i]))
+					if (hasStructuralFieldChanges(fieldInfos[i], otherFieldInfos[i]))
 						return true;
 			}
 		}
@@ -1063,45 +1062,200 @@ public boolean hasStructuralChanges(byte[] newBytes, boolean orderRequired, bool
 		if (compareMethods) {
 			if (this.methodsCount != otherMethodInfosLength && !excludesSynthetic)
 				return true;
+			MethodInfo[] methodInfos = this.methods;
 			if (orderRequired) {
+				// the receiver may be shared, its methods are sorted in a copy
 				if (this.methodsCount != 0)
-					Arrays.sort(this.methods);
+					Arrays.sort(methodInfos = methodInfos.clone());
 				if (otherMethodInfosLength != 0)
 					Arrays.sort(otherMethodInfos);
 			}
 			if (excludesSynthetic) {
-				if (hasNonSyntheticMethodChanges(this.methods, otherMethodInfos))
+				if (hasNonSyntheticMethodChanges(methodInfos, otherMethodInfos))
 					return true;
 			} else {
 				for (int i = 0; i < this.methodsCount; i++)
-					if (hasStructuralMethodChanges(this.methods[i], otherMethodInfos[i]))
+					if (hasStructuralMethodChanges(methodInfos[i], otherMethodInfos[i]))
 						return true;
 			}
 		}
 
 		// missing types
-		char[][][] missingTypes = getMissingTypeNames();
-		char[][][] newMissingTypes = newClassFile.getMissingTypeNames();
-		if (missingTypes != null) {
-			if (newMissingTypes == null) {
-				return true;
-			}
-			int length = missingTypes.length;
-			if (length != newMissingTypes.length) {
-				return true;
+		return hasMissingTypeChanges(newClassFile);
+	} catch (ClassFormatException e) {
+		return true;
+	}
+}
+
+/**
+ * Answers the names of the fields and methods which changed structurally between the receiver and
+ * the byte array in argument, see {@link #hasStructuralChanges(byte[])}. Synthetic members are ignored.
+ * Answers an empty array when there is no structural change, or null when the changes are not limited
+ * to members and may affect any dependent of the type:
+ * - type level changes, including member types
+ * - changes to annotation or enum types
+ * - changes for constructors or abstract methods
+ * - changes for missing types
+ * @param newBytes the bytes of the .class file we want to compare the receiver to
+ * @return char[][] Returns the names of the changed members, or null
+ */
+public char[][] getStructurallyChangedMembers(byte[] newBytes) {
+	try {
+		ClassFileReader newClassFile =
+			new ClassFileReader(newBytes, this.classFileName);
+		if (hasStructuralTypeChanges(newClassFile) || hasMissingTypeChanges(newClassFile))
+			return null;
+		if ((getModifiers() & (ClassFileConstants.AccAnnotation | ClassFileConstants.AccEnum)) != 0)
+			return null; // members are used implicitly, by annotations or switch statements
+
+		SimpleSetOfCharArray changedNames = new SimpleSetOfCharArray(3);
+
+		// fields
+		FieldInfo[] otherFieldInfos = (FieldInfo[]) newClassFile.getFields();
+		int otherFieldInfosLength = otherFieldInfos == null ? 0 : otherFieldInfos.length;
+		FieldInfo[] fieldInfos = this.fields;
+		if (this.fieldsCount != 0)
+			Arrays.sort(fieldInfos = fieldInfos.clone()); // the receiver may be shared
+		if (otherFieldInfosLength != 0)
+			Arrays.sort(otherFieldInfos);
+		for (int index1 = 0, index2 = 0; index1 < this.fieldsCount || index2 < otherFieldInfosLength;) {
+			FieldInfo currentField = index1 < this.fieldsCount ? fieldInfos[index1] : null;
+			FieldInfo otherField = index2 < otherFieldInfosLength ? otherFieldInfos[index2] : null;
+			int comparison = currentField == null ? 1 : otherField == null ? -1 : currentField.compareTo(otherField);
+			if (comparison < 0) { // removed
+				index1++;
+				if (!currentField.isSynthetic())
+					changedNames.add(currentField.getName());
+			} else if (comparison > 0) { // added
+				index2++;
+				if (!otherField.isSynthetic())
+					changedNames.add(otherField.getName());
+			} else {
+				index1++;
+				index2++;
+				if (!(currentField.isSynthetic() && otherField.isSynthetic()) && hasStructuralFieldChanges(currentField, otherField))
+					changedNames.add(currentField.getName());
 			}
-			for (int i = 0; i < length; i++) {
-				if (!CharOperation.equals(missingTypes[i], newMissingTypes[i])) {
-					return true;
+		}
+
+		// methods
+		MethodInfo[] otherMethodInfos = (MethodInfo[]) newClassFile.getMethods();
+		int otherMethodInfosLength = otherMethodInfos == null ? 0 : otherMethodInfos.length;
+		MethodInfo[] methodInfos = this.methods;
+		if (this.methodsCount != 0)
+			Arrays.sort(methodInfos = methodInfos.clone()); // the receiver may be shared
+		if (otherMethodInfosLength != 0)
+			Arrays.sort(otherMethodInfos);
+		for (int index1 = 0, index2 = 0; index1 < this.methodsCount || index2 < otherMethodInfosLength;) {
+			MethodInfo currentMethod = index1 < this.methodsCount ? methodInfos[index1] : null;
+			MethodInfo otherMethod = index2 < otherMethodInfosLength ? otherMethodInfos[index2] : null;
+			int comparison = currentMethod == null ? 1 : otherMethod == null ? -1 : currentMethod.compareTo(otherMethod);
+			MethodInfo changedMethod = null;
+			if (comparison < 0) { // removed
+				index1++;
+				changedMethod = currentMethod;
+			} else if (comparison > 0) { // added
+				index2++;
+				changedMethod = otherMethod;
+			} else {
+				index1++;
+				index2++;
+				if (hasStructuralMethodChanges(currentMethod, otherMethod)) {
+					if ((otherMethod.getModifiers() & ClassFileConstants.AccAbstract) != 0)
+						return null;
+					changedMethod = currentMethod;
 				}
 			}
-		} else if (newMissingTypes != null) {
-			return true;
+			if (changedMethod == null || changedMethod.isSynthetic() || changedMethod.isClinit())
+				continue;
+			// constructors are not looked up by name, and the abstract methods define what subtypes must implement
+			if (changedMethod.isConstructor() || (changedMethod.getModifiers() & ClassFileConstants.AccAbstract) != 0)
+				return null;
+			changedNames.add(changedMethod.getSelector());
 		}
-		return false;
+		char[][] result = new char[changedNames.elementSize][];
+		changedNames.asArray(result);
+		return result;
 	} catch (ClassFormatException e) {
+		return null;
+	}
+}
+
+private boolean hasMissingTypeChanges(ClassFileReader newClassFile) {
+	char[][][] missingTypes = getMissingTypeNames();
+	char[][][] newMissingTypes = newClassFile.getMissingTypeNames();
+	if (missingTypes != null) {
+		if (newMissingTypes == null) {
+			return true;
+		}
+		int length = missingTypes.length;
+		if (length != newMissingTypes.length) {
+			return true;
+		}
+		for (int i = 0; i < length; i++) {
+			if (!CharOperation.equals(missingTypes[i], newMissingTypes[i])) {
+				return true;
+			}
+		}
+	} else if (newMissingTypes != null) {
+		return true;
+	}
+	return false;
+}
+
+private boolean hasStructuralTypeChanges(ClassFileReader newClassFile) {
+	// modifiers
+	if (getModifiers() != newClassFile.getModifiers())
 		return true;
+
+	// only consider a portion of the tagbits which indicate a structural change for dependents
+	// e.g. @Override change has no influence outside
+	long OnlyStructuralTagBits = TagBits.AnnotationTargetMASK // different @Target status ?
+		| TagBits.AnnotationDeprecated // different @Deprecated status ?
+		| TagBits.AnnotationRetentionMASK // different @Retention status ?
+		| TagBits.HierarchyHasProblems; // different hierarchy status ?
+
+	// meta-annotations
+	if ((getTagBits() & OnlyStructuralTagBits) != (newClassFile.getTagBits() & OnlyStructuralTagBits))
+		return true;
+	// annotations
+	if (hasStructuralAnnotationChanges(getAnnotations(), newClassFile.getAnnotations()))
+		return true;
+	if (this.version >= ClassFileConstants.JDK1_8
+			&& hasStructuralTypeAnnotationChanges(getTypeAnnotations(), newClassFile.getTypeAnnotations()))
+		return true;
+
+	// generic signature
+	if (!CharOperation.equals(getGenericSignature(), newClassFile.getGenericSignature()))
+		return true;
+	// superclass
+	if (!CharOperation.equals(getSuperclassName(), newClassFile.getSuperclassName()))
+		return true;
+	// interfaces
+	char[][] newInterfacesNames = newClassFile.getInterfaceNames();
+	if (this.interfaceNames != newInterfacesNames) { // TypeConstants.NoSuperInterfaces
+		int newInterfacesLength = newInterfacesNames == null ? 0 : newInterfacesNames.length;
+		if (newInterfacesLength != this.interfacesCount)
+			return true;
+		for (int i = 0, max = this.interfacesCount; i < max; i++)
+			if (!CharOperation.equals(this.interfaceNames[i], newInterfacesNames[i]))
+				return true;
 	}
+
+	// member types
+	IBinaryNestedType[] currentMemberTypes = getMemberTypes();
+	IBinaryNestedType[] otherMemberTypes = newClassFile.getMemberTypes();
+	if (currentMemberTypes != otherMemberTypes) { // TypeConstants.NoMemberTypes
+		int currentMemberTypeLength = currentMemberTypes == null ? 0 : currentMemberTypes.length;
+		int otherMemberTypeLength = otherMemberTypes == null ? 0 : otherMemberTypes.length;
+		if (currentMemberTypeLength != otherMemberTypeLength)
+			return true;
+		for (int i = 0; i < currentMemberTypeLength; i++)
+			if (!CharOperation.equals(currentMemberTypes[i].getName(), otherMemberTypes[i].getName())
+				|| currentMemberTypes[i].getModifiers() != otherMemberTypes[i].getModifiers())
+					return true;
+	}
+	return false;
 }
 
 private boolean hasStructuralAnnotationChanges(IBinaryAnnotation[] currentAnnotations, IBinaryAnnotation[] otherAnnotations) {
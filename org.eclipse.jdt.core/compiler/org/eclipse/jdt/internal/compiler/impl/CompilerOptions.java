@@ -116,6 +116,7 @@ public class CompilerOptions {
 	public static final String OPTION_Compliance = "org.eclipse.jdt.core.compiler.compliance"; //$NON-NLS-1$
 	public static final String OPTION_Encoding = "org.eclipse.jdt.core.encoding"; //$NON-NLS-1$
 	public static final String OPTION_MaxProblemPerUnit = "org.eclipse.jdt.core.compiler.maxProblemPerUnit"; //$NON-NLS-1$
+	public static final String OPTION_ProcessingWorkers = "org.eclipse.jdt.core.compiler.processingWorkers"; //$NON-NLS-1$
 	public static final String OPTION_TaskTags = "org.eclipse.jdt.core.compiler.taskTags"; //$NON-NLS-1$
 	public static final String OPTION_TaskPriorities = "org.eclipse.jdt.core.compiler.taskPriorities"; //$NON-NLS-1$
 	public static final String OPTION_TaskCaseSensitive = "org.eclipse.jdt.core.compiler.taskCaseSensitive"; //$NON-NLS-1$
@@ -365,6 +366,8 @@ public class CompilerOptions {
 	public boolean parseLiteralExpressionsAsConstants;
 	/** Max problems per compilation unit */
 	public int maxProblemsPerUnit;
+	/** Number of worker threads parsing method bodies and generating code concurrently, units are still resolved one at a time (1 means no concurrent processing) */
+	public int processingWorkers;
 	/** Tags used to recognize tasks in comments */
 	public char[][] taskTags;
 	/** Respective priorities of recognized task tags */
@@ -1172,6 +1175,7 @@ public class CompilerOptions {
 		optionsMap.put(OPTION_ReportUnusedParameterIncludeDocCommentReference, this.reportUnusedParameterIncludeDocCommentReference ? ENABLED : DISABLED);
 		optionsMap.put(OPTION_ReportSpecialParameterHidingField, this.reportSpecialParameterHidingField ? ENABLED : DISABLED);
 		optionsMap.put(OPTION_MaxProblemPerUnit, String.valueOf(this.maxProblemsPerUnit));
+		optionsMap.put(OPTION_ProcessingWorkers, String.valueOf(this.processingWorkers));
 		optionsMap.put(OPTION_InlineJsr, this.inlineJsrBytecode ? ENABLED : DISABLED);
 		optionsMap.put(OPTION_ShareCommonFinallyBlocks, this.shareCommonFinallyBlocks ? ENABLED : DISABLED);
 		optionsMap.put(OPTION_ReportNullReference, getSeverityString(NullReference));
@@ -1301,6 +1305,9 @@ public class CompilerOptions {
 		// max problems per compilation unit
 		this.maxProblemsPerUnit = 100; // no more than 100 problems per default
 
+		// units are processed one at a time per default
+		this.processingWorkers = 1;
+
 		// tags used to recognize tasks in comments
 		this.taskTags = null;
 		this.taskPriorities = null;
@@ -1544,6 +1551,14 @@ public class CompilerOptions {
 				// ignore ill-formatted limit
 			}
 		}
+		if ((optionValue = optionsMap.get(OPTION_ProcessingWorkers)) != null) {
+			try {
+				int val = Integer.parseInt(optionValue);
+				if (val >= 1) this.processingWorkers = val;
+			} catch(NumberFormatException e){
+				// ignore ill-formatted worker count
+			}
+		}
 		if ((optionValue = optionsMap.get(OPTION_TaskTags)) != null) {
 			String stringValue = optionValue;
 			if (stringValue.length() == 0) {
@@ -10,6 +10,20 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.compiler.impl;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.ast.TypeDeclaration;
+
 @SuppressWarnings("rawtypes")
 public class CompilerStats implements Comparable {
 
@@ -24,6 +38,251 @@ public class CompilerStats implements Comparable {
 	public long analyzeTime;
 	public long generateTime;
 
+	// lookups of the name environment, see LookupEnvironment#askForType(char[][])
+	public long binaryTypeCount; // the types read from class files
+	public long typeLookupCount;
+	public long missingTypeLookupCount; // the lookups which did not find a type
+
+	// the stats of the units being compiled by their result, and of the compiled units,
+	// null unless requested by collectUnitStats()
+	private IdentityHashMap<CompilationResult, UnitStats> unitsBeingCompiled;
+	private ArrayList<UnitStats> compiledUnits;
+
+/**
+ * The time spent compiling a unit in each phase, and the memory allocated for it.
+ */
+public static class UnitStats {
+	public static final int PARSE = 0;
+	public static final int RESOLVE = 1;
+	public static final int ANALYZE = 2;
+	public static final int GENERATE = 3;
+
+	public final char[] fileName;
+	public char[][] typeNames = CharOperation.NO_CHAR_CHAR; // the qualified names of the top level types
+	public int lineCount;
+	public final long[] phaseTimes = new long[4]; // in nanoseconds, by phase
+	public long allocatedBytes; // -1 if the VM does not tell the memory allocated by a thread
+
+	// a unit is compiled by one thread at a time
+	private long phaseStart;
+	private long phaseStartBytes;
+
+	UnitStats(char[] fileName) {
+		this.fileName = fileName;
+	}
+	/**
+	 * Starts measuring a phase on the current thread.
+	 */
+	public void startPhase() {
+		this.phaseStart = System.nanoTime();
+		this.phaseStartBytes = AllocatedBytes.ofCurrentThread();
+	}
+	/**
+	 * Adds the time and the memory spent since the last phase started to the given phase, and starts the next phase.
+	 */
+	public void endPhase(int phase) {
+		long now = System.nanoTime();
+		long bytes = AllocatedBytes.ofCurrentThread();
+		this.phaseTimes[phase] += now - this.phaseStart;
+		if (bytes < 0 || this.allocatedBytes < 0)
+			this.allocatedBytes = -1;
+		else
+			this.allocatedBytes += bytes - this.phaseStartBytes;
+		this.phaseStart = now;
+		this.phaseStartBytes = bytes;
+	}
+	public void setTypeNames(CompilationUnitDeclaration unit) {
+		TypeDeclaration[] types = unit.types;
+		if (types == null) return;
+		char[][] packageName = unit.currentPackage == null ? CharOperation.NO_CHAR_CHAR : unit.currentPackage.tokens;
+		this.typeNames = new char[types.length][];
+		for (int i = 0, l = types.length; i < l; i++)
+			this.typeNames[i] = CharOperation.concatWith(packageName, types[i].name, '.');
+	}
+	public long totalTime() {
+		return this.phaseTimes[PARSE] + this.phaseTimes[RESOLVE] + this.phaseTimes[ANALYZE] + this.phaseTimes[GENERATE];
+	}
+}
+
+/*
+ * The memory allocated by the current thread, through com.sun.management.ThreadMXBean when the VM provides it.
+ * Only loaded when collecting the stats of the units.
+ */
+static class AllocatedBytes {
+	private static Object threadBean;
+	private static Method getThreadAllocatedBytes;
+
+	static {
+		try {
+			Class beanClass = Class.forName("com.sun.management.ThreadMXBean"); //$NON-NLS-1$
+			Object bean = ManagementFactory.getThreadMXBean();
+			if (beanClass.isInstance(bean)) {
+				getThreadAllocatedBytes = beanClass.getMethod("getThreadAllocatedBytes", new Class[] { long.class }); //$NON-NLS-1$
+				threadBean = bean;
+			}
+		} catch (Exception e) {
+			// not supported
+		} catch (LinkageError e) {
+			// not supported
+		}
+	}
+
+	static long ofCurrentThread() {
+		if (getThreadAllocatedBytes == null)
+			return -1;
+		try {
+			return ((Long) getThreadAllocatedBytes.invoke(threadBean, new Object[] { Long.valueOf(Thread.currentThread().getId()) })).longValue();
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+}
+
+/**
+ * Starts collecting the stats of each compiled unit, see {@link #getUnitStats(CompilationResult)}.
+ */
+public synchronized void collectUnitStats() {
+	if (this.compiledUnits == null) {
+		this.unitsBeingCompiled = new IdentityHashMap<CompilationResult, UnitStats>();
+		this.compiledUnits = new ArrayList<UnitStats>();
+	}
+}
+
+/**
+ * Answers the stats of the unit of the given result, or null if the stats of the units are not collected.
+ */
+public synchronized UnitStats getUnitStats(CompilationResult result) {
+	if (this.unitsBeingCompiled == null)
+		return null;
+	UnitStats stats = this.unitsBeingCompiled.get(result);
+	if (stats == null)
+		this.unitsBeingCompiled.put(result, stats = new UnitStats(result.getFileName()));
+	return stats;
+}
+
+/**
+ * Notifies that the unit of the given result is compiled, and answers its stats if they are collected.
+ */
+public synchronized UnitStats unitCompiled(CompilationResult result) {
+	if (this.unitsBeingCompiled == null)
+		return null;
+	UnitStats stats = this.unitsBeingCompiled.remove(result);
+	if (stats != null) {
+		if (result.lineSeparatorPositions != null)
+			stats.lineCount = result.lineSeparatorPositions.length;
+		this.compiledUnits.add(stats);
+	}
+	return stats;
+}
+
+/**
+ * Answers the stats of the compiled units, the slowest first, or null if they are not collected.
+ */
+public synchronized UnitStats[] getCompiledUnits() {
+	if (this.compiledUnits == null)
+		return null;
+	UnitStats[] units = this.compiledUnits.toArray(new UnitStats[this.compiledUnits.size()]);
+	Arrays.sort(units, new Comparator<UnitStats>() {
+		public int compare(UnitStats unit1, UnitStats unit2) {
+			long time1 = unit1.totalTime();
+			long time2 = unit2.totalTime();
+			return time1 > time2 ? -1 : (time1 == time2 ? 0 : 1);
+		}
+	});
+	return units;
+}
+
+/**
+ * Writes the stats in JSON: the totals, then the stats of the compiled units, the slowest first.
+ * The times are in milliseconds for the totals, in microseconds for the units.
+ */
+public void writeJSON(Writer writer) throws IOException {
+	writer.write("{\n"); //$NON-NLS-1$
+	writeJSONValue(writer, "elapsedTime", elapsedTime()); //$NON-NLS-1$
+	writeJSONValue(writer, "lineCount", this.lineCount); //$NON-NLS-1$
+	writeJSONValue(writer, "parseTime", this.parseTime); //$NON-NLS-1$
+	writeJSONValue(writer, "resolveTime", this.resolveTime); //$NON-NLS-1$
+	writeJSONValue(writer, "analyzeTime", this.analyzeTime); //$NON-NLS-1$
+	writeJSONValue(writer, "generateTime", this.generateTime); //$NON-NLS-1$
+	writeJSONValue(writer, "binaryTypeCount", this.binaryTypeCount); //$NON-NLS-1$
+	writeJSONValue(writer, "typeLookupCount", this.typeLookupCount); //$NON-NLS-1$
+	writeJSONValue(writer, "missingTypeLookupCount", this.missingTypeLookupCount); //$NON-NLS-1$
+	writer.write("\"units\": ["); //$NON-NLS-1$
+	UnitStats[] units = getCompiledUnits();
+	for (int i = 0, l = units == null ? 0 : units.length; i < l; i++) {
+		UnitStats unit = units[i];
+		writer.write(i == 0 ? "\n{" : ",\n{"); //$NON-NLS-1$ //$NON-NLS-2$
+		writer.write("\"fileName\": "); //$NON-NLS-1$
+		writeJSONString(writer, unit.fileName);
+		writer.write(", \"typeNames\": ["); //$NON-NLS-1$
+		for (int j = 0, m = unit.typeNames.length; j < m; j++) {
+			if (j > 0) writer.write(", "); //$NON-NLS-1$
+			writeJSONString(writer, unit.typeNames[j]);
+		}
+		writer.write("], \"lineCount\": " + unit.lineCount); //$NON-NLS-1$
+		writer.write(", \"parseTime\": " + unit.phaseTimes[UnitStats.PARSE] / 1000); //$NON-NLS-1$
+		writer.write(", \"resolveTime\": " + unit.phaseTimes[UnitStats.RESOLVE] / 1000); //$NON-NLS-1$
+		writer.write(", \"analyzeTime\": " + unit.phaseTimes[UnitStats.ANALYZE] / 1000); //$NON-NLS-1$
+		writer.write(", \"generateTime\": " + unit.phaseTimes[UnitStats.GENERATE] / 1000); //$NON-NLS-1$
+		writer.write(", \"totalTime\": " + unit.totalTime() / 1000); //$NON-NLS-1$
+		writer.write(", \"allocatedBytes\": " + unit.allocatedBytes + "}"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+	writer.write("\n]\n}\n"); //$NON-NLS-1$
+}
+private static void writeJSONValue(Writer writer, String name, long value) throws IOException {
+	writer.write("\"" + name + "\": " + value + ",\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+}
+private static void writeJSONString(Writer writer, char[] string) throws IOException {
+	writer.write('"');
+	for (int i = 0, l = string.length; i < l; i++) {
+		char c = string[i];
+		switch (c) {
+			case '"' :
+			case '\\' :
+				writer.write('\\');
+				writer.write(c);
+				break;
+			default :
+				if (c < 0x20)
+					writer.write("\\u" + Integer.toHexString(0x10000 | c).substring(1)); //$NON-NLS-1$
+				else
+					writer.write(c);
+		}
+	}
+	writer.write('"');
+}
+
+/**
+ * Writes the stats of the compiled units in CSV, the slowest first, with the times in microseconds.
+ * The totals of the compilation are only written in JSON, see {@link #writeJSON(Writer)}.
+ */
+public void writeCSV(Writer writer) throws IOException {
+	writer.write("fileName,typeNames,lineCount,parseTime,resolveTime,analyzeTime,generateTime,totalTime,allocatedBytes\n"); //$NON-NLS-1$
+	UnitStats[] units = getCompiledUnits();
+	for (int i = 0, l = units == null ? 0 : units.length; i < l; i++) {
+		UnitStats unit = units[i];
+		writeCSVString(writer, unit.fileName);
+		writer.write(',');
+		writeCSVString(writer, CharOperation.concatWith(unit.typeNames, ' '));
+		writer.write("," + unit.lineCount //$NON-NLS-1$
+			+ ',' + unit.phaseTimes[UnitStats.PARSE] / 1000
+			+ ',' + unit.phaseTimes[UnitStats.RESOLVE] / 1000
+			+ ',' + unit.phaseTimes[UnitStats.ANALYZE] / 1000
+			+ ',' + unit.phaseTimes[UnitStats.GENERATE] / 1000
+			+ ',' + unit.totalTime() / 1000
+			+ ',' + unit.allocatedBytes + '\n');
+	}
+}
+private static void writeCSVString(Writer writer, char[] string) throws IOException {
+	writer.write('"');
+	for (int i = 0, l = string.length; i < l; i++) {
+		if (string[i] == '"')
+			writer.write('"');
+		writer.write(string[i]);
+	}
+	writer.write('"');
+}
+
 /**
  * Returns the total elapsed time (between start and end)
  * @return the time spent between start and end
@@ -853,7 +853,7 @@ private MethodBinding createMethod(IBinaryMethod method, IBinaryType binaryType,
 	result.typeVariables = typeVars;
 	// fixup the declaring element of all type variables
 	for (int i = 0, length = typeVars.length; i < length; i++)
-		this.environment.typeSystem.fixTypeVariableDeclaringElement(typeVars[i], result);
+		this.environment.fixTypeVariableDeclaringElement(typeVars[i], result);
 
 	return result;
 }
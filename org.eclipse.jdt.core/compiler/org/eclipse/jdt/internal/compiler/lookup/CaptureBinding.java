@@ -55,7 +55,7 @@ public class CaptureBinding extends TypeVariableBinding {
 			this.environment.getUnannotatedType(unannotated);
 			this.id = unannotated.id; // transfer fresh id
 			// now register this annotated type:
-			this.environment.typeSystem.cacheDerivedType(this, unannotated, this);
+			this.environment.cacheDerivedType(this, unannotated, this);
 			// propagate from wildcard to capture - use super version, because our own method propagates type annotations in the opposite direction:
 			super.setTypeAnnotations(wildcard.getTypeAnnotations(), wildcard.environment.globalOptions.isAnnotationBasedNullAnalysisEnabled);
 			if (wildcard.hasNullTypeAnnotations())
@@ -441,7 +441,7 @@ public class CaptureBinding extends TypeVariableBinding {
 	 */
 	@Override
 	protected TypeBinding[] getDerivedTypesForDeferredInitialization() {
-		TypeBinding[] derived = this.environment.typeSystem.getDerivedTypes(this);
+		TypeBinding[] derived = this.environment.getDerivedTypes(this);
 		if (derived.length > 0) {
 			int count = 0;
 			for (int i = 0; i < derived.length; i++) {
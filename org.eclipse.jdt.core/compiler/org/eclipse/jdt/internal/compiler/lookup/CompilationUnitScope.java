@@ -38,6 +38,7 @@ public class CompilationUnitScope extends Scope {
 	private CompoundNameVector qualifiedReferences;
 	private SimpleNameVector simpleNameReferences;
 	private SimpleNameVector rootReferences;
+	private SimpleNameVector memberReferences;
 	private ObjectVector referencedTypes;
 	private ObjectVector referencedSuperTypes;
 
@@ -72,12 +73,14 @@ public CompilationUnitScope(CompilationUnitDeclaration unit, LookupEnvironment e
 		this.qualifiedReferences = new CompoundNameVector();
 		this.simpleNameReferences = new SimpleNameVector();
 		this.rootReferences = new SimpleNameVector();
+		this.memberReferences = new SimpleNameVector();
 		this.referencedTypes = new ObjectVector();
 		this.referencedSuperTypes = new ObjectVector();
 	} else {
 		this.qualifiedReferences = null; // used to test if dependencies should be recorded
 		this.simpleNameReferences = null;
 		this.rootReferences = null;
+		this.memberReferences = null;
 		this.referencedTypes = null;
 		this.referencedSuperTypes = null;
 	}
@@ -524,6 +527,7 @@ private Binding findSingleStaticImport(char[][] compoundName, int mask) {
 	if (!binding.isValidBinding()) return binding;
 
 	char[] name = compoundName[compoundName.length - 1];
+	recordMemberReference(name);
 	if (binding instanceof PackageBinding) {
 		Binding temp = ((PackageBinding) binding).getTypeOrPackage(name);
 		if (temp != null && temp instanceof ReferenceBinding) // must resolve to a member type or field, not a top level type
@@ -654,6 +658,12 @@ OR 'a' -> 'a' in the simple name collection
 -> As long as each single char[] is interned, we should not have a space problem
  and can handle collision cases.
 */
+void recordMemberReference(char[] name) {
+	if (this.memberReferences == null) return; // not recording dependencies
+
+	if (!this.memberReferences.contains(name))
+		this.memberReferences.add(name);
+}
 void recordQualifiedReference(char[][] qualifiedName) {
 	if (this.qualifiedReferences == null) return; // not recording dependencies
 
@@ -793,6 +803,59 @@ public void storeDependencyInfo() {
 	for (int i = 0; i < size; i++)
 		rootRefs[i] = this.rootReferences.elementAt(i);
 	this.referenceContext.compilationResult.rootReferences = rootRefs;
+
+	size = this.memberReferences.size;
+	char[][] memberRefs = new char[size][];
+	for (int i = 0; i < size; i++)
+		memberRefs[i] = this.memberReferences.elementAt(i);
+	this.referenceContext.compilationResult.memberNameReferences = memberRefs;
+
+	// the members of these types are inherited, overridden or implemented by the declared types
+	// so any change to them matters, whether or not their names are looked up
+	SimpleNameVector superTypeNames = new SimpleNameVector();
+	ObjectVector visitedTypes = new ObjectVector();
+	for (int i = 0, l = this.topLevelTypes.length; i < l; i++)
+		recordSuperTypeNames(this.topLevelTypes[i], superTypeNames, visitedTypes);
+	for (int i = 0, l = this.referenceContext.localTypeCount; i < l; i++)
+		recordSuperTypeNames(this.referenceContext.localTypes[i], superTypeNames, visitedTypes);
+	size = superTypeNames.size;
+	char[][] superTypeRefs = new char[size][];
+	for (int i = 0; i < size; i++)
+		superTypeRefs[i] = superTypeNames.elementAt(i);
+	this.referenceContext.compilationResult.superTypeNameReferences = superTypeRefs;
+}
+private void recordSuperTypeNames(ReferenceBinding declaredType, SimpleNameVector superTypeNames, ObjectVector visitedTypes) {
+	if (declaredType == null) return;
+
+	ReferenceBinding superclass = declaredType.superclass();
+	if (superclass != null)
+		recordSuperTypeName(superclass, superTypeNames, visitedTypes);
+	ReferenceBinding[] interfaces = declaredType.superInterfaces();
+	if (interfaces != null)
+		for (int i = 0, l = interfaces.length; i < l; i++)
+			recordSuperTypeName(interfaces[i], superTypeNames, visitedTypes);
+	if (!declaredType.isLocalType()) { // local member types are already in the list of local types
+		ReferenceBinding[] memberTypes = declaredType.memberTypes();
+		for (int i = 0, l = memberTypes.length; i < l; i++)
+			recordSuperTypeNames(memberTypes[i], superTypeNames, visitedTypes);
+	}
+}
+private void recordSuperTypeName(ReferenceBinding superType, SimpleNameVector superTypeNames, ObjectVector visitedTypes) {
+	ReferenceBinding actualType = typeToRecord(superType);
+	if (actualType == null || visitedTypes.containsIdentical(actualType)) return;
+
+	visitedTypes.add(actualType);
+	ReferenceBinding topLevelType = actualType.outermostEnclosingType();
+	if (!superTypeNames.contains(topLevelType.sourceName))
+		superTypeNames.add(topLevelType.sourceName);
+
+	ReferenceBinding superclass = actualType.superclass();
+	if (superclass != null)
+		recordSuperTypeName(superclass, superTypeNames, visitedTypes);
+	ReferenceBinding[] interfaces = actualType.superInterfaces();
+	if (interfaces != null)
+		for (int i = 0, l = interfaces.length; i < l; i++)
+			recordSuperTypeName(interfaces[i], superTypeNames, visitedTypes);
 }
 public String toString() {
 	return "--- CompilationUnit Scope : " + new String(this.referenceContext.getFileName()); //$NON-NLS-1$
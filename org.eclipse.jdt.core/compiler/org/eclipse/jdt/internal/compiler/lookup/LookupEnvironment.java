@@ -71,6 +71,9 @@ public class LookupEnvironment implements ProblemReasons, TypeConstants {
 	private int lastUnitIndex = -1;
 
 	TypeSystem typeSystem;
+	/** Set when several workers use this environment (see CompilerOptions#processingWorkers): the type factories
+	 * and lookups then synchronize on the environment, which the resolving phases already hold. */
+	public boolean sharedByWorkers;
 	
 	public INameEnvironment nameEnvironment;
 	public CompilerOptions globalOptions;
@@ -99,6 +102,9 @@ public class LookupEnvironment implements ProblemReasons, TypeConstants {
 	Set<SourceTypeBinding> typesBeingConnected;
 	public boolean isProcessingAnnotations = false;
 	public boolean mayTolerateMissingType = false;
+	// lookups of the name environment since the last reset, see CompilerStats
+	public int typeLookupCount = 0;
+	public int missingTypeLookupCount = 0;
 
 	PackageBinding nullableAnnotationPackage;			// the package supposed to contain the Nullable annotation type
 	PackageBinding nonnullAnnotationPackage;			// the package supposed to contain the NonNull annotation type
@@ -146,8 +152,17 @@ public LookupEnvironment(ITypeRequestor typeRequestor, CompilerOptions globalOpt
  */
 
 public ReferenceBinding askForType(char[][] compoundName) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return askForType(compoundName);
+		}
+	}
 	NameEnvironmentAnswer answer = this.nameEnvironment.findType(compoundName);
-	if (answer == null) return null;
+	this.typeLookupCount++;
+	if (answer == null) {
+		this.missingTypeLookupCount++;
+		return null;
+	}
 
 	if (answer.isBinaryType()) {
 		// the type was found as a .class file
@@ -166,12 +181,20 @@ public ReferenceBinding askForType(char[][] compoundName) {
 */
 
 ReferenceBinding askForType(PackageBinding packageBinding, char[] name) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return askForType(packageBinding, name);
+		}
+	}
 	if (packageBinding == null) {
 		packageBinding = this.defaultPackage;
 	}
 	NameEnvironmentAnswer answer = this.nameEnvironment.findType(name, packageBinding.compoundName);
-	if (answer == null)
+	this.typeLookupCount++;
+	if (answer == null) {
+		this.missingTypeLookupCount++;
 		return null;
+	}
 
 	if (answer.isBinaryType()) {
 		// the type was found as a .class file
@@ -652,6 +675,11 @@ public TypeBinding convertUnresolvedBinaryToRawType(TypeBinding type) {
    We don't have the machinery for the general case as of now.
 */
 public AnnotationBinding createAnnotation(ReferenceBinding annotationType, ElementValuePair[] pairs) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createAnnotation(annotationType, pairs);
+		}
+	}
 	if (pairs.length != 0) {
 		AnnotationBinding.setMethodBindings(annotationType, pairs);
 		return new AnnotationBinding(annotationType, pairs);
@@ -663,6 +691,11 @@ public AnnotationBinding createAnnotation(ReferenceBinding annotationType, Eleme
    We don't have the machinery for the general case as of now.
 */
 public AnnotationBinding createUnresolvedAnnotation(ReferenceBinding annotationType, ElementValuePair[] pairs) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createUnresolvedAnnotation(annotationType, pairs);
+		}
+	}
 	if (pairs.length != 0) {
 		return new UnresolvedAnnotationBinding(annotationType, pairs, this);
 	}
@@ -673,14 +706,29 @@ public AnnotationBinding createUnresolvedAnnotation(ReferenceBinding annotationT
  *  Used to guarantee array type identity.
  */
 public ArrayBinding createArrayType(TypeBinding leafComponentType, int dimensionCount) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createArrayType(leafComponentType, dimensionCount);
+		}
+	}
 	return this.typeSystem.getArrayType(leafComponentType, dimensionCount);
 }
 
 public ArrayBinding createArrayType(TypeBinding leafComponentType, int dimensionCount, AnnotationBinding [] annotations) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createArrayType(leafComponentType, dimensionCount, annotations);
+		}
+	}
 	return this.typeSystem.getArrayType(leafComponentType, dimensionCount, annotations);
 }
 
 public TypeBinding createIntersectionType18(ReferenceBinding[] intersectingTypes) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createIntersectionType18(intersectingTypes);
+		}
+	}
 	return this.typeSystem.getIntersectionType18(intersectingTypes);
 }	
 
@@ -712,6 +760,11 @@ public BinaryTypeBinding createBinaryTypeFrom(IBinaryType binaryType, PackageBin
  * If the package is existing, then install the missing type in type cache
 */
 public MissingTypeBinding createMissingType(PackageBinding packageBinding, char[][] compoundName) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createMissingType(packageBinding, compoundName);
+		}
+	}
 	// create a proxy for the missing BinaryType
 	if (packageBinding == null) {
 		packageBinding = computePackageFrom(compoundName, true /* missing */);
@@ -739,6 +792,11 @@ public MissingTypeBinding createMissingType(PackageBinding packageBinding, char[
 * 3. Create the method bindings
 */
 public PackageBinding createPackage(char[][] compoundName) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createPackage(compoundName);
+		}
+	}
 	PackageBinding packageBinding = getPackage0(compoundName[0]);
 	if (packageBinding == null || packageBinding == TheNotFoundPackage) {
 		packageBinding = new PackageBinding(compoundName[0], this);
@@ -968,9 +1026,19 @@ public ParameterizedMethodBinding createGetClassMethod(TypeBinding receiverType,
 	return retVal;
 }
 public ReferenceBinding createMemberType(ReferenceBinding memberType, ReferenceBinding enclosingType) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createMemberType(memberType, enclosingType);
+		}
+	}
 	return this.typeSystem.getMemberType(memberType, enclosingType);
 }
 public ParameterizedTypeBinding createParameterizedType(ReferenceBinding genericType, TypeBinding[] typeArguments, ReferenceBinding enclosingType) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createParameterizedType(genericType, typeArguments, enclosingType);
+		}
+	}
 	AnnotationBinding[] annotations = genericType.typeAnnotations;
 	if (annotations != Binding.NO_ANNOTATIONS)
 		return this.typeSystem.getParameterizedType((ReferenceBinding) genericType.unannotated(), typeArguments, enclosingType, annotations);
@@ -978,15 +1046,30 @@ public ParameterizedTypeBinding createParameterizedType(ReferenceBinding generic
 }
 
 public ParameterizedTypeBinding createParameterizedType(ReferenceBinding genericType, TypeBinding[] typeArguments, ReferenceBinding enclosingType, AnnotationBinding [] annotations) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createParameterizedType(genericType, typeArguments, enclosingType, annotations);
+		}
+	}
 	return this.typeSystem.getParameterizedType(genericType, typeArguments, enclosingType, annotations);
 }
 
 public TypeBinding createAnnotatedType(TypeBinding type, AnnotationBinding[][] annotations) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createAnnotatedType(type, annotations);
+		}
+	}
 	return this.typeSystem.getAnnotatedType(type, annotations);
 }
 
 // Variant to handle incoming type possibly carrying annotations.
 public TypeBinding createAnnotatedType(TypeBinding type, AnnotationBinding[] newbies) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createAnnotatedType(type, newbies);
+		}
+	}
 	final int newLength = newbies == null ? 0 :  newbies.length;
 	if (type == null || newLength == 0)
 		return type;
@@ -1025,6 +1108,11 @@ public TypeBinding createAnnotatedType(TypeBinding type, AnnotationBinding[] new
 }
 
 public RawTypeBinding createRawType(ReferenceBinding genericType, ReferenceBinding enclosingType) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createRawType(genericType, enclosingType);
+		}
+	}
 	AnnotationBinding[] annotations = genericType.typeAnnotations;
 	if (annotations != Binding.NO_ANNOTATIONS)
 		return this.typeSystem.getRawType((ReferenceBinding) genericType.unannotated(), enclosingType, annotations);
@@ -1032,10 +1120,20 @@ public RawTypeBinding createRawType(ReferenceBinding genericType, ReferenceBindi
 }
 
 public RawTypeBinding createRawType(ReferenceBinding genericType, ReferenceBinding enclosingType, AnnotationBinding [] annotations) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createRawType(genericType, enclosingType, annotations);
+		}
+	}
 	return this.typeSystem.getRawType(genericType, enclosingType, annotations);
 }
 
 public WildcardBinding createWildcard(ReferenceBinding genericType, int rank, TypeBinding bound, TypeBinding[] otherBounds, int boundKind) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createWildcard(genericType, rank, bound, otherBounds, boundKind);
+		}
+	}
 	if (genericType != null) {
 		AnnotationBinding[] annotations = genericType.typeAnnotations;
 		if (annotations != Binding.NO_ANNOTATIONS)
@@ -1045,10 +1143,20 @@ public WildcardBinding createWildcard(ReferenceBinding genericType, int rank, Ty
 }
 
 public CaptureBinding createCapturedWildcard(WildcardBinding wildcard, ReferenceBinding contextType, int start, int end, ASTNode cud, int id) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createCapturedWildcard(wildcard, contextType, start, end, cud, id);
+		}
+	}
 	return this.typeSystem.getCapturedWildcard(wildcard, contextType, start, end, cud, id);
 }
 
 public WildcardBinding createWildcard(ReferenceBinding genericType, int rank, TypeBinding bound, TypeBinding[] otherBounds, int boundKind, AnnotationBinding [] annotations) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return createWildcard(genericType, rank, bound, otherBounds, boundKind, annotations);
+		}
+	}
 	return this.typeSystem.getWildcard(genericType, rank, bound, otherBounds, boundKind, annotations);
 }
 
@@ -1082,6 +1190,11 @@ public ReferenceBinding getCachedType(char[][] compoundName) {
 }
 
 public AnnotationBinding getNullableAnnotation() {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return getNullableAnnotation();
+		}
+	}
 	if (this.nullableAnnotation != null)
 		return this.nullableAnnotation;
 	ReferenceBinding nullable = getResolvedType(this.globalOptions.nullableAnnotationName, null);
@@ -1093,6 +1206,11 @@ public char[][] getNullableAnnotationName() {
 }
 
 public AnnotationBinding getNonNullAnnotation() {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return getNonNullAnnotation();
+		}
+	}
 	if (this.nonNullAnnotation != null) 
 		return this.nonNullAnnotation;
 	ReferenceBinding nonNull = getResolvedType(this.globalOptions.nonNullAnnotationName, null);
@@ -1190,6 +1308,11 @@ PackageBinding getPackage0(char[] name) {
 * Fail with a classpath error if the type cannot be found.
 */
 public ReferenceBinding getResolvedType(char[][] compoundName, Scope scope) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return getResolvedType(compoundName, scope);
+		}
+	}
 	ReferenceBinding type = getType(compoundName);
 	if (type != null) return type;
 
@@ -1207,6 +1330,11 @@ public ReferenceBinding getResolvedType(char[][] compoundName, Scope scope) {
 * Answer null if the package cannot be found.
 */
 PackageBinding getTopLevelPackage(char[] name) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return getTopLevelPackage(name);
+		}
+	}
 	PackageBinding packageBinding = getPackage0(name);
 	if (packageBinding != null) {
 		if (packageBinding == TheNotFoundPackage)
@@ -1228,6 +1356,11 @@ PackageBinding getTopLevelPackage(char[] name) {
 * Answer null if the type cannot be found.
 */
 public ReferenceBinding getType(char[][] compoundName) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return getType(compoundName);
+		}
+	}
 	ReferenceBinding referenceBinding;
 
 	if (compoundName.length == 1) {
@@ -1426,7 +1559,7 @@ TypeBinding getTypeFromSignature(char[] signature, int start, int end, boolean i
 	}
 	
 	if (dimension != 0)
-		binding =  this.typeSystem.getArrayType(binding, dimension, AnnotatableTypeSystem.flattenedAnnotations(annotationsOnDimensions));
+		binding =  createArrayType(binding, dimension, AnnotatableTypeSystem.flattenedAnnotations(annotationsOnDimensions));
 	
 	return binding;
 }
@@ -1570,7 +1703,7 @@ private TypeBinding getTypeFromTypeVariable(TypeVariableBinding typeVariableBind
 	if (dimension == 0) {
 		return typeVariableBinding;
 	}
-	return this.typeSystem.getArrayType(typeVariableBinding, dimension, AnnotatableTypeSystem.flattenedAnnotations(annotationsOnDimensions));
+	return createArrayType(typeVariableBinding, dimension, AnnotatableTypeSystem.flattenedAnnotations(annotationsOnDimensions));
 }
 
 TypeBinding getTypeFromVariantTypeSignature(
@@ -1591,18 +1724,18 @@ TypeBinding getTypeFromVariantTypeSignature(
 			wrapper.start++;
 			TypeBinding bound = getTypeFromTypeSignature(wrapper, staticVariables, enclosingType, missingTypeNames, walker.toWildcardBound());
 			AnnotationBinding [] annotations = BinaryTypeBinding.createAnnotations(walker.getAnnotationsAtCursor(-1), this, missingTypeNames);
-			return this.typeSystem.getWildcard(genericType, rank, bound, null /*no extra bound*/, Wildcard.SUPER, annotations);
+			return createWildcard(genericType, rank, bound, null /*no extra bound*/, Wildcard.SUPER, annotations);
 		case '+' :
 			// ? extends aType
 			wrapper.start++;
 			bound = getTypeFromTypeSignature(wrapper, staticVariables, enclosingType, missingTypeNames, walker.toWildcardBound());
 			annotations = BinaryTypeBinding.createAnnotations(walker.getAnnotationsAtCursor(-1), this, missingTypeNames);
-			return this.typeSystem.getWildcard(genericType, rank, bound, null /*no extra bound*/, Wildcard.EXTENDS, annotations);
+			return createWildcard(genericType, rank, bound, null /*no extra bound*/, Wildcard.EXTENDS, annotations);
 		case '*' :
 			// ?
 			wrapper.start++;
 			annotations = BinaryTypeBinding.createAnnotations(walker.getAnnotationsAtCursor(-1), this, missingTypeNames);
-			return this.typeSystem.getWildcard(genericType, rank, null, null /*no extra bound*/, Wildcard.UNBOUND, annotations);
+			return createWildcard(genericType, rank, null, null /*no extra bound*/, Wildcard.UNBOUND, annotations);
 		default :
 			return getTypeFromTypeSignature(wrapper, staticVariables, enclosingType, missingTypeNames, walker);
 	}
@@ -1646,6 +1779,8 @@ public void releaseClassFiles(org.eclipse.jdt.internal.compiler.ClassFile[] clas
 }
 
 public void reset() {
+	this.typeLookupCount = 0;
+	this.missingTypeLookupCount = 0;
 	this.defaultPackage = new PackageBinding(this); // assume the default package always exists
 	this.defaultImports = null;
 	this.knownPackages = new HashtableOfPackage();
@@ -1683,6 +1818,12 @@ public void setAccessRestriction(ReferenceBinding type, AccessRestriction access
 }
 
 void updateCaches(UnresolvedReferenceBinding unresolvedType, ReferenceBinding resolvedType) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			updateCaches(unresolvedType, resolvedType);
+			return;
+		}
+	}
 	this.typeSystem.updateCaches(unresolvedType, resolvedType);
 }
 
@@ -1701,14 +1842,64 @@ public void addResolutionListener(IQualifiedTypeResolutionListener resolutionLis
 
 
 public TypeBinding getUnannotatedType(TypeBinding typeBinding) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return getUnannotatedType(typeBinding);
+		}
+	}
 	return this.typeSystem.getUnannotatedType(typeBinding);
 }
 
 // Given a type, return all its variously annotated versions.
 public TypeBinding[] getAnnotatedTypes(TypeBinding type) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return getAnnotatedTypes(type);
+		}
+	}
 	return this.typeSystem.getAnnotatedTypes(type);
 }
 
+// The type system entries used by the bindings themselves, guarded like the factories above.
+TypeBinding[] getDerivedTypes(TypeBinding keyType) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			return getDerivedTypes(keyType);
+		}
+	}
+	return this.typeSystem.getDerivedTypes(keyType);
+}
+
+void cacheDerivedType(TypeBinding keyType, TypeBinding nakedType, TypeBinding derivedType) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			cacheDerivedType(keyType, nakedType, derivedType);
+			return;
+		}
+	}
+	this.typeSystem.cacheDerivedType(keyType, nakedType, derivedType);
+}
+
+void forceRegisterAsDerived(TypeBinding derived) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			forceRegisterAsDerived(derived);
+			return;
+		}
+	}
+	this.typeSystem.forceRegisterAsDerived(derived);
+}
+
+void fixTypeVariableDeclaringElement(TypeVariableBinding var, Binding declaringElement) {
+	if (this.sharedByWorkers && !Thread.holdsLock(this)) {
+		synchronized (this) {
+			fixTypeVariableDeclaringElement(var, declaringElement);
+			return;
+		}
+	}
+	this.typeSystem.fixTypeVariableDeclaringElement(var, declaringElement);
+}
+
 public AnnotationBinding[] filterNullTypeAnnotations(AnnotationBinding[] typeAnnotations) {
 	if (typeAnnotations.length == 0)
 		return typeAnnotations;
@@ -1228,6 +1228,7 @@ public abstract class Scope {
 	public MethodBinding findExactMethod(ReferenceBinding receiverType, char[] selector, TypeBinding[] argumentTypes, InvocationSite invocationSite) {
 		CompilationUnitScope unitScope = compilationUnitScope();
 		unitScope.recordTypeReferences(argumentTypes);
+		unitScope.recordMemberReference(selector);
 		MethodBinding exactMethod = receiverType.getExactMethod(selector, argumentTypes, unitScope);
 		if (exactMethod != null && exactMethod.typeVariables == Binding.NO_TYPE_VARIABLES && !exactMethod.isBridge()) {
 			// in >= 1.5 mode, ensure the exactMatch did not match raw types
@@ -1298,6 +1299,7 @@ public abstract class Scope {
 
 		CompilationUnitScope unitScope = compilationUnitScope();
 		unitScope.recordTypeReference(receiverType);
+		unitScope.recordMemberReference(fieldName);
 
 		checkArrayField: {
 			TypeBinding leafType;
@@ -1572,6 +1574,7 @@ public abstract class Scope {
 		ObjectVector found = new ObjectVector(3);
 		CompilationUnitScope unitScope = compilationUnitScope();
 		unitScope.recordTypeReferences(argumentTypes);
+		unitScope.recordMemberReference(selector);
 		List<TypeBinding> visitedTypes = new ArrayList<TypeBinding>();
 		if (receiverTypeIsInterface) {
 			unitScope.recordTypeReference(receiverType);
@@ -2248,6 +2251,7 @@ public abstract class Scope {
 	public MethodBinding getExactMethod(TypeBinding receiverType, char[] selector, InvocationSite invocationSite) {
 		if (receiverType == null || !receiverType.isValidBinding() || receiverType.isBaseType())
 			return null;
+		compilationUnitScope().recordMemberReference(selector);
 		TypeBinding currentType = receiverType;
 		if (currentType.isArrayType()) {
 			if (!currentType.leafComponentType().canBeSeenBy(this))
@@ -2498,6 +2502,7 @@ public abstract class Scope {
 		// in 1.4 mode (inherited visible shadows enclosing)
 		CompilerOptions options;
 		boolean inheritedHasPrecedence = (options = compilerOptions()).complianceLevel >= ClassFileConstants.JDK1_4;
+		compilationUnitScope().recordMemberReference(selector);
 
 		done : while (true) { // done when a COMPILATION_UNIT_SCOPE is found
 			switch (scope.kind) {
@@ -61,6 +61,9 @@ import org.eclipse.jdt.internal.compiler.util.Util;
    would be different unless they are identically annotated.
    
    Thus subsystems that are annotation agnostic could quickly ascertain binding equality by comparing the id field.
+   
+   The type system is not thread safe: it is only reached through the LookupEnvironment, whose factories and lookups synchronize
+   on the environment when it is shared by several workers (see LookupEnvironment#sharedByWorkers), like the resolving phases do.
 */
 public class TypeSystem {
 	
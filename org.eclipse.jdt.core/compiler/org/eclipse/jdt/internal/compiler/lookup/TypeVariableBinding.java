@@ -789,7 +789,7 @@ public class TypeVariableBinding extends ReferenceBinding {
 			// TVB only: if the declaration itself carries type annotations,
 			// make sure TypeSystem will still have an unannotated variant at position 0, to answer getUnannotated()
 			// (in this case the unannotated type is never explicit in source code, that's why we need this charade).
-			this.environment.typeSystem.forceRegisterAsDerived(this);
+			this.environment.forceRegisterAsDerived(this);
 		} else {
 			this.environment.getUnannotatedType(this); // exposes original TVB/capture to type system for id stamping purposes.
 		}
@@ -192,6 +192,10 @@ public class Scanner implements TerminalTokens {
 		newEntry4 = 0,
 		newEntry5 = 0,
 		newEntry6 = 0;
+	// longer identifiers when they are interned, see internIdentifiers(int)
+	private char[][] internedIdentifiers;
+	private int[] internedIdentifierHashes;
+	static final int InternedIdentifierProbes = 4;
 	public boolean insideRecovery = false;
 	int lookBack[] = new int[2]; // fall back to spring forward.
 	int nextToken = TokenNameNotAToken; // allows for one token push back, only the most recent token can be reliably ungotten.
@@ -456,10 +460,39 @@ public char[] getCurrentIdentifierSource() {
 		case 6 :
 			return optimizedCurrentTokenSource6();
 	}
+	if (this.internedIdentifiers != null)
+		return internedCurrentTokenSource(length);
 	char[] result = new char[length];
 	System.arraycopy(this.source, this.startPosition, result, 0, length);
 	return result;
 }
+/**
+ * Answers the hash code of the current token, as computed by {@link CharOperation#hashCode(char[])}
+ * on its source, without copying the source of the token.
+ */
+public int getCurrentIdentifierHash() {
+	char[] src;
+	int start, length;
+	if (this.withoutUnicodePtr != 0) {
+		//0 is used as a fast test flag so the real first char is in position 1
+		src = this.withoutUnicodeBuffer;
+		start = 1;
+		length = this.withoutUnicodePtr;
+	} else {
+		src = this.source;
+		start = this.startPosition;
+		length = this.currentPosition - this.startPosition;
+	}
+	int hash = length == 0 ? 31 : src[start];
+	if (length < 8) {
+		for (int i = length; --i > 0;)
+			hash = (hash * 31) + src[start + i];
+	} else {
+		for (int i = length - 1, last = i > 16 ? i - 16 : 0; i > last; i -= 2)
+			hash = (hash * 31) + src[start + i];
+	}
+	return hash & 0x7FFFFFFF;
+}
 public int getCurrentTokenEndPosition(){
 	return this.currentPosition - 1;
 }
@@ -2531,6 +2564,55 @@ final char[] optimizedCurrentTokenSource6() {
 	return table[this.newEntry6 = max] = r; //(r = new char[] {c0, c1, c2, c3, c4, c5});
 }
 
+final char[] internedCurrentTokenSource(int length) {
+	//try to return the same char[] for all the identifiers of the same name
+	char[] src = this.source;
+	int start = this.startPosition;
+	int hash = getCurrentIdentifierHash();
+	char[][] table = this.internedIdentifiers;
+	int mask = table.length - 1;
+	int index = hash & mask;
+	int freeIndex = index; // replaced if no slot is free
+	nextProbe : for (int probe = 0; probe < InternedIdentifierProbes; probe++, index = (index + 1) & mask) {
+		char[] charArray = table[index];
+		if (charArray == null) {
+			freeIndex = index;
+			break;
+		}
+		if (this.internedIdentifierHashes[index] != hash || charArray.length != length)
+			continue;
+		for (int i = 0; i < length; i++)
+			if (charArray[i] != src[start + i])
+				continue nextProbe;
+		return charArray;
+	}
+	//--------add the entry-------
+	char[] r;
+	System.arraycopy(src, start, r = new char[length], 0, length);
+	this.internedIdentifierHashes[freeIndex] = hash;
+	return table[freeIndex] = r;
+}
+/**
+ * Makes {@link #getCurrentIdentifierSource()} answer the same char[] for the identifiers of the same name,
+ * whatever their length, as long as they fit in a table of the given size. An identifier is still copied out of the
+ * source the first time it is met, and again when its entry was since replaced by another identifier probing the
+ * same slots. Its other occurrences are compared with the remembered char[] using their
+ * {@link #getCurrentIdentifierHash() hash}, which is answered without allocating an array per occurrence.
+ * <p>
+ * The table is kept when the source changes. The answered arrays are shared, they must not be modified.
+ * </p>
+ * @param tableSize the number of identifiers remembered, a power of 2, or 0 to stop interning identifiers
+ */
+public void internIdentifiers(int tableSize) {
+	if (tableSize == 0) {
+		this.internedIdentifiers = null;
+		this.internedIdentifierHashes = null;
+	} else {
+		this.internedIdentifiers = new char[tableSize][];
+		this.internedIdentifierHashes = new int[tableSize];
+	}
+}
+
 private void parseTags() {
 	int position = 0;
 	final int currentStartPosition = this.startPosition;
@@ -107,6 +107,11 @@ class CompilationUnitResolver extends Compiler {
 	CategorizedProblem abortProblem;
 
 	private IProgressMonitor monitor;
+
+	/*
+	 * Set while the units are resolved on several threads, see ParallelUnitResolver.
+	 */
+	ParallelUnitResolver parallelResolver;
 	
 	/**
 	 * Set to <code>true</code> if the receiver was initialized using a java project name environment
@@ -344,6 +349,12 @@ class CompilationUnitResolver extends Compiler {
 	public void initializeParser() {
 		this.parser = new CommentRecorderParser(this.problemReporter, false);
 	}
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.internal.compiler.Compiler#createWorkerParser()
+	 */
+	protected Parser createWorkerParser() {
+		return new CommentRecorderParser(newProblemReporter(), false);
+	}
 	public void process(CompilationUnitDeclaration unit, int i) {
 		// don't resolve a second time the same unit (this would create the same binding twice)
 		char[] fileName = unit.compilationResult.getFileName();
@@ -851,11 +862,11 @@ class CompilationUnitResolver extends Compiler {
 	private void resolve(
 			ICompilationUnit[] compilationUnits,
 			String[] bindingKeys,
-			ASTRequestor astRequestor,
-			int apiLevel,
-			Map compilerOptions,
-			WorkingCopyOwner owner,
-			int flags) {
+			final ASTRequestor astRequestor,
+			final int apiLevel,
+			final Map compilerOptions,
+			final WorkingCopyOwner owner,
+			final int flags) {
 
 		// temporarily connect ourselves to the ASTResolver - must disconnect when done
 		astRequestor.compilationUnitResolver = this;
@@ -866,75 +877,44 @@ class CompilationUnitResolver extends Compiler {
 			org.eclipse.jdt.internal.compiler.env.ICompilationUnit[] sourceUnits = new org.eclipse.jdt.internal.compiler.env.ICompilationUnit[length];
 			System.arraycopy(compilationUnits, 0, sourceUnits, 0, length);
 			beginToCompile(sourceUnits, bindingKeys);
-			// process all units (some more could be injected in the loop by the lookup environment)
-			for (int i = 0; i < this.totalUnits; i++) {
-				if (resolvedRequestedSourcesAndKeys(i)) {
-					// no need to keep resolving if no more ASTs and no more binding keys are needed
-					// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=114935
-					// cleanup remaining units
-					for (; i < this.totalUnits; i++) {
-						this.unitsToProcess[i].cleanUp();
-						this.unitsToProcess[i] = null;
+			if (this.options.processingWorkers > 1 && this.totalUnits > 1) {
+				this.parallelResolver = new ParallelUnitResolver(this, Math.min(this.options.processingWorkers, this.totalUnits), astRequestor.acceptsASTsFromWorkers(), this.monitor) {
+					Runnable reportUnit(CompilationUnitDeclaration processedUnit) {
+						ReportedUnit reported = new ReportedUnit(astRequestor);
+						CompilationUnitResolver.this.reportUnit(processedUnit, reported, apiLevel, compilerOptions, owner, flags);
+						return reported.hasReported() ? reported : null;
 					}
-					break;
-				}
-				unit = this.unitsToProcess[i];
+				};
 				try {
-					super.process(unit, i); // this.process(...) is optimized to not process already known units
-
-					// requested AST
-					char[] fileName = unit.compilationResult.getFileName();
-					ICompilationUnit source = (ICompilationUnit) this.requestedSources.get(fileName);
-					if (source != null) {
-						// convert AST
-						CompilationResult compilationResult = unit.compilationResult;
-						org.eclipse.jdt.internal.compiler.env.ICompilationUnit sourceUnit = compilationResult.compilationUnit;
-						char[] contents = sourceUnit.getContents();
-						AST ast = AST.newAST(apiLevel);
-						ast.setFlag(flags | AST.RESOLVED_BINDINGS);
-						ast.setDefaultNodeFlag(ASTNode.ORIGINAL);
-						ASTConverter converter = new ASTConverter(compilerOptions, true/*need to resolve bindings*/, this.monitor);
-						BindingResolver resolver = new DefaultBindingResolver(unit.scope, owner, this.bindingTables, (flags & ICompilationUnit.ENABLE_BINDINGS_RECOVERY) != 0, this.fromJavaProject);
-						ast.setBindingResolver(resolver);
-						converter.setAST(ast);
-						CompilationUnit compilationUnit = converter.convert(unit, contents);
-						compilationUnit.setTypeRoot(source);
-						compilationUnit.setLineEndTable(compilationResult.getLineSeparatorPositions());
-						ast.setDefaultNodeFlag(0);
-						ast.setOriginalModificationCount(ast.modificationCount());
-
-						// pass it to requestor
-						astRequestor.acceptAST(source, compilationUnit);
-
-						worked(1);
-
-						// remove at the end so that we don't resolve twice if a source and a key for the same file name have been requested
-						this.requestedSources.put(fileName, null); // mark it as removed
-					}
-
-					// requested binding
-					Object key = this.requestedKeys.get(fileName);
-					if (key != null) {
-						if (key instanceof BindingKeyResolver) {
-							reportBinding(key, astRequestor, owner, unit);
-							worked(1);
-						} else if (key instanceof ArrayList) {
-							Iterator iterator = ((ArrayList) key).iterator();
-							while (iterator.hasNext()) {
-								reportBinding(iterator.next(), astRequestor, owner, unit);
-								worked(1);
-							}
+					this.parallelResolver.resolve();
+				} finally {
+					unit = this.parallelResolver.failedUnit;
+					this.parallelResolver = null;
+				}
+			} else {
+				// process all units (some more could be injected in the loop by the lookup environment)
+				for (int i = 0; i < this.totalUnits; i++) {
+					if (resolvedRequestedSourcesAndKeys(i)) {
+						// no need to keep resolving if no more ASTs and no more binding keys are needed
+						// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=114935
+						// cleanup remaining units
+						for (; i < this.totalUnits; i++) {
+							this.unitsToProcess[i].cleanUp();
+							this.unitsToProcess[i] = null;
 						}
-
-						// remove at the end so that we don't resolve twice if a source and a key for the same file name have been requested
-						this.requestedKeys.put(fileName, null); // mark it as removed
+						break;
 					}
-				} finally {
-					// cleanup compilation unit result
-					unit.cleanUp();
+					unit = this.unitsToProcess[i];
+					try {
+						super.process(unit, i); // this.process(...) is optimized to not process already known units
+						reportUnit(unit, astRequestor, apiLevel, compilerOptions, owner, flags);
+					} finally {
+						// cleanup compilation unit result
+						unit.cleanUp();
+					}
+					this.unitsToProcess[i] = null; // release reference to processed unit declaration
+					this.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
 				}
-				this.unitsToProcess[i] = null; // release reference to processed unit declaration
-				this.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
 			}
 
 			// remaining binding keys
@@ -969,10 +949,10 @@ class CompilationUnitResolver extends Compiler {
 			String[] sourceCompilationUnits,
 			String[] encodings,
 			String[] bindingKeys,
-			FileASTRequestor astRequestor,
-			int apiLevel,
-			Map compilerOptions,
-			int flags) {
+			final FileASTRequestor astRequestor,
+			final int apiLevel,
+			final Map compilerOptions,
+			final int flags) {
 
 		// temporarily connect ourselves to the ASTResolver - must disconnect when done
 		astRequestor.compilationUnitResolver = this;
@@ -999,75 +979,44 @@ class CompilationUnitResolver extends Compiler {
 				sourceUnits[count++] = new org.eclipse.jdt.internal.compiler.batch.CompilationUnit(contents, sourceUnitPath, encoding);
 			}
 			beginToCompile(sourceUnits, bindingKeys);
-			// process all units (some more could be injected in the loop by the lookup environment)
-			for (int i = 0; i < this.totalUnits; i++) {
-				if (resolvedRequestedSourcesAndKeys(i)) {
-					// no need to keep resolving if no more ASTs and no more binding keys are needed
-					// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=114935
-					// cleanup remaining units
-					for (; i < this.totalUnits; i++) {
-						this.unitsToProcess[i].cleanUp();
-						this.unitsToProcess[i] = null;
+			if (this.options.processingWorkers > 1 && this.totalUnits > 1) {
+				this.parallelResolver = new ParallelUnitResolver(this, Math.min(this.options.processingWorkers, this.totalUnits), astRequestor.acceptsASTsFromWorkers(), this.monitor) {
+					Runnable reportUnit(CompilationUnitDeclaration processedUnit) {
+						ReportedFileUnit reported = new ReportedFileUnit(astRequestor);
+						CompilationUnitResolver.this.reportUnit(processedUnit, reported, apiLevel, compilerOptions, flags);
+						return reported.hasReported() ? reported : null;
 					}
-					break;
-				}
-				unit = this.unitsToProcess[i];
+				};
 				try {
-					super.process(unit, i); // this.process(...) is optimized to not process already known units
-
-					// requested AST
-					char[] fileName = unit.compilationResult.getFileName();
-					org.eclipse.jdt.internal.compiler.env.ICompilationUnit source = (org.eclipse.jdt.internal.compiler.env.ICompilationUnit) this.requestedSources.get(fileName);
-					if (source != null) {
-						// convert AST
-						CompilationResult compilationResult = unit.compilationResult;
-						org.eclipse.jdt.internal.compiler.env.ICompilationUnit sourceUnit = compilationResult.compilationUnit;
-						char[] contents = sourceUnit.getContents();
-						AST ast = AST.newAST(apiLevel);
-						ast.setFlag(flags | AST.RESOLVED_BINDINGS);
-						ast.setDefaultNodeFlag(ASTNode.ORIGINAL);
-						ASTConverter converter = new ASTConverter(compilerOptions, true/*need to resolve bindings*/, this.monitor);
-						BindingResolver resolver = new DefaultBindingResolver(unit.scope, null, this.bindingTables, (flags & ICompilationUnit.ENABLE_BINDINGS_RECOVERY) != 0, this.fromJavaProject);
-						ast.setBindingResolver(resolver);
-						converter.setAST(ast);
-						CompilationUnit compilationUnit = converter.convert(unit, contents);
-						compilationUnit.setTypeRoot(null);
-						compilationUnit.setLineEndTable(compilationResult.getLineSeparatorPositions());
-						ast.setDefaultNodeFlag(0);
-						ast.setOriginalModificationCount(ast.modificationCount());
-
-						// pass it to requestor
-						astRequestor.acceptAST(new String(source.getFileName()), compilationUnit);
-
-						worked(1);
-
-						// remove at the end so that we don't resolve twice if a source and a key for the same file name have been requested
-						this.requestedSources.put(fileName, null); // mark it as removed
-					}
-
-					// requested binding
-					Object key = this.requestedKeys.get(fileName);
-					if (key != null) {
-						if (key instanceof BindingKeyResolver) {
-							reportBinding(key, astRequestor, unit);
-							worked(1);
-						} else if (key instanceof ArrayList) {
-							Iterator iterator = ((ArrayList) key).iterator();
-							while (iterator.hasNext()) {
-								reportBinding(iterator.next(), astRequestor, unit);
-								worked(1);
-							}
+					this.parallelResolver.resolve();
+				} finally {
+					unit = this.parallelResolver.failedUnit;
+					this.parallelResolver = null;
+				}
+			} else {
+				// process all units (some more could be injected in the loop by the lookup environment)
+				for (int i = 0; i < this.totalUnits; i++) {
+					if (resolvedRequestedSourcesAndKeys(i)) {
+						// no need to keep resolving if no more ASTs and no more binding keys are needed
+						// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=114935
+						// cleanup remaining units
+						for (; i < this.totalUnits; i++) {
+							this.unitsToProcess[i].cleanUp();
+							this.unitsToProcess[i] = null;
 						}
-
-						// remove at the end so that we don't resolve twice if a source and a key for the same file name have been requested
-						this.requestedKeys.put(fileName, null); // mark it as removed
+						break;
 					}
-				} finally {
-					// cleanup compilation unit result
-					unit.cleanUp();
+					unit = this.unitsToProcess[i];
+					try {
+						super.process(unit, i); // this.process(...) is optimized to not process already known units
+						reportUnit(unit, astRequestor, apiLevel, compilerOptions, flags);
+					} finally {
+						// cleanup compilation unit result
+						unit.cleanUp();
+					}
+					this.unitsToProcess[i] = null; // release reference to processed unit declaration
+					this.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
 				}
-				this.unitsToProcess[i] = null; // release reference to processed unit declaration
-				this.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
 			}
 
 			// remaining binding keys
@@ -1098,6 +1047,112 @@ class CompilationUnitResolver extends Compiler {
 		}
 	}
 
+	/*
+	 * Converts the given processed unit if its AST was requested, and reports the requested bindings it declares.
+	 */
+	private void reportUnit(CompilationUnitDeclaration unit, ASTRequestor astRequestor, int apiLevel, Map compilerOptions, WorkingCopyOwner owner, int flags) {
+		// requested AST
+		char[] fileName = unit.compilationResult.getFileName();
+		ICompilationUnit source = (ICompilationUnit) this.requestedSources.get(fileName);
+		if (source != null) {
+			// convert AST
+			CompilationResult compilationResult = unit.compilationResult;
+			org.eclipse.jdt.internal.compiler.env.ICompilationUnit sourceUnit = compilationResult.compilationUnit;
+			char[] contents = sourceUnit.getContents();
+			AST ast = AST.newAST(apiLevel);
+			ast.setFlag(flags | AST.RESOLVED_BINDINGS);
+			ast.setDefaultNodeFlag(ASTNode.ORIGINAL);
+			ASTConverter converter = new ASTConverter(compilerOptions, true/*need to resolve bindings*/, this.monitor);
+			BindingResolver resolver = new DefaultBindingResolver(unit.scope, owner, this.bindingTables, (flags & ICompilationUnit.ENABLE_BINDINGS_RECOVERY) != 0, this.fromJavaProject);
+			ast.setBindingResolver(resolver);
+			converter.setAST(ast);
+			CompilationUnit compilationUnit = converter.convert(unit, contents);
+			compilationUnit.setTypeRoot(source);
+			compilationUnit.setLineEndTable(compilationResult.getLineSeparatorPositions());
+			ast.setDefaultNodeFlag(0);
+			ast.setOriginalModificationCount(ast.modificationCount());
+
+			// pass it to requestor
+			astRequestor.acceptAST(source, compilationUnit);
+
+			worked(1);
+
+			// remove at the end so that we don't resolve twice if a source and a key for the same file name have been requested
+			this.requestedSources.put(fileName, null); // mark it as removed
+		}
+
+		// requested binding
+		Object key = this.requestedKeys.get(fileName);
+		if (key != null) {
+			if (key instanceof BindingKeyResolver) {
+				reportBinding(key, astRequestor, owner, unit);
+				worked(1);
+			} else if (key instanceof ArrayList) {
+				Iterator iterator = ((ArrayList) key).iterator();
+				while (iterator.hasNext()) {
+					reportBinding(iterator.next(), astRequestor, owner, unit);
+					worked(1);
+				}
+			}
+
+			// remove at the end so that we don't resolve twice if a source and a key for the same file name have been requested
+			this.requestedKeys.put(fileName, null); // mark it as removed
+		}
+	}
+
+	/*
+	 * Converts the given processed unit if its AST was requested, and reports the requested bindings it declares.
+	 */
+	private void reportUnit(CompilationUnitDeclaration unit, FileASTRequestor astRequestor, int apiLevel, Map compilerOptions, int flags) {
+		// requested AST
+		char[] fileName = unit.compilationResult.getFileName();
+		org.eclipse.jdt.internal.compiler.env.ICompilationUnit source = (org.eclipse.jdt.internal.compiler.env.ICompilationUnit) this.requestedSources.get(fileName);
+		if (source != null) {
+			// convert AST
+			CompilationResult compilationResult = unit.compilationResult;
+			org.eclipse.jdt.internal.compiler.env.ICompilationUnit sourceUnit = compilationResult.compilationUnit;
+			char[] contents = sourceUnit.getContents();
+			AST ast = AST.newAST(apiLevel);
+			ast.setFlag(flags | AST.RESOLVED_BINDINGS);
+			ast.setDefaultNodeFlag(ASTNode.ORIGINAL);
+			ASTConverter converter = new ASTConverter(compilerOptions, true/*need to resolve bindings*/, this.monitor);
+			BindingResolver resolver = new DefaultBindingResolver(unit.scope, null, this.bindingTables, (flags & ICompilationUnit.ENABLE_BINDINGS_RECOVERY) != 0, this.fromJavaProject);
+			ast.setBindingResolver(resolver);
+			converter.setAST(ast);
+			CompilationUnit compilationUnit = converter.convert(unit, contents);
+			compilationUnit.setTypeRoot(null);
+			compilationUnit.setLineEndTable(compilationResult.getLineSeparatorPositions());
+			ast.setDefaultNodeFlag(0);
+			ast.setOriginalModificationCount(ast.modificationCount());
+
+			// pass it to requestor
+			astRequestor.acceptAST(new String(source.getFileName()), compilationUnit);
+
+			worked(1);
+
+			// remove at the end so that we don't resolve twice if a source and a key for the same file name have been requested
+			this.requestedSources.put(fileName, null); // mark it as removed
+		}
+
+		// requested binding
+		Object key = this.requestedKeys.get(fileName);
+		if (key != null) {
+			if (key instanceof BindingKeyResolver) {
+				reportBinding(key, astRequestor, unit);
+				worked(1);
+			} else if (key instanceof ArrayList) {
+				Iterator iterator = ((ArrayList) key).iterator();
+				while (iterator.hasNext()) {
+					reportBinding(iterator.next(), astRequestor, unit);
+					worked(1);
+				}
+			}
+
+			// remove at the end so that we don't resolve twice if a source and a key for the same file name have been requested
+			this.requestedKeys.put(fileName, null); // mark it as removed
+		}
+	}
+
 	private void reportBinding(Object key, ASTRequestor astRequestor, WorkingCopyOwner owner, CompilationUnitDeclaration unit) {
 		BindingKeyResolver keyResolver = (BindingKeyResolver) key;
 		Binding compilerBinding = keyResolver.getCompilerBinding();
@@ -1305,7 +1360,10 @@ class CompilationUnitResolver extends Compiler {
 		if (this.monitor != null) {
 			if (this.monitor.isCanceled())
 				throw new OperationCanceledException();
-			this.monitor.worked(work);
+			if (this.parallelResolver != null)
+				this.parallelResolver.worked(work); // reported by the calling thread
+			else
+				this.monitor.worked(work);
 		}
 	}
 }
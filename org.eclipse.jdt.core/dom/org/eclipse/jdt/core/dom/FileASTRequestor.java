@@ -70,6 +70,36 @@ public abstract class FileASTRequestor {
 		// do nothing
 	}
 
+	/**
+	 * Returns whether the ASTs may be accepted on the threads resolving them.
+	 * <p>
+	 * When <code>ASTParser.createASTs</code> resolves the compilation units on several threads
+	 * (see {@link org.eclipse.jdt.core.JavaCore#COMPILER_PROCESSING_WORKERS}), the ASTs and bindings
+	 * are still accepted one at a time. By default, they are accepted on the thread calling
+	 * <code>createASTs</code>, in the order of the compilation units, while no compilation unit
+	 * is being resolved. If this method returns <code>true</code>, they are accepted on the resolving
+	 * threads as soon as each compilation unit is resolved, in no particular order, while the other
+	 * compilation units are being resolved.
+	 * </p>
+	 * <p>
+	 * Bindings must not be resolved concurrently with the compilation units. A requestor accepting
+	 * the ASTs from the resolving threads must thus not resolve bindings in
+	 * {@link #acceptAST(String, CompilationUnit)} or {@link #acceptBinding(String, IBinding)},
+	 * neither with the <code>resolveBinding()</code> methods of the AST nodes, nor by calling the methods
+	 * of the accepted bindings: it can do so once <code>createASTs</code> returns.
+	 * </p>
+	 * <p>
+	 * The default implementation returns <code>false</code>. Clients may override.
+	 * </p>
+	 *
+	 * @return <code>true</code> if {@link #acceptAST(String, CompilationUnit)} may be called from the
+	 * resolving threads, and <code>false</code> otherwise
+	 * @since 3.13
+	 */
+	public boolean acceptsASTsFromWorkers() {
+		return false;
+	}
+
 	/**
 	 * Resolves bindings for the given binding keys.
 	 * The given binding keys must have been obtained earlier
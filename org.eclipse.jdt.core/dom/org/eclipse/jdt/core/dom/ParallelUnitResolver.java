@@ -0,0 +1,374 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.core.dom;
+
+import java.util.ArrayList;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.jdt.internal.compiler.parser.Parser;
+
+/**
+ * Resolves the compilation units of <code>ASTParser.createASTs</code> on several threads, when the compiler
+ * options ask for more than one processing worker (see <code>CompilerOptions#processingWorkers</code>).
+ * <p>
+ * Each worker processes units like the workers of the compiler do: it parses their method bodies with its own
+ * parser and generates their code concurrently with the other workers, while fault in, type checking and flow
+ * analysis are serialized on the lookup environment shared by all the units. Converting a unit to an AST and
+ * resolving the bindings of the AST also complete compiler bindings shared by all the units, so the units are
+ * converted and their requested bindings resolved one at a time while holding the lookup environment.
+ * </p><p>
+ * The ASTs and bindings are then passed to the requestor without holding the lookup environment, so that the
+ * code of the requestor never runs while holding a lock of the resolver. They are accepted on the calling thread in the order of
+ * the units, as when the units are resolved on a single thread, and the workers are paused meanwhile so that
+ * the requestor may resolve more bindings. If the requestor accepts them from the workers, each worker accepts
+ * the ASTs of the units it resolved as soon as they are resolved, while the other workers keep resolving units:
+ * the requestor must not resolve bindings then. The progress is only reported by the calling thread.
+ * </p>
+ */
+abstract class ParallelUnitResolver implements Runnable {
+
+/**
+ * The number of units each worker may resolve ahead of the units accepted by the calling thread.
+ */
+static final int UNITS_AHEAD_PER_WORKER = 4;
+
+/*
+ * Records the ASTs and bindings of a unit reported while holding the lookup environment,
+ * and passes them to the requestor when run.
+ */
+static class ReportedUnit extends ASTRequestor implements Runnable {
+	private final ASTRequestor requestor;
+	private final ArrayList reported = new ArrayList(); // each source or key, followed by its AST or binding
+
+	ReportedUnit(ASTRequestor requestor) {
+		this.requestor = requestor;
+	}
+	public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+		this.reported.add(source);
+		this.reported.add(ast);
+	}
+	public void acceptBinding(String bindingKey, IBinding binding) {
+		this.reported.add(bindingKey);
+		this.reported.add(binding);
+	}
+	boolean hasReported() {
+		return !this.reported.isEmpty();
+	}
+	public void run() {
+		for (int i = 0, size = this.reported.size(); i < size; i += 2) {
+			Object sourceOrKey = this.reported.get(i);
+			if (sourceOrKey instanceof String)
+				this.requestor.acceptBinding((String) sourceOrKey, (IBinding) this.reported.get(i + 1));
+			else
+				this.requestor.acceptAST((ICompilationUnit) sourceOrKey, (CompilationUnit) this.reported.get(i + 1));
+		}
+	}
+}
+
+/*
+ * Same as ReportedUnit for the units requested by path.
+ */
+static class ReportedFileUnit extends FileASTRequestor implements Runnable {
+	private final FileASTRequestor requestor;
+	private final ArrayList reported = new ArrayList(); // each path or key, followed by its AST or binding
+
+	ReportedFileUnit(FileASTRequestor requestor) {
+		this.requestor = requestor;
+	}
+	public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+		this.reported.add(sourceFilePath);
+		this.reported.add(ast);
+	}
+	public void acceptBinding(String bindingKey, IBinding binding) {
+		this.reported.add(bindingKey);
+		this.reported.add(binding);
+	}
+	boolean hasReported() {
+		return !this.reported.isEmpty();
+	}
+	public void run() {
+		for (int i = 0, size = this.reported.size(); i < size; i += 2) {
+			Object astOrBinding = this.reported.get(i + 1);
+			if (astOrBinding instanceof CompilationUnit)
+				this.requestor.acceptAST((String) this.reported.get(i), (CompilationUnit) astOrBinding);
+			else
+				this.requestor.acceptBinding((String) this.reported.get(i), (IBinding) astOrBinding);
+		}
+	}
+}
+
+final CompilationUnitResolver resolver;
+private final boolean acceptOnWorkers;
+private final IProgressMonitor monitor;
+private final Thread[] workers;
+
+// guarded by this
+private int nextToProcess = 0;
+private int nextToAccept = 0; // when the units are accepted on the calling thread
+private CompilationUnitDeclaration[] processed; // the units waiting to be accepted on the calling thread, by index modulo the length
+private int busyWorkers = 0;
+private boolean paused = false; // while the calling thread accepts ASTs
+private int worked = 0;
+private boolean stopped = false;
+private Throwable failure;
+
+// guarded by the lookup environment
+private int acceptedCount = 0;
+
+/*
+ * The unit being processed by the worker which failed first, if any.
+ */
+CompilationUnitDeclaration failedUnit;
+
+ParallelUnitResolver(CompilationUnitResolver resolver, int threads, boolean acceptOnWorkers, IProgressMonitor monitor) {
+	this.resolver = resolver;
+	this.acceptOnWorkers = acceptOnWorkers;
+	this.monitor = monitor;
+	this.workers = new Thread[threads];
+	if (!acceptOnWorkers)
+		this.processed = new CompilationUnitDeclaration[threads * UNITS_AHEAD_PER_WORKER];
+}
+/**
+ * Converts the given processed unit if its AST was requested, and resolves the requested bindings it declares.
+ * Called while holding the lookup environment. Answers what passes the AST and the bindings to the requestor
+ * once the lookup environment is released, or <code>null</code> if there are none.
+ */
+abstract Runnable reportUnit(CompilationUnitDeclaration unit);
+
+/**
+ * Resolves the units of the resolver, and answers once the requested ASTs and bindings are reported
+ * or all the units are resolved. Rethrows the first failure of a worker once the workers are stopped.
+ */
+void resolve() {
+	this.resolver.lookupEnvironment.sharedByWorkers = true;
+	synchronized (this) {
+		for (int i = 0, length = this.workers.length; i < length; i++) {
+			Thread worker = new Thread(this, "AST Resolver Worker " + (i + 1)); //$NON-NLS-1$
+			worker.setDaemon(true);
+			this.workers[i] = worker;
+		}
+		for (int i = 0, length = this.workers.length; i < length; i++)
+			this.workers[i].start();
+	}
+	try {
+		while (true) {
+			CompilationUnitDeclaration unit = null;
+			int work;
+			synchronized (this) {
+				if (this.failure == null && !hasUnitToAccept() && !isDone()) {
+					try {
+						wait(100); // wake up regularly to report progress and check for cancellation
+					} catch (InterruptedException e) {
+						throw new OperationCanceledException();
+					}
+				}
+				work = this.worked;
+				this.worked = 0;
+				if (this.failure != null)
+					break;
+				if (hasUnitToAccept()) {
+					int slot = this.nextToAccept++ % this.processed.length;
+					unit = this.processed[slot];
+					this.processed[slot] = null;
+					notifyAll(); // a worker may wait for a free slot
+				} else if (isDone()) {
+					break;
+				}
+			}
+			if (this.monitor != null) {
+				if (work > 0)
+					this.monitor.worked(work);
+				if (this.monitor.isCanceled())
+					throw new OperationCanceledException();
+			}
+			if (unit != null) {
+				boolean accepted = false;
+				try {
+					Runnable reported = accept(unit);
+					if (reported != null) {
+						// the requestor may resolve bindings, which must not happen while units are resolved
+						pauseWorkers();
+						try {
+							reported.run();
+						} finally {
+							resumeWorkers();
+						}
+					}
+					accepted = true;
+				} finally {
+					if (!accepted)
+						this.failedUnit = unit;
+				}
+				synchronized (this) {
+					notifyAll(); // more units may have been added while accepting the unit
+				}
+			}
+		}
+	} finally {
+		stop();
+	}
+	if (this.failure instanceof RuntimeException)
+		throw (RuntimeException) this.failure;
+	if (this.failure instanceof Error)
+		throw (Error) this.failure;
+
+	// no need to resolve the remaining units once the requested ASTs and bindings are reported
+	if (this.processed != null) {
+		for (int i = 0, length = this.processed.length; i < length; i++) {
+			if (this.processed[i] != null) {
+				this.processed[i].cleanUp();
+				this.processed[i] = null;
+			}
+		}
+	}
+	for (int i = this.nextToProcess; i < this.resolver.totalUnits; i++) {
+		if (this.resolver.unitsToProcess[i] != null) {
+			this.resolver.unitsToProcess[i].cleanUp();
+			this.resolver.unitsToProcess[i] = null;
+		}
+	}
+}
+/*
+ * Records the given work, which is reported by the calling thread.
+ */
+synchronized void worked(int work) {
+	this.worked += work;
+}
+private boolean hasUnitToAccept() {
+	return !this.acceptOnWorkers && !this.stopped && this.processed[this.nextToAccept % this.processed.length] != null;
+}
+private boolean isDone() {
+	if (this.busyWorkers > 0)
+		return false;
+	if (this.stopped)
+		return true;
+	if (!this.acceptOnWorkers && this.nextToAccept < this.nextToProcess)
+		return false;
+	synchronized (this.resolver) {
+		return this.nextToProcess >= this.resolver.totalUnits;
+	}
+}
+/*
+ * Reports the given processed unit, and answers what passes its AST and bindings to the requestor, if any.
+ */
+private Runnable accept(CompilationUnitDeclaration unit) {
+	Runnable reported;
+	boolean resolvedAll;
+	synchronized (this.resolver.lookupEnvironment) {
+		try {
+			reported = reportUnit(unit);
+		} finally {
+			// cleanup compilation unit result
+			unit.cleanUp();
+		}
+		this.resolver.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
+		resolvedAll = this.resolver.resolvedRequestedSourcesAndKeys(++this.acceptedCount);
+	}
+	if (resolvedAll) {
+		synchronized (this) {
+			this.stopped = true;
+			notifyAll();
+		}
+	}
+	return reported;
+}
+/*
+ * Waits for the workers to be done with the units they are resolving, and keeps them from resolving
+ * more units until resumeWorkers() is called.
+ */
+private synchronized void pauseWorkers() {
+	this.paused = true;
+	while (this.busyWorkers > 0) {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		}
+	}
+}
+private synchronized void resumeWorkers() {
+	this.paused = false;
+	notifyAll();
+}
+/*
+ * Stops the workers once they are done with the unit they are resolving, and waits for them.
+ */
+private void stop() {
+	synchronized (this) {
+		this.stopped = true;
+		notifyAll();
+	}
+	for (int i = 0, length = this.workers.length; i < length; i++) {
+		try {
+			if (this.workers[i] != null)
+				this.workers[i].join();
+		} catch (InterruptedException e) {
+			// the workers will stop on their own
+			Thread.currentThread().interrupt();
+			return;
+		}
+	}
+	this.resolver.lookupEnvironment.sharedByWorkers = false; // no worker can reach the environment anymore
+}
+public void run() {
+	Parser parser = this.resolver.createWorkerParser();
+	while (true) {
+		CompilationUnitDeclaration unit = null;
+		int index;
+		synchronized (this) {
+			while (true) {
+				if (this.stopped)
+					return;
+				if (!this.paused && (this.acceptOnWorkers || this.nextToProcess < this.nextToAccept + this.processed.length)) {
+					unit = this.resolver.getUnitToProcess(this.nextToProcess);
+					if (unit != null)
+						break;
+				}
+				try {
+					wait(); // until a unit is processed or accepted, which may add more units
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+			index = this.nextToProcess++;
+			this.busyWorkers++;
+		}
+		try {
+			this.resolver.process(unit, index, parser);
+			if (this.acceptOnWorkers) {
+				Runnable reported = accept(unit);
+				if (reported != null)
+					reported.run();
+			}
+		} catch (Throwable e) {
+			synchronized (this) {
+				if (this.failure == null) {
+					this.failure = e;
+					this.failedUnit = unit;
+				}
+				this.stopped = true;
+				this.busyWorkers--;
+				notifyAll();
+			}
+			return;
+		}
+		synchronized (this) {
+			if (!this.acceptOnWorkers)
+				this.processed[index % this.processed.length] = unit;
+			this.busyWorkers--;
+			notifyAll();
+		}
+	}
+}
+}
@@ -152,6 +152,7 @@ import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
 import org.eclipse.jdt.internal.compiler.problem.ProblemReporter;
 import org.eclipse.jdt.internal.core.*;
 import org.eclipse.jdt.internal.core.builder.JavaBuilder;
+import org.eclipse.jdt.internal.core.builder.ParallelBuildDriver;
 import org.eclipse.jdt.internal.core.builder.State;
 import org.eclipse.jdt.internal.core.util.MementoTokenizer;
 import org.eclipse.jdt.internal.core.util.Messages;
@@ -1930,6 +1931,21 @@ public final class JavaCore extends Plugin {
 	 * @see #setComplianceOptions(String, Map)
 	 */
 	public static final String COMPILER_COMPLIANCE = PLUGIN_ID + ".compiler.compliance"; //$NON-NLS-1$
+	/**
+	 * Compiler option ID: Setting the Number of Processing Workers.
+	 * <p>Number of threads on which the compiler processes the compilation units. With more than one worker,
+	 *    the method bodies are parsed and the code is generated concurrently, while the compilation units are
+	 *    still resolved one at a time. This also applies to the compilation units resolved by
+	 *    <code>ASTParser.createASTs</code>.</p>
+	 * <dl>
+	 * <dt>Option id:</dt><dd><code>"org.eclipse.jdt.core.compiler.processingWorkers"</code></dd>
+	 * <dt>Possible values:</dt><dd><code>"&lt;n&gt;"</code> where <code>&lt;n&gt;</code> is a positive integer</dd>
+	 * <dt>Default:</dt><dd><code>"1"</code></dd>
+	 * </dl>
+	 * @since 3.13
+	 * @category CompilerOptionID
+	 */
+	public static final String COMPILER_PROCESSING_WORKERS = PLUGIN_ID + ".compiler.processingWorkers"; //$NON-NLS-1$
 	/**
 	 * Compiler option ID: Defining the Automatic Task Priorities.
 	 * <p>In parallel with the Automatic Task Tags, this list defines the priorities (high, normal or low)
@@ -3156,6 +3172,32 @@ public final class JavaCore extends Plugin {
 		JavaModelManager.getDeltaState().addPreResourceChangedListener(listener, eventMask);
 	}
 
+	/**
+	 * Builds the given Java projects, building independent projects concurrently.
+	 * <p>
+	 * The projects are ordered by their classpaths: a project is built once the projects it requires
+	 * among the given projects are built. Each project is built by its Java builder through
+	 * <code>IProject.build(int, String, Map, IProgressMonitor)</code>, which performs an incremental or a
+	 * full build depending on the changes since its last build, as for a workspace build. The number of
+	 * projects built at the same time is given by the system property <code>jdt.core.buildThreads</code>,
+	 * half of the available processors by default.
+	 * </p><p>
+	 * If the caller owns a scheduling rule, the projects are built one at a time on the caller thread.
+	 * </p>
+	 *
+	 * @param projects the projects to build
+	 * @param kind the kind of build: <code>IncrementalProjectBuilder.FULL_BUILD</code>,
+	 * <code>IncrementalProjectBuilder.INCREMENTAL_BUILD</code> or <code>IncrementalProjectBuilder.CLEAN_BUILD</code>
+	 * @param monitor a progress monitor, or <code>null</code> if progress
+	 *    reporting and cancellation are not desired
+	 * @exception CoreException if the build of some projects failed, with the status of each failure
+	 * @exception OperationCanceledException if the operation is canceled
+	 * @since 3.13
+	 */
+	public static void buildProjects(IJavaProject[] projects, int kind, IProgressMonitor monitor) throws CoreException {
+		new ParallelBuildDriver(projects).build(kind, monitor);
+	}
+
 	/**
 	 * Configures the given marker for the given Java element.
 	 * Used for markers, which denote a Java element rather than a resource.
@@ -47,6 +47,8 @@ public DocumentElementParser(
 	this.intArrayStack = new int[30][];
 	this.options = options;
 	this.javadocParser.checkDocComment = false;
+	// names are reported as char[], share the ones that are repeated in the document
+	this.scanner.internIdentifiers(1024);
 
 	setMethodsFullRecovery(false);
 	setStatementsRecovery(false);
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core;
+
+import java.io.File;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipFile;
+
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+
+/**
+ * A cache of the fully initialized class file readers of archives, owned by the Java model manager
+ * (see JavaModelManager#getBinaryTypeCache()).
+ * <p>
+ * The builder and the model of every project decode the classes of the JRE and of the libraries they share
+ * from this cache, instead of reading and decoding them again for each project. An archive is identified by
+ * its path and last modification time: the readers of an archive are dropped as soon as it is looked up
+ * with another time stamp. The time stamp of an open ZipFile is read once, when its first entry is looked up.
+ * Readers are softly referenced, so the cache only holds on to them while memory allows.
+ * </p>
+ * Cached readers must never be modified: clients that need to set up external annotations work on a
+ * {@link ClassFileReader#copy(char[]) copy}.
+ */
+public class BinaryTypeCache {
+
+	static class Archive {
+		final String path;
+		final long lastModified;
+		final ConcurrentHashMap<String, ReaderReference> readers = new ConcurrentHashMap<String, ReaderReference>();
+
+		Archive(String path, long lastModified) {
+			this.path = path;
+			this.lastModified = lastModified;
+		}
+	}
+
+	static class ReaderReference extends SoftReference<ClassFileReader> {
+		final Archive archive;
+		final String entryName;
+
+		ReaderReference(ClassFileReader reader, Archive archive, String entryName, ReferenceQueue<ClassFileReader> queue) {
+			super(reader, queue);
+			this.archive = archive;
+			this.entryName = entryName;
+		}
+	}
+
+	private final ConcurrentHashMap<String, Archive> archives = new ConcurrentHashMap<String, Archive>();
+	private final ReferenceQueue<ClassFileReader> clearedReaders = new ReferenceQueue<ClassFileReader>();
+	private final Map<ZipFile, Long> openArchiveTimeStamps = new WeakHashMap<ZipFile, Long>(); // must be synchronized
+
+/**
+ * Answers the cached reader of the given entry of the archive at the given path and with the given
+ * last modification time, or null if it is not cached.
+ */
+public ClassFileReader get(String archivePath, long lastModified, String entryName) {
+	purgeClearedReaders();
+	Archive archive = getArchive(archivePath, lastModified);
+	ReaderReference reference = archive.readers.get(entryName);
+	return reference == null ? null : reference.get();
+}
+/**
+ * Answers the cached reader of the given entry of the given open archive, or null if it is not cached.
+ */
+public ClassFileReader get(ZipFile zipFile, String entryName) {
+	return get(zipFile.getName(), getTimeStamp(zipFile), entryName);
+}
+/**
+ * Remembers the given fully initialized reader of the given entry of the archive at the given path.
+ */
+public void put(String archivePath, long lastModified, String entryName, ClassFileReader reader) {
+	Archive archive = getArchive(archivePath, lastModified);
+	archive.readers.put(entryName, new ReaderReference(reader, archive, entryName, this.clearedReaders));
+}
+/**
+ * Remembers the given fully initialized reader of the given entry of the given open archive.
+ */
+public void put(ZipFile zipFile, String entryName, ClassFileReader reader) {
+	put(zipFile.getName(), getTimeStamp(zipFile), entryName, reader);
+}
+/**
+ * Forgets all the readers, e.g. on shutdown.
+ */
+public void clear() {
+	this.archives.clear();
+	synchronized (this.openArchiveTimeStamps) {
+		this.openArchiveTimeStamps.clear();
+	}
+}
+private long getTimeStamp(ZipFile zipFile) {
+	synchronized (this.openArchiveTimeStamps) {
+		Long timeStamp = this.openArchiveTimeStamps.get(zipFile);
+		if (timeStamp == null)
+			this.openArchiveTimeStamps.put(zipFile, timeStamp = Long.valueOf(new File(zipFile.getName()).lastModified()));
+		return timeStamp.longValue();
+	}
+}
+private Archive getArchive(String archivePath, long lastModified) {
+	Archive archive = this.archives.get(archivePath);
+	if (archive != null && archive.lastModified == lastModified)
+		return archive;
+	Archive newArchive = new Archive(archivePath, lastModified);
+	if (archive == null) {
+		archive = this.archives.putIfAbsent(archivePath, newArchive);
+		if (archive == null)
+			return newArchive;
+		if (archive.lastModified == lastModified)
+			return archive; // added concurrently
+	}
+	// the archive has changed on disk, its readers are stale
+	return this.archives.replace(archivePath, archive, newArchive) ? newArchive : getArchive(archivePath, lastModified);
+}
+private void purgeClearedReaders() {
+	ReaderReference reference;
+	while ((reference = (ReaderReference) this.clearedReaders.poll()) != null) {
+		Archive archive = reference.archive;
+		archive.readers.remove(reference.entryName, reference);
+		if (archive.readers.isEmpty())
+			this.archives.remove(archive.path, archive);
+	}
+}
+}
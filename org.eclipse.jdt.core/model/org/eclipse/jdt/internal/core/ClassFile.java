@@ -354,11 +354,30 @@ private IBinaryType getJarBinaryTypeInfo(PackageFragment pkg, boolean fullyIniti
 	try {
 		zip = root.getJar();
 		String entryName = Util.concatWith(pkg.names, getElementName(), '/');
-		ZipEntry ze = zip.getEntry(entryName);
-		if (ze != null) {
-			byte contents[] = org.eclipse.jdt.internal.compiler.util.Util.getZipEntryByteContent(ze, zip);
-			String fileName = root.getHandleIdentifier() + IDependent.JAR_FILE_ENTRY_SEPARATOR + entryName;
-			ClassFileReader reader = new ClassFileReader(contents, fileName.toCharArray(), fullyInitialize);
+		String fileName = root.getHandleIdentifier() + IDependent.JAR_FILE_ENTRY_SEPARATOR + entryName;
+		ClassFileReader reader = null;
+		if (fullyInitialize) {
+			// decoded types are shared by the models of all projects and by the builder, see BinaryTypeCache
+			BinaryTypeCache binaryTypeCache = JavaModelManager.getJavaModelManager().getBinaryTypeCache();
+			ClassFileReader sharedReader = binaryTypeCache.get(zip, entryName);
+			if (sharedReader == null) {
+				ZipEntry ze = zip.getEntry(entryName);
+				if (ze != null) {
+					byte contents[] = org.eclipse.jdt.internal.compiler.util.Util.getZipEntryByteContent(ze, zip);
+					sharedReader = new ClassFileReader(contents, entryName.toCharArray(), true);
+					binaryTypeCache.put(zip, entryName, sharedReader);
+				}
+			}
+			if (sharedReader != null)
+				reader = sharedReader.copy(fileName.toCharArray());
+		} else {
+			ZipEntry ze = zip.getEntry(entryName);
+			if (ze != null) {
+				byte contents[] = org.eclipse.jdt.internal.compiler.util.Util.getZipEntryByteContent(ze, zip);
+				reader = new ClassFileReader(contents, fileName.toCharArray(), false);
+			}
+		}
+		if (reader != null) {
 			if (root.getKind() == IPackageFragmentRoot.K_BINARY) {
 				JavaProject javaProject = (JavaProject) getAncestor(IJavaElement.JAVA_PROJECT);
 				IClasspathEntry entry = javaProject.getClasspathEntryFor(getPath());
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2016 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,27 +12,25 @@ package org.eclipse.jdt.internal.core;
 
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.JavaModelException;
-import org.eclipse.jdt.internal.core.util.LRUCache;
+import org.eclipse.jdt.internal.core.util.ClockCache;
 
 /**
- * An LRU cache of <code>JavaElements</code>.
+ * A cache of <code>Openables</code> to their info, which is read without locking.
+ * <p>
+ * An element is closed when it is evicted, unless it cannot be removed from the cache
+ * (see {@link Openable#canBeRemovedFromCache()}).
+ * </p>
  */
-public class ElementCache extends OverflowingLRUCache {
+public class ConcurrentElementCache extends ClockCache<IJavaElement, Object> {
 
 	IJavaElement spaceLimitParent = null;
 
 /**
  * Constructs a new element cache of the given size.
  */
-public ElementCache(int size) {
+public ConcurrentElementCache(int size) {
 	super(size);
 }
-/**
- * Constructs a new element cache of the given size.
- */
-public ElementCache(int size, int overflow) {
-	super(size, overflow);
-}
 /**
  * Returns true if the element is successfully closed and
  * removed from the cache, otherwise false.
@@ -40,8 +38,8 @@ public ElementCache(int size, int overflow) {
  * <p>NOTE: this triggers an external removal of this element
  * by closing the element.
  */
-protected boolean close(LRUCacheEntry entry) {
-	Openable element = (Openable) entry.key;
+protected boolean close(IJavaElement key, Object value) {
+	Openable element = (Openable) key;
 	try {
 		if (!element.canBeRemovedFromCache()) {
 			return false;
@@ -58,7 +56,7 @@ protected boolean close(LRUCacheEntry entry) {
  * Ensures that there is enough room for adding the children of the given info.
  * If the space limit must be increased, record the parent that needed this space limit.
  */
-protected void ensureSpaceLimit(Object info, IJavaElement parent) {
+protected synchronized void ensureSpaceLimit(Object info, IJavaElement parent) {
 	// ensure the children can be put without closing other elements
 	int childrenSize = ((JavaElementInfo) info).getChildren().length;
 	int spaceNeeded = 1 + (int)((1 + this.loadFactor) * (childrenSize + this.overflow));
@@ -70,18 +68,11 @@ protected void ensureSpaceLimit(Object info, IJavaElement parent) {
 	}
 }
 
-/*
- * Returns a new instance of the receiver.
- */
-protected LRUCache newInstance(int size, int newOverflow) {
-	return new ElementCache(size, newOverflow);
-}
-
 /*
  * If the given parent was the one that increased the space limit, reset
  * the space limit to the given default value.
  */
-protected void resetSpaceLimit(int defaultLimit, IJavaElement parent) {
+protected synchronized void resetSpaceLimit(int defaultLimit, IJavaElement parent) {
 	if (parent.equals(this.spaceLimitParent)) {
 		setSpaceLimit(defaultLimit);
 		this.spaceLimitParent = null;
@@ -138,7 +138,6 @@ import org.eclipse.jdt.internal.core.search.processing.IJob;
 import org.eclipse.jdt.internal.core.search.processing.JobManager;
 import org.eclipse.jdt.internal.core.util.HashtableOfArrayToObject;
 import org.eclipse.jdt.internal.core.util.LRUCache;
-import org.eclipse.jdt.internal.core.util.LRUCache.Stats;
 import org.eclipse.jdt.internal.core.util.Messages;
 import org.eclipse.jdt.internal.core.util.Util;
 import org.eclipse.jdt.internal.core.util.WeakHashSet;
@@ -1165,6 +1164,11 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 */
 	private JavaModelCache cache;
 
+	/**
+	 * Decoded class files of the archives, shared by all projects.
+	 */
+	private final BinaryTypeCache binaryTypeCache = new BinaryTypeCache();
+
 	/*
 	 * Temporary cache of newly opened elements
 	 */
@@ -2003,6 +2007,10 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		return referencedEntries;
 	}
 	
+	public BinaryTypeCache getBinaryTypeCache() {
+		return this.binaryTypeCache;
+	}
+
 	public DeltaProcessor getDeltaProcessor() {
 		return this.deltaState.getDeltaProcessor();
 	}
@@ -2028,8 +2036,9 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 
 	/**
 	 *  Returns the info for the element.
+	 *  The cache is read without locking, see JavaModelCache.
 	 */
-	public synchronized Object getInfo(IJavaElement element) {
+	public Object getInfo(IJavaElement element) {
 		HashMap tempCache = (HashMap)this.temporaryCache.get();
 		if (tempCache != null) {
 			Object result = tempCache.get(element);
@@ -2043,7 +2052,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	/**
 	 *  Returns the existing element in the cache that is equal to the given element.
 	 */
-	public synchronized IJavaElement getExistingElement(IJavaElement element) {
+	public IJavaElement getExistingElement(IJavaElement element) {
 		return this.cache.getExistingElement(element);
 	}
 
@@ -2133,17 +2142,19 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			return null; // should never be requested on non-Java projects
 		}
 		PerProjectInfo info = getPerProjectInfo(project, true/*create if missing*/);
-		if (!info.triedRead) {
-			info.triedRead = true;
-			try {
-				if (monitor != null)
-					monitor.subTask(Messages.bind(Messages.build_readStateProgress, project.getName()));
-				info.savedState = readState(project);
-			} catch (CoreException e) {
-				e.printStackTrace();
+		synchronized (info) { // the builds of independent projects can run concurrently, see ParallelBuildDriver
+			if (!info.triedRead) {
+				info.triedRead = true;
+				try {
+					if (monitor != null)
+						monitor.subTask(Messages.bind(Messages.build_readStateProgress, project.getName()));
+					info.savedState = readState(project);
+				} catch (CoreException e) {
+					e.printStackTrace();
+				}
 			}
+			return info.savedState;
 		}
-		return info.savedState;
 	}
 
 	public String getOption(String optionName) {
@@ -3775,7 +3786,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	 *  Returns the info for this element without
 	 *  disturbing the cache ordering.
 	 */
-	protected synchronized Object peekAtInfo(IJavaElement element) {
+	protected Object peekAtInfo(IJavaElement element) {
 		HashMap tempCache = (HashMap)this.temporaryCache.get();
 		if (tempCache != null) {
 			Object result = tempCache.get(element);
@@ -3819,7 +3830,7 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		// This is due to the way the LRU cache flushes entries.
 		// When a JarPackageFragment is flushed from the LRU cache, the entire
 		// jar is flushed by removing the JarPackageFragmentRoot and all of its
-		// children (see ElementCache.close()). If we flush the JarPackageFragment
+		// children (see ConcurrentElementCache.close()). If we flush the JarPackageFragment
 		// when its JarPackageFragmentRoot is not in the cache and the root is about to be
 		// added (during the 'while' loop), we will end up in an inconsistent state.
 		// Subsequent resolution against package in the jar would fail as a result.
@@ -4994,8 +5005,10 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		if (JavaProject.hasJavaNature(project)) {
 			// should never be requested on non-Java projects
 			PerProjectInfo info = getPerProjectInfo(project, true /*create if missing*/);
-			info.triedRead = true; // no point trying to re-read once using setter
-			info.savedState = state;
+			synchronized (info) {
+				info.triedRead = true; // no point trying to re-read once using setter
+				info.savedState = state;
+			}
 		}
 		if (state == null) { // delete state file to ensure a full build happens if the workspace crashes
 			try {
@@ -5235,6 +5248,8 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 			// ignore
 		}
 
+		this.binaryTypeCache.clear();
+
 		// Note: no need to close the Java model as this just removes Java element infos from the Java model cache
 	}
 
@@ -5359,10 +5374,6 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		return this.cache.toStringFillingRation(prefix);
 	}
 	
-	public Stats debugNewOpenableCacheStats() {
-		return this.cache.openableCache.new Stats();
-	}
-	
 	public int getOpenableCacheSize() {
 		return this.cache.openableCache.getSpaceLimit();
 	}
@@ -13,7 +13,9 @@ package org.eclipse.jdt.internal.core;
 import java.text.NumberFormat;
 import java.util.Date;
 
-public class VerboseElementCache extends ElementCache {
+import org.eclipse.jdt.core.IJavaElement;
+
+public class VerboseElementCache extends ConcurrentElementCache {
 
 	private Object beingAdded;
 	private String name;
@@ -23,7 +25,7 @@ public class VerboseElementCache extends ElementCache {
 		this.name = name;
 	}
 
-	protected boolean makeSpace(int space) {
+	protected synchronized boolean makeSpace(int space) {
 		if (this.beingAdded == null) return super.makeSpace(space);
 		String fillingRatio = toStringFillingRation(this.name);
 		boolean result = super.makeSpace(space);
@@ -37,7 +39,7 @@ public class VerboseElementCache extends ElementCache {
 		return result;
 	}
 
-	public Object put(Object key, Object value) {
+	public synchronized Object put(IJavaElement key, Object value) {
 		try {
 			if (this.beingAdded == null)
 				this.beingAdded = key;
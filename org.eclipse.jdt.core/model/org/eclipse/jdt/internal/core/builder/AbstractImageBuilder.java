@@ -269,6 +269,8 @@ protected void addAllSourceFiles(final ArrayList sourceFiles) throws CoreExcepti
 
 protected void cleanUp() {
 	this.nameEnvironment.cleanup();
+	if (this.compiler != null && System.getProperty(JavaBuilder.BUILD_METRICS_PROPERTY) != null)
+		writeMetrics();
 
 	this.javaBuilder = null;
 	this.nameEnvironment = null;
@@ -446,7 +448,8 @@ protected SourceFile findSourceFile(IFile file, boolean mustExist) {
 
 protected void finishedWith(String sourceLocator, CompilationResult result, char[] mainTypeName, ArrayList definedTypeNames, ArrayList duplicateTypeNames) {
 	if (duplicateTypeNames == null) {
-		this.newState.record(sourceLocator, result.qualifiedReferences, result.simpleNameReferences, result.rootReferences, mainTypeName, definedTypeNames);
+		this.newState.record(sourceLocator, result.qualifiedReferences, result.simpleNameReferences, result.rootReferences,
+			result.memberNameReferences, result.superTypeNameReferences, mainTypeName, definedTypeNames);
 		return;
 	}
 
@@ -462,7 +465,8 @@ protected void finishedWith(String sourceLocator, CompilationResult result, char
 		System.arraycopy(simpleRefs, 0, simpleRefs = new char[sLength + 1][], 0, sLength);
 		simpleRefs[sLength] = typeName;
 	}
-	this.newState.record(sourceLocator, result.qualifiedReferences, simpleRefs, result.rootReferences, mainTypeName, definedTypeNames);
+	this.newState.record(sourceLocator, result.qualifiedReferences, simpleRefs, result.rootReferences,
+		result.memberNameReferences, result.superTypeNameReferences, mainTypeName, definedTypeNames);
 }
 
 protected IContainer createFolder(IPath packagePath, IContainer outputFolder) throws CoreException {
@@ -548,6 +552,9 @@ protected Compiler newCompiler() {
 	// enable the compiler reference info support
 	options.produceReferenceInfo = true;
 
+	if (System.getProperty(JavaBuilder.BUILD_METRICS_PROPERTY) != null)
+		newCompiler.stats.collectUnitStats();
+
 	if (options.complianceLevel >= ClassFileConstants.JDK1_6
 			&& options.processAnnotations) {
 		// support for Java 6 annotation processors
@@ -557,6 +564,29 @@ protected Compiler newCompiler() {
 	return newCompiler;
 }
 
+/*
+ * Writes the stats of the units compiled by the build, see JavaBuilder#BUILD_METRICS_PROPERTY.
+ */
+protected void writeMetrics() {
+	String extension = "csv".equalsIgnoreCase(System.getProperty(JavaBuilder.BUILD_METRICS_FORMAT_PROPERTY)) ? ".csv" : ".json"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	File file = new File(System.getProperty(JavaBuilder.BUILD_METRICS_PROPERTY),
+		this.javaBuilder.currentProject.getName() + '-' + System.currentTimeMillis() + extension);
+	try {
+		file.getParentFile().mkdirs();
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+		try {
+			if (extension.equals(".csv")) //$NON-NLS-1$
+				this.compiler.stats.writeCSV(writer);
+			else
+				this.compiler.stats.writeJSON(writer);
+		} finally {
+			writer.close();
+		}
+	} catch (IOException e) {
+		Util.log(e, "JavaBuilder unable to write the build metrics to " + file); //$NON-NLS-1$
+	}
+}
+
 protected CompilationParticipantResult[] notifyParticipants(SourceFile[] unitsAboutToCompile) {
 	CompilationParticipantResult[] results = new CompilationParticipantResult[unitsAboutToCompile.length];
 	for (int i = unitsAboutToCompile.length; --i >= 0;)
@@ -14,9 +14,19 @@ public class AdditionalTypeCollection extends ReferenceCollection {
 
 char[][] definedTypeNames;
 
-protected AdditionalTypeCollection(char[][] definedTypeNames, char[][][] qualifiedReferences, char[][] simpleNameReferences, char[][] rootReferences) {
-	super(qualifiedReferences, simpleNameReferences, rootReferences);
+protected AdditionalTypeCollection(NamePool pool, char[][] definedTypeNames, char[][][] qualifiedReferences, char[][] simpleNameReferences, char[][] rootReferences) {
+	this(pool, definedTypeNames, qualifiedReferences, simpleNameReferences, rootReferences, null, null);
+}
+
+protected AdditionalTypeCollection(NamePool pool, char[][] definedTypeNames, char[][][] qualifiedReferences, char[][] simpleNameReferences, char[][] rootReferences,
+	char[][] memberNameReferences, char[][] superTypeNameReferences) {
+	super(pool, qualifiedReferences, simpleNameReferences, rootReferences, memberNameReferences, superTypeNameReferences);
 	this.definedTypeNames = definedTypeNames; // do not bother interning member type names (i.e. 'A$M')
 }
+
+AdditionalTypeCollection(char[][] definedTypeNames, EncodedReferences encodedReferences, int encodedOffset, long[] nameFilter) {
+	super(encodedReferences, encodedOffset, nameFilter);
+	this.definedTypeNames = definedTypeNames;
+}
 }
 
@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.internal.compiler.util.SimpleSet;
+import org.eclipse.jdt.internal.compiler.util.SuffixConstants;
+import org.eclipse.jdt.internal.core.util.LRUCache;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * The packages and class files of an archive, as of its last modification time and size.
+ * <p>
+ * Directories are saved in the state location of the plug-in, one file per archive, so that opening a class path
+ * of unchanged archives does not scan their entries again. Class files that are not in the directory are known
+ * to be missing without looking up the zip file. The saved directories of archives which no longer exist or which
+ * have not been used for {@link #MAX_UNUSED_TIME} are deleted once per session.
+ * </p>
+ */
+public class ArchiveDirectory {
+
+/**
+ * A cache of directories bounded by their number of class files, so that large archives evict more small ones.
+ */
+public static class Cache extends LRUCache {
+	public Cache(int maxClassFiles) {
+		super(maxClassFiles);
+	}
+	public synchronized ArchiveDirectory get(String zipFilename) {
+		return (ArchiveDirectory) super.get(zipFilename);
+	}
+	public synchronized void put(String zipFilename, ArchiveDirectory directory) {
+		super.put(zipFilename, directory);
+	}
+	public synchronized void flush() {
+		super.flush();
+	}
+	protected int spaceFor(Object value) {
+		return ((ArchiveDirectory) value).classFileNames.elementSize + 1;
+	}
+}
+
+static final byte VERSION = 0x0001;
+private static final String DIRECTORIES_FOLDER = "archiveDirectories"; //$NON-NLS-1$
+private static final String DIRECTORY_SUFFIX = ".dir"; //$NON-NLS-1$
+private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+public static final long MAX_UNUSED_TIME = 30L * 24 * 60 * 60 * 1000; // 30 days
+private static final long MAX_TEMP_FILE_AGE = 60L * 60 * 1000; // 1 hour, a write takes far less
+private static boolean CleanedUp = false;
+
+long lastModified;
+long fileSize;
+public SimpleSet packageSet; // of the form "p1/p2"
+public SimpleSet classFileNames; // of the form "p1/p2/X.class"
+
+public ArchiveDirectory(long lastModified, long fileSize, SimpleSet packageSet, SimpleSet classFileNames) {
+	this.lastModified = lastModified;
+	this.fileSize = fileSize;
+	this.packageSet = packageSet;
+	this.classFileNames = classFileNames;
+}
+
+/**
+ * Scans the entries of the given zip file.
+ */
+public static ArchiveDirectory create(ZipFile zipFile, long lastModified, long fileSize) {
+	SimpleSet packageSet = new SimpleSet(41);
+	packageSet.add(""); //$NON-NLS-1$
+	SimpleSet classFileNames = new SimpleSet(zipFile.size());
+	nextEntry : for (Enumeration<? extends ZipEntry> e = zipFile.entries(); e.hasMoreElements(); ) {
+		String fileName = e.nextElement().getName();
+		if (fileName.endsWith(SuffixConstants.SUFFIX_STRING_class))
+			classFileNames.add(fileName);
+
+		// add the package name & all of its parent packages
+		int last = fileName.lastIndexOf('/');
+		while (last > 0) {
+			// extract the package name
+			String packageName = fileName.substring(0, last);
+			if (packageSet.addIfNotIncluded(packageName) == null)
+				continue nextEntry; // already existed
+			last = packageName.lastIndexOf('/');
+		}
+	}
+	return new ArchiveDirectory(lastModified, fileSize, packageSet, classFileNames);
+}
+
+/**
+ * Answers the saved directory of the given archive if it matches the given time stamp and size, null otherwise.
+ */
+static ArchiveDirectory read(String zipFilename, long lastModified, long fileSize) {
+	File folder = getDirectoriesFolder();
+	if (folder == null) return null;
+	return read(folder, zipFilename, lastModified, fileSize);
+}
+
+/**
+ * Answers the directory of the given archive saved in the given folder if it matches the given time stamp and size,
+ * null otherwise.
+ */
+public static ArchiveDirectory read(File folder, String zipFilename, long lastModified, long fileSize) {
+	File file = getDirectoryFile(folder, zipFilename);
+	if (!file.exists()) return null;
+	DataInputStream in = null;
+	try {
+		in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		if (in.readByte() != VERSION
+				|| !in.readUTF().equals(zipFilename)
+				|| in.readLong() != lastModified
+				|| in.readLong() != fileSize)
+			return null; // obsolete, will be overwritten
+
+		int packageCount = in.readInt();
+		SimpleSet packageSet = new SimpleSet(packageCount);
+		SimpleSet classFileNames = new SimpleSet(in.readInt());
+		for (int i = 0; i < packageCount; i++) {
+			String packageName = in.readUTF();
+			packageSet.add(packageName);
+			String prefix = packageName.length() == 0 ? packageName : packageName + '/';
+			for (int j = 0, typeCount = in.readInt(); j < typeCount; j++)
+				classFileNames.add(prefix + in.readUTF() + SuffixConstants.SUFFIX_STRING_class);
+		}
+		if (JavaBuilder.DEBUG)
+			System.out.println("Read directory of " + zipFilename + " from " + file); //$NON-NLS-1$ //$NON-NLS-2$
+		file.setLastModified(System.currentTimeMillis()); // used, see cleanUp(File, long)
+		return new ArchiveDirectory(lastModified, fileSize, packageSet, classFileNames);
+	} catch (IOException e) {
+		Util.log(e, "Unable to read the directory of " + zipFilename + " from " + file); //$NON-NLS-1$ //$NON-NLS-2$
+		return null;
+	} finally {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// nothing we can do: ignore
+			}
+		}
+	}
+}
+
+/**
+ * Saves the receiver as the directory of the given archive.
+ * The class files are written by package, without their package name and suffix.
+ */
+void write(String zipFilename) {
+	File folder = getDirectoriesFolder();
+	if (folder != null)
+		write(folder, zipFilename);
+}
+
+/**
+ * Saves the receiver in the given folder as the directory of the given archive.
+ */
+public void write(File folder, String zipFilename) {
+	File file = getDirectoryFile(folder, zipFilename);
+	HashMap<String, List<String>> typesByPackage = new HashMap<String, List<String>>(this.packageSet.elementSize);
+	Object[] classFiles = this.classFileNames.values;
+	for (int i = 0, l = classFiles.length; i < l; i++) {
+		String classFileName = (String) classFiles[i];
+		if (classFileName == null) continue;
+		int last = classFileName.lastIndexOf('/');
+		String packageName = last == -1 ? "" : classFileName.substring(0, last); //$NON-NLS-1$
+		List<String> types = typesByPackage.get(packageName);
+		if (types == null)
+			typesByPackage.put(packageName, types = new ArrayList<String>());
+		types.add(classFileName.substring(last + 1, classFileName.length() - SuffixConstants.SUFFIX_STRING_class.length()));
+	}
+
+	File tempFile = null;
+	DataOutputStream out = null;
+	try {
+		if (!folder.isDirectory() && !folder.mkdirs()) return;
+		// builds of concurrent workspaces must never read a partial file
+		tempFile = File.createTempFile(file.getName(), TEMP_SUFFIX, folder);
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		out.writeByte(VERSION);
+		out.writeUTF(zipFilename);
+		out.writeLong(this.lastModified);
+		out.writeLong(this.fileSize);
+		out.writeInt(this.packageSet.elementSize);
+		out.writeInt(this.classFileNames.elementSize);
+		Object[] packageNames = this.packageSet.values;
+		for (int i = 0, l = packageNames.length; i < l; i++) {
+			String packageName = (String) packageNames[i];
+			if (packageName == null) continue;
+			out.writeUTF(packageName);
+			List<String> types = typesByPackage.get(packageName);
+			int typeCount = types == null ? 0 : types.size();
+			out.writeInt(typeCount);
+			for (int j = 0; j < typeCount; j++)
+				out.writeUTF(types.get(j));
+		}
+		out.close();
+		out = null;
+		if (file.exists() && !file.delete()) return;
+		if (tempFile.renameTo(file)) {
+			tempFile = null;
+			if (JavaBuilder.DEBUG)
+				System.out.println("Saved directory of " + zipFilename + " to " + file); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	} catch (IOException e) {
+		Util.log(e, "Unable to save the directory of " + zipFilename + " to " + file); //$NON-NLS-1$ //$NON-NLS-2$
+	} finally {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// nothing we can do: ignore
+			}
+		}
+		if (tempFile != null)
+			tempFile.delete();
+	}
+}
+
+/**
+ * Deletes the directories saved in the given folder whose archive no longer exists or which have not been used
+ * since the given time, and the temporary files left by interrupted writes.
+ */
+public static void cleanUp(File folder, long unusedSince) {
+	File[] files = folder.listFiles();
+	if (files == null) return;
+	long now = System.currentTimeMillis();
+	for (int i = 0, l = files.length; i < l; i++) {
+		File file = files[i];
+		String name = file.getName();
+		boolean obsolete;
+		if (name.endsWith(TEMP_SUFFIX)) {
+			obsolete = file.lastModified() < now - MAX_TEMP_FILE_AGE;
+		} else if (name.endsWith(DIRECTORY_SUFFIX)) {
+			if (file.lastModified() < unusedSince) {
+				obsolete = true;
+			} else {
+				String zipFilename = readArchiveName(file);
+				obsolete = zipFilename == null || !new File(zipFilename).isFile();
+			}
+		} else {
+			continue;
+		}
+		if (obsolete && file.delete() && JavaBuilder.DEBUG)
+			System.out.println("Deleted obsolete archive directory " + file); //$NON-NLS-1$
+	}
+}
+
+private static String readArchiveName(File file) {
+	DataInputStream in = null;
+	try {
+		in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		if (in.readByte() != VERSION) return null;
+		return in.readUTF();
+	} catch (IOException e) {
+		return null;
+	} finally {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// nothing we can do: ignore
+			}
+		}
+	}
+}
+
+/*
+ * Answers the folder of the directories in the state location of the plug-in, cleaning it up the first time.
+ */
+private static File getDirectoriesFolder() {
+	if (JavaCore.getPlugin() == null) return null;
+	IPath location = JavaCore.getPlugin().getStateLocation().append(DIRECTORIES_FOLDER);
+	File folder = location.toFile();
+	synchronized (ArchiveDirectory.class) {
+		if (!CleanedUp) {
+			CleanedUp = true;
+			cleanUp(folder, System.currentTimeMillis() - MAX_UNUSED_TIME);
+		}
+	}
+	return folder;
+}
+
+private static File getDirectoryFile(File folder, String zipFilename) {
+	// a name clash only costs a scan, the name of the archive is checked when reading
+	return new File(folder, Integer.toHexString(zipFilename.hashCode()) + DIRECTORY_SUFFIX);
+}
+}
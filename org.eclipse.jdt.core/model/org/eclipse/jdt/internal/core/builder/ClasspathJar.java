@@ -20,9 +20,10 @@ import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
 import org.eclipse.jdt.internal.compiler.env.AccessRuleSet;
 import org.eclipse.jdt.internal.compiler.env.NameEnvironmentAnswer;
-import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
 import org.eclipse.jdt.internal.compiler.util.SimpleSet;
 import org.eclipse.jdt.internal.compiler.util.SuffixConstants;
+import org.eclipse.jdt.internal.core.BinaryTypeCache;
+import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.util.Util;
 
 import java.io.*;
@@ -32,51 +33,31 @@ import java.util.zip.*;
 @SuppressWarnings("rawtypes")
 public class ClasspathJar extends ClasspathLocation {
 
-static class PackageCacheEntry {
-	long lastModified;
-	long fileSize;
-	SimpleSet packageSet;
-
-	PackageCacheEntry(long lastModified, long fileSize, SimpleSet packageSet) {
-		this.lastModified = lastModified;
-		this.fileSize = fileSize;
-		this.packageSet = packageSet;
-	}
-}
-
-static SimpleLookupTable PackageCache = new SimpleLookupTable();
+// bounded by the number of class files of the cached directories, a large archive has about 20000
+static final ArchiveDirectory.Cache PackageCache = new ArchiveDirectory.Cache(200000);
 
 /**
- * Calculate and cache the package list available in the zipFile.
+ * Answer the directory of the packages and class files of the zipFile, reading it from its saved copy
+ * or else scanning the entries of the zipFile, and cache it.
  * @param jar The ClasspathJar to use
- * @return A SimpleSet with the all the package names in the zipFile.
+ * @return The directory of the zipFile.
  */
-static SimpleSet findPackageSet(ClasspathJar jar) {
+static ArchiveDirectory findDirectory(ClasspathJar jar) throws IOException {
 	String zipFileName = jar.zipFilename;
 	long lastModified = jar.lastModified();
 	long fileSize = new File(zipFileName).length();
-	PackageCacheEntry cacheEntry = (PackageCacheEntry) PackageCache.get(zipFileName);
-	if (cacheEntry != null && cacheEntry.lastModified == lastModified && cacheEntry.fileSize == fileSize)
-		return cacheEntry.packageSet;
-
-	SimpleSet packageSet = new SimpleSet(41);
-	packageSet.add(""); //$NON-NLS-1$
-	nextEntry : for (Enumeration e = jar.zipFile.entries(); e.hasMoreElements(); ) {
-		String fileName = ((ZipEntry) e.nextElement()).getName();
-
-		// add the package name & all of its parent packages
-		int last = fileName.lastIndexOf('/');
-		while (last > 0) {
-			// extract the package name
-			String packageName = fileName.substring(0, last);
-			if (packageSet.addIfNotIncluded(packageName) == null)
-				continue nextEntry; // already existed
-			last = packageName.lastIndexOf('/');
-		}
+	ArchiveDirectory directory = PackageCache.get(zipFileName);
+	if (directory != null && directory.lastModified == lastModified && directory.fileSize == fileSize)
+		return directory;
+
+	directory = ArchiveDirectory.read(zipFileName, lastModified, fileSize);
+	if (directory == null) {
+		jar.openZipFile();
+		directory = ArchiveDirectory.create(jar.zipFile, lastModified, fileSize);
+		directory.write(zipFileName);
 	}
-
-	PackageCache.put(zipFileName, new PackageCacheEntry(lastModified, fileSize, packageSet));
-	return packageSet;
+	PackageCache.put(zipFileName, directory);
+	return directory;
 }
 
 
@@ -87,6 +68,7 @@ ZipFile annotationZipFile;
 long lastModified;
 boolean closeZipFileAtEnd;
 SimpleSet knownPackageNames;
+SimpleSet knownClassFileNames; // null if unknown
 AccessRuleSet accessRuleSet;
 String externalAnnotationPath;
 
@@ -148,6 +130,7 @@ public void cleanup() {
 		}
 	}
 	this.knownPackageNames = null;
+	this.knownClassFileNames = null;
 }
 
 public boolean equals(Object o) {
@@ -163,12 +146,24 @@ public boolean equals(Object o) {
 
 public NameEnvironmentAnswer findClass(String binaryFileName, String qualifiedPackageName, String qualifiedBinaryFileName) {
 	if (!isPackage(qualifiedPackageName)) return null; // most common case
+	if (this.knownClassFileNames != null && !this.knownClassFileNames.includes(qualifiedBinaryFileName))
+		return null; // answered by the directory, without looking up the zipFile
 
 	try {
-		ClassFileReader reader = ClassFileReader.read(this.zipFile, qualifiedBinaryFileName);
+		// decoded types are shared by the builds of all projects, see BinaryTypeCache
+		long timeStamp = lastModified();
+		BinaryTypeCache binaryTypeCache = JavaModelManager.getJavaModelManager().getBinaryTypeCache();
+		ClassFileReader reader = binaryTypeCache.get(this.zipFilename, timeStamp, qualifiedBinaryFileName);
+		if (reader == null) {
+			openZipFile();
+			reader = ClassFileReader.read(this.zipFile, qualifiedBinaryFileName, true/*fully initialize so as to share the reader*/);
+			if (reader != null)
+				binaryTypeCache.put(this.zipFilename, timeStamp, qualifiedBinaryFileName, reader);
+		}
 		if (reader != null) {
 			String fileNameWithoutExtension = qualifiedBinaryFileName.substring(0, qualifiedBinaryFileName.length() - SuffixConstants.SUFFIX_CLASS.length);
 			if (this.externalAnnotationPath != null) {
+				reader = reader.copy(reader.getFileName()); // the cached reader is never modified
 				try {
 					this.annotationZipFile = reader.setExternalAnnotationProvider(this.externalAnnotationPath, fileNameWithoutExtension, this.annotationZipFile, null);
 				} catch (IOException e) {
@@ -199,20 +194,25 @@ public boolean isPackage(String qualifiedPackageName) {
 		return this.knownPackageNames.includes(qualifiedPackageName);
 
 	try {
-		if (this.zipFile == null) {
-			if (org.eclipse.jdt.internal.core.JavaModelManager.ZIP_ACCESS_VERBOSE) {
-				System.out.println("(" + Thread.currentThread() + ") [ClasspathJar.isPackage(String)] Creating ZipFile on " + this.zipFilename); //$NON-NLS-1$	//$NON-NLS-2$
-			}
-			this.zipFile = new ZipFile(this.zipFilename);
-			this.closeZipFileAtEnd = true;
-		}
-		this.knownPackageNames = findPackageSet(this);
+		ArchiveDirectory directory = findDirectory(this);
+		this.knownPackageNames = directory.packageSet;
+		this.knownClassFileNames = directory.classFileNames;
 	} catch(Exception e) {
 		this.knownPackageNames = new SimpleSet(); // assume for this build the zipFile is empty
 	}
 	return this.knownPackageNames.includes(qualifiedPackageName);
 }
 
+void openZipFile() throws IOException {
+	if (this.zipFile == null) {
+		if (org.eclipse.jdt.internal.core.JavaModelManager.ZIP_ACCESS_VERBOSE) {
+			System.out.println("(" + Thread.currentThread() + ") [ClasspathJar.openZipFile()] Creating ZipFile on " + this.zipFilename); //$NON-NLS-1$	//$NON-NLS-2$
+		}
+		this.zipFile = new ZipFile(this.zipFilename);
+		this.closeZipFileAtEnd = true;
+	}
+}
+
 public long lastModified() {
 	if (this.lastModified == 0)
 		this.lastModified = new File(this.zipFilename).lastModified();
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import java.io.ByteArrayOutputStream;
+
+import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
+
+/**
+ * The reference collections of a saved state, kept as they were read until a collection is queried.
+ * <p>
+ * Each collection is encoded as variable length indexes into the interned names of the state:
+ * the qualified, simple and root names, then the member and supertype names or zero if they are unknown.
+ * Decoding only reads the bytes, so collections of the same state can be decoded concurrently.
+ * The bytes are released once every collection is decoded; until then a collection that was never
+ * queried is saved again by translating its indexes, without decoding it.
+ * </p>
+ */
+class EncodedReferences {
+
+private byte[] bytes; // null once every collection is decoded
+private int encodedCount;
+final NamePool pool;
+// the ids in the name pool of the interned names of the saved state
+private final int[] qualifiedIds;
+private final int[] simpleIds;
+private final int[] rootIds;
+
+EncodedReferences(byte[] bytes, int encodedCount, NamePool pool, int[] qualifiedIds, int[] simpleIds, int[] rootIds) {
+	this.bytes = bytes;
+	this.encodedCount = encodedCount;
+	this.pool = pool;
+	this.qualifiedIds = qualifiedIds;
+	this.simpleIds = simpleIds;
+	this.rootIds = rootIds;
+}
+
+/**
+ * Answers the ids of the names of the collection at the given offset, see {@link ReferenceCollection#encodeIds(int[][])}.
+ * Each collection is decoded once.
+ */
+byte[] decode(int offset) {
+	byte[] encoded = this.bytes;
+	int[] position = new int[] {offset};
+	int[][] ids = new int[5][];
+	ids[ReferenceCollection.QUALIFIED_NAMES] = readIds(encoded, position, readInt(encoded, position), this.qualifiedIds);
+	ids[ReferenceCollection.SIMPLE_NAMES] = readIds(encoded, position, readInt(encoded, position), this.simpleIds);
+	ids[ReferenceCollection.ROOT_NAMES] = readIds(encoded, position, readInt(encoded, position), this.rootIds);
+	int length = readInt(encoded, position);
+	if (length > 0) {
+		ids[ReferenceCollection.MEMBER_NAMES] = readIds(encoded, position, length - 1, this.simpleIds);
+		ids[ReferenceCollection.SUPERTYPE_NAMES] = readIds(encoded, position, readInt(encoded, position), this.simpleIds);
+	}
+	synchronized (this) {
+		if (--this.encodedCount == 0)
+			this.bytes = null;
+	}
+	return ReferenceCollection.encodeIds(ids);
+}
+
+private static int[] readIds(byte[] encoded, int[] position, int length, int[] internedIds) {
+	int[] ids = new int[length];
+	for (int i = 0; i < length; i++)
+		ids[i] = internedIds[readInt(encoded, position)];
+	return ReferenceCollection.sortIds(ids);
+}
+
+/**
+ * Adds the names of the collection at the given offset to the interned name tables of the state being saved.
+ * The collection must not be decoded concurrently.
+ */
+void internNames(int offset, SimpleLookupTable internedQualifiedNames, SimpleLookupTable internedSimpleNames,
+	SimpleLookupTable internedRootNames) {
+	byte[] encoded = this.bytes;
+	int[] position = new int[] {offset};
+	for (int i = readInt(encoded, position); --i >= 0;)
+		State.internName(this.pool.qualifiedName(this.qualifiedIds[readInt(encoded, position)]), internedQualifiedNames, internedSimpleNames);
+	for (int i = readInt(encoded, position); --i >= 0;)
+		State.internName(this.pool.simpleName(this.simpleIds[readInt(encoded, position)]), internedSimpleNames);
+	for (int i = readInt(encoded, position); --i >= 0;)
+		State.internName(this.pool.simpleName(this.rootIds[readInt(encoded, position)]), internedRootNames);
+	int length = readInt(encoded, position);
+	if (length > 0) {
+		for (int i = length - 1; --i >= 0;)
+			State.internName(this.pool.simpleName(this.simpleIds[readInt(encoded, position)]), internedSimpleNames);
+		for (int i = readInt(encoded, position); --i >= 0;)
+			State.internName(this.pool.simpleName(this.simpleIds[readInt(encoded, position)]), internedSimpleNames);
+	}
+}
+
+/**
+ * Appends the collection at the given offset to the given bytes, translating the indexes of its names
+ * to their positions in the interned name tables of the state being saved.
+ * The collection must not be decoded concurrently.
+ */
+void encode(int offset, SimpleLookupTable internedQualifiedNames, SimpleLookupTable internedSimpleNames,
+	SimpleLookupTable internedRootNames, ByteArrayOutputStream out) {
+	byte[] encoded = this.bytes;
+	int[] position = new int[] {offset};
+	int length = readInt(encoded, position);
+	writeInt(length, out);
+	for (int i = 0; i < length; i++)
+		writeInt(((Integer) internedQualifiedNames.get(this.pool.qualifiedName(this.qualifiedIds[readInt(encoded, position)]))).intValue(), out);
+	translateNames(encoded, position, this.simpleIds, internedSimpleNames, out);
+	translateNames(encoded, position, this.rootIds, internedRootNames, out);
+	length = readInt(encoded, position);
+	writeInt(length, out);
+	if (length > 0) {
+		for (int i = length - 1; --i >= 0;)
+			writeInt(((Integer) internedSimpleNames.get(this.pool.simpleName(this.simpleIds[readInt(encoded, position)]))).intValue(), out);
+		translateNames(encoded, position, this.simpleIds, internedSimpleNames, out);
+	}
+}
+
+private void translateNames(byte[] encoded, int[] position, int[] internedIds, SimpleLookupTable internedNames, ByteArrayOutputStream out) {
+	int length = readInt(encoded, position);
+	writeInt(length, out);
+	for (int i = 0; i < length; i++)
+		writeInt(((Integer) internedNames.get(this.pool.simpleName(internedIds[readInt(encoded, position)]))).intValue(), out);
+}
+
+private static int readInt(byte[] encoded, int[] position) {
+	int value = 0;
+	int shift = 0;
+	int b;
+	do {
+		b = encoded[position[0]++];
+		value |= (b & 0x7F) << shift;
+		shift += 7;
+	} while ((b & 0x80) != 0);
+	return value;
+}
+
+/**
+ * Appends the given names of a collection to the given bytes, using the positions of its names in the interned name tables
+ * of the state being saved. The member and supertype names are null if they are unknown.
+ */
+static void encode(char[][][] qualifiedNames, char[][] simpleNames, char[][] rootNames, char[][] memberNames, char[][] superTypeNames,
+	SimpleLookupTable internedQualifiedNames, SimpleLookupTable internedSimpleNames, SimpleLookupTable internedRootNames, ByteArrayOutputStream out) {
+	writeInt(qualifiedNames.length, out);
+	for (int i = 0, l = qualifiedNames.length; i < l; i++)
+		writeInt(((Integer) internedQualifiedNames.get(qualifiedNames[i])).intValue(), out);
+	writeNames(simpleNames, internedSimpleNames, out);
+	writeNames(rootNames, internedRootNames, out);
+	if (memberNames == null) {
+		writeInt(0, out); // unknown
+	} else {
+		writeInt(memberNames.length + 1, out);
+		for (int i = 0, l = memberNames.length; i < l; i++)
+			writeInt(((Integer) internedSimpleNames.get(memberNames[i])).intValue(), out);
+		writeNames(superTypeNames, internedSimpleNames, out);
+	}
+}
+
+private static void writeNames(char[][] names, SimpleLookupTable internedNames, ByteArrayOutputStream out) {
+	writeInt(names.length, out);
+	for (int i = 0, l = names.length; i < l; i++)
+		writeInt(((Integer) internedNames.get(names[i])).intValue(), out);
+}
+
+private static void writeInt(int value, ByteArrayOutputStream out) {
+	while ((value & ~0x7F) != 0) {
+		out.write((value & 0x7F) | 0x80);
+		value >>>= 7;
+	}
+	out.write(value);
+}
+}
@@ -39,6 +39,11 @@ protected ArrayList previousSourceFiles;
 protected StringSet qualifiedStrings;
 protected StringSet simpleStrings;
 protected StringSet rootStrings;
+// types whose changes are limited to members, and the names of these members
+protected StringSet memberQualifiedStrings;
+protected StringSet memberSimpleStrings;
+protected StringSet memberRootStrings;
+protected StringSet memberNameStrings;
 protected SimpleLookupTable secondaryTypesToRemove;
 protected boolean hasStructuralChanges;
 protected int compileLoop;
@@ -181,12 +186,17 @@ protected void buildAfterBatchBuild() {
 }
 
 protected void addAffectedSourceFiles() {
-	if (this.qualifiedStrings.elementSize == 0 && this.simpleStrings.elementSize == 0) return;
-
-	addAffectedSourceFiles(this.qualifiedStrings, this.simpleStrings, this.rootStrings, null);
+	if (this.qualifiedStrings.elementSize != 0 || this.simpleStrings.elementSize != 0)
+		addAffectedSourceFiles(this.qualifiedStrings, this.simpleStrings, this.rootStrings, null, null);
+	if (this.memberSimpleStrings.elementSize != 0)
+		addAffectedSourceFiles(this.memberQualifiedStrings, this.memberSimpleStrings, this.memberRootStrings, this.memberNameStrings, null);
 }
 
 protected void addAffectedSourceFiles(StringSet qualifiedSet, StringSet simpleSet, StringSet rootSet, StringSet affectedTypes) {
+	addAffectedSourceFiles(qualifiedSet, simpleSet, rootSet, null, affectedTypes);
+}
+
+protected void addAffectedSourceFiles(StringSet qualifiedSet, StringSet simpleSet, StringSet rootSet, StringSet memberSet, StringSet affectedTypes) {
 	// the qualifiedStrings are of the form 'p1/p2' & the simpleStrings are just 'X'
 	char[][][] internedQualifiedNames = ReferenceCollection.internQualifiedNames(qualifiedSet);
 	// if a well known qualified name was found then we can skip over these
@@ -197,6 +207,11 @@ protected void addAffectedSourceFiles(StringSet qualifiedSet, StringSet simpleSe
 	if (internedSimpleNames.length < simpleSet.elementSize)
 		internedSimpleNames = null;
 	char[][] internedRootNames = ReferenceCollection.internSimpleNames(rootSet, false);
+	// when only members changed, the type names are also needed to find subtypes
+	char[][] internedTypeNames = memberSet == null ? null : ReferenceCollection.internSimpleNames(simpleSet, false);
+	char[][] internedMemberNames = memberSet == null ? null : ReferenceCollection.internSimpleNames(memberSet, false);
+	// compute the filter keys and the ids of the names once to check the references of every type
+	ReferenceCollection.Names names = new ReferenceCollection.Names(internedQualifiedNames, internedSimpleNames, internedRootNames);
 
 	Object[] keyTable = this.newState.references.keyTable;
 	Object[] valueTable = this.newState.references.valueTable;
@@ -205,7 +220,8 @@ protected void addAffectedSourceFiles(StringSet qualifiedSet, StringSet simpleSe
 		if (typeLocator != null) {
 			if (affectedTypes != null && !affectedTypes.includes(typeLocator)) continue next;
 			ReferenceCollection refs = (ReferenceCollection) valueTable[i];
-			if (refs.includes(internedQualifiedNames, internedSimpleNames, internedRootNames)) {
+			if (refs.includes(names)
+					&& (internedMemberNames == null || refs.includesMembers(internedTypeNames, internedMemberNames))) {
 				IFile file = this.javaBuilder.currentProject.getFile(typeLocator);
 				SourceFile sourceFile = findSourceFile(file, true);
 				if (sourceFile == null) continue next;
@@ -260,6 +276,27 @@ protected void addDependentsOf(IPath path, boolean isStructuralChange, StringSet
 			+ typeName + " in " + packageName); //$NON-NLS-1$
 }
 
+protected void addDependentsOfMembers(IPath path, char[][] memberNames) {
+	if (!this.hasStructuralChanges) {
+		this.newState.tagAsStructurallyChanged();
+		this.hasStructuralChanges = true;
+	}
+	path = path.setDevice(null);
+	this.memberRootStrings.add(path.segment(0));
+	String packageName = path.removeLastSegments(1).toString();
+	this.memberQualifiedStrings.add(packageName);
+	String typeName = path.lastSegment();
+	int memberIndex = typeName.indexOf('$');
+	if (memberIndex > 0)
+		typeName = typeName.substring(0, memberIndex);
+	this.memberSimpleStrings.add(typeName);
+	for (int i = 0, l = memberNames.length; i < l; i++)
+		this.memberNameStrings.add(new String(memberNames[i]));
+	if (JavaBuilder.DEBUG)
+		System.out.println("  will look for dependents of " //$NON-NLS-1$
+			+ typeName + " in " + packageName + " using " + CharOperation.toString(memberNames)); //$NON-NLS-1$ //$NON-NLS-2$
+}
+
 protected boolean checkForClassFileChanges(IResourceDelta binaryDelta, ClasspathMultiDirectory md, int segmentCount) throws CoreException {
 	IResource resource = binaryDelta.getResource();
 	// remember that if inclusion & exclusion patterns change then a full build is done
@@ -298,6 +335,10 @@ protected void cleanUp() {
 	this.qualifiedStrings = null;
 	this.simpleStrings = null;
 	this.rootStrings = null;
+	this.memberQualifiedStrings = null;
+	this.memberSimpleStrings = null;
+	this.memberRootStrings = null;
+	this.memberNameStrings = null;
 	this.secondaryTypesToRemove = null;
 	this.hasStructuralChanges = false;
 	this.compileLoop = 0;
@@ -784,6 +825,10 @@ protected void resetCollections() {
 		this.qualifiedStrings = new StringSet(3);
 		this.simpleStrings = new StringSet(3);
 		this.rootStrings = new StringSet(3);
+		this.memberQualifiedStrings = new StringSet(3);
+		this.memberSimpleStrings = new StringSet(3);
+		this.memberRootStrings = new StringSet(3);
+		this.memberNameStrings = new StringSet(3);
 		this.hasStructuralChanges = false;
 		this.compileLoop = 0;
 	} else {
@@ -793,6 +838,10 @@ protected void resetCollections() {
 		this.qualifiedStrings.clear();
 		this.simpleStrings.clear();
 		this.rootStrings.clear();
+		this.memberQualifiedStrings.clear();
+		this.memberSimpleStrings.clear();
+		this.memberRootStrings.clear();
+		this.memberNameStrings.clear();
 		this.workQueue.clear();
 	}
 }
@@ -897,11 +946,20 @@ protected boolean writeClassFileCheck(IFile file, String fileName, byte[] newByt
 		String filePath = location.getSchemeSpecificPart();
 		ClassFileReader reader = new ClassFileReader(oldBytes, filePath.toCharArray());
 		// ignore local types since they're only visible inside a single method
-		if (!(reader.isLocal() || reader.isAnonymous()) && reader.hasStructuralChanges(newBytes)) {
-			if (JavaBuilder.DEBUG)
-				System.out.println("Type has structural changes " + fileName); //$NON-NLS-1$
-			addDependentsOf(new Path(fileName), true);
-			this.newState.wasStructurallyChanged(fileName);
+		if (!(reader.isLocal() || reader.isAnonymous())) {
+			char[][] changedMembers = reader.getStructurallyChangedMembers(newBytes);
+			if (changedMembers == null) {
+				if (JavaBuilder.DEBUG)
+					System.out.println("Type has structural changes " + fileName); //$NON-NLS-1$
+				addDependentsOf(new Path(fileName), true);
+				this.newState.wasStructurallyChanged(fileName);
+			} else if (changedMembers.length > 0) {
+				// only recompile the dependents which can see the changed members
+				if (JavaBuilder.DEBUG)
+					System.out.println("Type has structural changes to members " + fileName); //$NON-NLS-1$
+				addDependentsOfMembers(new Path(fileName), changedMembers);
+				this.newState.wasStructurallyChanged(fileName);
+			}
 		}
 	} catch (ClassFormatException e) {
 		addDependentsOf(new Path(fileName), true);
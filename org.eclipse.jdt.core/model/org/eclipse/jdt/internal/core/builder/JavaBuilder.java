@@ -13,6 +13,7 @@ package org.eclipse.jdt.internal.core.builder;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 
 import org.eclipse.jdt.core.*;
 import org.eclipse.jdt.core.compiler.*;
@@ -42,6 +43,12 @@ public static final String SOURCE_ID = "JDT"; //$NON-NLS-1$
 public static boolean DEBUG = false;
 public static boolean SHOW_STATS = false;
 
+// directory receiving the stats of the units compiled by each build, in a file named after the project and the
+// time of the build, see CompilerStats#writeJSON(Writer)
+public static final String BUILD_METRICS_PROPERTY = "jdt.core.buildMetrics"; //$NON-NLS-1$
+// "csv" to write the stats in CSV instead of JSON, see CompilerStats#writeCSV(Writer)
+public static final String BUILD_METRICS_FORMAT_PROPERTY = "jdt.core.buildMetricsFormat"; //$NON-NLS-1$
+
 /**
  * A list of project names that have been built.
  * This list is used to reset the JavaModel.existingExternalFiles cache when a build cycle begins
@@ -422,6 +429,16 @@ public State getLastState(IProject project) {
 	return (State) JavaModelManager.getJavaModelManager().getLastBuiltState(project, this.notifier.monitor);
 }
 
+/* Return the rule of the build: the workspace root as for any builder, unless the build is run by
+* the ParallelBuildDriver, which builds the prerequisites first so that the build only needs the rule
+* of the project and its output folders.
+*/
+public ISchedulingRule getRule(int kind, Map args) {
+	if (args != null && args.containsKey(ParallelBuildDriver.PARALLEL_BUILD_ARGUMENT))
+		return ParallelBuildDriver.getRule((JavaProject) JavaCore.create(getProject()));
+	return super.getRule(kind, args);
+}
+
 /* Return the list of projects for which it requires a resource delta. This builder's project
 * is implicitly included and need not be specified. Builders must re-specify the list
 * of interesting projects every time they are run as this is not carried forward
@@ -594,10 +611,12 @@ private int initializeBuilder(int kind, boolean forBuild) throws CoreException {
 
 		// Flush the existing external files cache if this is the beginning of a build cycle
 		String projectName = this.currentProject.getName();
-		if (builtProjects == null || builtProjects.contains(projectName)) {
-			builtProjects = new ArrayList();
+		synchronized (JavaBuilder.class) { // see ParallelBuildDriver
+			if (builtProjects == null || builtProjects.contains(projectName)) {
+				builtProjects = new ArrayList();
+			}
+			builtProjects.add(projectName);
 		}
-		builtProjects.add(projectName);
 	}
 
 	this.binaryLocationsPerProject = new SimpleLookupTable(3);
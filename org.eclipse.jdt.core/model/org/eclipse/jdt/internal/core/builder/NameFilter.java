@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+
+/**
+ * A Bloom filter of the qualified, simple and root names of a {@link ReferenceCollection}.
+ * <p>
+ * Finding the source files affected by a change checks the reference collection of every source file
+ * of the project. The filter tells that a collection does not include any of the changed names with a
+ * few bit tests, without decoding the names of a collection read from a saved state. Since it is saved
+ * with the state, the names are added by their hash code, see {@link #qualifiedKey(char[][])},
+ * {@link #simpleKey(char[])} and {@link #rootKey(char[])}. A name that may be in the filter is then
+ * looked up in the collection.
+ * </p>
+ */
+public final class NameFilter {
+
+private static final int BITS_PER_NAME = 8;
+private static final int HASH_COUNT = 3; // about 3% of false positives with 8 bits per name
+
+/**
+ * Answers the filter of the given names.
+ */
+public static long[] create(char[][][] qualifiedNames, char[][] simpleNames, char[][] rootNames) {
+	int count = qualifiedNames.length + simpleNames.length + rootNames.length;
+	long[] filter = new long[count == 0 ? 1 : (count * BITS_PER_NAME + 63) / 64];
+	for (int i = 0, l = qualifiedNames.length; i < l; i++)
+		add(filter, qualifiedKey(qualifiedNames[i]));
+	for (int i = 0, l = simpleNames.length; i < l; i++)
+		add(filter, simpleKey(simpleNames[i]));
+	for (int i = 0, l = rootNames.length; i < l; i++)
+		add(filter, rootKey(rootNames[i]));
+	return filter;
+}
+
+/**
+ * Same as {@link ReferenceCollection#includes(ReferenceCollection.Names)} for the keys of the names,
+ * except that it may answer true when the collection of the given filter does not include the names.
+ */
+public static boolean mayInclude(long[] filter, int[] qualifiedKeys, int[] simpleKeys, int[] rootKeys) {
+	// if either collection of names is null, it means it contained a well known name
+	return (rootKeys == null || mayContainAny(filter, rootKeys))
+		&& (simpleKeys == null || mayContainAny(filter, simpleKeys))
+		&& (qualifiedKeys == null || mayContainAny(filter, qualifiedKeys));
+}
+
+public static int qualifiedKey(char[][] qualifiedName) {
+	// a qualified name of one segment is kept as a simple name by the collections
+	if (qualifiedName.length == 1)
+		return simpleKey(qualifiedName[0]);
+	int hash = 0;
+	for (int i = 0, l = qualifiedName.length; i < l; i++)
+		hash = hash * 31 + CharOperation.hashCode(qualifiedName[i]);
+	return hash * 3;
+}
+
+public static int simpleKey(char[] simpleName) {
+	return CharOperation.hashCode(simpleName) * 3 + 1;
+}
+
+public static int rootKey(char[] rootName) {
+	return CharOperation.hashCode(rootName) * 3 + 2;
+}
+
+private static void add(long[] filter, int key) {
+	int bits = filter.length * 64;
+	long hash = key * 0x9E3779B97F4A7C15L;
+	int h1 = (int) hash;
+	int h2 = (int) (hash >>> 32) | 1;
+	for (int i = 0; i < HASH_COUNT; i++) {
+		int bit = ((h1 + i * h2) & 0x7FFFFFFF) % bits;
+		filter[bit >>> 6] |= 1L << bit;
+	}
+}
+
+private static boolean mayContainAny(long[] filter, int[] keys) {
+	int bits = filter.length * 64;
+	next : for (int k = 0, l = keys.length; k < l; k++) {
+		long hash = keys[k] * 0x9E3779B97F4A7C15L;
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		for (int i = 0; i < HASH_COUNT; i++) {
+			int bit = ((h1 + i * h2) & 0x7FFFFFFF) % bits;
+			if ((filter[bit >>> 6] & (1L << bit)) == 0)
+				continue next;
+		}
+		return true;
+	}
+	return false;
+}
+}
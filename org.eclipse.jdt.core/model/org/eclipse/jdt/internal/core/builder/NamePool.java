@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+
+/**
+ * The names referenced by the reference collections of a state, each with an integer id.
+ * <p>
+ * A state and the states copied from it by incremental builds share their pool, so that their
+ * collections keep the ids of their names instead of references to the names, see {@link ReferenceCollection}.
+ * Names are found by their characters, the ids of the simple and the qualified names are counted separately.
+ * Ids are never reused: a pool is released with its states, once a full build or reading the saved state
+ * creates a new one.
+ * </p>
+ */
+final class NamePool {
+
+private char[][] simpleNames;
+private int simpleCount;
+private int[] simpleTable; // open addressing, holds id + 1
+private char[][][] qualifiedNames;
+private int qualifiedCount;
+private int[] qualifiedTable; // open addressing, holds id + 1
+
+NamePool() {
+	this.simpleNames = new char[64][];
+	this.simpleTable = new int[128];
+	this.qualifiedNames = new char[32][][];
+	this.qualifiedTable = new int[64];
+}
+
+/**
+ * Answers the id of the given simple name, adding the name if it is not in the pool yet.
+ */
+synchronized int simpleId(char[] name) {
+	int index = simpleIndex(name);
+	int id = this.simpleTable[index] - 1;
+	if (id >= 0) return id;
+
+	if ((id = this.simpleCount++) == this.simpleNames.length)
+		System.arraycopy(this.simpleNames, 0, this.simpleNames = new char[id * 2][], 0, id);
+	this.simpleNames[id] = name;
+	this.simpleTable[index] = id + 1;
+	if (this.simpleCount * 2 > this.simpleTable.length) {
+		int[] oldTable = this.simpleTable;
+		this.simpleTable = new int[oldTable.length * 2];
+		for (int i = 0; i < this.simpleCount; i++)
+			this.simpleTable[simpleIndex(this.simpleNames[i])] = i + 1;
+	}
+	return id;
+}
+
+/**
+ * Answers the id of the given qualified name, adding the name if it is not in the pool yet.
+ * The segments of the name are added as simple names.
+ */
+synchronized int qualifiedId(char[][] name) {
+	int index = qualifiedIndex(name);
+	int id = this.qualifiedTable[index] - 1;
+	if (id >= 0) return id;
+
+	char[][] segments = new char[name.length][];
+	for (int i = 0, l = name.length; i < l; i++) {
+		int segmentId = simpleId(name[i]); // may grow the simple names
+		segments[i] = this.simpleNames[segmentId];
+	}
+	if ((id = this.qualifiedCount++) == this.qualifiedNames.length)
+		System.arraycopy(this.qualifiedNames, 0, this.qualifiedNames = new char[id * 2][][], 0, id);
+	this.qualifiedNames[id] = segments;
+	this.qualifiedTable[index] = id + 1;
+	if (this.qualifiedCount * 2 > this.qualifiedTable.length) {
+		int[] oldTable = this.qualifiedTable;
+		this.qualifiedTable = new int[oldTable.length * 2];
+		for (int i = 0; i < this.qualifiedCount; i++)
+			this.qualifiedTable[qualifiedIndex(this.qualifiedNames[i])] = i + 1;
+	}
+	return id;
+}
+
+/**
+ * Answers the id of the given simple name, or -1 if it is not in the pool.
+ */
+synchronized int existingSimpleId(char[] name) {
+	return this.simpleTable[simpleIndex(name)] - 1;
+}
+
+/**
+ * Answers the id of the given qualified name, or -1 if it is not in the pool.
+ */
+synchronized int existingQualifiedId(char[][] name) {
+	return this.qualifiedTable[qualifiedIndex(name)] - 1;
+}
+
+synchronized char[] simpleName(int id) {
+	return this.simpleNames[id];
+}
+
+synchronized char[][] qualifiedName(int id) {
+	return this.qualifiedNames[id];
+}
+
+synchronized char[][] simpleNames(int[] ids) {
+	char[][] names = new char[ids.length][];
+	for (int i = 0, l = ids.length; i < l; i++)
+		names[i] = this.simpleNames[ids[i]];
+	return names;
+}
+
+synchronized char[][][] qualifiedNames(int[] ids) {
+	char[][][] names = new char[ids.length][][];
+	for (int i = 0, l = ids.length; i < l; i++)
+		names[i] = this.qualifiedNames[ids[i]];
+	return names;
+}
+
+private int simpleIndex(char[] name) {
+	int[] table = this.simpleTable;
+	int mask = table.length - 1; // the tables are powers of 2 and at most half full
+	int index = (CharOperation.hashCode(name) * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+	int id;
+	while ((id = table[index]) != 0) {
+		if (CharOperation.equals(this.simpleNames[id - 1], name)) break;
+		index = (index + 1) & mask;
+	}
+	return index;
+}
+
+private int qualifiedIndex(char[][] name) {
+	int[] table = this.qualifiedTable;
+	int mask = table.length - 1;
+	int hash = name.length;
+	for (int i = 0, l = name.length; i < l; i++)
+		hash = hash * 31 + CharOperation.hashCode(name[i]);
+	int index = (hash * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+	int id;
+	while ((id = table[index]) != 0) {
+		if (CharOperation.equals(this.qualifiedNames[id - 1], name)) break;
+		index = (index + 1) & mask;
+	}
+	return index;
+}
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.internal.core.JavaProject;
+import org.eclipse.jdt.internal.core.util.Messages;
+
+/**
+ * Builds Java projects on several threads through the workspace build, see
+ * {@link JavaCore#buildProjects(IJavaProject[], int, IProgressMonitor)}.
+ * <p>
+ * The workspace build runs the builders of the projects one at a time, holding the workspace root.
+ * The driver orders the given projects by their classpaths instead, and builds a project with
+ * {@link IProject#build(int, String, Map, IProgressMonitor)} as soon as its prerequisites among the given
+ * projects are built, at most {@link #BUILD_THREADS_PROPERTY} projects at the same time. The workspace
+ * runs the Java builder of the project with the resource deltas of the project as for any other build,
+ * so the builder performs an incremental or a full build as usual.
+ * </p><p>
+ * The builds of the driver pass {@link #PARALLEL_BUILD_ARGUMENT} to the Java builder, for which it answers
+ * the rule of its project, see {@link #getRule(JavaProject)}, so that the builds of independent projects do
+ * not wait for each other. Projects in a cycle are built one at a time once no other project can be built.
+ * </p>
+ */
+public class ParallelBuildDriver {
+
+// number of projects built concurrently, defaults to half of the available processors,
+// 1 to build all the projects on the caller thread
+public static final String BUILD_THREADS_PROPERTY = "jdt.core.buildThreads"; //$NON-NLS-1$
+
+// the argument of the builds run by the driver, see JavaBuilder#getRule(int, Map)
+static final String PARALLEL_BUILD_ARGUMENT = "org.eclipse.jdt.core.parallelBuild"; //$NON-NLS-1$
+static final Map<String, String> BUILD_ARGUMENTS = Collections.singletonMap(PARALLEL_BUILD_ARGUMENT, "true"); //$NON-NLS-1$
+
+/*
+ * The build of a project, which can start once its prerequisites are built.
+ */
+class ProjectBuild extends Job {
+	final IProject project;
+	final ArrayList<ProjectBuild> dependents = new ArrayList<ProjectBuild>();
+	// guarded by the driver
+	int prerequisiteCount = 0; // the prerequisites which are not built yet
+	boolean started = false;
+	IStatus status;
+
+	ProjectBuild(IProject project) {
+		super(Messages.bind(Messages.build_preparingBuild, project.getName()));
+		this.project = project;
+		setSystem(true);
+		// no rule: building the project acquires the rule of its builder
+	}
+	IStatus buildProject(IProgressMonitor monitor) {
+		try {
+			this.project.build(ParallelBuildDriver.this.kind, JavaCore.BUILDER_ID, BUILD_ARGUMENTS, monitor);
+			return Status.OK_STATUS;
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		} catch (CoreException e) {
+			return e.getStatus();
+		}
+	}
+	protected IStatus run(IProgressMonitor monitor) {
+		return this.status = buildProject(monitor);
+	}
+}
+
+private final IJavaProject[] projects;
+private final int threads;
+int kind;
+
+// guarded by this
+private ProjectBuild[] builds;
+private LinkedList<ProjectBuild> ready = new LinkedList<ProjectBuild>();
+private int running = 0;
+private int built = 0;
+
+/**
+ * Creates a driver building the given projects on the number of threads given by {@link #BUILD_THREADS_PROPERTY}.
+ */
+public ParallelBuildDriver(IJavaProject[] projects) {
+	this(projects, getBuildThreads());
+}
+/**
+ * Creates a driver building the given projects on the given number of threads.
+ */
+public ParallelBuildDriver(IJavaProject[] projects, int threads) {
+	this.projects = projects;
+	this.threads = threads < 1 ? 1 : threads;
+}
+/*
+ * Answers the number of threads building projects, see BUILD_THREADS_PROPERTY.
+ */
+static int getBuildThreads() {
+	int defaultThreads = Runtime.getRuntime().availableProcessors() / 2;
+	int threads = Integer.getInteger(BUILD_THREADS_PROPERTY, defaultThreads).intValue();
+	return threads < 1 ? 1 : threads;
+}
+/*
+ * Answers the rule of a build of the given project run by the driver: the builder writes to the output
+ * folders, which may be in other projects, and creates markers, which do not need a rule. The prerequisites
+ * are only read, the driver builds them before.
+ */
+static ISchedulingRule getRule(JavaProject javaProject) {
+	IProject project = javaProject.getProject();
+	IWorkspaceRoot root = project.getWorkspace().getRoot();
+	ISchedulingRule rule = project;
+	try {
+		rule = MultiRule.combine(rule, root.getProject(javaProject.getOutputLocation().segment(0)));
+		IClasspathEntry[] entries = javaProject.getResolvedClasspath();
+		for (int i = 0, l = entries.length; i < l; i++) {
+			IPath outputLocation = entries[i].getOutputLocation();
+			if (entries[i].getEntryKind() == IClasspathEntry.CPE_SOURCE && outputLocation != null)
+				rule = MultiRule.combine(rule, root.getProject(outputLocation.segment(0)));
+		}
+	} catch (JavaModelException e) {
+		// the builder reports the classpath problems
+	}
+	return rule;
+}
+/*
+ * Answers the projects which must be built before the given project: the required projects
+ * and the projects holding its libraries, see JavaBuilder#getRequiredProjects(boolean).
+ */
+static IProject[] getPrerequisites(JavaProject javaProject) {
+	IWorkspaceRoot root = javaProject.getProject().getWorkspace().getRoot();
+	ArrayList<IProject> prerequisites = new ArrayList<IProject>();
+	try {
+		IClasspathEntry[] entries = javaProject.getExpandedClasspath();
+		for (int i = 0, l = entries.length; i < l; i++) {
+			IPath path = entries[i].getPath();
+			IProject prerequisite = null;
+			switch (entries[i].getEntryKind()) {
+				case IClasspathEntry.CPE_PROJECT :
+					prerequisite = root.getProject(path.lastSegment());
+					break;
+				case IClasspathEntry.CPE_LIBRARY :
+					if (path.segmentCount() > 0) {
+						IResource resource = root.findMember(path.segment(0));
+						if (resource instanceof IProject)
+							prerequisite = (IProject) resource;
+					}
+			}
+			if (prerequisite != null && !prerequisites.contains(prerequisite))
+				prerequisites.add(prerequisite);
+		}
+	} catch (JavaModelException e) {
+		// the builder reports the classpath problems
+	}
+	return prerequisites.toArray(new IProject[prerequisites.size()]);
+}
+/**
+ * Builds the projects of the driver with the given kind of build, and answers once they are all built.
+ * <p>
+ * When the caller owns a scheduling rule, the projects are built on the caller thread since
+ * the jobs could not get their rules, in which case the rule must contain the rules of the builds.
+ * </p>
+ * @throws CoreException if the build of some projects failed, with the statuses of the failures
+ * @throws OperationCanceledException if the given monitor was cancelled
+ */
+public void build(int buildKind, IProgressMonitor monitor) throws CoreException {
+	if (monitor == null)
+		monitor = new NullProgressMonitor();
+	this.kind = buildKind;
+	HashMap<IProject, ProjectBuild> buildsByProject = new HashMap<IProject, ProjectBuild>();
+	ArrayList<ProjectBuild> projectBuilds = new ArrayList<ProjectBuild>();
+	for (int i = 0, l = this.projects.length; i < l; i++) {
+		IProject project = this.projects[i].getProject();
+		if (project.isAccessible() && JavaProject.hasJavaNature(project) && !buildsByProject.containsKey(project)) {
+			ProjectBuild build = new ProjectBuild(project);
+			buildsByProject.put(project, build);
+			projectBuilds.add(build);
+		}
+	}
+	int length = projectBuilds.size();
+	synchronized (this) {
+		this.builds = projectBuilds.toArray(new ProjectBuild[length]);
+		for (int i = 0; i < length; i++) {
+			ProjectBuild build = this.builds[i];
+			IProject[] prerequisites = getPrerequisites((JavaProject) JavaCore.create(build.project));
+			for (int j = 0, m = prerequisites.length; j < m; j++) {
+				ProjectBuild prerequisite = buildsByProject.get(prerequisites[j]);
+				if (prerequisite != null && prerequisite != build) {
+					prerequisite.dependents.add(build);
+					build.prerequisiteCount++;
+				}
+			}
+		}
+		for (int i = 0; i < length; i++)
+			if (this.builds[i].prerequisiteCount == 0)
+				this.ready.add(this.builds[i]);
+	}
+
+	monitor.beginTask("", length); //$NON-NLS-1$
+	try {
+		if (this.threads == 1 || Job.getJobManager().currentRule() != null)
+			buildOnCallerThread(monitor);
+		else
+			buildConcurrently(monitor);
+	} finally {
+		monitor.done();
+	}
+
+	MultiStatus failures = null;
+	for (int i = 0; i < length; i++) {
+		IStatus status = this.builds[i].status;
+		if (status != null && status.getSeverity() == IStatus.ERROR) {
+			if (failures == null)
+				failures = new MultiStatus(JavaCore.PLUGIN_ID, IStatus.ERROR, Messages.build_cannotBuildProjects, null);
+			failures.add(status);
+		}
+	}
+	if (failures != null)
+		throw new CoreException(failures);
+}
+private void buildOnCallerThread(IProgressMonitor monitor) {
+	ProjectBuild build;
+	while ((build = nextBuild()) != null) {
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+		build.status = build.buildProject(new SubProgressMonitor(monitor, 1));
+		if (build.status.getSeverity() == IStatus.CANCEL)
+			throw new OperationCanceledException();
+		built(build, false);
+	}
+}
+private void buildConcurrently(IProgressMonitor monitor) {
+	JobChangeAdapter listener = new JobChangeAdapter() {
+		public void done(IJobChangeEvent event) {
+			built((ProjectBuild) event.getJob(), true);
+		}
+	};
+	boolean cancelled = false, interrupted = false;
+	int worked = 0;
+	synchronized (this) {
+		while (this.built < this.builds.length) {
+			if (!cancelled && (interrupted || monitor.isCanceled())) {
+				cancelled = true;
+				this.ready.clear();
+				for (int i = 0, l = this.builds.length; i < l; i++)
+					if (this.builds[i].started)
+						this.builds[i].cancel();
+			}
+			if (cancelled) {
+				if (this.running == 0)
+					break;
+			} else {
+				ProjectBuild build;
+				while (this.running < this.threads && (build = nextBuild()) != null) {
+					this.running++;
+					build.addJobChangeListener(listener);
+					build.schedule();
+				}
+			}
+			if (worked < this.built) {
+				monitor.worked(this.built - worked);
+				worked = this.built;
+			}
+			try {
+				wait(100); // wake up regularly to check for cancellation
+			} catch (InterruptedException e) {
+				interrupted = true; // cancel the builds
+			}
+		}
+	}
+	if (interrupted)
+		Thread.currentThread().interrupt();
+	if (cancelled)
+		throw new OperationCanceledException();
+}
+/*
+ * Answers the next build which can start, or null if none can start before a running build is done.
+ */
+private synchronized ProjectBuild nextBuild() {
+	ProjectBuild build = null;
+	if (!this.ready.isEmpty()) {
+		build = this.ready.removeFirst();
+	} else if (this.running == 0) {
+		// the remaining projects are in a cycle, their prerequisites in the cycle are not built yet
+		for (int i = 0, l = this.builds.length; i < l; i++) {
+			if (!this.builds[i].started) {
+				build = this.builds[i];
+				break;
+			}
+		}
+	}
+	if (build != null)
+		build.started = true;
+	return build;
+}
+private synchronized void built(ProjectBuild build, boolean ranAsJob) {
+	if (ranAsJob)
+		this.running--;
+	this.built++;
+	ArrayList<ProjectBuild> dependents = build.dependents;
+	for (int i = 0, l = dependents.size(); i < l; i++) {
+		ProjectBuild dependent = dependents.get(i);
+		if (--dependent.prerequisiteCount == 0 && !dependent.started)
+			this.ready.add(dependent);
+	}
+	notifyAll();
+}
+}
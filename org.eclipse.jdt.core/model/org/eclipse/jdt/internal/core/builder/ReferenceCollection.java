@@ -11,22 +11,140 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.core.builder;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.lookup.TypeConstants;
+import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
 
+/**
+ * The names referenced by a source file, to find the source files affected by a change.
+ * <p>
+ * The names are kept as the ids of the {@link NamePool} of the state: the ids of each kind of name are sorted
+ * and stored as the differences between consecutive ids, most of which take one or two bytes.
+ * </p>
+ */
 public class ReferenceCollection {
 
-char[][][] qualifiedNameReferences; // contains no simple names as in just 'a' which is kept in simpleNameReferences instead
-char[][] simpleNameReferences;
-char[][] rootReferences;
+// the sorted ids of the qualified names (which contain no simple names as in just 'a' which is kept with the simple names instead),
+// of the simple names, of the root names, of the names of the fields & methods looked up and of the top level types
+// in the hierarchy of the defined types, see #encodeIds(int[][])
+byte[] references;
+NamePool pool;
+long[] nameFilter; // null if unknown, the qualified, simple and root names, see NameFilter
+
+private volatile EncodedReferences encodedReferences; // null once the names are decoded
+private int encodedOffset;
 
-protected ReferenceCollection(char[][][] qualifiedNameReferences, char[][] simpleNameReferences, char[][] rootReferences) {
-	this.qualifiedNameReferences = internQualifiedNames(qualifiedNameReferences, false);
-	this.simpleNameReferences = internSimpleNames(simpleNameReferences, true);
-	this.rootReferences = internSimpleNames(rootReferences, false);
+static final int QUALIFIED_NAMES = 0;
+static final int SIMPLE_NAMES = 1;
+static final int ROOT_NAMES = 2;
+static final int MEMBER_NAMES = 3; // unknown if the member references were not recorded
+static final int SUPERTYPE_NAMES = 4; // unknown if the member references were not recorded
+
+protected ReferenceCollection(NamePool pool, char[][][] qualifiedNameReferences, char[][] simpleNameReferences, char[][] rootReferences) {
+	this(pool, qualifiedNameReferences, simpleNameReferences, rootReferences, null, null);
+}
+
+protected ReferenceCollection(NamePool pool, char[][][] qualifiedNameReferences, char[][] simpleNameReferences, char[][] rootReferences,
+	char[][] memberNameReferences, char[][] superTypeNameReferences) {
+	qualifiedNameReferences = internQualifiedNames(qualifiedNameReferences, false);
+	simpleNameReferences = internSimpleNames(simpleNameReferences, true);
+	rootReferences = internSimpleNames(rootReferences, false);
+	this.pool = pool;
+	this.nameFilter = NameFilter.create(qualifiedNameReferences, simpleNameReferences, rootReferences);
+	int[][] ids = new int[5][];
+	ids[QUALIFIED_NAMES] = qualifiedIds(pool, qualifiedNameReferences, true);
+	ids[SIMPLE_NAMES] = simpleIds(pool, simpleNameReferences, true);
+	ids[ROOT_NAMES] = simpleIds(pool, rootReferences, true);
+	if (memberNameReferences != null && superTypeNameReferences != null) {
+		ids[MEMBER_NAMES] = simpleIds(pool, internSimpleNames(memberNameReferences, false), true);
+		ids[SUPERTYPE_NAMES] = simpleIds(pool, internSimpleNames(superTypeNameReferences, false), true);
+	}
+	this.references = encodeIds(ids);
+}
+
+ReferenceCollection(EncodedReferences encodedReferences, int encodedOffset, long[] nameFilter) {
+	this.pool = encodedReferences.pool;
+	this.encodedReferences = encodedReferences;
+	this.encodedOffset = encodedOffset;
+	this.nameFilter = nameFilter;
+}
+
+/**
+ * Decodes the names of the receiver if it was read from a saved state and was never queried.
+ */
+void decode() {
+	if (this.encodedReferences == null) return;
+	synchronized (this) {
+		EncodedReferences encoded = this.encodedReferences;
+		if (encoded != null) {
+			this.references = encoded.decode(this.encodedOffset);
+			this.encodedReferences = null; // publishes the names
+		}
+	}
+}
+
+/**
+ * Adds the names of the receiver to the interned name tables of the state being saved,
+ * without decoding the receiver if it was never queried.
+ */
+void internNames(SimpleLookupTable internedQualifiedNames, SimpleLookupTable internedSimpleNames, SimpleLookupTable internedRootNames) {
+	if (this.encodedReferences != null) {
+		synchronized (this) {
+			EncodedReferences encoded = this.encodedReferences;
+			if (encoded != null) {
+				encoded.internNames(this.encodedOffset, internedQualifiedNames, internedSimpleNames, internedRootNames);
+				return;
+			}
+		}
+	}
+	byte[] ids = this.references;
+	char[][] names = this.pool.simpleNames(ids(ids, ROOT_NAMES));
+	for (int i = 0, l = names.length; i < l; i++)
+		State.internName(names[i], internedRootNames);
+	char[][][] qualifiedNames = this.pool.qualifiedNames(ids(ids, QUALIFIED_NAMES));
+	for (int i = 0, l = qualifiedNames.length; i < l; i++)
+		State.internName(qualifiedNames[i], internedQualifiedNames, internedSimpleNames);
+	for (int section = SIMPLE_NAMES; section <= SUPERTYPE_NAMES; section++) {
+		if (section == ROOT_NAMES) continue;
+		int[] sectionIds = ids(ids, section);
+		if (sectionIds == null) continue; // the member references were not recorded
+		names = this.pool.simpleNames(sectionIds);
+		for (int i = 0, l = names.length; i < l; i++)
+			State.internName(names[i], internedSimpleNames);
+	}
+}
+
+/**
+ * Appends the names of the receiver to the given bytes, copying them from the saved state
+ * without decoding them if the receiver was never queried.
+ */
+void encode(SimpleLookupTable internedQualifiedNames, SimpleLookupTable internedSimpleNames, SimpleLookupTable internedRootNames,
+	ByteArrayOutputStream out) {
+	if (this.encodedReferences != null) {
+		synchronized (this) {
+			EncodedReferences encoded = this.encodedReferences;
+			if (encoded != null) {
+				encoded.encode(this.encodedOffset, internedQualifiedNames, internedSimpleNames, internedRootNames, out);
+				return;
+			}
+		}
+	}
+	byte[] ids = this.references;
+	int[] memberIds = ids(ids, MEMBER_NAMES);
+	EncodedReferences.encode(
+		this.pool.qualifiedNames(ids(ids, QUALIFIED_NAMES)),
+		this.pool.simpleNames(ids(ids, SIMPLE_NAMES)),
+		this.pool.simpleNames(ids(ids, ROOT_NAMES)),
+		memberIds == null ? null : this.pool.simpleNames(memberIds),
+		memberIds == null ? null : this.pool.simpleNames(ids(ids, SUPERTYPE_NAMES)),
+		internedQualifiedNames, internedSimpleNames, internedRootNames, out);
 }
 
 public void addDependencies(String[] typeNameDependencies) {
+	decode();
 	// if each qualified type name is already known then all of its subNames can be skipped
 	// and its expected that very few qualified names in typeNameDependencies need to be added
 	// but could always take 'p1.p2.p3.X' and make all qualified names 'p1' 'p1.p2' 'p1.p2.p3' 'p1.p2.p3.X', then intern
@@ -35,22 +153,17 @@ public void addDependencies(String[] typeNameDependencies) {
 		qNames[i] = CharOperation.splitOn('.', typeNameDependencies[i].toCharArray());
 	qNames = internQualifiedNames(qNames, false);
 
+	byte[] ids = this.references;
+	int[] qualifiedIds = ids(ids, QUALIFIED_NAMES);
+	int[] simpleIds = ids(ids, SIMPLE_NAMES);
+	int[] rootIds = ids(ids, ROOT_NAMES);
 	next : for (int i = qNames.length; --i >= 0;) {
 		char[][] qualifiedTypeName = qNames[i];
-		while (!includes(qualifiedTypeName)) {
-			if (!includes(qualifiedTypeName[qualifiedTypeName.length - 1])) {
-				int length = this.simpleNameReferences.length;
-				System.arraycopy(this.simpleNameReferences, 0, this.simpleNameReferences = new char[length + 1][], 0, length);
-				this.simpleNameReferences[length] = qualifiedTypeName[qualifiedTypeName.length - 1];
-			}
-			if (!insideRoot(qualifiedTypeName[0])) {
-				int length = this.rootReferences.length;
-				System.arraycopy(this.rootReferences, 0, this.rootReferences = new char[length + 1][], 0, length);
-				this.rootReferences[length] = qualifiedTypeName[0];
-			}
-			int length = this.qualifiedNameReferences.length;
-			System.arraycopy(this.qualifiedNameReferences, 0, this.qualifiedNameReferences = new char[length + 1][][], 0, length);
-			this.qualifiedNameReferences[length] = qualifiedTypeName;
+		int qualifiedId;
+		while (Arrays.binarySearch(qualifiedIds, qualifiedId = this.pool.qualifiedId(qualifiedTypeName)) < 0) {
+			simpleIds = addId(simpleIds, this.pool.simpleId(qualifiedTypeName[qualifiedTypeName.length - 1]));
+			rootIds = addId(rootIds, this.pool.simpleId(qualifiedTypeName[0]));
+			qualifiedIds = addId(qualifiedIds, qualifiedId);
 
 			qualifiedTypeName = CharOperation.subarray(qualifiedTypeName, 0, qualifiedTypeName.length - 1);
 			char[][][] temp = internQualifiedNames(new char[][][] {qualifiedTypeName}, false);
@@ -59,18 +172,21 @@ public void addDependencies(String[] typeNameDependencies) {
 			qualifiedTypeName = temp[0];
 		}
 	}
+	// any member of these types may be used
+	this.references = encodeIds(new int[][] {qualifiedIds, simpleIds, rootIds, null, null});
+	this.nameFilter = NameFilter.create(this.pool.qualifiedNames(qualifiedIds), this.pool.simpleNames(simpleIds), this.pool.simpleNames(rootIds));
 }
 
 public boolean includes(char[] simpleName) {
-	for (int i = 0, l = this.simpleNameReferences.length; i < l; i++)
-		if (simpleName == this.simpleNameReferences[i]) return true;
-	return false;
+	decode();
+	int id = this.pool.existingSimpleId(simpleName);
+	return id >= 0 && contains(this.references, SIMPLE_NAMES, id);
 }
 
 public boolean includes(char[][] qualifiedName) {
-	for (int i = 0, l = this.qualifiedNameReferences.length; i < l; i++)
-		if (qualifiedName == this.qualifiedNameReferences[i]) return true;
-	return false;
+	decode();
+	int id = this.pool.existingQualifiedId(qualifiedName);
+	return id >= 0 && contains(this.references, QUALIFIED_NAMES, id);
 }
 
 /**
@@ -81,82 +197,302 @@ public boolean includes(char[][][] qualifiedNames, char[][] simpleNames) {
 }
 
 public boolean includes(char[][][] qualifiedNames, char[][] simpleNames, char[][] rootNames) {
+	return includes(new Names(qualifiedNames, simpleNames, rootNames));
+}
+
+/**
+ * Same as {@link #includes(char[][][], char[][], char[][])} for the given names.
+ * Checking many collections for the same names should create the names once.
+ */
+public boolean includes(Names names) {
+	long[] filter = this.nameFilter;
+	if (filter != null && !NameFilter.mayInclude(filter, names.qualifiedKeys, names.simpleKeys, names.rootKeys))
+		return false; // no need to decode the names
+	decode();
+	Names.Ids ids = names.ids(this.pool);
+	byte[] references = this.references;
 	// if either collection of names is null, it means it contained a well known name so we know it already has a match
-	if (rootNames != null) {
-		boolean foundRoot = false;
-		for (int i = 0, l = rootNames.length; !foundRoot && i < l; i++)
-			foundRoot = insideRoot(rootNames[i]);
-		if (!foundRoot)
-			return false;
-	}
-	if (simpleNames == null || qualifiedNames == null) {
-		if (simpleNames == null && qualifiedNames == null) {
-			if (JavaBuilder.DEBUG)
-				System.out.println("Found well known match"); //$NON-NLS-1$
-			return true;
-		} else if (qualifiedNames == null) {
-			for (int i = 0, l = simpleNames.length; i < l; i++) {
-				if (includes(simpleNames[i])) {
-					if (JavaBuilder.DEBUG)
-						System.out.println("Found match in well known package to " + new String(simpleNames[i])); //$NON-NLS-1$
-					return true;
-				}
-			}
+	if (ids.rootIds != null && !containsAny(references, ROOT_NAMES, ids.rootIds))
+		return false;
+	if (ids.simpleIds != null && !containsAny(references, SIMPLE_NAMES, ids.simpleIds))
+		return false;
+	if (ids.qualifiedIds != null && !containsAny(references, QUALIFIED_NAMES, ids.qualifiedIds)
+			&& !containsAny(references, SIMPLE_NAMES, ids.singleSegmentIds))
+		return false;
+	if (JavaBuilder.DEBUG)
+		System.out.println(ids.simpleIds == null && ids.qualifiedIds == null
+			? "Found well known match" //$NON-NLS-1$
+			: "Found match to the changed names"); //$NON-NLS-1$
+	return true;
+}
+
+/**
+ * Names with the filter keys used to check the reference collections, see NameFilter,
+ * and their ids in the name pool of the collections.
+ */
+public static class Names {
+	final char[][][] qualifiedNames;
+	final char[][] simpleNames;
+	final char[][] rootNames;
+	final int[] qualifiedKeys;
+	final int[] simpleKeys;
+	final int[] rootKeys;
+	private volatile Ids ids; // of the last name pool the names were looked up in
+
+	/**
+	 * Keeps the given names, null if the names contained a well known name.
+	 */
+	public Names(char[][][] qualifiedNames, char[][] simpleNames, char[][] rootNames) {
+		this.qualifiedNames = qualifiedNames;
+		this.simpleNames = simpleNames;
+		this.rootNames = rootNames;
+		if (qualifiedNames == null) {
+			this.qualifiedKeys = null;
 		} else {
-			for (int i = 0, l = qualifiedNames.length; i < l; i++) {
-				char[][] qualifiedName = qualifiedNames[i];
-				if (qualifiedName.length == 1 ? includes(qualifiedName[0]) : includes(qualifiedName)) {
-					if (JavaBuilder.DEBUG)
-						System.out.println("Found well known match in " + CharOperation.toString(qualifiedName)); //$NON-NLS-1$
-					return true;
-				}
-			}
+			this.qualifiedKeys = new int[qualifiedNames.length];
+			for (int i = 0, l = qualifiedNames.length; i < l; i++)
+				this.qualifiedKeys[i] = NameFilter.qualifiedKey(qualifiedNames[i]);
+		}
+		if (simpleNames == null) {
+			this.simpleKeys = null;
+		} else {
+			this.simpleKeys = new int[simpleNames.length];
+			for (int i = 0, l = simpleNames.length; i < l; i++)
+				this.simpleKeys[i] = NameFilter.simpleKey(simpleNames[i]);
+		}
+		if (rootNames == null) {
+			this.rootKeys = null;
+		} else {
+			this.rootKeys = new int[rootNames.length];
+			for (int i = 0, l = rootNames.length; i < l; i++)
+				this.rootKeys[i] = NameFilter.rootKey(rootNames[i]);
 		}
-		return false;
 	}
 
-	int sLength = simpleNames.length;
-	int qLength = qualifiedNames.length;
-	if (sLength <= qLength) {
-		for (int i = 0; i < sLength; i++) {
-			if (includes(simpleNames[i])) {
-				for (int j = 0; j < qLength; j++) {
-					char[][] qualifiedName = qualifiedNames[j];
-					if (qualifiedName.length == 1 ? includes(qualifiedName[0]) : includes(qualifiedName)) {
-						if (JavaBuilder.DEBUG)
-							System.out.println("Found match in " + CharOperation.toString(qualifiedName) //$NON-NLS-1$
-								+ " to " + new String(simpleNames[i])); //$NON-NLS-1$
-						return true;
-					}
-				}
-				return false;
-			}
-		}
-	} else {
-		for (int i = 0; i < qLength; i++) {
-			char[][] qualifiedName = qualifiedNames[i];
-			if (qualifiedName.length == 1 ? includes(qualifiedName[0]) : includes(qualifiedName)) {
-				for (int j = 0; j < sLength; j++) {
-					if (includes(simpleNames[j])) {
-						if (JavaBuilder.DEBUG)
-							System.out.println("Found match in " + CharOperation.toString(qualifiedName) //$NON-NLS-1$
-								+ " to " + new String(simpleNames[j])); //$NON-NLS-1$
-						return true;
+	/**
+	 * Answers the sorted ids of the names in the given pool, the names which are not in the pool are not referenced.
+	 */
+	Ids ids(NamePool pool) {
+		Ids result = this.ids;
+		if (result == null || result.pool != pool)
+			this.ids = result = new Ids(pool, this);
+		return result;
+	}
+
+	static class Ids {
+		final NamePool pool;
+		final int[] qualifiedIds;
+		final int[] singleSegmentIds; // of the qualified names of one segment, which are kept as simple names
+		final int[] simpleIds;
+		final int[] rootIds;
+
+		Ids(NamePool pool, Names names) {
+			this.pool = pool;
+			if (names.qualifiedNames == null) {
+				this.qualifiedIds = null;
+				this.singleSegmentIds = null;
+			} else {
+				char[][][] qualifiedNames = names.qualifiedNames;
+				int[] qualified = new int[qualifiedNames.length];
+				int[] singleSegment = new int[qualifiedNames.length];
+				for (int i = 0, l = qualifiedNames.length; i < l; i++) {
+					char[][] qualifiedName = qualifiedNames[i];
+					if (qualifiedName.length == 1) {
+						qualified[i] = -1;
+						singleSegment[i] = pool.existingSimpleId(qualifiedName[0]);
+					} else {
+						qualified[i] = pool.existingQualifiedId(qualifiedName);
+						singleSegment[i] = -1;
 					}
 				}
-				return false;
+				this.qualifiedIds = sortIds(qualified);
+				this.singleSegmentIds = sortIds(singleSegment);
 			}
+			this.simpleIds = names.simpleNames == null ? null : simpleIds(pool, names.simpleNames, false);
+			this.rootIds = names.rootNames == null ? null : simpleIds(pool, names.rootNames, false);
 		}
 	}
+}
+
+/**
+ * Answers whether the changes to the given members of the given types can affect the receiver, once
+ * {@link #includes(char[][][], char[][], char[][])} answered true for these types.
+ * The members of a supertype of the defined types are inherited, overridden or implemented,
+ * otherwise only the members looked up by name matter.
+ */
+public boolean includesMembers(char[][] simpleTypeNames, char[][] memberNames) {
+	decode();
+	byte[] references = this.references;
+	if (isUnknown(references, MEMBER_NAMES))
+		return true; // the member references were not recorded
+
+	if (containsAny(references, SUPERTYPE_NAMES, simpleIds(this.pool, simpleTypeNames, false))) {
+		if (JavaBuilder.DEBUG)
+			System.out.println("Found match in hierarchy to " + CharOperation.toString(simpleTypeNames)); //$NON-NLS-1$
+		return true;
+	}
+	if (containsAny(references, MEMBER_NAMES, simpleIds(this.pool, memberNames, false))) {
+		if (JavaBuilder.DEBUG)
+			System.out.println("Found match to member of " + CharOperation.toString(memberNames)); //$NON-NLS-1$
+		return true;
+	}
 	return false;
 }
 
 public boolean insideRoot(char[] rootName) {
-	for (int i = 0, l = this.rootReferences.length; i < l; i++)
-		if (rootName == this.rootReferences[i]) return true;
+	decode();
+	int id = this.pool.existingSimpleId(rootName);
+	return id >= 0 && contains(this.references, ROOT_NAMES, id);
+}
+
+/**
+ * Answers the ids of the given names, sorted and without duplicates.
+ * The names are added to the pool if requested, otherwise the names which are not in the pool are left out.
+ */
+static int[] simpleIds(NamePool pool, char[][] names, boolean add) {
+	int[] ids = new int[names.length];
+	for (int i = 0, l = names.length; i < l; i++)
+		ids[i] = add ? pool.simpleId(names[i]) : pool.existingSimpleId(names[i]);
+	return sortIds(ids);
+}
+
+static int[] qualifiedIds(NamePool pool, char[][][] names, boolean add) {
+	int[] ids = new int[names.length];
+	for (int i = 0, l = names.length; i < l; i++)
+		ids[i] = add ? pool.qualifiedId(names[i]) : pool.existingQualifiedId(names[i]);
+	return sortIds(ids);
+}
+
+/**
+ * Sorts the given ids in place and answers them without duplicates and without the negative ids of missing names.
+ */
+static int[] sortIds(int[] ids) {
+	Arrays.sort(ids);
+	int count = 0;
+	for (int i = 0, l = ids.length; i < l; i++)
+		if (ids[i] >= 0 && (count == 0 || ids[count - 1] != ids[i]))
+			ids[count++] = ids[i];
+	if (count < ids.length)
+		System.arraycopy(ids, 0, ids = new int[count], 0, count);
+	return ids;
+}
+
+private static int[] addId(int[] ids, int id) {
+	int index = Arrays.binarySearch(ids, id);
+	if (index >= 0) return ids;
+	index = -index - 1;
+	int[] result = new int[ids.length + 1];
+	System.arraycopy(ids, 0, result, 0, index);
+	result[index] = id;
+	System.arraycopy(ids, index, result, index + 1, ids.length - index);
+	return result;
+}
+
+/**
+ * Answers the given sorted ids of the qualified, simple, root, member and supertype names, in that order.
+ * Each kind of name starts with the number of bytes of its ids plus one, or zero if its ids are null because
+ * they are unknown. Each id is then written as its difference with the previous id.
+ * The numbers are written with 7 bits per byte, the high bit tells that more bytes follow.
+ */
+static byte[] encodeIds(int[][] ids) {
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	ByteArrayOutputStream section = new ByteArrayOutputStream();
+	for (int i = 0, l = ids.length; i < l; i++) {
+		int[] sectionIds = ids[i];
+		if (sectionIds == null) {
+			writeInt(0, out);
+			continue;
+		}
+		section.reset();
+		for (int j = 0, previous = -1, m = sectionIds.length; j < m; previous = sectionIds[j++])
+			writeInt(sectionIds[j] - previous, section);
+		writeInt(section.size() + 1, out);
+		byte[] bytes = section.toByteArray();
+		out.write(bytes, 0, bytes.length);
+	}
+	return out.toByteArray();
+}
+
+/**
+ * Answers the ids of the given kind of name, or null if they are unknown.
+ */
+static int[] ids(byte[] references, int section) {
+	int[] position = new int[] {sectionStart(references, section)};
+	int length = readInt(references, position) - 1;
+	if (length < 0) return null;
+	int start = position[0], end = start + length;
+	int count = 0;
+	for (int i = start; i < end; i++)
+		if ((references[i] & 0x80) == 0)
+			count++;
+	int[] ids = new int[count];
+	for (int i = 0, id = -1; i < count; i++)
+		ids[i] = id += readInt(references, position);
+	return ids;
+}
+
+private static boolean isUnknown(byte[] references, int section) {
+	return references[sectionStart(references, section)] == 0;
+}
+
+private static boolean contains(byte[] references, int section, int id) {
+	int[] position = new int[] {sectionStart(references, section)};
+	int end = readInt(references, position) - 1 + position[0];
+	int current = -1;
+	while (position[0] < end) {
+		current += readInt(references, position);
+		if (current >= id)
+			return current == id;
+	}
+	return false;
+}
+
+private static boolean containsAny(byte[] references, int section, int[] sortedIds) {
+	int count = sortedIds.length;
+	if (count == 0) return false;
+	int[] position = new int[] {sectionStart(references, section)};
+	int end = readInt(references, position) - 1 + position[0];
+	int current = -1;
+	int index = 0;
+	while (position[0] < end) {
+		current += readInt(references, position);
+		while (sortedIds[index] < current)
+			if (++index == count) return false;
+		if (sortedIds[index] == current)
+			return true;
+	}
 	return false;
 }
 
+private static int sectionStart(byte[] references, int section) {
+	int[] position = new int[1];
+	for (int i = 0; i < section; i++) {
+		int length = readInt(references, position);
+		if (length > 0)
+			position[0] += length - 1;
+	}
+	return position[0];
+}
+
+private static int readInt(byte[] bytes, int[] position) {
+	int value = 0;
+	int shift = 0;
+	int b;
+	do {
+		b = bytes[position[0]++];
+		value |= (b & 0x7F) << shift;
+		shift += 7;
+	} while ((b & 0x80) != 0);
+	return value;
+}
+
+private static void writeInt(int value, ByteArrayOutputStream out) {
+	while ((value & ~0x7F) != 0) {
+		out.write((value & 0x7F) | 0x80);
+		value >>>= 7;
+	}
+	out.write(value);
+}
 
 // When any type is compiled, its methods are verified for certain problems
 // the MethodVerifier requests 3 well known types which end up in the reference collection
@@ -183,18 +519,9 @@ static final char[][] WellKnownSimpleNames = new char[][] {
 static final char[][][] EmptyQualifiedNames = new char[0][][];
 static final char[][] EmptySimpleNames = CharOperation.NO_CHAR_CHAR;
 
-// each array contains qualified char[][], one for size 2, 3, 4, 5, 6, 7 & the rest
-static final int MaxQualifiedNames = 7;
-static QualifiedNameSet[] InternedQualifiedNames = new QualifiedNameSet[MaxQualifiedNames];
-// each array contains simple char[], one for size 1 to 29 & the rest
-static final int MaxSimpleNames = 30;
-static NameSet[] InternedSimpleNames = new NameSet[MaxSimpleNames];
-static {
-	for (int i = 0; i < MaxQualifiedNames; i++)
-		InternedQualifiedNames[i] = new QualifiedNameSet(37);
-	for (int i = 0; i < MaxSimpleNames; i++)
-		InternedSimpleNames[i] = new NameSet(37);
-}
+// The names are not interned in static tables: the reference collections keep the ids of their names
+// in the name pool of their state, which finds the names by their characters, see NamePool.
+// The intern methods only remove the well known names, or answer their shared instances.
 
 public static char[][][] internQualifiedNames(StringSet qualifiedStrings) {
 	if (qualifiedStrings == null) return EmptyQualifiedNames;
@@ -234,13 +561,7 @@ public static char[][][] internQualifiedNames(char[][][] qualifiedNames, boolean
 				continue next;
 			}
 		}
-
-		// InternedQualifiedNames[0] is for the rest (> 7 & 1)
-		// InternedQualifiedNames[1] is for size 2...
-		// InternedQualifiedNames[6] is for size 7
-		QualifiedNameSet internedNames = InternedQualifiedNames[qLength <= MaxQualifiedNames ? qLength - 1 : 0];
-		qualifiedName = internSimpleNames(qualifiedName, false);
-		keepers[index++] = internedNames.add(qualifiedName);
+		keepers[index++] = qualifiedName;
 	}
 	if (length > index) {
 		if (index == 0) return EmptyQualifiedNames;
@@ -289,12 +610,7 @@ public static char[][] internSimpleNames(char[][] simpleNames, boolean removeWel
 				continue next;
 			}
 		}
-
-		// InternedSimpleNames[0] is for the rest (> 29)
-		// InternedSimpleNames[1] is for size 1...
-		// InternedSimpleNames[29] is for size 29
-		NameSet internedNames = InternedSimpleNames[sLength < MaxSimpleNames ? sLength : 0];
-		keepers[index++] = internedNames.add(name);
+		keepers[index++] = name;
 	}
 	if (length > index) {
 		if (index == 0) return EmptySimpleNames;
@@ -34,6 +34,8 @@ public ClasspathMultiDirectory[] sourceLocations;
 ClasspathLocation[] binaryLocations;
 // keyed by the project relative path of the type (i.e. "src1/p1/p2/A.java"), value is a ReferenceCollection or an AdditionalTypeCollection
 SimpleLookupTable references;
+// the ids of the names referenced by the ReferenceCollections, shared with the states copied from this state
+NamePool namePool;
 // keyed by qualified type name "p1/p2/A", value is the project relative path which defines this type "src1/p1/p2/A.java"
 public SimpleLookupTable typeLocators;
 
@@ -47,7 +49,7 @@ private long previousStructuralBuildTime;
 private StringSet structurallyChangedTypes;
 public static int MaxStructurallyChangedTypes = 100; // keep track of ? structurally changed types, otherwise consider all to be changed
 
-public static final byte VERSION = 0x001D;
+public static final byte VERSION = 0x0020;
 
 static final byte SOURCE_FOLDER = 1;
 static final byte BINARY_FOLDER = 2;
@@ -66,6 +68,7 @@ protected State(JavaBuilder javaBuilder) {
 	this.sourceLocations = javaBuilder.nameEnvironment.sourceLocations;
 	this.binaryLocations = javaBuilder.nameEnvironment.binaryLocations;
 	this.references = new SimpleLookupTable(7);
+	this.namePool = new NamePool();
 	this.typeLocators = new SimpleLookupTable(7);
 
 	this.buildNumber = 0; // indicates a full build
@@ -87,6 +90,7 @@ void copyFrom(State lastState) {
 	this.buildNumber = lastState.buildNumber + 1;
 	this.lastStructuralBuildTime = lastState.lastStructuralBuildTime;
 	this.structuralBuildTimes = lastState.structuralBuildTimes;
+	this.namePool = lastState.namePool;
 
 	try {
 		this.references = (SimpleLookupTable) lastState.references.clone();
@@ -172,12 +176,16 @@ boolean isSourceFolderEmpty(IContainer sourceFolder) {
 }
 
 void record(String typeLocator, char[][][] qualifiedRefs, char[][] simpleRefs, char[][] rootRefs, char[] mainTypeName, ArrayList typeNames) {
+	record(typeLocator, qualifiedRefs, simpleRefs, rootRefs, null, null, mainTypeName, typeNames);
+}
+
+void record(String typeLocator, char[][][] qualifiedRefs, char[][] simpleRefs, char[][] rootRefs, char[][] memberRefs, char[][] superTypeRefs, char[] mainTypeName, ArrayList typeNames) {
 	if (typeNames.size() == 1 && CharOperation.equals(mainTypeName, (char[]) typeNames.get(0))) {
-		this.references.put(typeLocator, new ReferenceCollection(qualifiedRefs, simpleRefs, rootRefs));
+		this.references.put(typeLocator, new ReferenceCollection(this.namePool, qualifiedRefs, simpleRefs, rootRefs, memberRefs, superTypeRefs));
 	} else {
 		char[][] definedTypeNames = new char[typeNames.size()][]; // can be empty when no types are defined
 		typeNames.toArray(definedTypeNames);
-		this.references.put(typeLocator, new AdditionalTypeCollection(definedTypeNames, qualifiedRefs, simpleRefs, rootRefs));
+		this.references.put(typeLocator, new AdditionalTypeCollection(this.namePool, definedTypeNames, qualifiedRefs, simpleRefs, rootRefs, memberRefs, superTypeRefs));
 	}
 }
 
@@ -290,49 +298,51 @@ static State read(IProject project, DataInputStream in) throws IOException {
 	for (int i = 0; i < length; i++)
 		newState.recordLocatorForType(in.readUTF(), internedTypeLocators[in.readInt()]);
 
-	char[][] internedRootNames = ReferenceCollection.internSimpleNames(readNames(in), false);
-	char[][] internedSimpleNames = ReferenceCollection.internSimpleNames(readNames(in), false);
-	char[][][] internedQualifiedNames = new char[length = in.readInt()][][];
+	// the ids of the interned names in the name pool of the state
+	NamePool namePool = newState.namePool = new NamePool();
+	char[][] internedRootNames = readNames(in);
+	int[] rootIds = new int[length = internedRootNames.length];
+	for (int i = 0; i < length; i++)
+		rootIds[i] = namePool.simpleId(internedRootNames[i]);
+	char[][] internedSimpleNames = readNames(in);
+	int[] simpleIds = new int[length = internedSimpleNames.length];
+	for (int i = 0; i < length; i++)
+		simpleIds[i] = namePool.simpleId(internedSimpleNames[i]);
+	int[] qualifiedIds = new int[length = in.readInt()];
 	for (int i = 0; i < length; i++) {
 		int qLength = in.readInt();
 		char[][] qName = new char[qLength][];
 		for (int j = 0; j < qLength; j++)
 			qName[j] = internedSimpleNames[in.readInt()];
-		internedQualifiedNames[i] = qName;
+		qualifiedIds[i] = namePool.qualifiedId(qName);
 	}
-	internedQualifiedNames = ReferenceCollection.internQualifiedNames(internedQualifiedNames, false);
 
+	// the collections are decoded when first queried, see ReferenceCollection#decode()
 	newState.references = new SimpleLookupTable(length = in.readInt());
+	int[] typeLocatorIndexes = new int[length];
+	char[][][] definedTypeNames = new char[length][][];
+	int[] offsets = new int[length];
+	long[][] nameFilters = new long[length][];
 	for (int i = 0; i < length; i++) {
-		String typeLocator = internedTypeLocators[in.readInt()];
-		ReferenceCollection collection = null;
-		switch (in.readByte()) {
-			case 1 :
-				char[][] additionalTypeNames = readNames(in);
-				char[][][] qualifiedNames = new char[in.readInt()][][];
-				for (int j = 0, m = qualifiedNames.length; j < m; j++)
-					qualifiedNames[j] = internedQualifiedNames[in.readInt()];
-				char[][] simpleNames = new char[in.readInt()][];
-				for (int j = 0, m = simpleNames.length; j < m; j++)
-					simpleNames[j] = internedSimpleNames[in.readInt()];
-				char[][] rootNames = new char[in.readInt()][];
-				for (int j = 0, m = rootNames.length; j < m; j++)
-					rootNames[j] = internedRootNames[in.readInt()];
-				collection = new AdditionalTypeCollection(additionalTypeNames, qualifiedNames, simpleNames, rootNames);
-				break;
-			case 2 :
-				char[][][] qNames = new char[in.readInt()][][];
-				for (int j = 0, m = qNames.length; j < m; j++)
-					qNames[j] = internedQualifiedNames[in.readInt()];
-				char[][] sNames = new char[in.readInt()][];
-				for (int j = 0, m = sNames.length; j < m; j++)
-					sNames[j] = internedSimpleNames[in.readInt()];
-				char[][] rNames = new char[in.readInt()][];
-				for (int j = 0, m = rNames.length; j < m; j++)
-					rNames[j] = internedRootNames[in.readInt()];
-				collection = new ReferenceCollection(qNames, sNames, rNames);
+		typeLocatorIndexes[i] = in.readInt();
+		if (in.readByte() == 1)
+			definedTypeNames[i] = readNames(in);
+		offsets[i] = in.readInt();
+		int filterLength = in.readInt();
+		if (filterLength > 0) {
+			long[] nameFilter = nameFilters[i] = new long[filterLength];
+			for (int j = 0; j < filterLength; j++)
+				nameFilter[j] = in.readLong();
 		}
-		newState.references.put(typeLocator, collection);
+	}
+	byte[] encodedBytes = new byte[in.readInt()];
+	in.readFully(encodedBytes);
+	EncodedReferences encodedReferences = new EncodedReferences(encodedBytes, length, namePool, qualifiedIds, simpleIds, rootIds);
+	for (int i = 0; i < length; i++) {
+		ReferenceCollection collection = definedTypeNames[i] == null
+			? new ReferenceCollection(encodedReferences, offsets[i], nameFilters[i])
+			: new AdditionalTypeCollection(definedTypeNames[i], encodedReferences, offsets[i], nameFilters[i]);
+		newState.references.put(internedTypeLocators[typeLocatorIndexes[i]], collection);
 	}
 	if (JavaBuilder.DEBUG)
 		System.out.println("Successfully read state for " + newState.javaProjectName); //$NON-NLS-1$
@@ -400,6 +410,25 @@ void wasStructurallyChanged(String typeName) {
 	}
 }
 
+/**
+ * Remembers the position of the given name in the interned names of the state being saved.
+ */
+static void internName(char[] name, SimpleLookupTable internedNames) {
+	if (!internedNames.containsKey(name))
+		internedNames.put(name, Integer.valueOf(internedNames.elementSize));
+}
+
+/**
+ * Remembers the position of the given qualified name, and of its simple names, in the interned names of the state being saved.
+ */
+static void internName(char[][] qName, SimpleLookupTable internedQualifiedNames, SimpleLookupTable internedSimpleNames) {
+	if (!internedQualifiedNames.containsKey(qName)) {
+		internedQualifiedNames.put(qName, Integer.valueOf(internedQualifiedNames.elementSize));
+		for (int i = 0, l = qName.length; i < l; i++)
+			internName(qName[i], internedSimpleNames);
+	}
+}
+
 void write(DataOutputStream out) throws IOException {
 	int length;
 	Object[] keyTable;
@@ -541,31 +570,7 @@ void write(DataOutputStream out) throws IOException {
 	valueTable = this.references.valueTable;
 	for (int i = 0, l = valueTable.length; i < l; i++) {
 		if (valueTable[i] != null) {
-			ReferenceCollection collection = (ReferenceCollection) valueTable[i];
-			char[][] rNames = collection.rootReferences;
-			for (int j = 0, m = rNames.length; j < m; j++) {
-				char[] rName = rNames[j];
-				if (!internedRootNames.containsKey(rName)) // remember the names have been interned
-					internedRootNames.put(rName, Integer.valueOf(internedRootNames.elementSize));
-			}
-			char[][][] qNames = collection.qualifiedNameReferences;
-			for (int j = 0, m = qNames.length; j < m; j++) {
-				char[][] qName = qNames[j];
-				if (!internedQualifiedNames.containsKey(qName)) { // remember the names have been interned
-					internedQualifiedNames.put(qName, Integer.valueOf(internedQualifiedNames.elementSize));
-					for (int k = 0, n = qName.length; k < n; k++) {
-						char[] sName = qName[k];
-						if (!internedSimpleNames.containsKey(sName)) // remember the names have been interned
-							internedSimpleNames.put(sName, Integer.valueOf(internedSimpleNames.elementSize));
-					}
-				}
-			}
-			char[][] sNames = collection.simpleNameReferences;
-			for (int j = 0, m = sNames.length; j < m; j++) {
-				char[] sName = sNames[j];
-				if (!internedSimpleNames.containsKey(sName)) // remember the names have been interned
-					internedSimpleNames.put(sName, Integer.valueOf(internedSimpleNames.elementSize));
-			}
+			((ReferenceCollection) valueTable[i]).internNames(internedQualifiedNames, internedSimpleNames, internedRootNames);
 		}
 	}
 	char[][] internedArray = new char[internedRootNames.elementSize][];
@@ -613,9 +618,13 @@ void write(DataOutputStream out) throws IOException {
 /*
  * References table
  * int		interned locator id
- * ReferenceCollection
+ * byte		1 if additional types are defined, followed by their names
+ * int		offset of the encoded ReferenceCollection
+ * long[]	filter of the names of the ReferenceCollection, see NameFilter
+ * byte[]	encoded ReferenceCollections, see EncodedReferences
 */
 	out.writeInt(length = this.references.elementSize);
+	ByteArrayOutputStream encodedBytes = new ByteArrayOutputStream(length * 16);
 	if (length > 0) {
 		keyTable = this.references.keyTable;
 		for (int i = 0, l = keyTable.length; i < l; i++) {
@@ -631,32 +640,20 @@ void write(DataOutputStream out) throws IOException {
 				} else {
 					out.writeByte(2);
 				}
-				char[][][] qNames = collection.qualifiedNameReferences;
-				int qLength = qNames.length;
-				out.writeInt(qLength);
-				for (int j = 0; j < qLength; j++) {
-					index = (Integer) internedQualifiedNames.get(qNames[j]);
-					out.writeInt(index.intValue());
-				}
-				char[][] sNames = collection.simpleNameReferences;
-				int sLength = sNames.length;
-				out.writeInt(sLength);
-				for (int j = 0; j < sLength; j++) {
-					index = (Integer) internedSimpleNames.get(sNames[j]);
-					out.writeInt(index.intValue());
-				}
-				char[][] rNames = collection.rootReferences;
-				int rLength = rNames.length;
-				out.writeInt(rLength);
-				for (int j = 0; j < rLength; j++) {
-					index = (Integer) internedRootNames.get(rNames[j]);
-					out.writeInt(index.intValue());
-				}
+				out.writeInt(encodedBytes.size());
+				long[] nameFilter = collection.nameFilter;
+				int filterLength = nameFilter == null ? 0 : nameFilter.length;
+				out.writeInt(filterLength);
+				for (int j = 0; j < filterLength; j++)
+					out.writeLong(nameFilter[j]);
+				collection.encode(internedQualifiedNames, internedSimpleNames, internedRootNames, encodedBytes);
 			}
 		}
 		if (JavaBuilder.DEBUG && length != 0)
 			System.out.println("references table is inconsistent"); //$NON-NLS-1$
 	}
+	out.writeInt(encodedBytes.size());
+	encodedBytes.writeTo(out);
 }
 
 private void writeName(char[] name, DataOutputStream out) throws IOException {
@@ -744,6 +741,7 @@ void dump() {
 			if (keyTable[i] != null) {
 				System.out.print("\n\t\t" + keyTable[i].toString());
 				ReferenceCollection c = (ReferenceCollection) valueTable[i];
+				c.decode();
 				char[][][] qRefs = c.qualifiedNameReferences;
 				System.out.print("\n\t\t\tqualified:");
 				if (qRefs.length == 0)
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.util;
+
+import java.text.NumberFormat;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache which can be read by several threads without locking, and which evicts its entries
+ * in approximate least recently used order.
+ * <p>
+ * Unlike {@link LRUCache}, reading an entry does not move it in a queue: it only sets the reference bit of
+ * the entry. Entries are kept in a circular array, the clock, which is swept when the cache has to make space.
+ * A referenced entry is given a second chance, i.e. its bit is cleared and the hand moves on, while an entry
+ * that was not read since the last sweep is evicted if {@link #close(Object, Object)} agrees.
+ * </p><p>
+ * Like an {@link org.eclipse.jdt.internal.core.OverflowingLRUCache}, the cache grows beyond its space limit when
+ * not enough entries can be closed, and attempts to shrink back on the next <code>put</code>. When it makes space,
+ * it reclaims the space given by its load factor, so that it does not have to sweep again for the next entries.
+ * </p>
+ * Every entry takes one unit of space. The methods changing the cache are synchronized, while
+ * {@link #get(Object)}, {@link #peek(Object)} and {@link #getKey(Object)} are not.
+ */
+public class ClockCache<K, V> {
+
+/*
+ * An entry of the cache, at the given index in the clock.
+ */
+static final class Entry<K, V> {
+	final K key;
+	volatile V value;
+	volatile boolean referenced = true; // a new entry is the most recently used
+	int index; // -1 once removed, guarded by the cache
+
+	Entry(K key, V value) {
+		this.key = key;
+		this.value = value;
+	}
+}
+
+private final ConcurrentHashMap<K, Entry<K, V>> entryTable;
+
+// guarded by this
+private Entry<K, V>[] clock;
+private int size = 0;
+private int hand = 0;
+/**
+ * The maximum number of entries of the cache, unless it overflows.
+ */
+protected volatile int spaceLimit;
+/**
+ * Indicates if the cache has been over filled and by how much.
+ */
+protected int overflow = 0;
+/**
+ * Indicates how much space should be reclaimed when the cache overflows.
+ */
+protected double loadFactor = 0.333;
+
+/**
+ * Creates a cache of the given size.
+ */
+public ClockCache(int size) {
+	this.spaceLimit = size;
+	this.entryTable = new ConcurrentHashMap<K, Entry<K, V>>(size < 16 ? 16 : size);
+	this.clock = newClock(size < 16 ? 16 : size);
+}
+/**
+ * Answers true if the given entry can be removed from the cache to make space, after
+ * closing it if needed. The entry may be removed from the cache while it is closed.
+ * Answers true by default.
+ */
+protected boolean close(K key, V value) {
+	return true;
+}
+public double fillingRatio() {
+	return (this.entryTable.size() + this.overflow) * 100.0 / this.spaceLimit;
+}
+/**
+ * Answers the value of the given key, or null if it is not in the cache,
+ * and marks the entry as recently used.
+ */
+public V get(K key) {
+	Entry<K, V> entry = this.entryTable.get(key);
+	if (entry == null)
+		return null;
+	if (!entry.referenced)
+		entry.referenced = true; // avoid writing to a shared entry on every read
+	return entry.value;
+}
+/**
+ * Answers the key of the cache equal to the given key, or the given key if it is not in the cache.
+ */
+public K getKey(K key) {
+	Entry<K, V> entry = this.entryTable.get(key);
+	return entry == null ? key : entry.key;
+}
+/**
+ * Answers by how many entries the cache exceeds its space limit.
+ */
+public synchronized int getOverflow() {
+	return this.overflow;
+}
+public int getSpaceLimit() {
+	return this.spaceLimit;
+}
+/**
+ * Ensures there is the given amount of free space in the cache, by removing the entries which
+ * were not used recently if necessary. Answers true if the space was made available, false
+ * otherwise, since some entries may not be closed.
+ */
+protected synchronized boolean makeSpace(int space) {
+	int limit = this.spaceLimit;
+	if (this.overflow == 0 && this.size + space <= limit)
+		return true;
+
+	int spaceNeeded = (int) ((1 - this.loadFactor) * limit);
+	if (spaceNeeded < space)
+		spaceNeeded = space;
+	// at most two turns: the first one may only clear the reference bits
+	for (int steps = 2 * this.size; steps > 0 && this.size > 0 && this.size + spaceNeeded > limit; steps--) {
+		if (this.hand >= this.size)
+			this.hand = 0;
+		Entry<K, V> entry = this.clock[this.hand];
+		if (entry.referenced) {
+			entry.referenced = false;
+			this.hand++;
+		} else if (close(entry.key, entry.value)) {
+			// closing the entry may already have removed it, the hand then points to the entry moved in its place
+			if (entry.index != -1)
+				removeEntry(entry);
+		} else {
+			this.hand++;
+		}
+	}
+
+	if (this.size + space <= limit) {
+		this.overflow = 0;
+		return true;
+	}
+	this.overflow = this.size + space - limit;
+	return false;
+}
+/**
+ * Answers the value of the given key, or null if it is not in the cache,
+ * without marking the entry as recently used.
+ */
+public V peek(K key) {
+	Entry<K, V> entry = this.entryTable.get(key);
+	return entry == null ? null : entry.value;
+}
+/**
+ * Sets the value of the given key, making space for it if needed. Answers the value.
+ */
+public synchronized V put(K key, V value) {
+	// attempt to rid ourselves of the overflow, if there is any
+	if (this.overflow > 0)
+		shrink();
+
+	Entry<K, V> entry = this.entryTable.get(key);
+	if (entry != null) {
+		entry.value = value;
+		entry.referenced = true;
+		return value;
+	}
+
+	// add even if no space could be made, the overflow is handled by the next call to makeSpace
+	makeSpace(1);
+	entry = new Entry<K, V>(key, value);
+	if (this.size == this.clock.length)
+		System.arraycopy(this.clock, 0, this.clock = newClock(this.size * 2), 0, this.size);
+	entry.index = this.size;
+	this.clock[this.size++] = entry;
+	this.entryTable.put(key, entry);
+	return value;
+}
+/**
+ * Removes the given key from the cache without closing it. Answers its value,
+ * or null if it was not in the cache.
+ */
+public synchronized V remove(K key) {
+	Entry<K, V> entry = this.entryTable.get(key);
+	if (entry == null)
+		return null;
+	removeEntry(entry);
+	return entry.value;
+}
+private void removeEntry(Entry<K, V> entry) {
+	this.entryTable.remove(entry.key);
+	// move the last entry of the clock in place of the removed one
+	int index = entry.index;
+	Entry<K, V> last = this.clock[--this.size];
+	this.clock[index] = last;
+	last.index = index;
+	this.clock[this.size] = null;
+	entry.index = -1;
+}
+/**
+ * Sets the maximum number of entries of the cache, removing entries if it is lowered.
+ */
+public synchronized void setSpaceLimit(int limit) {
+	if (limit < this.spaceLimit)
+		makeSpace(this.spaceLimit - limit);
+	this.spaceLimit = limit;
+}
+/**
+ * Attempts to shrink the cache if it has overflown.
+ * Answers true if the cache shrinks to less than or equal to its space limit.
+ */
+public synchronized boolean shrink() {
+	if (this.overflow > 0)
+		return makeSpace(0);
+	return true;
+}
+/**
+ * Answers the number of entries of the cache.
+ */
+public int size() {
+	return this.entryTable.size();
+}
+@SuppressWarnings("unchecked")
+private Entry<K, V>[] newClock(int length) {
+	return new Entry[length];
+}
+public String toString() {
+	return toStringFillingRation("ClockCache"); //$NON-NLS-1$
+}
+/**
+ * Returns a String that represents the filling ratio of this object.
+ * This method is for debugging purposes only.
+ */
+public String toStringFillingRation(String cacheName) {
+	StringBuffer buffer = new StringBuffer(cacheName);
+	buffer.append('[');
+	buffer.append(getSpaceLimit());
+	buffer.append("]: "); //$NON-NLS-1$
+	buffer.append(NumberFormat.getInstance().format(fillingRatio()));
+	buffer.append("% full"); //$NON-NLS-1$
+	return buffer.toString();
+}
+}
@@ -101,6 +101,7 @@ public final class Messages extends NLS {
 	public static String build_cannotSaveStates;
 	public static String build_initializationError;
 	public static String build_serializationError;
+	public static String build_cannotBuildProjects;
 	public static String build_classFileCollision;
 	public static String build_duplicateClassFile;
 	public static String build_duplicateResource;
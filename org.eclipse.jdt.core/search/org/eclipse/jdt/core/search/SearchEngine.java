@@ -1140,6 +1140,80 @@ public class SearchEngine {
 			progressMonitor);
 	}
 
+	/**
+	 * Searches for all top-level types and member types in the given scope, and stops the search
+	 * once the given number of matches has been reported.
+	 * <p>
+	 * The matches are reported to the {@link TypeNameMatchRequestor requestor} as the index of
+	 * each container of the scope is queried. As soon as <code>maxMatches</code> matches have been
+	 * reported, the search returns without querying the remaining indexes nor looking at the working
+	 * copies. This lets clients which show the first matches of a short prefix, or pages of matches,
+	 * avoid reading all the indexes of the workspace. The search can also be stopped at any time by
+	 * canceling the progress monitor, in which case an {@link org.eclipse.core.runtime.OperationCanceledException}
+	 * is thrown.
+	 * </p>
+	 * <p>
+	 * The order of the matches is the one of the indexes: it is not sorted, and is only stable while
+	 * the indexes don't change.
+	 * </p>
+	 *
+	 * @param packageName the full name of the package of the searched types, or a prefix for this
+	 *						package, or a wild-carded string for this package.
+	 *						May be <code>null</code>, then any package name is accepted.
+	 * @param packageMatchRule the match rule of the package name, see
+	 *	{@link #searchAllTypeNames(char[], int, char[], int, int, IJavaSearchScope, TypeNameMatchRequestor, int, IProgressMonitor)}
+	 * @param typeName the dot-separated qualified name of the searched type (the qualification include
+	 *					the enclosing types if the searched type is a member type), or a prefix
+	 *					for this type, or a wild-carded string for this type.
+	 *					May be <code>null</code>, then any type name is accepted.
+	 * @param typeMatchRule the match rule of the type name, see
+	 *	{@link #searchAllTypeNames(char[], int, char[], int, int, IJavaSearchScope, TypeNameMatchRequestor, int, IProgressMonitor)}
+	 * @param searchFor determines the nature of the searched elements, e.g. {@link IJavaSearchConstants#TYPE}
+	 * @param scope the scope to search in
+	 * @param nameMatchRequestor the {@link TypeNameMatchRequestor requestor} that collects
+	 * 				{@link TypeNameMatch matches} of the search.
+	 * @param waitingPolicy one of
+	 * <ul>
+	 *		<li>{@link IJavaSearchConstants#FORCE_IMMEDIATE_SEARCH} if the search should start immediately</li>
+	 *		<li>{@link IJavaSearchConstants#CANCEL_IF_NOT_READY_TO_SEARCH} if the search should be cancelled if the
+	 *			underlying indexer has not finished indexing the workspace</li>
+	 *		<li>{@link IJavaSearchConstants#WAIT_UNTIL_READY_TO_SEARCH} if the search should wait for the
+	 *			underlying indexer to finish indexing the workspace</li>
+	 * </ul>
+	 * @param maxMatches the maximum number of matches to report, or a value less than or equal to 0
+	 *							to report all the matches
+	 * @param progressMonitor the progress monitor to report progress to, or <code>null</code> if no progress
+	 *							monitor is provided
+	 * @exception JavaModelException if the search failed. Reasons include:
+	 *	<ul>
+	 *		<li>the classpath is incorrectly set</li>
+	 *	</ul>
+	 * @since 3.13
+	 */
+	public void searchAllTypeNames(
+		final char[] packageName,
+		final int packageMatchRule,
+		final char[] typeName,
+		final int typeMatchRule,
+		int searchFor,
+		IJavaSearchScope scope,
+		final TypeNameMatchRequestor nameMatchRequestor,
+		int waitingPolicy,
+		int maxMatches,
+		IProgressMonitor progressMonitor)  throws JavaModelException {
+
+		TypeNameMatchRequestorWrapper requestorWrapper = new TypeNameMatchRequestorWrapper(nameMatchRequestor, scope, maxMatches <= 0 ? Integer.MAX_VALUE : maxMatches);
+		this.basicEngine.searchAllTypeNames(packageName,
+			packageMatchRule,
+			typeName,
+			typeMatchRule,
+			searchFor,
+			scope,
+			requestorWrapper,
+			waitingPolicy,
+			progressMonitor);
+	}
+
 	/**
 	 * Searches for all top-level types and member types in the given scope matching any of the given qualifications
 	 * and type names in a case sensitive way.
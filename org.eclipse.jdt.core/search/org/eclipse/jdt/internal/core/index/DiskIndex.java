@@ -11,6 +11,7 @@
 package org.eclipse.jdt.internal.core.index;
 
 import java.io.*;
+import java.lang.ref.SoftReference;
 
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.search.*;
@@ -32,11 +33,15 @@ private int[] chunkOffsets;
 private int documentReferenceSize; // 1, 2 or more bytes... depends on # of document names
 private int startOfCategoryTables;
 private HashtableOfIntValues categoryOffsets, categoryEnds;
+private HashtableOfIntValues categoryWordTables; // category name -> offset of the entry offsets sorted by word
+private MappedIndexFile mappedFile; // mapped lazily by the first query, see mappedFile()
+private boolean mappingFailed;
 
 private int cacheUserCount;
 private String[][] cachedChunks; // decompressed chunks of document names
 private HashtableOfObject categoryTables; // category name -> HashtableOfObject(words -> int[] of document #'s) or offset if not read yet
 private char[] cachedCategoryName;
+private HashtableOfObject wordGramIndexes; // category name -> SoftReference of WordGramIndex, see getWordGramIndex()
 
 private static final int DEFAULT_BUFFER_SIZE = 2048;
 private static int BUFFER_READ_SIZE = DEFAULT_BUFFER_SIZE;
@@ -46,10 +51,21 @@ private int bufferIndex, bufferEnd; // used when reading from the file into the
 private int streamEnd; // used when writing data from the streamBuffer to the file
 char separator = Index.DEFAULT_SEPARATOR;
 
-public static final String SIGNATURE= "INDEX VERSION 1.129"; //$NON-NLS-1$
+public static final String SIGNATURE= "INDEX VERSION 1.130"; //$NON-NLS-1$
 private static final char[] SIGNATURE_CHARS = SIGNATURE.toCharArray();
 public static boolean DEBUG = false;
 
+/*
+ * Whether queries read the category tables from the index file mapped in memory (see MappedIndexFile)
+ * instead of loading whole tables from a stream. A mapped file cannot be deleted on Windows
+ * until its mapping is garbage collected, so mapping is only used there when requested.
+ */
+public static boolean MAP_INDEX_FILES;
+static {
+	String setting = System.getProperty("jdt.core.index.mapFiles"); //$NON-NLS-1$
+	MAP_INDEX_FILES = setting == null ? File.separatorChar == '/' : setting.equals("true"); //$NON-NLS-1$
+}
+
 private static final int RE_INDEXED = -1;
 private static final int DELETED = -2;
 
@@ -95,6 +111,7 @@ DiskIndex() {
 	this.cachedCategoryName = null;
 	this.categoryOffsets = null;
 	this.categoryEnds = null;
+	this.categoryWordTables = null;
 }
 DiskIndex(IndexLocation location) throws IOException {
 	this();
@@ -163,6 +180,10 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 	// assumes sender has called startQuery() & will call stopQuery() when finished
 	if (this.categoryOffsets == null) return null; // file is empty
 
+	MappedIndexFile mapped = mappedFile();
+	if (mapped != null)
+		return addMappedQueryResults(mapped, categories, key, matchRule, memoryIndex);
+
 	HashtableOfObject results = null; // initialized if needed
 	
 	// No need to check the results table for duplicates while processing the
@@ -212,14 +233,19 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 				break;
 			default:
 				for (int i = 0, l = categories.length; i < l; i++) {
-					HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
-					if (wordsToDocNumbers != null) {
-						char[][] words = wordsToDocNumbers.keyTable;
-						Object[] values = wordsToDocNumbers.valueTable;
-						for (int j = 0, m = words.length; j < m; j++) {
-							char[] word = words[j];
-							if (word != null && Index.isMatch(key, word, matchRule))
-								results = addQueryResult(results, word, values[j], memoryIndex, prevResults);
+					WordGramIndex gramIndex = getWordGramIndex(categories[i], null);
+					if (gramIndex != null) {
+						results = addCandidateQueryResults(results, gramIndex, null, 0, key, matchRule, memoryIndex, prevResults);
+					} else {
+						HashtableOfObject wordsToDocNumbers = readCategoryTable(categories[i], false);
+						if (wordsToDocNumbers != null) {
+							char[][] words = wordsToDocNumbers.keyTable;
+							Object[] values = wordsToDocNumbers.valueTable;
+							for (int j = 0, m = words.length; j < m; j++) {
+								char[] word = words[j];
+								if (word != null && Index.isMatch(key, word, matchRule))
+									results = addQueryResult(results, word, values[j], memoryIndex, prevResults);
+							}
 						}
 					}
 					prevResults = results != null;
@@ -229,6 +255,71 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 
 	return results;
 }
+private HashtableOfObject addMappedQueryResults(MappedIndexFile mapped, char[][] categories, char[] key, int matchRule, MemoryIndex memoryIndex) throws IOException {
+	// the words of each category are matched against the mapped file, only the matching ones are decoded
+	HashtableOfObject results = null; // initialized if needed
+	boolean prevResults = false;
+	char[] word = null; // buffer reused to decode words which may not match
+	for (int i = 0, l = categories.length; i < l; i++) {
+		int tableOffset = this.categoryOffsets.get(categories[i]);
+		if (tableOffset != HashtableOfIntValues.NO_VALUE) {
+			int wordTableOffset = this.categoryWordTables.get(categories[i]);
+			int size = mapped.readInt(tableOffset);
+			int start = 0, end = size;
+			boolean checkMatch = false;
+			if (key != null) {
+				switch (matchRule) {
+					case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE:
+						start = mapped.findEntry(wordTableOffset, size, key, false);
+						if (start < size && mapped.compareWord(mapped.sortedEntryOffset(wordTableOffset, start), key, false) == 0)
+							end = start + 1;
+						else
+							end = start;
+						break;
+					case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE:
+						start = mapped.findEntry(wordTableOffset, size, key, false);
+						end = mapped.findEntry(wordTableOffset, size, key, true);
+						break;
+					default:
+						WordGramIndex gramIndex = getWordGramIndex(categories[i], mapped);
+						if (gramIndex != null) {
+							results = addCandidateQueryResults(results, gramIndex, mapped, wordTableOffset, key, matchRule, memoryIndex, prevResults);
+							end = start; // the candidates are matched
+						}
+						checkMatch = true;
+				}
+			}
+			for (int j = start; j < end; j++) {
+				int entryOffset = mapped.sortedEntryOffset(wordTableOffset, j);
+				word = mapped.readWord(entryOffset, word);
+				int wordLength = mapped.readWordLength(entryOffset);
+				if (!checkMatch || Index.isMatch(key, word, wordLength, matchRule)) {
+					char[] matchingWord = new char[wordLength];
+					System.arraycopy(word, 0, matchingWord, 0, wordLength);
+					results = addQueryResult(results, matchingWord, mapped.readDocumentTable(entryOffset), memoryIndex, prevResults);
+				}
+			}
+		}
+		prevResults = results != null;
+	}
+	return results;
+}
+private HashtableOfObject addCandidateQueryResults(HashtableOfObject results, WordGramIndex gramIndex, MappedIndexFile mapped, int wordTableOffset, char[] key, int matchRule, MemoryIndex memoryIndex, boolean prevResults) throws IOException {
+	// only the candidate words of the gram index are matched, or all of them if the key cannot narrow them
+	char[][] words = gramIndex.words;
+	int[] candidates = gramIndex.candidates(key, matchRule);
+	for (int i = 0, l = candidates == null ? words.length : candidates.length; i < l; i++) {
+		int position = candidates == null ? i : candidates[i];
+		char[] word = words[position];
+		if (Index.isMatch(key, word, matchRule)) {
+			Object docs = mapped == null
+				? gramIndex.documentTables[position]
+				: mapped.readDocumentTable(mapped.sortedEntryOffset(wordTableOffset, position));
+			results = addQueryResult(results, word, docs, memoryIndex, prevResults);
+		}
+	}
+	return results;
+}
 private void cacheDocumentNames() throws IOException {
 	// will need all document names so get them now
 	this.cachedChunks = new String[this.numberOfChunks][];
@@ -342,35 +433,36 @@ private String[] computeDocumentNames(String[] onDiskNames, int[] positions, Sim
 	}
 	return newDocNames;
 }
-private void copyQueryResults(HashtableOfObject categoryToWords, int newPosition) {
-	char[][] categoryNames = categoryToWords.keyTable;
-	Object[] wordSets = categoryToWords.valueTable;
-	for (int i = 0, l = categoryNames.length; i < l; i++) {
-		char[] categoryName = categoryNames[i];
-		if (categoryName != null) {
-			SimpleWordSet wordSet = (SimpleWordSet) wordSets[i];
-			HashtableOfObject wordsToDocs = (HashtableOfObject) this.categoryTables.get(categoryName);
-			if (wordsToDocs == null)
-				this.categoryTables.put(categoryName, wordsToDocs = new HashtableOfObject(wordSet.elementSize));
+private HashtableOfObject copyQueryResults(char[] categoryName, MemoryIndex memoryIndex, SimpleLookupTable indexedDocuments) {
+	// answers the words of the given category referenced by each new/changed document, mapped to its new position #
+	HashtableOfObject wordsToDocs = new HashtableOfObject(3);
+	Object[] names = indexedDocuments.keyTable;
+	Object[] integerPositions = indexedDocuments.valueTable;
+	for (int i = 0, l = names.length; i < l; i++) {
+		if (names[i] == null) continue;
+		HashtableOfObject categoryToWords = (HashtableOfObject) memoryIndex.docsToReferences.get(names[i]);
+		SimpleWordSet wordSet = (SimpleWordSet) categoryToWords.get(categoryName);
+		if (wordSet == null) continue;
 
-			char[][] words = wordSet.words;
-			for (int j = 0, m = words.length; j < m; j++) {
-				char[] word = words[j];
-				if (word != null) {
-					Object o = wordsToDocs.get(word);
-					if (o == null) {
-						wordsToDocs.putUnsafely(word, new int[] {newPosition});
-					} else if (o instanceof IntList) {
-						((IntList) o).add(newPosition);
-					} else {
-						IntList list = new IntList((int[]) o);
-						list.add(newPosition);
-						wordsToDocs.put(word, list);
-					}
+		int newPosition = ((Integer) integerPositions[i]).intValue();
+		char[][] words = wordSet.words;
+		for (int j = 0, m = words.length; j < m; j++) {
+			char[] word = words[j];
+			if (word != null) {
+				Object o = wordsToDocs.get(word);
+				if (o == null) {
+					wordsToDocs.putUnsafely(word, new int[] {newPosition});
+				} else if (o instanceof IntList) {
+					((IntList) o).add(newPosition);
+				} else {
+					IntList list = new IntList((int[]) o);
+					list.add(newPosition);
+					wordsToDocs.put(word, list);
 				}
 			}
 		}
 	}
+	return wordsToDocs;
 }
 void initialize(boolean reuseExistingFile) throws IOException {
 	if (this.indexLocation.exists()) {
@@ -440,30 +532,39 @@ private void initializeFrom(DiskIndex diskIndex, File newIndexFile) throws IOExc
 	int size = diskIndex.categoryOffsets == null ? 8 : diskIndex.categoryOffsets.elementSize;
 	this.categoryOffsets = new HashtableOfIntValues(size);
 	this.categoryEnds = new HashtableOfIntValues(size);
+	this.categoryWordTables = new HashtableOfIntValues(size);
 	this.categoryTables = new HashtableOfObject(size);
 	this.separator = diskIndex.separator;
 }
-private void mergeCategories(DiskIndex onDisk, int[] positions, FileOutputStream stream) throws IOException {
-	// at this point, this.categoryTables contains the names -> wordsToDocs added in copyQueryResults()
-	char[][] oldNames = onDisk.categoryOffsets.keyTable;
-	for (int i = 0, l = oldNames.length; i < l; i++) {
-		char[] oldName = oldNames[i];
-		if (oldName != null && !this.categoryTables.containsKey(oldName))
-			this.categoryTables.put(oldName, null);
+private void mergeCategories(DiskIndex onDisk, int[] positions, MemoryIndex memoryIndex, SimpleLookupTable indexedDocuments, FileOutputStream stream) throws IOException {
+	// categories are merged & written out one at a time, so only the tables of one category are held in memory
+	SimpleSetOfCharArray categoryNames = new SimpleSetOfCharArray(20);
+	if (onDisk != null && onDisk.categoryOffsets != null) {
+		char[][] oldNames = onDisk.categoryOffsets.keyTable;
+		for (int i = 0, l = oldNames.length; i < l; i++)
+			if (oldNames[i] != null)
+				categoryNames.add(oldNames[i]);
+	}
+	Object[] names = indexedDocuments.keyTable;
+	for (int i = 0, l = names.length; i < l; i++) {
+		if (names[i] != null) {
+			char[][] newNames = ((HashtableOfObject) memoryIndex.docsToReferences.get(names[i])).keyTable;
+			for (int j = 0, m = newNames.length; j < m; j++)
+				if (newNames[j] != null)
+					categoryNames.add(newNames[j]);
+		}
 	}
 
-	char[][] categoryNames = this.categoryTables.keyTable;
-	for (int i = 0, l = categoryNames.length; i < l; i++)
-		if (categoryNames[i] != null)
-			mergeCategory(categoryNames[i], onDisk, positions, stream);
+	char[][] newCategoryNames = categoryNames.values;
+	for (int i = 0, l = newCategoryNames.length; i < l; i++)
+		if (newCategoryNames[i] != null)
+			mergeCategory(newCategoryNames[i], onDisk, positions, memoryIndex, indexedDocuments, stream);
 	this.categoryTables = null;
 }
-private void mergeCategory(char[] categoryName, DiskIndex onDisk, int[] positions, FileOutputStream stream) throws IOException {
-	HashtableOfObject wordsToDocs = (HashtableOfObject) this.categoryTables.get(categoryName);
-	if (wordsToDocs == null)
-		wordsToDocs = new HashtableOfObject(3);
+private void mergeCategory(char[] categoryName, DiskIndex onDisk, int[] positions, MemoryIndex memoryIndex, SimpleLookupTable indexedDocuments, FileOutputStream stream) throws IOException {
+	HashtableOfObject wordsToDocs = copyQueryResults(categoryName, memoryIndex, indexedDocuments);
 
-	HashtableOfObject oldWordsToDocs = onDisk.readCategoryTable(categoryName, true);
+	HashtableOfObject oldWordsToDocs = onDisk == null ? null : onDisk.readCategoryTable(categoryName, true);
 	if (oldWordsToDocs != null) {
 		char[][] oldWords = oldWordsToDocs.keyTable;
 		Object[] oldArrayOffsets = oldWordsToDocs.valueTable;
@@ -542,22 +643,9 @@ DiskIndex mergeWith(MemoryIndex memoryIndex) throws IOException {
 			newDiskIndex.writeAllDocumentNames(docNames, stream);
 			docNames = null; // free up the space
 
-			// add each new/changed doc to empty category tables using its new position #
-			if (indexedDocuments.elementSize > 0) {
-				Object[] names = indexedDocuments.keyTable;
-				Object[] integerPositions = indexedDocuments.valueTable;
-				for (int i = 0, l = names.length; i < l; i++)
-					if (names[i] != null)
-						newDiskIndex.copyQueryResults(
-							(HashtableOfObject) memoryIndex.docsToReferences.get(names[i]), ((Integer) integerPositions[i]).intValue());
-			}
+			// merge the words of each new/changed doc, using its new position #, with each category table & write them out
+			newDiskIndex.mergeCategories(previousLength == 0 ? null : this, positions, memoryIndex, indexedDocuments, stream);
 			indexedDocuments = null; // free up the space
-
-			// merge each category table with the new ones & write them out
-			if (previousLength == 0)
-				newDiskIndex.writeCategories(stream);
-			else
-				newDiskIndex.mergeCategories(this, positions, stream);
 			offsetToHeader = newDiskIndex.streamEnd;
 			newDiskIndex.writeHeaderInfo(stream);
 			positions = null; // free up the space
@@ -597,6 +685,73 @@ DiskIndex mergeWith(MemoryIndex memoryIndex) throws IOException {
 		newDiskIndex.indexLocation = this.indexLocation;
 	return newDiskIndex;
 }
+/*
+ * Answers the gram index of the words of the given category, read from the mapped file if not null
+ * or from the category table otherwise. Answers null if the category is unknown or too small to be indexed.
+ * Gram indexes are kept as long as memory allows, since the words of this index file never change.
+ */
+private synchronized WordGramIndex getWordGramIndex(char[] categoryName, MappedIndexFile mapped) throws IOException {
+	if (this.wordGramIndexes == null) {
+		this.wordGramIndexes = new HashtableOfObject(3);
+	} else {
+		@SuppressWarnings("unchecked")
+		SoftReference<WordGramIndex> reference = (SoftReference<WordGramIndex>) this.wordGramIndexes.get(categoryName);
+		WordGramIndex gramIndex = reference == null ? null : reference.get();
+		if (gramIndex != null)
+			return gramIndex;
+	}
+
+	WordGramIndex gramIndex;
+	if (mapped != null) {
+		int tableOffset = this.categoryOffsets.get(categoryName);
+		if (tableOffset == HashtableOfIntValues.NO_VALUE) return null;
+		int size = mapped.readInt(tableOffset);
+		if (size < WordGramIndex.MIN_WORDS) return null;
+		// words are indexed by their position in the sorted entries of the category
+		int wordTableOffset = this.categoryWordTables.get(categoryName);
+		char[][] words = new char[size][];
+		char[] word = null;
+		for (int i = 0; i < size; i++) {
+			int entryOffset = mapped.sortedEntryOffset(wordTableOffset, i);
+			word = mapped.readWord(entryOffset, word);
+			int wordLength = mapped.readWordLength(entryOffset);
+			System.arraycopy(word, 0, words[i] = new char[wordLength], 0, wordLength);
+		}
+		gramIndex = new WordGramIndex(words, null);
+	} else {
+		HashtableOfObject wordsToDocNumbers = readCategoryTable(categoryName, false);
+		if (wordsToDocNumbers == null || wordsToDocNumbers.elementSize < WordGramIndex.MIN_WORDS) return null;
+		char[][] words = new char[wordsToDocNumbers.elementSize][];
+		Object[] documentTables = new Object[words.length];
+		char[][] keys = wordsToDocNumbers.keyTable;
+		Object[] values = wordsToDocNumbers.valueTable;
+		int count = 0;
+		for (int i = 0, l = keys.length; i < l; i++) {
+			if (keys[i] != null) {
+				words[count] = keys[i];
+				documentTables[count++] = values[i];
+			}
+		}
+		gramIndex = new WordGramIndex(words, documentTables);
+	}
+	if (DEBUG)
+		System.out.println("getWordGramIndex - Indexed " + gramIndex.words.length + " words of " + new String(categoryName) + " in " + this.indexLocation); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	this.wordGramIndexes.put(INTERNED_CATEGORY_NAMES.get(categoryName), new SoftReference<WordGramIndex>(gramIndex));
+	return gramIndex;
+}
+private synchronized MappedIndexFile mappedFile() {
+	if (this.mappedFile == null && MAP_INDEX_FILES && !this.mappingFailed
+			&& this.categoryWordTables != null && this.indexLocation instanceof FileIndexLocation) {
+		try {
+			this.mappedFile = MappedIndexFile.map(this.indexLocation.getIndexFile(), this.documentReferenceSize);
+		} catch (IOException e) {
+			if (DEBUG)
+				System.out.println("mappedFile - Failed to map " + this.indexLocation + ", reading it as a stream"); //$NON-NLS-1$ //$NON-NLS-2$
+			this.mappingFailed = true;
+		}
+	}
+	return this.mappedFile;
+}
 private synchronized String[] readAllDocumentNames() throws IOException {
 	if (this.numberOfChunks <= 0)
 		return CharOperation.NO_STRINGS;
@@ -765,17 +920,21 @@ synchronized String readDocumentName(int docNumber) throws IOException {
 			throw new IllegalArgumentException();
 		this.streamBuffer = new byte[numberOfBytes];
 		this.bufferIndex = 0;
-		InputStream file = this.indexLocation.getInputStream();
-		try {
-			file.skip(start);
-			if (file.read(this.streamBuffer, 0, numberOfBytes) != numberOfBytes)
-				throw new IOException();
-		} catch (IOException ioe) {
-			this.streamBuffer = null;
-			throw ioe;
-		} finally {
-			file.close();
-			this.indexLocation.close();
+		if (this.mappedFile != null) {
+			this.mappedFile.read(start, this.streamBuffer);
+		} else {
+			InputStream file = this.indexLocation.getInputStream();
+			try {
+				file.skip(start);
+				if (file.read(this.streamBuffer, 0, numberOfBytes) != numberOfBytes)
+					throw new IOException();
+			} catch (IOException ioe) {
+				this.streamBuffer = null;
+				throw ioe;
+			} finally {
+				file.close();
+				this.indexLocation.close();
+			}
 		}
 		int numberOfNames = isLastChunk ? this.sizeOfLastChunk : CHUNK_SIZE;
 		chunk = new String[numberOfNames];
@@ -794,6 +953,8 @@ synchronized int[] readDocumentNumbers(Object arrayOffset) throws IOException {
 	// arrayOffset is either a cached array of docNumbers or an Integer offset in the file
 	if (arrayOffset instanceof int[])
 		return (int[]) arrayOffset;
+	if (this.mappedFile != null)
+		return this.mappedFile.readDocumentNumbers(((Integer) arrayOffset).intValue());
 
 	InputStream stream = this.indexLocation.getInputStream();
 	try {
@@ -832,6 +993,7 @@ private void readHeaderInfo(InputStream stream) throws IOException {
 	int size = readStreamInt(stream);
 	this.categoryOffsets = new HashtableOfIntValues(size);
 	this.categoryEnds = new HashtableOfIntValues(size);
+	this.categoryWordTables = new HashtableOfIntValues(size);
 	if (length != -1 && size > length) {
 		//  not an accurate check, but good enough  https://bugs.eclipse.org/bugs/show_bug.cgi?id=350612
 		if (DEBUG)
@@ -844,6 +1006,7 @@ private void readHeaderInfo(InputStream stream) throws IOException {
 		char[] categoryName = INTERNED_CATEGORY_NAMES.get(readStreamChars(stream));
 		offset = readStreamInt(stream);
 		this.categoryOffsets.put(categoryName, offset); // cache offset to category table
+		this.categoryWordTables.put(categoryName, readStreamInt(stream)); // cache offset to its sorted entries
 		if (previousCategory != null) {
 			this.categoryEnds.put(previousCategory, offset); // cache end of the category table
 		}
@@ -1082,14 +1245,6 @@ private void writeAllDocumentNames(String[] sortedDocNames, FileOutputStream str
 	}
 	this.startOfCategoryTables = this.streamEnd + 1;
 }
-private void writeCategories(FileOutputStream stream) throws IOException {
-	char[][] categoryNames = this.categoryTables.keyTable;
-	Object[] tables = this.categoryTables.valueTable;
-	for (int i = 0, l = categoryNames.length; i < l; i++)
-		if (categoryNames[i] != null)
-			writeCategoryTable(categoryNames[i], (HashtableOfObject) tables[i], stream);
-	this.categoryTables = null;
-}
 private void writeCategoryTable(char[] categoryName, HashtableOfObject wordsToDocs, FileOutputStream stream) throws IOException {
 	// the format of a category table is as follows:
 	// any document number arrays with >= 256 elements are written before the table (the offset to each array is remembered)
@@ -1098,42 +1253,52 @@ private void writeCategoryTable(char[] categoryName, HashtableOfObject wordsToDo
 	//		an int <= 0 if the array size == 1
 	//		an int > 1 & < 256 for the size of the array if its > 1 & < 256, the document array follows immediately
 	//		256 if the array size >= 256 followed by another int which is the offset to the array (written prior to the table)
+	// the pairs are written sorted by word, followed by the offset of each pair so that the table can be binary searched
 
 	int largeArraySize = 256;
+	char[][] keys = wordsToDocs.keyTable;
 	Object[] values = wordsToDocs.valueTable;
-	for (int i = 0, l = values.length; i < l; i++) {
-		Object o = values[i];
-		if (o != null) {
-			if (o instanceof IntList)
-				o = values[i] = ((IntList) values[i]).asArray();
-			int[] documentNumbers = (int[]) o;
-			if (documentNumbers.length >= largeArraySize) {
-				values[i] = Integer.valueOf(this.streamEnd);
-				writeDocumentNumbers(documentNumbers, stream);
-			}
+	int size = 0;
+	char[][] words = new char[wordsToDocs.elementSize][];
+	for (int i = 0, l = keys.length; i < l; i++)
+		if (values[i] != null)
+			words[size++] = keys[i];
+	Util.sort(words);
+	Object[] documentTables = new Object[size]; // in the same order as the sorted words
+	for (int i = 0; i < size; i++) {
+		Object o = wordsToDocs.get(words[i]);
+		if (o instanceof IntList)
+			o = ((IntList) o).asArray();
+		int[] documentNumbers = (int[]) o;
+		if (documentNumbers.length >= largeArraySize) {
+			o = Integer.valueOf(this.streamEnd);
+			writeDocumentNumbers(documentNumbers, stream);
 		}
+		documentTables[i] = o;
 	}
 
 	this.categoryOffsets.put(categoryName, this.streamEnd); // remember the offset to the start of the table
 	this.categoryTables.put(categoryName, null); // flush cached table
-	writeStreamInt(stream, wordsToDocs.elementSize);
-	char[][] words = wordsToDocs.keyTable;
-	for (int i = 0, l = words.length; i < l; i++) {
-		Object o = values[i];
-		if (o != null) {
-			writeStreamChars(stream, words[i]);
-			if (o instanceof int[]) {
-				int[] documentNumbers = (int[]) o;
-				if (documentNumbers.length == 1)
-					writeStreamInt(stream, -documentNumbers[0]); // store an array of 1 element by negating the documentNumber (can be zero)
-				else
-					writeDocumentNumbers(documentNumbers, stream);
-			} else {
-				writeStreamInt(stream, largeArraySize); // mark to identify that an offset follows
-				writeStreamInt(stream, ((Integer) o).intValue()); // offset in the file of the array of document numbers
-			}
+	int[] entryOffsets = new int[size];
+	writeStreamInt(stream, size);
+	for (int i = 0; i < size; i++) {
+		entryOffsets[i] = this.streamEnd;
+		writeStreamChars(stream, words[i]);
+		Object o = documentTables[i];
+		if (o instanceof int[]) {
+			int[] documentNumbers = (int[]) o;
+			if (documentNumbers.length == 1)
+				writeStreamInt(stream, -documentNumbers[0]); // store an array of 1 element by negating the documentNumber (can be zero)
+			else
+				writeDocumentNumbers(documentNumbers, stream);
+		} else {
+			writeStreamInt(stream, largeArraySize); // mark to identify that an offset follows
+			writeStreamInt(stream, ((Integer) o).intValue()); // offset in the file of the array of document numbers
 		}
 	}
+	this.categoryWordTables.put(categoryName, this.streamEnd); // remember the offset to the sorted entries
+	for (int i = 0; i < size; i++)
+		writeStreamInt(stream, entryOffsets[i]);
 }
 private void writeDocumentNumbers(int[] documentNumbers, FileOutputStream stream) throws IOException {
 	// must store length as a positive int to detect in-lined array of 1 element
@@ -1199,7 +1364,8 @@ private void writeHeaderInfo(FileOutputStream stream) throws IOException {
 
 	writeStreamInt(stream, this.startOfCategoryTables);
 
-	// append the file with the category offsets... # of name -> offset pairs, followed by each name & an offset to its word->doc# table
+	// append the file with the category offsets... # of name -> offset pairs, followed by each name, an offset to its word->doc# table
+	// and an offset to the offsets of its sorted entries
 	writeStreamInt(stream, this.categoryOffsets.elementSize);
 	char[][] categoryNames = this.categoryOffsets.keyTable;
 	int[] offsets = this.categoryOffsets.valueTable;
@@ -1207,6 +1373,7 @@ private void writeHeaderInfo(FileOutputStream stream) throws IOException {
 		if (categoryNames[i] != null) {
 			writeStreamChars(stream, categoryNames[i]);
 			writeStreamInt(stream, offsets[i]);
+			writeStreamInt(stream, this.categoryWordTables.get(categoryNames[i]));
 		}
 	}
 	// ensure buffer is written to the stream
@@ -16,6 +16,7 @@ import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.search.*;
 import org.eclipse.jdt.internal.compiler.util.HashtableOfObject;
 import org.eclipse.jdt.internal.compiler.util.SimpleSet;
+import org.eclipse.jdt.internal.core.search.indexing.IIndexConstants;
 import org.eclipse.jdt.internal.core.search.indexing.ReadWriteMonitor;
 
 /**
@@ -37,6 +38,7 @@ static final char JAR_SEPARATOR = IJavaSearchScope.JAR_FILE_ENTRY_SEPARATOR.char
 
 protected DiskIndex diskIndex;
 protected MemoryIndex memoryIndex;
+private volatile SubtypeGraph subtypeGraph; // read on the first query of super type references, released when too many are read
 
 /**
  * Mask used on match rule for indexing.
@@ -51,42 +53,47 @@ static final int MATCH_RULE_INDEX_MASK =
 	SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH;
 
 public static boolean isMatch(char[] pattern, char[] word, int matchRule) {
+	return isMatch(pattern, word, word.length, matchRule);
+}
+/**
+ * Answers whether the pattern matches the first wordLength characters of the given word,
+ * see {@link #isMatch(char[], char[], int)}.
+ */
+static boolean isMatch(char[] pattern, char[] word, int wordLength, int matchRule) {
 	if (pattern == null) return true;
 	int patternLength = pattern.length;
-	int wordLength = word.length;
 	if (patternLength == 0) return matchRule != SearchPattern.R_EXACT_MATCH;
 	if (wordLength == 0) return (matchRule & SearchPattern.R_PATTERN_MATCH) != 0 && patternLength == 1 && pattern[0] == '*';
 
 	// need to mask some bits of pattern rule (bug 79790)
 	switch(matchRule & MATCH_RULE_INDEX_MASK) {
 		case SearchPattern.R_EXACT_MATCH :
-			return patternLength == wordLength && CharOperation.equals(pattern, word, false);
+			return patternLength == wordLength && CharOperation.equals(pattern, word, 0, wordLength, false);
 		case SearchPattern.R_PREFIX_MATCH :
 			return patternLength <= wordLength && CharOperation.prefixEquals(pattern, word, false);
 		case SearchPattern.R_PATTERN_MATCH :
-			return CharOperation.match(pattern, word, false);
+			return CharOperation.match(pattern, 0, patternLength, word, 0, wordLength, false);
 		case SearchPattern.R_CAMELCASE_MATCH:
 		// same part count is not activated because index key may have uppercase letters after the type name
 		case SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH:
-			if (CharOperation.camelCaseMatch(pattern, word, false)) {
+			if (CharOperation.camelCaseMatch(pattern, 0, patternLength, word, 0, wordLength, false)) {
 				return true;
 			}
 			return patternLength <= wordLength && CharOperation.prefixEquals(pattern, word, false);
 		case SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE :
-			return pattern[0] == word[0] && patternLength == wordLength && CharOperation.equals(pattern, word);
+			return pattern[0] == word[0] && patternLength == wordLength && CharOperation.equals(pattern, word, 0, wordLength);
 		case SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE :
 			return pattern[0] == word[0] && patternLength <= wordLength && CharOperation.prefixEquals(pattern, word);
 		case SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE :
-			return CharOperation.match(pattern, word, true);
+			return CharOperation.match(pattern, 0, patternLength, word, 0, wordLength, true);
 		case SearchPattern.R_CAMELCASE_MATCH | SearchPattern.R_CASE_SENSITIVE :
 		// same part count is not activated because index key may have uppercase letters after the type name
 		case SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH | SearchPattern.R_CASE_SENSITIVE :
-			return (pattern[0] == word[0] && CharOperation.camelCaseMatch(pattern, word, false));
+			return (pattern[0] == word[0] && CharOperation.camelCaseMatch(pattern, 0, patternLength, word, 0, wordLength, false));
 	}
 	return false;
 }
 
-
 public Index(IndexLocation location, String containerPath, boolean reuseExistingFile) throws IOException {
 	this.containerPath = containerPath;
 	this.monitor = new ReadWriteMonitor();
@@ -98,6 +105,9 @@ public Index(IndexLocation location, String containerPath, boolean reuseExisting
 }
 public void addIndexEntry(char[] category, char[] key, String containerRelativePath) {
 	this.memoryIndex.addIndexEntry(category, key, containerRelativePath);
+	SubtypeGraph graph = this.subtypeGraph;
+	if (graph != null && CharOperation.equals(category, IIndexConstants.SUPER_REF))
+		graph.add(key, containerRelativePath);
 }
 public String containerRelativePath(String documentPath) {
 	int index = documentPath.indexOf(IJavaSearchScope.JAR_FILE_ENTRY_SEPARATOR);
@@ -154,6 +164,14 @@ public EntryResult[] query(char[][] categories, char[] key, int matchRule) throw
 	}
 	return entryResults;
 }
+/**
+ * Returns the entries of the SUPER_REF category that refer to a super type with the given simple name,
+ * or all of them if the name is null, or null if no matches are found.
+ * Answered from the subtype graph of this index, which is read on the first call.
+ */
+public EntryResult[] querySuperTypeReferences(char[] superSimpleName) throws IOException {
+	return getSubtypeGraph().query(superSimpleName);
+}
 /**
  * Returns the document names that contain the given substring, if null then returns all of them.
  */
@@ -177,6 +195,9 @@ public String[] queryDocumentNames(String substring) throws IOException {
 }
 public void remove(String containerRelativePath) {
 	this.memoryIndex.remove(containerRelativePath);
+	SubtypeGraph graph = this.subtypeGraph;
+	if (graph != null)
+		graph.remove(containerRelativePath);
 }
 /**
  * Reset memory and disk indexes.
@@ -187,6 +208,8 @@ public void reset() throws IOException {
 	this.memoryIndex = new MemoryIndex();
 	this.diskIndex = new DiskIndex(this.diskIndex.indexLocation);
 	this.diskIndex.initialize(false/*do not reuse the index file*/);
+	this.subtypeGraph = null;
+	SubtypeGraph.released(this);
 }
 public void save() throws IOException {
 	// must own the write lock of the monitor
@@ -199,6 +222,21 @@ public void save() throws IOException {
 	if (numberOfChanges > 1000)
 		System.gc(); // reclaim space if the MemoryIndex was very BIG
 }
+private SubtypeGraph getSubtypeGraph() throws IOException {
+	SubtypeGraph graph;
+	synchronized (this) {
+		// concurrent readers of the index wait for the first one to read the graph
+		if (this.subtypeGraph == null)
+			this.subtypeGraph = new SubtypeGraph(this);
+		graph = this.subtypeGraph;
+	}
+	SubtypeGraph.queried(this, graph); // outside of the lock, may release the graphs of other indexes
+	return graph;
+}
+synchronized void releaseSubtypeGraph(SubtypeGraph graph) {
+	if (this.subtypeGraph == graph)
+		this.subtypeGraph = null;
+}
 public void startQuery() {
 	if (this.diskIndex != null)
 		this.diskIndex.startQuery();
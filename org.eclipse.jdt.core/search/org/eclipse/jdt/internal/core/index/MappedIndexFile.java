@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only view of an index file mapped in memory.
+ * <p>
+ * Words of the category tables are compared and decoded right from the mapped bytes, so a query
+ * only materializes the words and document numbers it answers. Each category table is followed by
+ * the offsets of its entries sorted by word (see <code>DiskIndex#writeCategoryTable</code>), which
+ * lets exact and prefix lookups binary search a category instead of scanning it.
+ * </p>
+ * All reads use absolute positions, so a mapped file can be shared by concurrent queries.
+ */
+class MappedIndexFile {
+
+private final ByteBuffer buffer;
+private final int documentReferenceSize;
+
+static MappedIndexFile map(File file, int documentReferenceSize) throws IOException {
+	RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+	try {
+		FileChannel channel = randomAccessFile.getChannel();
+		// the mapping remains valid once the channel is closed
+		return new MappedIndexFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), documentReferenceSize);
+	} finally {
+		randomAccessFile.close();
+	}
+}
+
+private MappedIndexFile(ByteBuffer buffer, int documentReferenceSize) {
+	this.buffer = buffer;
+	this.documentReferenceSize = documentReferenceSize;
+}
+/**
+ * Answers a negative, zero or positive value as the word at the given offset is lexicographically
+ * less than, equal to or greater than the key. When prefix is true, a word starting with the key
+ * is considered equal to it.
+ */
+int compareWord(int offset, char[] key, boolean prefix) throws UTFDataFormatException {
+	int wordLength = readUnsignedShort(offset);
+	int keyLength = key.length;
+	int max = wordLength < keyLength ? wordLength : keyLength;
+	int position = offset + 2;
+	for (int i = 0; i < max; i++) {
+		int b = this.buffer.get(position++);
+		char c;
+		if ((b & 0x80) == 0) {
+			c = (char) b;
+		} else {
+			c = decodeChar(b, position);
+			position += (b & 0xE0) == 0xC0 ? 1 : 2;
+		}
+		if (c != key[i])
+			return c - key[i];
+	}
+	if (prefix && keyLength <= wordLength)
+		return 0;
+	return wordLength - keyLength;
+}
+private char decodeChar(int b, int position) throws UTFDataFormatException {
+	// must be the same encoding as DiskIndex#readStreamChars()
+	switch (b & 0xF0) {
+		case 0xC0 :
+		case 0xD0 :
+			int next = this.buffer.get(position);
+			if ((next & 0xC0) != 0x80)
+				throw new UTFDataFormatException();
+			return (char) (((b & 0x1F) << 6) | (next & 0x3F));
+		case 0xE0 :
+			int first = this.buffer.get(position);
+			int second = this.buffer.get(position + 1);
+			if ((first & second & 0xC0) != 0x80)
+				throw new UTFDataFormatException();
+			return (char) (((b & 0x0F) << 12) | ((first & 0x3F) << 6) | (second & 0x3F));
+		default :
+			throw new UTFDataFormatException();
+	}
+}
+/**
+ * Answers the position of the first sorted entry whose word is greater than or equal to the key,
+ * or greater than any word starting with the key when afterPrefix is true.
+ */
+int findEntry(int wordTableOffset, int size, char[] key, boolean afterPrefix) throws UTFDataFormatException {
+	int low = 0;
+	int high = size;
+	while (low < high) {
+		int mid = (low + high) >>> 1;
+		int comparison = compareWord(sortedEntryOffset(wordTableOffset, mid), key, afterPrefix);
+		if (afterPrefix ? comparison <= 0 : comparison < 0)
+			low = mid + 1;
+		else
+			high = mid;
+	}
+	return low;
+}
+/**
+ * Answers the document numbers or their offset in the file, as expected by
+ * <code>DiskIndex#readDocumentNumbers(Object)</code>, for the entry whose word starts at the given offset.
+ */
+Object readDocumentTable(int offset) {
+	int arrayOffset = offset + 2 + readWordByteLength(offset);
+	int arraySize = readInt(arrayOffset);
+	// see DiskIndex#writeCategoryTable()
+	if (arraySize <= 0)
+		return new int[] {-arraySize};
+	if (arraySize < 256)
+		return Integer.valueOf(arrayOffset); // in-lined array follows its size
+	return Integer.valueOf(readInt(arrayOffset + 4)); // offset to the array written prior to the table
+}
+int[] readDocumentNumbers(int offset) {
+	int arraySize = readInt(offset);
+	int[] indexes = new int[arraySize];
+	int position = offset + 4;
+	switch (this.documentReferenceSize) {
+		case 1 :
+			for (int i = 0; i < arraySize; i++)
+				indexes[i] = this.buffer.get(position++) & 0xFF;
+			break;
+		case 2 :
+			for (int i = 0; i < arraySize; i++, position += 2)
+				indexes[i] = readUnsignedShort(position);
+			break;
+		default :
+			for (int i = 0; i < arraySize; i++, position += 4)
+				indexes[i] = readInt(position);
+			break;
+	}
+	return indexes;
+}
+void read(int offset, byte[] bytes) {
+	for (int i = 0, length = bytes.length; i < length; i++)
+		bytes[i] = this.buffer.get(offset + i);
+}
+int readInt(int offset) {
+	return this.buffer.getInt(offset); // big endian, as written by DiskIndex#writeStreamInt()
+}
+private int readUnsignedShort(int offset) {
+	return ((this.buffer.get(offset) & 0xFF) << 8) + (this.buffer.get(offset + 1) & 0xFF);
+}
+/**
+ * Decodes the word starting at the given offset into the given buffer, growing it if needed.
+ * Answers the buffer holding the word, whose length is {@link #readWordLength(int)}.
+ */
+char[] readWord(int offset, char[] word) throws UTFDataFormatException {
+	int length = readUnsignedShort(offset);
+	if (word == null || word.length < length)
+		word = new char[length < 32 ? 32 : length];
+	int position = offset + 2;
+	for (int i = 0; i < length; i++) {
+		int b = this.buffer.get(position++);
+		if ((b & 0x80) == 0) {
+			word[i] = (char) b;
+		} else {
+			word[i] = decodeChar(b, position);
+			position += (b & 0xE0) == 0xC0 ? 1 : 2;
+		}
+	}
+	return word;
+}
+private int readWordByteLength(int offset) {
+	int length = readUnsignedShort(offset);
+	int position = offset + 2;
+	for (int i = 0; i < length; i++) {
+		int b = this.buffer.get(position) & 0xFF;
+		position += b < 0x80 ? 1 : (b & 0xE0) == 0xC0 ? 2 : 3;
+	}
+	return position - offset - 2;
+}
+int readWordLength(int offset) {
+	return readUnsignedShort(offset);
+}
+int sortedEntryOffset(int wordTableOffset, int position) {
+	return readInt(wordTableOffset + (position << 2));
+}
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.internal.compiler.util.HashtableOfObject;
+import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
+import org.eclipse.jdt.internal.compiler.util.SimpleSet;
+import org.eclipse.jdt.internal.core.search.indexing.IIndexConstants;
+
+/**
+ * The super type references of the documents of an index, i.e. its SUPER_REF category, by simple name of super type.
+ * <p>
+ * The subtypes of a type hierarchy are expanded breadth-first, with one query of the SUPER_REF category
+ * of every index per subtype found. The graph is read from the index on the first of these queries, then
+ * kept up to date as the documents of its index are removed and indexed again, i.e. as the changes reported
+ * by the DeltaProcessor are indexed, so that the following queries are answered without reading the index.
+ * </p>
+ * <p>
+ * The graphs of all the indexes hold at most {@link #MAX_REFERENCES} references, beyond which the graphs of the
+ * least recently queried indexes are released, to be read again on their next query.
+ * </p>
+ * Like its index, a graph is queried under the read lock of the index monitor and updated under its write lock.
+ */
+public class SubtypeGraph {
+
+/**
+ * The maximum number of super type references kept by the graphs of all the indexes.
+ */
+public static int MAX_REFERENCES = 200000;
+
+// the indexes whose graph is read, from the least to the most recently queried, guarded by itself
+private static final LinkedHashMap<Index, SubtypeGraph> Graphs = new LinkedHashMap<Index, SubtypeGraph>(16, 0.75f, true);
+
+private HashtableOfObject superNamesToReferences; // super simple name -> HashtableOfObject(index key -> SimpleSet of document names)
+private SimpleLookupTable documentsToKeys; // document name -> ArrayList of index keys
+private int referenceCount;
+
+/**
+ * Answers the number of super type references kept by the graphs of all the indexes.
+ */
+public static int cachedReferences() {
+	synchronized (Graphs) {
+		int total = 0;
+		for (Iterator<SubtypeGraph> iterator = Graphs.values().iterator(); iterator.hasNext();)
+			total += iterator.next().referenceCount;
+		return total;
+	}
+}
+/**
+ * Records that the given graph of the given index was queried, and releases the graphs of the least recently
+ * queried indexes if the graphs hold too many references.
+ */
+static void queried(Index index, SubtypeGraph graph) {
+	synchronized (Graphs) {
+		if (Graphs.put(index, graph) == graph) return; // only moved to the end
+		int total = cachedReferences();
+		for (Iterator<Map.Entry<Index, SubtypeGraph>> iterator = Graphs.entrySet().iterator(); total > MAX_REFERENCES && iterator.hasNext();) {
+			Map.Entry<Index, SubtypeGraph> entry = iterator.next();
+			if (entry.getKey() == index) break; // the most recent one
+			iterator.remove();
+			total -= entry.getValue().referenceCount;
+			entry.getKey().releaseSubtypeGraph(entry.getValue());
+		}
+	}
+}
+/**
+ * Forgets the graph of the given index, which was reset.
+ */
+static void released(Index index) {
+	synchronized (Graphs) {
+		Graphs.remove(index);
+	}
+}
+
+SubtypeGraph(Index index) throws IOException {
+	this.superNamesToReferences = new HashtableOfObject(101);
+	this.documentsToKeys = new SimpleLookupTable(101);
+	EntryResult[] entries = index.query(new char[][] {IIndexConstants.SUPER_REF}, null, SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+	if (entries == null) return;
+	for (int i = 0, l = entries.length; i < l; i++) {
+		EntryResult entry = entries[i];
+		String[] documentNames = entry.getDocumentNames(index);
+		for (int j = 0, m = documentNames.length; j < m; j++)
+			add(entry.getWord(), documentNames[j]);
+	}
+}
+/**
+ * Records that the given document refers to a super type, as described by the given index key.
+ */
+void add(char[] key, String documentName) {
+	char[] superSimpleName = superSimpleName(key);
+	HashtableOfObject references = (HashtableOfObject) this.superNamesToReferences.get(superSimpleName);
+	if (references == null)
+		this.superNamesToReferences.put(superSimpleName, references = new HashtableOfObject(3));
+	SimpleSet documentNames = (SimpleSet) references.get(key);
+	if (documentNames == null)
+		references.put(key, documentNames = new SimpleSet(3));
+	if (documentNames.addIfNotIncluded(documentName) != null)
+		this.referenceCount++;
+
+	@SuppressWarnings("unchecked")
+	ArrayList<char[]> keys = (ArrayList<char[]>) this.documentsToKeys.get(documentName);
+	if (keys == null)
+		this.documentsToKeys.put(documentName, keys = new ArrayList<char[]>(3));
+	keys.add(key);
+}
+/**
+ * Forgets the super type references of the given document.
+ */
+void remove(String documentName) {
+	@SuppressWarnings("unchecked")
+	ArrayList<char[]> keys = (ArrayList<char[]>) this.documentsToKeys.removeKey(documentName);
+	if (keys == null) return;
+	for (int i = 0, l = keys.size(); i < l; i++) {
+		char[] key = keys.get(i);
+		HashtableOfObject references = (HashtableOfObject) this.superNamesToReferences.get(superSimpleName(key));
+		if (references == null) continue;
+		// keep the empty set, removing the key would rehash the references to common super types every time
+		SimpleSet documentNames = (SimpleSet) references.get(key);
+		if (documentNames != null && documentNames.remove(documentName) != null)
+			this.referenceCount--;
+	}
+}
+/**
+ * Returns the super type references to the given simple name, all of them if the name is null,
+ * or null if there are none.
+ */
+EntryResult[] query(char[] superSimpleName) {
+	ArrayList<EntryResult> results = new ArrayList<EntryResult>();
+	if (superSimpleName != null) {
+		HashtableOfObject references = (HashtableOfObject) this.superNamesToReferences.get(superSimpleName);
+		if (references != null)
+			addQueryResults(references, results);
+	} else {
+		Object[] values = this.superNamesToReferences.valueTable;
+		for (int i = 0, l = values.length; i < l; i++)
+			if (values[i] != null)
+				addQueryResults((HashtableOfObject) values[i], results);
+	}
+	int size = results.size();
+	return size == 0 ? null : results.toArray(new EntryResult[size]);
+}
+private void addQueryResults(HashtableOfObject references, ArrayList<EntryResult> results) {
+	char[][] keys = references.keyTable;
+	Object[] values = references.valueTable;
+	for (int i = 0, l = keys.length; i < l; i++) {
+		if (keys[i] == null) continue;
+		SimpleSet documentNames = (SimpleSet) values[i];
+		if (documentNames.elementSize == 0) continue;
+		EntryResult result = new EntryResult(keys[i], null);
+		Object[] names = documentNames.values;
+		for (int j = 0, m = names.length; j < m; j++)
+			if (names[j] != null)
+				result.addDocumentName((String) names[j]);
+		results.add(result);
+	}
+}
+private static char[] superSimpleName(char[] key) {
+	// superSimpleName / superQualification / simpleName / enclosingTypeName / typeParameters / packageName / superClassOrInterface classOrInterface modifiers
+	return CharOperation.subarray(key, 0, CharOperation.indexOf(IIndexConstants.SEPARATOR, key));
+}
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.index;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.internal.compiler.parser.ScannerHelper;
+import org.eclipse.jdt.internal.compiler.util.HashtableOfLong;
+
+/**
+ * The trigrams and camel case humps of the words of a category table of a {@link DiskIndex}.
+ * <p>
+ * Queries with a pattern, camel case or case insensitive match rule cannot look up a word of the
+ * category, so they used to match all of its words. This index narrows them to candidate words:
+ * <ul>
+ * <li>the words which contain the lower case trigrams of the literal parts of a pattern,</li>
+ * <li>the words whose humps start with the humps of a camel case pattern (see {@link #humps(char[])}),</li>
+ * <li>the words starting with a case insensitive prefix.</li>
+ * </ul>
+ * Candidates are a superset of the matching words, they still have to be matched with
+ * {@link Index#isMatch(char[], char[], int)}.
+ * </p>
+ * The index of a category is built by its disk index the first time the category is queried with
+ * one of these rules, and is dropped with its disk index once the index file is merged.
+ */
+class WordGramIndex {
+
+static final int MIN_WORDS = 1000; // smaller categories are faster to match than to index
+private static final int[] NO_POSITIONS = new int[0];
+
+final char[][] words;
+final Object[] documentTables; // document numbers or offset of the word at the same position, null when read from the mapped file
+private HashtableOfLong trigrams; // packed lower case trigram -> int[] of sorted word positions
+private char[][] humps; // humps of the word at the same position
+private int[] byHumps; // word positions sorted by humps
+private int[] byLowerCase; // word positions sorted by lower case word
+
+WordGramIndex(char[][] words, Object[] documentTables) {
+	this.words = words;
+	this.documentTables = documentTables;
+	int length = words.length;
+
+	HashtableOfLong lists = new HashtableOfLong(length);
+	for (int i = 0; i < length; i++) {
+		char[] word = words[i];
+		for (int j = 0, l = word.length - 2; j < l; j++) {
+			long trigram = trigram(word, j);
+			DiskIndex.IntList positions = (DiskIndex.IntList) lists.get(trigram);
+			if (positions == null)
+				lists.put(trigram, new DiskIndex.IntList(new int[] {i}));
+			else if (positions.elements[positions.size - 1] != i) // once per word
+				positions.add(i);
+		}
+	}
+	Object[] values = lists.valueTable;
+	for (int i = 0, l = values.length; i < l; i++)
+		if (values[i] != null)
+			values[i] = ((DiskIndex.IntList) values[i]).asArray();
+	this.trigrams = lists;
+
+	this.humps = new char[length][];
+	for (int i = 0; i < length; i++)
+		this.humps[i] = humps(words[i]);
+	this.byHumps = sort(this.humps, false);
+	this.byLowerCase = sort(words, true);
+}
+/**
+ * Answers the sorted positions of the words which may match the given key with the given rule,
+ * or null if the rule is not supported or the key does not narrow the words, i.e. all the words
+ * have to be matched. The answered array must not be modified.
+ */
+int[] candidates(char[] key, int matchRule) {
+	if (key == null || key.length == 0) return null;
+	boolean isCaseSensitive = (matchRule & SearchPattern.R_CASE_SENSITIVE) != 0;
+	switch (matchRule & ~SearchPattern.R_CASE_SENSITIVE) {
+		case SearchPattern.R_EXACT_MATCH :
+		case SearchPattern.R_PREFIX_MATCH :
+			// case sensitive keys are looked up by the disk index
+			return isCaseSensitive ? null : range(this.byLowerCase, this.words, key, true);
+		case SearchPattern.R_PATTERN_MATCH :
+			return patternCandidates(key);
+		case SearchPattern.R_CAMELCASE_MATCH :
+		case SearchPattern.R_CAMELCASE_SAME_PART_COUNT_MATCH :
+			char[] keyHumps = humps(key);
+			if (keyHumps.length == 0) // a camel case match of a lower case key is a case sensitive prefix match
+				return range(this.byLowerCase, this.words, key, true);
+			int[] candidates = range(this.byHumps, this.humps, keyHumps, false);
+			if (isCaseSensitive)
+				return candidates;
+			// a case insensitive camel case match also accepts the words starting with the key
+			int[] prefixCandidates = range(this.byLowerCase, this.words, key, true);
+			if (prefixCandidates.length == 0)
+				return candidates;
+			int[] union = new int[candidates.length + prefixCandidates.length];
+			System.arraycopy(candidates, 0, union, 0, candidates.length);
+			System.arraycopy(prefixCandidates, 0, union, candidates.length, prefixCandidates.length);
+			Arrays.sort(union);
+			int count = 0;
+			for (int i = 0, l = union.length; i < l; i++)
+				if (i == 0 || union[i] != union[i - 1])
+					union[count++] = union[i];
+			if (count < union.length)
+				System.arraycopy(union, 0, union = new int[count], 0, count);
+			return union;
+	}
+	return null;
+}
+private int[] patternCandidates(char[] pattern) {
+	int[] candidates = null;
+	int start = 0;
+	for (int i = 0, length = pattern.length; i <= length; i++) {
+		if (i < length && pattern[i] != '*' && pattern[i] != '?') continue;
+		// intersect the positions of the words containing the trigrams of each literal part
+		for (int j = start; j < i - 2; j++) {
+			int[] positions = (int[]) this.trigrams.get(trigram(pattern, j));
+			if (positions == null)
+				return NO_POSITIONS;
+			candidates = candidates == null ? positions : intersect(candidates, positions);
+			if (candidates.length == 0)
+				return candidates;
+		}
+		start = i + 1;
+	}
+	return candidates;
+}
+/**
+ * Answers the characters of the given word at which a camel case pattern must start a new part,
+ * i.e. which {@link CharOperation#camelCaseMatch(char[], char[])} never skips. When a key matches a word,
+ * the humps of the key are the humps of a prefix of the word.
+ */
+static char[] humps(char[] word) {
+	char[] humps = null;
+	int count = 0;
+	for (int i = 0, length = word.length; i < length; i++) {
+		char c = word[i];
+		boolean isHump;
+		if (c < ScannerHelper.MAX_OBVIOUS)
+			isHump = (ScannerHelper.OBVIOUS_IDENT_CHAR_NATURES[c] & (ScannerHelper.C_LOWER_LETTER | ScannerHelper.C_SPECIAL | ScannerHelper.C_DIGIT)) == 0;
+		else
+			isHump = !(Character.isJavaIdentifierPart(c) && !Character.isUpperCase(c)) && !Character.isDigit(c);
+		if (isHump) {
+			if (humps == null)
+				humps = new char[length - i];
+			humps[count++] = c;
+		}
+	}
+	if (humps == null)
+		return CharOperation.NO_CHAR;
+	if (count < humps.length)
+		System.arraycopy(humps, 0, humps = new char[count], 0, count);
+	return humps;
+}
+private static int[] intersect(int[] first, int[] second) {
+	int[] result = new int[Math.min(first.length, second.length)];
+	int count = 0;
+	for (int i = 0, j = 0, l = first.length, m = second.length; i < l && j < m;) {
+		if (first[i] < second[j]) {
+			i++;
+		} else if (first[i] > second[j]) {
+			j++;
+		} else {
+			result[count++] = first[i];
+			i++;
+			j++;
+		}
+	}
+	if (count < result.length)
+		System.arraycopy(result, 0, result = new int[count], 0, count);
+	return result;
+}
+/*
+ * Answers the sorted positions of the words whose sort key starts with the given prefix.
+ */
+private static int[] range(int[] sortedPositions, char[][] sortKeys, char[] prefix, boolean lowerCase) {
+	int start = find(sortedPositions, sortKeys, prefix, lowerCase, false);
+	int end = find(sortedPositions, sortKeys, prefix, lowerCase, true);
+	if (start >= end) return NO_POSITIONS;
+	int[] positions = new int[end - start];
+	System.arraycopy(sortedPositions, start, positions, 0, positions.length);
+	Arrays.sort(positions);
+	return positions;
+}
+private static int find(int[] sortedPositions, char[][] sortKeys, char[] prefix, boolean lowerCase, boolean afterPrefix) {
+	// same as MappedIndexFile#findEntry()
+	int low = 0;
+	int high = sortedPositions.length;
+	while (low < high) {
+		int mid = (low + high) >>> 1;
+		int comparison = compareWord(sortKeys[sortedPositions[mid]], prefix, afterPrefix, lowerCase);
+		if (afterPrefix ? comparison <= 0 : comparison < 0)
+			low = mid + 1;
+		else
+			high = mid;
+	}
+	return low;
+}
+private static int compareWord(char[] word, char[] key, boolean prefix, boolean lowerCase) {
+	int wordLength = word.length;
+	int keyLength = key.length;
+	for (int i = 0, max = wordLength < keyLength ? wordLength : keyLength; i < max; i++) {
+		char c = word[i];
+		char k = key[i];
+		if (lowerCase) {
+			c = ScannerHelper.toLowerCase(c);
+			k = ScannerHelper.toLowerCase(k);
+		}
+		if (c != k)
+			return c - k;
+	}
+	if (prefix && keyLength <= wordLength)
+		return 0;
+	return wordLength - keyLength;
+}
+/*
+ * Answers the positions of the given sort keys, sorted by key.
+ */
+private static int[] sort(char[][] sortKeys, boolean lowerCase) {
+	int length = sortKeys.length;
+	int[] sorted = new int[length];
+	for (int i = 0; i < length; i++)
+		sorted[i] = i;
+	mergeSort(sorted.clone(), sorted, 0, length, sortKeys, lowerCase);
+	return sorted;
+}
+private static void mergeSort(int[] source, int[] destination, int low, int high, char[][] sortKeys, boolean lowerCase) {
+	// same as the merge sort of java.util.Arrays, stable
+	int length = high - low;
+	if (length < 7) {
+		for (int i = low; i < high; i++)
+			for (int j = i; j > low && compareWord(sortKeys[destination[j - 1]], sortKeys[destination[j]], false, lowerCase) > 0; j--) {
+				int position = destination[j];
+				destination[j] = destination[j - 1];
+				destination[j - 1] = position;
+			}
+		return;
+	}
+	int mid = (low + high) >>> 1;
+	mergeSort(destination, source, low, mid, sortKeys, lowerCase);
+	mergeSort(destination, source, mid, high, sortKeys, lowerCase);
+	if (compareWord(sortKeys[source[mid - 1]], sortKeys[source[mid]], false, lowerCase) <= 0) {
+		System.arraycopy(source, low, destination, low, length);
+		return;
+	}
+	for (int i = low, p = low, q = mid; i < high; i++) {
+		if (q >= high || (p < mid && compareWord(sortKeys[source[p]], sortKeys[source[q]], false, lowerCase) <= 0))
+			destination[i] = source[p++];
+		else
+			destination[i] = source[q++];
+	}
+}
+private static long trigram(char[] chars, int start) {
+	char c0 = ScannerHelper.toLowerCase(chars[start]);
+	char c1 = ScannerHelper.toLowerCase(chars[start + 1]);
+	char c2 = ScannerHelper.toLowerCase(chars[start + 2]);
+	// HashtableOfLong hashes the high int, which would only be the first character: spread it over the trigram
+	int hash = ((c0 * 31) + c1) * 31 + c2;
+	return ((long) (hash & 0x7FFF) << 48) | ((long) c0 << 32) | (((long) c1 << 16) | c2);
+}
+}
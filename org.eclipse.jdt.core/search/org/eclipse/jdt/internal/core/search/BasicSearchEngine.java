@@ -1807,24 +1807,32 @@ public class BasicSearchEngine {
 					if (match(record.typeSuffix, record.modifiers)) {
 						nameRequestor.acceptType(record.modifiers, record.pkg, record.simpleName, record.enclosingTypeNames, documentPath, accessRestriction);
 					}
-					return true;
+					return !isLimitReached(nameRequestor); // stop reading the index and skip the next ones
 				}
 			};
 	
 			SubMonitor subMonitor = SubMonitor.convert(progressMonitor, Messages.engine_searching, 1000);
 			// add type names from indexes
-			indexManager.performConcurrentJob(
-				new PatternSearchJob(
-					pattern,
-					getDefaultSearchParticipant(), // Java search only
-					scope,
-					searchRequestor),
-				waitingPolicy,
-				subMonitor.split(Math.max(1000-copiesLength, 0)));
+			try {
+				indexManager.performConcurrentJob(
+					new PatternSearchJob(
+						pattern,
+						getDefaultSearchParticipant(), // Java search only
+						scope,
+						searchRequestor),
+					waitingPolicy,
+					subMonitor.split(Math.max(1000-copiesLength, 0)));
+			} catch (OperationCanceledException e) {
+				if (!isLimitReached(nameRequestor)) throw e;
+				if (VERBOSE)
+					Util.verbose("	- stopped after the maximum number of matches"); //$NON-NLS-1$
+				return;
+			}
 	
 			// add type names from working copies
 			if (copies != null) {
 				for (int i = 0; i < copiesLength; i++) {
+					if (isLimitReached(nameRequestor)) break;
 					SubMonitor iterationMonitor = subMonitor.split(i);
 					final ICompilationUnit workingCopy = copies[i];
 					if (scope instanceof HierarchyScope) {
@@ -1860,7 +1868,7 @@ public class BasicSearchEngine {
 							}
 							if (match(typeSuffix, packageName, packageMatchRule, typeName, validatedTypeMatchRule, kind, packageDeclaration, simpleName)) {
 								if (nameRequestor instanceof TypeNameMatchRequestorWrapper) {
-									((TypeNameMatchRequestorWrapper)nameRequestor).requestor.acceptTypeNameMatch(new JavaSearchTypeNameMatch(type, type.getFlags()));
+									((TypeNameMatchRequestorWrapper)nameRequestor).acceptTypeNameMatch(new JavaSearchTypeNameMatch(type, type.getFlags()));
 								} else {
 									nameRequestor.acceptType(type.getFlags(), packageDeclaration, simpleName, enclosingTypeNames, path, null);
 								}
@@ -1881,7 +1889,7 @@ public class BasicSearchEngine {
 									if (match(typeSuffix, packageName, packageMatchRule, typeName, validatedTypeMatchRule, TypeDeclaration.kind(typeDeclaration.modifiers), packageDeclaration, typeDeclaration.name)) {
 										if (nameRequestor instanceof TypeNameMatchRequestorWrapper) {
 											IType type = workingCopy.getType(new String(typeName));
-											((TypeNameMatchRequestorWrapper)nameRequestor).requestor.acceptTypeNameMatch(new JavaSearchTypeNameMatch(type, typeDeclaration.modifiers));
+											((TypeNameMatchRequestorWrapper)nameRequestor).acceptTypeNameMatch(new JavaSearchTypeNameMatch(type, typeDeclaration.modifiers));
 										} else {
 											nameRequestor.acceptType(typeDeclaration.modifiers, packageDeclaration, typeDeclaration.name, CharOperation.NO_CHAR_CHAR, path, null);
 										}
@@ -1907,7 +1915,7 @@ public class BasicSearchEngine {
 											for (int j=1, l=enclosingTypeNames.length; j<l; j++) {
 												type = type.getType(new String(enclosingTypeNames[j]));
 											}
-											((TypeNameMatchRequestorWrapper)nameRequestor).requestor.acceptTypeNameMatch(new JavaSearchTypeNameMatch(type, 0));
+											((TypeNameMatchRequestorWrapper)nameRequestor).acceptTypeNameMatch(new JavaSearchTypeNameMatch(type, 0));
 										} else {
 											nameRequestor.acceptType(memberTypeDeclaration.modifiers, packageDeclaration, memberTypeDeclaration.name, enclosingTypeNames, path, null);
 										}
@@ -1927,6 +1935,13 @@ public class BasicSearchEngine {
 		}
 	}
 
+	/*
+	 * Returns whether the given requestor has received all the matches it accepts.
+	 */
+	private static boolean isLimitReached(IRestrictedAccessTypeRequestor nameRequestor) {
+		return nameRequestor instanceof TypeNameMatchRequestorWrapper && ((TypeNameMatchRequestorWrapper) nameRequestor).isLimitReached();
+	}
+
 	/**
 	 * Searches for all top-level types and member types in the given scope using  a case sensitive exact match
 	 * with the given qualified names and type names.
@@ -127,12 +127,14 @@ private static int canSeeFocus(IJavaElement focus, JavaProject javaProject, char
 				if (focusQualifiedNames != null) { // builder state is usable, hence use it to try to reduce project which can see the focus...
 					State projectState = (State) JavaModelManager.getJavaModelManager().getLastBuiltState(javaProject.getProject(), null);
 					if (projectState != null) {
+						// looks up the focus names once in the names of the state
+						ReferenceCollection.Names focusNames = new ReferenceCollection.Names(focusQualifiedNames, null, null);
 						Object[] values = projectState.getReferences().valueTable;
 						int vLength = values.length;
 						for (int j=0; j<vLength; j++)  {
 							if (values[j] == null) continue;
 							ReferenceCollection references = (ReferenceCollection) values[j];
-							if (references.includes(focusQualifiedNames, null, null)) {
+							if (references.includes(focusNames)) {
 								return PROJECT_CAN_SEE_FOCUS;
 							}
 						}
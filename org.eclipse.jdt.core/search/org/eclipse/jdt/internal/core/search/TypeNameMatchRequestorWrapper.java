@@ -15,6 +15,7 @@ import org.eclipse.jdt.core.IAccessRule;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.TypeNameMatch;
 import org.eclipse.jdt.core.search.TypeNameMatchRequestor;
 import org.eclipse.jdt.core.search.TypeNameRequestor;
 import org.eclipse.jdt.internal.compiler.env.AccessRestriction;
@@ -44,10 +45,19 @@ import org.eclipse.jdt.internal.compiler.env.AccessRestriction;
  */
 public class TypeNameMatchRequestorWrapper extends NameMatchRequestorWrapper  implements IRestrictedAccessTypeRequestor {
 	TypeNameMatchRequestor requestor;
+	private int maxMatches;
+	private int matchCount = 0;
 
 public TypeNameMatchRequestorWrapper(TypeNameMatchRequestor requestor, IJavaSearchScope scope) {
+	this(requestor, scope, Integer.MAX_VALUE);
+}
+/**
+ * Creates a wrapper which reports at most the given number of matches to the given requestor.
+ */
+public TypeNameMatchRequestorWrapper(TypeNameMatchRequestor requestor, IJavaSearchScope scope, int maxMatches) {
 	super(scope);
 	this.requestor = requestor;
+	this.maxMatches = maxMatches;
 }
 
 /* (non-Javadoc)
@@ -77,8 +87,23 @@ public void acceptType(int modifiers, char[] packageName, char[] simpleTypeName,
 				}
 			}
 			// Accept match
-			this.requestor.acceptTypeNameMatch(match);
+			acceptTypeNameMatch(match);
 		}
 	}
 }
+/**
+ * Reports the given match to the requestor, unless the maximum number of matches has already been reported.
+ */
+void acceptTypeNameMatch(TypeNameMatch match) {
+	if (this.matchCount < this.maxMatches) {
+		this.matchCount++;
+		this.requestor.acceptTypeNameMatch(match);
+	}
+}
+/**
+ * Returns whether the maximum number of matches has been reported, i.e. whether the search can stop.
+ */
+boolean isLimitReached() {
+	return this.matchCount >= this.maxMatches;
+}
 }
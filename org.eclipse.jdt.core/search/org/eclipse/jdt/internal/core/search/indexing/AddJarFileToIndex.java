@@ -13,6 +13,7 @@ package org.eclipse.jdt.internal.core.search.indexing;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipError;
@@ -102,6 +103,10 @@ class AddJarFileToIndex extends IndexRequest {
 				return true;
 			}
 
+			// an identical JAR may have been indexed already, possibly in another workspace
+			File localJarFile = this.forceIndexUpdate ? null : localJarFile();
+			String digest = localJarFile == null ? null : this.manager.reuseSharedIndex(this.containerPath, localJarFile);
+
 			index = this.manager.getIndexForUpdate(this.containerPath, true, /*reuse index file*/ true /*create if none*/);
 			if (index == null) {
 				if (JobManager.VERBOSE)
@@ -218,19 +223,36 @@ class AddJarFileToIndex extends IndexRequest {
 				if ((indexLocation = index.getIndexLocation()) != null) {
 					indexPath = new Path(indexLocation.getCanonicalFilePath());
 				}
+				ArrayList<ZipEntry> classFiles = new ArrayList<ZipEntry>();
 				for (Enumeration e = zip.entries(); e.hasMoreElements();) {
-					if (this.isCancelled) {
-						if (JobManager.VERBOSE)
-							org.eclipse.jdt.internal.core.util.Util.verbose("-> indexing of " + zip.getName() + " has been cancelled"); //$NON-NLS-1$ //$NON-NLS-2$
-						return false;
-					}
-
 					// iterate each entry to index it
 					ZipEntry ze = (ZipEntry) e.nextElement();
 					String zipEntryName = ze.getName();
 					if (Util.isClassFileName(zipEntryName) && 
 							isValidPackageNameForClass(zipEntryName)) {
 						// index only classes coming from valid packages - https://bugs.eclipse.org/bugs/show_bug.cgi?id=293861
+						classFiles.add(ze);
+					}
+				}
+				int helpers = this.manager.getJarIndexingThreads() - 1;
+				if (helpers > 0 && classFiles.size() >= ParallelJarIndexer.MIN_CLASS_FILES) {
+					// read and index the class files with the help of the idle indexing threads, the index is only updated by this one
+					if (JobManager.VERBOSE)
+						org.eclipse.jdt.internal.core.util.Util.verbose("-> indexing " + classFiles.size() + " class files with the help of at most " + helpers + " threads"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					ParallelJarIndexer indexer = new ParallelJarIndexer(zip, zipFilePath, participant, classFiles.toArray(new ZipEntry[classFiles.size()]));
+					if (!indexer.indexInto(index, this, this.manager, helpers)) {
+						if (JobManager.VERBOSE)
+							org.eclipse.jdt.internal.core.util.Util.verbose("-> indexing of " + zip.getName() + " has been cancelled"); //$NON-NLS-1$ //$NON-NLS-2$
+						return false;
+					}
+				} else {
+					for (int i = 0, length = classFiles.size(); i < length; i++) {
+						if (this.isCancelled) {
+							if (JobManager.VERBOSE)
+								org.eclipse.jdt.internal.core.util.Util.verbose("-> indexing of " + zip.getName() + " has been cancelled"); //$NON-NLS-1$ //$NON-NLS-2$
+							return false;
+						}
+						ZipEntry ze = classFiles.get(i);
 						final byte[] classFileBytes = org.eclipse.jdt.internal.compiler.util.Util.getZipEntryByteContent(ze, zip);
 						JavaSearchDocument entryDocument = new JavaSearchDocument(ze, zipFilePath, classFileBytes, participant);
 						this.manager.indexDocument(entryDocument, participant, index, indexPath);
@@ -241,6 +263,8 @@ class AddJarFileToIndex extends IndexRequest {
 				}
 				else {
 					this.manager.saveIndex(index);
+					if (localJarFile != null)
+						this.manager.shareIndex(index, localJarFile, digest);
 				}
 				if (JobManager.VERBOSE)
 					org.eclipse.jdt.internal.core.util.Util.verbose("-> done indexing of " //$NON-NLS-1$
@@ -276,6 +300,12 @@ class AddJarFileToIndex extends IndexRequest {
 			return super.getJobFamily();
 		return this.containerPath.toOSString(); // external jar
 	}	
+	private File localJarFile() {
+		if (this.resource == null)
+			return this.containerPath.toFile(); // external file -> it is ok to use toFile()
+		IPath location = this.resource.getLocation();
+		return location == null ? null : location.toFile();
+	}
 	private boolean isIdentifier() throws InvalidInputException {
 		switch(this.scanner.scanIdentifier()) {
 			// assert and enum will not be recognized as java identifiers 
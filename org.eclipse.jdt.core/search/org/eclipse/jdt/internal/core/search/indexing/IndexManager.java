@@ -72,6 +72,20 @@ public class IndexManager extends JobManager implements IIndexConstants {
 	public static final String MANAGE_PRODUCT_INDEXES_PROPERTY = "jdt.core.manageProductIndexes"; //$NON-NLS-1$
 	private static final boolean IS_MANAGING_PRODUCT_INDEXES_PROPERTY = Boolean.getBoolean(MANAGE_PRODUCT_INDEXES_PROPERTY);
 
+	// number of threads indexing different containers concurrently, defaults to half of the available processors (at most 4)
+	public static final String INDEXING_THREADS_PROPERTY = "jdt.core.indexingThreads"; //$NON-NLS-1$
+	// maximum number of threads indexing the class files of a large JAR, 1 to disable
+	// the job thread is helped by the idle indexing threads, so it defaults to their number and cannot exceed it
+	public static final String JAR_INDEXING_THREADS_PROPERTY = "jdt.core.jarIndexingThreads"; //$NON-NLS-1$
+
+	// directory of the JAR index files shared by identical JARs, see SharedIndexCache
+	// defaults to .eclipse/org.eclipse.jdt.core/sharedIndexes in the user home, so that all the workspaces of the user share them,
+	// or to the sharedIndexes folder of the plug-in state location if the user home cannot be written
+	public static final String SHARED_INDEX_LOCATION_PROPERTY = "jdt.core.sharedIndexLocation"; //$NON-NLS-1$
+	// maximum size of the shared JAR index files in megabytes, 0 to disable sharing
+	public static final String SHARED_INDEX_MAX_SIZE_PROPERTY = "jdt.core.sharedIndexMaxSize"; //$NON-NLS-1$
+	private SharedIndexCache sharedIndexCache;
+
 	// Debug
 	public static boolean DEBUG = false;
 
@@ -452,6 +466,23 @@ private IPath getJavaPluginWorkingLocation() {
 	IPath stateLocation = JavaCore.getPlugin().getStateLocation();
 	return this.javaPluginLocation = stateLocation;
 }
+private synchronized SharedIndexCache getSharedIndexCache() {
+	if (this.sharedIndexCache == null) {
+		long maxSize = Long.getLong(SHARED_INDEX_MAX_SIZE_PROPERTY, 256).longValue();
+		if (maxSize <= 0) return null;
+		String location = System.getProperty(SHARED_INDEX_LOCATION_PROPERTY);
+		File directory;
+		if (location != null) {
+			directory = new File(location);
+		} else {
+			directory = new File(System.getProperty("user.home"), ".eclipse/" + JavaCore.PLUGIN_ID + "/sharedIndexes"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			if (!directory.isDirectory() && !directory.mkdirs())
+				directory = new File(getSavedIndexesDirectory(), "sharedIndexes"); //$NON-NLS-1$
+		}
+		this.sharedIndexCache = new SharedIndexCache(directory, maxSize * 1024 * 1024);
+	}
+	return this.sharedIndexCache;
+}
 private File getSavedIndexesDirectory() {
 	return new File(getJavaPluginWorkingLocation().toOSString());
 }
@@ -619,6 +650,38 @@ public void indexSourceFolder(JavaProject javaProject, IPath sourceFolder, char[
 
 	request(new AddFolderToIndex(sourceFolder, project, inclusionPatterns, exclusionPatterns, this));
 }
+/**
+ * Copies the index shared by an identical JAR to the index file of the given JAR, unless this file exists.
+ * Answers the digest of the JAR if it was computed, null otherwise.
+ */
+String reuseSharedIndex(IPath containerPath, File jarFile) {
+	SharedIndexCache cache = getSharedIndexCache();
+	if (cache == null) return null;
+	File indexFile;
+	synchronized (this) {
+		IndexLocation indexLocation = computeIndexLocation(containerPath);
+		if (getIndex(indexLocation) != null || indexLocation.exists()) return null;
+		indexFile = indexLocation.getIndexFile();
+		if (indexFile == null) return null;
+	}
+	// the digest is computed outside of the lock, as the central directory of the JAR is read
+	String digest = cache.computeDigest(jarFile);
+	if (digest != null && cache.copyTo(digest, indexFile) && VERBOSE)
+		Util.verbose("-> reusing shared index " + digest + " for " + containerPath); //$NON-NLS-1$ //$NON-NLS-2$
+	return digest;
+}
+/**
+ * Shares the index of the given JAR with the identical JARs, once it has been saved.
+ */
+void shareIndex(Index index, File jarFile, String digest) {
+	SharedIndexCache cache = getSharedIndexCache();
+	if (cache == null) return;
+	IndexLocation indexLocation = index.getIndexLocation();
+	File indexFile = indexLocation == null ? null : indexLocation.getIndexFile();
+	if (indexFile == null || !indexFile.exists()) return;
+	if (digest == null && (digest = cache.computeDigest(jarFile)) == null) return;
+	cache.publish(digest, indexFile);
+}
 public synchronized void jobWasCancelled(IPath containerPath) {
 	IndexLocation indexLocation = computeIndexLocation(containerPath);
 	Index index = getIndex(indexLocation);
@@ -629,13 +692,13 @@ public synchronized void jobWasCancelled(IPath containerPath) {
 	updateIndexState(indexLocation, UNKNOWN_STATE);
 }
 /**
- * Advance to the next available job, once the current one has been completed.
+ * Advance to the next available job, once the given one has been completed.
  * Note: clients awaiting until the job count is zero are still waiting at this point.
  */
-protected synchronized void moveToNextJob() {
+protected synchronized void moveToNextJob(IJob completedJob) {
 	// remember that one job was executed, and we will need to save indexes at some point
 	this.needToSave = true;
-	super.moveToNextJob();
+	super.moveToNextJob(completedJob);
 }
 /**
  * No more job awaiting.
@@ -643,6 +706,25 @@ protected synchronized void moveToNextJob() {
 protected void notifyIdle(long idlingTime){
 	if (idlingTime > 1000 && this.needToSave) saveIndexes();
 }
+/**
+ * Index requests of different containers update different indexes, so they can be executed concurrently
+ */
+protected boolean canRunConcurrently(IJob job) {
+	return job instanceof IndexRequest;
+}
+protected int getParallelism() {
+	int defaultThreads = Math.min(4, Runtime.getRuntime().availableProcessors() / 2);
+	int threads = Integer.getInteger(INDEXING_THREADS_PROPERTY, defaultThreads).intValue();
+	return threads < 1 ? 1 : threads;
+}
+/**
+ * Maximum number of threads reading and indexing the class files of a JAR, see AddJarFileToIndex
+ */
+int getJarIndexingThreads() {
+	int parallelism = getParallelism();
+	int threads = Integer.getInteger(JAR_INDEXING_THREADS_PROPERTY, parallelism).intValue();
+	return threads < 1 ? 1 : threads > parallelism ? parallelism : threads;
+}
 /**
  * Name of the background process
  */
@@ -909,7 +991,7 @@ public void saveIndex(Index index) throws IOException {
 		if (this.jobEnd > this.jobStart) {
 			for (int i = this.jobEnd; i > this.jobStart; i--) { // skip the current job
 				IJob job = this.awaitingJobs[i];
-				if (job instanceof IndexRequest)
+				if (job instanceof IndexRequest && !isExecuting(job))
 					if (((IndexRequest) job).containerPath.equals(containerPath)) return;
 			}
 		}
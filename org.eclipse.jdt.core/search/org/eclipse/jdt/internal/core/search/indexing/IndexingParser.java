@@ -24,6 +24,8 @@ import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
  * A source element parser that avoids creating unnecessary nodes.
  */
 public class IndexingParser extends SourceElementParser {
+	static final int IDENTIFIER_TABLE_SIZE = 4096;
+
 	SingleNameReference singleNameReference = new SingleNameReference(CharOperation.NO_CHAR, 0);
 	QualifiedNameReference qualifiedNameReference = new QualifiedNameReference(CharOperation.NO_CHAR_CHAR, new long[0], 0, 0);
 	ImportReference importReference = new ImportReference(CharOperation.NO_CHAR_CHAR, new long[1], false, 0);
@@ -31,6 +33,8 @@ public class IndexingParser extends SourceElementParser {
 	public IndexingParser(ISourceElementRequestor requestor, IProblemFactory problemFactory, CompilerOptions options, boolean reportLocalDeclarations, boolean optimizeStringLiterals, boolean useSourceJavadocParser) {
 		super(requestor, problemFactory, options, reportLocalDeclarations,
 				optimizeStringLiterals, useSourceJavadocParser);
+		// the parser of a project indexes all its documents, which mostly use the same names
+		this.scanner.internIdentifiers(IDENTIFIER_TABLE_SIZE);
 	}
 
 	protected ImportReference newImportReference(char[][] tokens, long[] sourcePositions, boolean onDemand, int mod) {
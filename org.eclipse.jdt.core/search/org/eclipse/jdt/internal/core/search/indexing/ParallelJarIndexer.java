@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.search.indexing;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.internal.compiler.util.Util;
+import org.eclipse.jdt.internal.core.index.Index;
+import org.eclipse.jdt.internal.core.search.JavaSearchDocument;
+import org.eclipse.jdt.internal.core.search.processing.JobManager;
+
+/**
+ * Indexes the class files of an archive on several threads.
+ * <p>
+ * The job thread of the {@link AddJarFileToIndex} request reads and indexes class files itself, and lets the
+ * idle worker threads of the {@link IndexManager} help it (see {@link JobManager#requestHelp(Runnable, int)}),
+ * so that no more threads than the ones of the index manager are ever indexing. Each helper reads the class
+ * files it picks from the archive and indexes them with its own {@link BinaryIndexer}. The index entries of a
+ * class file are buffered by its document, then added to the index by the job thread, which owns the write lock
+ * of the index, since an index can only be updated by one thread at a time. Helpers stop reading class files
+ * while too many indexed documents wait to be added, so the archive is never held in memory.
+ * </p>
+ */
+public class ParallelJarIndexer implements Runnable {
+
+public static final int MIN_CLASS_FILES = 500; // smaller archives are indexed on the job thread
+private static final int MAX_PENDING_DOCUMENTS = 256;
+
+/*
+ * A class file of the archive, which buffers its index entries until they are added to the index.
+ */
+static class ClassFileDocument extends JavaSearchDocument {
+	char[][] categories = new char[32][];
+	char[][] keys = new char[32][];
+	int entryCount = 0;
+	Throwable failure;
+
+	ClassFileDocument(ZipEntry zipEntry, IPath zipFilePath, byte[] contents, SearchParticipant participant) {
+		super(zipEntry, zipFilePath, contents, participant);
+	}
+	public void addIndexEntry(char[] category, char[] key) {
+		if (this.entryCount == this.keys.length) {
+			int newLength = this.entryCount * 2;
+			System.arraycopy(this.categories, 0, this.categories = new char[newLength][], 0, this.entryCount);
+			System.arraycopy(this.keys, 0, this.keys = new char[newLength][], 0, this.entryCount);
+		}
+		this.categories[this.entryCount] = category;
+		this.keys[this.entryCount++] = key;
+	}
+	public void removeAllIndexEntries() {
+		this.entryCount = 0; // the class file could not be indexed
+	}
+	void releaseContents() {
+		this.byteContents = null; // not needed once indexed
+	}
+}
+
+private final ZipFile zip;
+private final IPath zipFilePath;
+private final SearchParticipant participant;
+private final ZipEntry[] classFiles;
+
+// guarded by this
+private int nextToRead = 0;
+private LinkedList<ClassFileDocument> indexed = new LinkedList<ClassFileDocument>();
+private boolean stopped = false;
+private int running = 0; // number of helpers indexing class files
+
+public ParallelJarIndexer(ZipFile zip, IPath zipFilePath, SearchParticipant participant, ZipEntry[] classFiles) {
+	this.zip = zip;
+	this.zipFilePath = zipFilePath;
+	this.participant = participant;
+	this.classFiles = classFiles;
+}
+/**
+ * Indexes the class files into the given index, whose write lock must be owned by the caller, with the help
+ * of at most the given number of idle worker threads of the given job manager.
+ * Answers false if the given request was cancelled or the calling thread was interrupted, in which case
+ * the index is incomplete.
+ */
+public boolean indexInto(Index index, IndexRequest request, JobManager helpers, int maxHelpers) throws IOException {
+	if (maxHelpers > 0)
+		helpers.requestHelp(this, maxHelpers);
+	try {
+		for (int i = 0, length = this.classFiles.length; i < length; i++) {
+			ClassFileDocument document = nextIndexed(request);
+			if (document == null)
+				return false;
+			if (document.failure instanceof IOException)
+				throw (IOException) document.failure;
+			if (document.failure instanceof RuntimeException)
+				throw (RuntimeException) document.failure;
+			if (document.failure instanceof Error)
+				throw (Error) document.failure;
+			// same as SearchDocument#addIndexEntry()
+			String containerRelativePath = index.containerRelativePath(document.getPath());
+			for (int j = 0, l = document.entryCount; j < l; j++)
+				index.addIndexEntry(document.categories[j], document.keys[j], containerRelativePath);
+		}
+		return true;
+	} finally {
+		if (maxHelpers > 0)
+			helpers.withdrawHelp(this);
+		stop();
+	}
+}
+/*
+ * Answers the next document indexed by a helper, or indexes the next class file if none is waiting,
+ * so that the archive is indexed even if no worker thread is idle.
+ */
+private ClassFileDocument nextIndexed(IndexRequest request) {
+	while (true) {
+		if (request.isCancelled)
+			return null;
+		ZipEntry classFile;
+		synchronized (this) {
+			if (!this.indexed.isEmpty()) {
+				notifyAll(); // the helpers may read the next class files
+				return this.indexed.removeFirst();
+			}
+			if (this.nextToRead < this.classFiles.length) {
+				classFile = this.classFiles[this.nextToRead++];
+			} else {
+				try {
+					wait(100); // the helpers are indexing the last class files, wake up regularly to check for cancellation
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return null;
+				}
+				continue;
+			}
+		}
+		return index(classFile);
+	}
+}
+private synchronized ZipEntry nextToRead() {
+	while (!this.stopped && this.indexed.size() >= MAX_PENDING_DOCUMENTS) {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			return null;
+		}
+	}
+	if (this.stopped || this.nextToRead == this.classFiles.length)
+		return null;
+	return this.classFiles[this.nextToRead++];
+}
+private ClassFileDocument index(ZipEntry classFile) {
+	ClassFileDocument document = null;
+	try {
+		byte[] classFileBytes = Util.getZipEntryByteContent(classFile, this.zip);
+		document = new ClassFileDocument(classFile, this.zipFilePath, classFileBytes, this.participant);
+		// same as JavaSearchParticipant#indexDocument() for a class file, whose index entries were reset with the index
+		new BinaryIndexer(document).indexDocument();
+		document.releaseContents();
+	} catch (Throwable e) {
+		// reported by the job thread
+		if (document == null)
+			document = new ClassFileDocument(classFile, this.zipFilePath, null, this.participant);
+		document.failure = e;
+	}
+	return document;
+}
+/*
+ * Stops the helpers once they are done with the class file they are indexing, and waits for them,
+ * since the archive is closed once indexed.
+ */
+private synchronized void stop() {
+	this.stopped = true;
+	notifyAll();
+	boolean interrupted = false;
+	while (this.running > 0) {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			interrupted = true; // the helpers stop on their own, they must not read a closed archive
+		}
+	}
+	if (interrupted)
+		Thread.currentThread().interrupt();
+}
+/**
+ * Reads and indexes class files until all of them are read or the indexing is stopped.
+ * Run by the worker threads helping the job thread.
+ */
+public void run() {
+	synchronized (this) {
+		if (this.stopped)
+			return;
+		this.running++;
+	}
+	try {
+		ZipEntry classFile;
+		while ((classFile = nextToRead()) != null) {
+			ClassFileDocument document = index(classFile);
+			synchronized (this) {
+				this.indexed.add(document);
+				notifyAll();
+			}
+		}
+	} finally {
+		synchronized (this) {
+			this.running--;
+			notifyAll();
+		}
+	}
+}
+}
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.search.indexing;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.jdt.internal.core.index.DiskIndex;
+import org.eclipse.jdt.internal.core.search.processing.JobManager;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * A directory of JAR index files named after a key of the JAR.
+ * <p>
+ * The index of a JAR only refers to its entries, so it can be reused for any identical JAR,
+ * whatever its location or its time stamp. The key combines the size of the JAR with a digest of
+ * its central directory, which lists the name, size and CRC of every entry: it is computed without
+ * reading the entries. The directory can be shared by several workspaces, files are published
+ * by renaming a complete copy. When the index files exceed the maximum size of the directory,
+ * the least recently used ones are deleted.
+ * </p>
+ */
+public class SharedIndexCache {
+
+	private static final String SUFFIX = ".index"; //$NON-NLS-1$
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	// see the end of central directory record in the ZIP file format specification
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int END_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private final File directory;
+	private final long maxSize;
+
+public SharedIndexCache(File directory, long maxSize) {
+	this.directory = directory;
+	this.maxSize = maxSize;
+}
+/**
+ * Answers the key of the given JAR, or null if it cannot be read or is not a ZIP file
+ * whose central directory can be located without reading its entries.
+ */
+public String computeDigest(File jarFile) {
+	try {
+		MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		digest.update(DiskIndex.SIGNATURE.getBytes()); // indexes of another format cannot be reused
+		RandomAccessFile file = new RandomAccessFile(jarFile, "r"); //$NON-NLS-1$
+		try {
+			long length = file.length();
+			byte[] centralDirectory = readCentralDirectory(file, length);
+			if (centralDirectory == null) {
+				if (JobManager.VERBOSE)
+					Util.verbose("-> cannot locate the central directory of " + jarFile); //$NON-NLS-1$
+				return null;
+			}
+			digest.update(centralDirectory);
+			// not the time stamp of the file, which differs for each copy of the same JAR
+			for (int shift = 56; shift >= 0; shift -= 8)
+				digest.update((byte) (length >>> shift));
+		} finally {
+			file.close();
+		}
+		byte[] bytes = digest.digest();
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0, l = bytes.length; i < l; i++) {
+			hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+		}
+		return new String(hex);
+	} catch (NoSuchAlgorithmException e) {
+		return null;
+	} catch (IOException e) {
+		if (JobManager.VERBOSE)
+			Util.verbose("-> cannot compute the digest of " + jarFile + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		return null;
+	}
+}
+/*
+ * Answers the central directory of the given ZIP file, located by the end of central directory record
+ * which ends the file, possibly followed by a comment. Answers null if there is no such record or if
+ * the file uses the ZIP64 extensions.
+ */
+private byte[] readCentralDirectory(RandomAccessFile file, long length) throws IOException {
+	if (length < END_SIZE) return null;
+	int tailSize = (int) Math.min(length, END_SIZE + MAX_COMMENT_SIZE);
+	byte[] tail = new byte[tailSize];
+	file.seek(length - tailSize);
+	file.readFully(tail);
+	for (int i = tailSize - END_SIZE; i >= 0; i--) {
+		if (readInt(tail, i) == END_SIGNATURE && i + END_SIZE + readShort(tail, i + 20) == tailSize) {
+			long size = readInt(tail, i + 12) & 0xFFFFFFFFL;
+			long offset = readInt(tail, i + 16) & 0xFFFFFFFFL;
+			if (size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL || offset + size > length - tailSize + i)
+				return null;
+			byte[] centralDirectory = new byte[(int) size];
+			file.seek(offset);
+			file.readFully(centralDirectory);
+			return centralDirectory;
+		}
+	}
+	return null;
+}
+private static int readInt(byte[] bytes, int offset) {
+	// little endian
+	return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+}
+private static int readShort(byte[] bytes, int offset) {
+	return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+}
+/**
+ * Copies the index file shared for the given digest to the given file.
+ * Answers false if there is none or if it could not be copied.
+ */
+public boolean copyTo(String digest, File indexFile) {
+	File sharedFile = new File(this.directory, digest + SUFFIX);
+	if (!sharedFile.exists())
+		return false;
+	try {
+		copy(sharedFile, indexFile);
+	} catch (IOException e) {
+		// may have been evicted meanwhile
+		if (JobManager.VERBOSE)
+			Util.verbose("-> cannot copy shared index " + sharedFile + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		indexFile.delete();
+		return false;
+	}
+	sharedFile.setLastModified(System.currentTimeMillis()); // recently used
+	return true;
+}
+/**
+ * Publishes the given index file for the given digest, then evicts the least recently used index files
+ * if the directory is too large.
+ */
+public void publish(String digest, File indexFile) {
+	File sharedFile = new File(this.directory, digest + SUFFIX);
+	if (sharedFile.exists()) {
+		sharedFile.setLastModified(System.currentTimeMillis());
+		return;
+	}
+	if (!this.directory.isDirectory() && !this.directory.mkdirs())
+		return;
+	File tempFile = null;
+	try {
+		// other workspaces must never see a partial file
+		tempFile = File.createTempFile(digest, ".tmp", this.directory); //$NON-NLS-1$
+		copy(indexFile, tempFile);
+		if (!tempFile.renameTo(sharedFile))
+			return; // published concurrently
+		tempFile = null;
+		if (JobManager.VERBOSE)
+			Util.verbose("-> shared index " + sharedFile + " for " + indexFile); //$NON-NLS-1$ //$NON-NLS-2$
+	} catch (IOException e) {
+		if (JobManager.VERBOSE)
+			Util.verbose("-> cannot share index " + indexFile + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+		return;
+	} finally {
+		if (tempFile != null)
+			tempFile.delete();
+	}
+	evict();
+}
+private void copy(File source, File target) throws IOException {
+	InputStream input = new FileInputStream(source);
+	try {
+		OutputStream output = new FileOutputStream(target);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) != -1)
+				output.write(buffer, 0, read);
+		} finally {
+			output.close();
+		}
+	} finally {
+		input.close();
+	}
+}
+private void evict() {
+	File[] files = this.directory.listFiles();
+	if (files == null) return;
+	long size = 0;
+	int count = 0;
+	for (int i = 0, l = files.length; i < l; i++) {
+		if (files[i].getName().endsWith(SUFFIX)) {
+			files[count++] = files[i];
+			size += files[i].length();
+		}
+	}
+	if (size <= this.maxSize) return;
+
+	final long[] lastModified = new long[count];
+	File[] indexFiles = new File[count];
+	System.arraycopy(files, 0, indexFiles, 0, count);
+	for (int i = 0; i < count; i++)
+		lastModified[i] = indexFiles[i].lastModified();
+	Integer[] order = new Integer[count];
+	for (int i = 0; i < count; i++)
+		order[i] = Integer.valueOf(i);
+	Arrays.sort(order, new Comparator<Integer>() {
+		public int compare(Integer i1, Integer i2) {
+			long l1 = lastModified[i1.intValue()], l2 = lastModified[i2.intValue()];
+			return l1 < l2 ? -1 : l1 == l2 ? 0 : 1;
+		}
+	});
+	for (int i = 0; i < count && size > this.maxSize; i++) {
+		File file = indexFiles[order[i].intValue()];
+		long length = file.length();
+		if (file.delete()) {
+			size -= length;
+			if (JobManager.VERBOSE)
+				Util.verbose("-> evicted shared index " + file); //$NON-NLS-1$
+		}
+	}
+}
+}
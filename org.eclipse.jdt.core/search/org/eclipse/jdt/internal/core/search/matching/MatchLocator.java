@@ -111,6 +111,10 @@ static {
 	}
 }
 
+// number of threads locating the matches of different batches of possible matches concurrently,
+// defaults to 1 to locate all the matches on the caller thread
+public static final String SEARCH_THREADS_PROPERTY = "jdt.core.searchThreads"; //$NON-NLS-1$
+
 // permanent state
 public SearchPattern pattern;
 public PatternLocator patternLocator;
@@ -1314,6 +1318,13 @@ protected void locateMatches(JavaProject javaProject, PossibleMatch[] possibleMa
 		}
 	}
 }
+/*
+ * Answers the number of threads locating matches, see SEARCH_THREADS_PROPERTY.
+ */
+protected int getSearchThreads() {
+	int threads = Integer.getInteger(SEARCH_THREADS_PROPERTY, 1).intValue();
+	return threads < 1 ? 1 : threads;
+}
 /**
  * Locate the matches amongst the possible matches.
  */
@@ -1371,6 +1382,7 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 
 	JavaModelManager manager = JavaModelManager.getJavaModelManager();
 	this.bindings = new SimpleLookupTable();
+	ParallelMatchLocator parallelLocator = null;
 	try {
 		// optimize access to zip files during search operation
 		manager.cacheZipFiles(this);
@@ -1386,6 +1398,11 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 		// initialize pattern for polymorphic search (i.e. method reference pattern)
 		this.patternLocator.initializePolymorphicSearch(this);
 
+		// locate the matches of different batches concurrently if allowed
+		int threads = getSearchThreads();
+		if (threads > 1)
+			parallelLocator = new ParallelMatchLocator(this, threads);
+
 		JavaProject previousJavaProject = null;
 		PossibleMatchSet matchSet = new PossibleMatchSet();
 		Util.sort(searchDocuments, new Util.Comparer() {
@@ -1445,7 +1462,10 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 				// locate matches in previous project
 				if (previousJavaProject != null) {
 					try {
-						locateMatches(previousJavaProject, matchSet, i-displayed);
+						if (parallelLocator != null)
+							parallelLocator.addBatches(previousJavaProject, matchSet, i-displayed);
+						else
+							locateMatches(previousJavaProject, matchSet, i-displayed);
 						displayed = i;
 					} catch (JavaModelException e) {
 						// problem with classpath in this project -> skip it
@@ -1460,17 +1480,24 @@ public void locateMatches(SearchDocument[] searchDocuments) throws CoreException
 		// last project
 		if (previousJavaProject != null) {
 			try {
-				locateMatches(previousJavaProject, matchSet, docsLength-displayed);
+				if (parallelLocator != null)
+					parallelLocator.addBatches(previousJavaProject, matchSet, docsLength-displayed);
+				else
+					locateMatches(previousJavaProject, matchSet, docsLength-displayed);
 			} catch (JavaModelException e) {
 				// problem with classpath in last project -> ignore
 			}
 		}
+		if (parallelLocator != null)
+			parallelLocator.deliver(true);
 
 		if (this.searchPackageDeclaration) {
 			locatePackageDeclarations(searchParticipant, javaModelProjects);
 		}
 
 	} finally {
+		if (parallelLocator != null)
+			parallelLocator.stop();
 		if (this.progressMonitor != null)
 			this.progressMonitor.done();
 		if (this.nameEnvironment != null)
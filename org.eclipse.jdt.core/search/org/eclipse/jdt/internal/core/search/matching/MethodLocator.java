@@ -129,6 +129,13 @@ public void initializePolymorphicSearch(MatchLocator locator) {
 		System.out.println("Time to initialize polymorphic search: "+(System.currentTimeMillis()-start)); //$NON-NLS-1$
 	}
 }
+public void initializePolymorphicSearch(MatchLocator locator, PatternLocator initializedLocator) {
+	MethodLocator methodLocator = (MethodLocator) initializedLocator;
+	this.allSuperDeclaringTypeNames = methodLocator.allSuperDeclaringTypeNames;
+	this.samePkgSuperDeclaringTypeNames = methodLocator.samePkgSuperDeclaringTypeNames;
+	if (methodLocator.matchLocator != null)
+		this.matchLocator = locator;
+}
 /*
  * Return whether a type name is in pattern all super declaring types names.
  */
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.core.search.matching;
+
+import java.util.ArrayList;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchRequestor;
+import org.eclipse.jdt.internal.compiler.util.SimpleLookupTable;
+import org.eclipse.jdt.internal.core.JavaModelManager;
+import org.eclipse.jdt.internal.core.JavaProject;
+import org.eclipse.jdt.internal.core.search.BasicSearchEngine;
+
+/**
+ * Locates the matches of the batches of possible matches of a {@link MatchLocator} on several threads.
+ * <p>
+ * The possible matches of a project are split in batches of at most {@link MatchLocator#MAX_AT_ONCE},
+ * as the match locator does on the caller thread. Each batch is located by a worker with its own
+ * match locator, hence its own parser and lookup environment, and the matches it finds are buffered.
+ * The caller thread reports the matches of the batches to the search requestor in the order the
+ * batches were added, so the requestor sees the same matches in the same order as for a search
+ * on a single thread, and is never called concurrently.
+ * </p>
+ * <p>
+ * Only used when more than one thread is requested, see {@link MatchLocator#SEARCH_THREADS_PROPERTY}.
+ * </p>
+ */
+class ParallelMatchLocator implements Runnable {
+
+/*
+ * The possible matches of a project located by one worker, and the matches found.
+ */
+static class Batch extends SearchRequestor {
+	final JavaProject project;
+	final PossibleMatch[] possibleMatches;
+	final int start;
+	final int length;
+	ArrayList<SearchMatch> matches = new ArrayList<SearchMatch>();
+	Throwable failure;
+	boolean located;
+
+	Batch(JavaProject project, PossibleMatch[] possibleMatches, int start, int length) {
+		this.project = project;
+		this.possibleMatches = possibleMatches;
+		this.start = start;
+		this.length = length;
+	}
+	public void acceptSearchMatch(SearchMatch match) {
+		this.matches.add(match);
+	}
+}
+
+/*
+ * Forwards the cancellation of the search to the workers and collects their progress,
+ * which is only reported by the caller thread.
+ */
+class WorkerMonitor extends NullProgressMonitor {
+	public boolean isCanceled() {
+		return ParallelMatchLocator.this.canceled
+			|| (ParallelMatchLocator.this.locator.progressMonitor != null && ParallelMatchLocator.this.locator.progressMonitor.isCanceled());
+	}
+	public void worked(int work) {
+		synchronized (ParallelMatchLocator.this) {
+			ParallelMatchLocator.this.worked += work;
+		}
+	}
+}
+
+final MatchLocator locator;
+private final Thread[] workers;
+private int workerCount = 0;
+
+// the batches are added and delivered by the caller thread, guarded by this
+private ArrayList<Batch> batches = new ArrayList<Batch>();
+private int nextToLocate = 0;
+private int nextToDeliver = 0;
+private int worked = 0;
+private boolean stopped = false;
+volatile boolean canceled = false;
+
+ParallelMatchLocator(MatchLocator locator, int threads) {
+	this.locator = locator;
+	this.workers = new Thread[threads];
+}
+/**
+ * Splits the possible matches of the given project in batches to be located by the workers,
+ * then reports the matches of the batches already located.
+ */
+void addBatches(JavaProject javaProject, PossibleMatchSet matchSet, int expected) throws CoreException {
+	PossibleMatch[] possibleMatches = matchSet.getPossibleMatches(javaProject.getPackageFragmentRoots());
+	int length = possibleMatches.length;
+	// increase progress from duplicate matches not stored in matchSet while adding...
+	if (this.locator.progressMonitor != null && expected>length) {
+		this.locator.progressWorked += expected-length;
+		this.locator.progressMonitor.worked(expected-length);
+	}
+	for (int index = 0; index < length;) {
+		int max = Math.min(MatchLocator.MAX_AT_ONCE, length - index);
+		Batch batch = new Batch(javaProject, possibleMatches, index, max);
+		synchronized (this) {
+			this.batches.add(batch);
+			if (this.workerCount < this.workers.length && this.workerCount < this.batches.size() - this.nextToLocate) {
+				Thread worker = new Thread(this, "Java Search Worker " + (this.workerCount + 1)); //$NON-NLS-1$
+				worker.setDaemon(true);
+				this.workers[this.workerCount++] = worker;
+				worker.start();
+			}
+			notifyAll();
+		}
+		index += max;
+	}
+	deliver(false);
+}
+/**
+ * Reports the matches of the located batches to the search requestor, in the order the batches were added.
+ * Waits until all the batches are located if requested.
+ */
+void deliver(boolean all) throws CoreException {
+	while (true) {
+		Batch batch;
+		int work;
+		synchronized (this) {
+			if (this.nextToDeliver == this.batches.size()) {
+				work = this.worked;
+				this.worked = 0;
+				batch = null;
+			} else {
+				batch = this.batches.get(this.nextToDeliver);
+				if (!batch.located && all) {
+					try {
+						wait(100); // wake up regularly to report progress and check for cancellation
+					} catch (InterruptedException e) {
+						throw new OperationCanceledException();
+					}
+				}
+				work = this.worked;
+				this.worked = 0;
+				if (batch.located) {
+					this.batches.set(this.nextToDeliver++, null); // release the delivered batch
+				} else {
+					batch = null;
+				}
+			}
+		}
+		if (this.locator.progressMonitor != null) {
+			if (work > 0) {
+				this.locator.progressWorked += work;
+				this.locator.progressMonitor.worked(work);
+			}
+			if (this.locator.progressMonitor.isCanceled())
+				throw new OperationCanceledException();
+		}
+		if (batch == null) {
+			if (!all || this.nextToDeliver == this.batches.size()) return;
+			continue; // still being located
+		}
+		if (batch.failure instanceof CoreException)
+			throw (CoreException) batch.failure;
+		if (batch.failure instanceof RuntimeException)
+			throw (RuntimeException) batch.failure;
+		if (batch.failure instanceof Error)
+			throw (Error) batch.failure;
+		long start = BasicSearchEngine.VERBOSE ? System.currentTimeMillis() : 0;
+		for (int i = 0, size = batch.matches.size(); i < size; i++)
+			this.locator.requestor.acceptSearchMatch(batch.matches.get(i));
+		if (BasicSearchEngine.VERBOSE)
+			this.locator.resultCollectorTime += System.currentTimeMillis()-start;
+	}
+}
+/**
+ * Stops the workers, canceling the batch they are locating, and waits for them.
+ * The batches that are not located yet are discarded.
+ */
+void stop() {
+	synchronized (this) {
+		this.stopped = true;
+		this.canceled = true;
+		notifyAll();
+	}
+	for (int i = 0; i < this.workerCount; i++) {
+		try {
+			this.workers[i].join();
+		} catch (InterruptedException e) {
+			// the workers will stop on their own
+			Thread.currentThread().interrupt();
+			return;
+		}
+	}
+}
+private synchronized Batch nextBatch() {
+	while (!this.stopped) {
+		if (this.nextToLocate < this.batches.size())
+			return this.batches.get(this.nextToLocate++);
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			return null;
+		}
+	}
+	return null;
+}
+private synchronized void located(Batch batch) {
+	batch.located = true;
+	notifyAll();
+}
+public void run() {
+	MatchLocator worker = new MatchLocator(this.locator.pattern, null, this.locator.scope, new WorkerMonitor());
+	worker.workingCopies = this.locator.workingCopies;
+	worker.progressStep = 1;
+	worker.bindings = new SimpleLookupTable();
+	worker.patternLocator.initializePolymorphicSearch(worker, this.locator.patternLocator);
+	JavaModelManager manager = JavaModelManager.getJavaModelManager();
+	try {
+		// optimize access to zip files during search operation
+		manager.cacheZipFiles(worker);
+		JavaProject project = null;
+		Batch batch;
+		while ((batch = nextBatch()) != null) {
+			if (batch.project != project) {
+				// as the caller thread does once it located the matches of a project
+				if (project != null)
+					worker.patternLocator.clear();
+				project = batch.project;
+			}
+			worker.requestor = batch;
+			try {
+				worker.locateMatches(batch.project, batch.possibleMatches, batch.start, batch.length);
+			} catch (JavaModelException e) {
+				// problem with classpath in this project -> skip the batch
+			} catch (Throwable e) {
+				batch.failure = e;
+				if (e instanceof OperationCanceledException)
+					this.canceled = true;
+			} finally {
+				worker.requestor = null;
+				located(batch);
+			}
+		}
+	} finally {
+		worker.patternLocator.clear();
+		if (worker.nameEnvironment != null)
+			worker.nameEnvironment.cleanup();
+		worker.unitScope = null;
+		manager.flushZipFiles(worker);
+		worker.bindings = null;
+	}
+}
+}
@@ -177,6 +177,13 @@ protected TypeBinding getTypeNameBinding(int index) {
 public void initializePolymorphicSearch(MatchLocator locator) {
 	// default is to do nothing
 }
+/**
+ * Initializes this search pattern so that polymorphic search can be performed by the given locator,
+ * from the given pattern locator of the same pattern that is already initialized.
+ */
+public void initializePolymorphicSearch(MatchLocator locator, PatternLocator initializedLocator) {
+	// default is to do nothing
+}
 public int match(Annotation node, MatchingNodeSet nodeSet) {
 	// each subtype should override if needed
 	return IMPOSSIBLE_MATCH;
@@ -242,7 +242,11 @@ public boolean matchesDecodedKey(SearchPattern decodedPattern) {
 	return matchesName(this.superSimpleName, pattern.superSimpleName);
 }
 public EntryResult[] queryIn(Index index) throws IOException {
-	char[] key = this.superSimpleName; // can be null
+	// the subtypes of a hierarchy are searched one exact super type name at a time
+	if (this.superSimpleName == null || (getMatchMode() == R_EXACT_MATCH && this.isCaseSensitive))
+		return index.querySuperTypeReferences(this.superSimpleName);
+
+	char[] key = this.superSimpleName;
 	int matchRule = getMatchRule();
 
 	// cannot include the superQualification since it may not exist in the index
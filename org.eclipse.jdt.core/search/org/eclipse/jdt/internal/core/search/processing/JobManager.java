@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.core.search.processing;
 
+import java.util.LinkedList;
+
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.internal.core.util.Messages;
@@ -21,12 +23,18 @@ public abstract class JobManager implements Runnable {
 	protected IJob[] awaitingJobs = new IJob[10];
 	protected int jobStart = 0;
 	protected int jobEnd = -1;
-	protected boolean executing = false;
 
 	/* background processing */
 	protected Thread processingThread;
+	protected Thread[] workerThreads; // additional threads executing independent jobs, null if processingThread is the only one
 	protected Job progressJob;
 
+	/* jobs being executed, indexed by thread (the processing thread being the first one) */
+	private IJob[] executingJobs = new IJob[1];
+
+	/* tasks helping the executing jobs, run by the worker threads which have no job to execute, see requestHelp(Runnable, int) */
+	private LinkedList<Runnable> helpingTasks = new LinkedList<Runnable>();
+
 	/* counter indicating whether job execution is enabled or not, disabled if <= 0
 	    it cannot go beyond 1 */
 	private int enableCount = 1;
@@ -37,6 +45,13 @@ public abstract class JobManager implements Runnable {
 
 	private int awaitingClients = 0;
 
+	/* maximum number of awaiting jobs considered when looking for one that can run concurrently */
+	private static final int LOOK_AHEAD = 100;
+
+	/* throughput of the jobs executed since the queue was last empty, only computed when VERBOSE */
+	private long batchStart = -1;
+	private int batchJobs = 0;
+
 	/**
 	 * Invoked exactly once, in background, before starting processing any job
 	 */
@@ -75,22 +90,26 @@ public abstract class JobManager implements Runnable {
 
 		try {
 			IJob currentJob;
-			// cancel current job if it belongs to the given family
+			IJob[] jobs;
+			// cancel current jobs if they belong to the given family
 			synchronized(this){
-				currentJob = currentJob();
+				jobs = this.executingJobs.clone();
 				disable();
 			}
-			if (currentJob != null && (jobFamily == null || currentJob.belongsTo(jobFamily))) {
-				currentJob.cancel();
+			for (int i = 0, length = jobs.length; i < length; i++) {
+				currentJob = jobs[i];
+				if (currentJob != null && (jobFamily == null || currentJob.belongsTo(jobFamily))) {
+					currentJob.cancel();
 
-				// wait until current active job has finished
-				while (this.processingThread != null && this.executing){
-					try {
-						if (VERBOSE)
-							Util.verbose("-> waiting end of current background job - " + currentJob); //$NON-NLS-1$
-						Thread.sleep(50);
-					} catch(InterruptedException e){
-						// ignore
+					// wait until current active job has finished
+					while (this.processingThread != null && isExecuting(currentJob)){
+						try {
+							if (VERBOSE)
+								Util.verbose("-> waiting end of current background job - " + currentJob); //$NON-NLS-1$
+							Thread.sleep(50);
+						} catch(InterruptedException e){
+							// ignore
+						}
 					}
 				}
 			}
@@ -126,25 +145,81 @@ public abstract class JobManager implements Runnable {
 			Util.verbose("ENABLING  background indexing"); //$NON-NLS-1$
 		notifyAll(); // wake up the background thread if it is waiting (context must be synchronized)
 	}
+	/**
+	 * Answers whether the given job is being executed by one of the background threads.
+	 */
+	protected synchronized boolean isExecuting(IJob job) {
+		for (int i = 0, length = this.executingJobs.length; i < length; i++)
+			if (this.executingJobs[i] == job) return true;
+		return false;
+	}
 	protected synchronized boolean isJobWaiting(IJob request) {
-		for (int i = this.jobEnd; i > this.jobStart; i--) // don't check job at jobStart, as it may have already started
-			if (request.equals(this.awaitingJobs[i])) return true;
+		for (int i = this.jobEnd; i > this.jobStart; i--) { // don't check job at jobStart, as it may have already started
+			IJob job = this.awaitingJobs[i];
+			if (request.equals(job) && !isExecuting(job)) return true;
+		}
 		return false;
 	}
 	/**
-	 * Advance to the next available job, once the current one has been completed.
+	 * Remove the given job from the queue once it has been completed, and advance to the next available job.
 	 * Note: clients awaiting until the job count is zero are still waiting at this point.
 	 */
-	protected synchronized void moveToNextJob() {
+	protected synchronized void moveToNextJob(IJob completedJob) {
 		//if (!enabled) return;
 
-		if (this.jobStart <= this.jobEnd) {
-			this.awaitingJobs[this.jobStart++] = null;
-			if (this.jobStart > this.jobEnd) {
-				this.jobStart = 0;
-				this.jobEnd = -1;
+		for (int i = this.jobStart; i <= this.jobEnd; i++) {
+			if (this.awaitingJobs[i] == completedJob) {
+				if (i == this.jobStart) {
+					this.awaitingJobs[this.jobStart++] = null;
+				} else {
+					// completed by another thread before the first job, shift the following jobs down so the queue has no hole
+					System.arraycopy(this.awaitingJobs, i + 1, this.awaitingJobs, i, this.jobEnd - i);
+					this.awaitingJobs[this.jobEnd--] = null;
+				}
+				break;
+			}
+		}
+		if (this.jobStart > this.jobEnd) {
+			this.jobStart = 0;
+			this.jobEnd = -1;
+		}
+	}
+	/**
+	 * Answers whether the given job can be executed concurrently with the jobs of other families.
+	 * Other jobs are executed alone, once all the jobs requested before them have completed.
+	 */
+	protected boolean canRunConcurrently(IJob job) {
+		return false;
+	}
+	/**
+	 * Answers the first awaiting job which can be executed by the given thread, or null if none is available.
+	 * Jobs of the same family are executed in the order they were requested, jobs of different families
+	 * can be executed concurrently (see canRunConcurrently(IJob)).
+	 */
+	private synchronized IJob nextJob(int thread) {
+		if (this.enableCount <= 0) return null;
+
+		int end = this.jobEnd < this.jobStart + LOOK_AHEAD ? this.jobEnd : this.jobStart + LOOK_AHEAD;
+		next : for (int i = this.jobStart; i <= end; i++) {
+			IJob job = this.awaitingJobs[i];
+			if (!canRunConcurrently(job)) {
+				// neither this job nor the following ones can start until the previous ones have completed
+				if (i > this.jobStart || isExecuting(job)) return null;
+			} else if (isExecuting(job)) {
+				continue;
+			}
+			String family = job.getJobFamily();
+			for (int j = this.jobStart; j < i; j++) {
+				IJob previousJob = this.awaitingJobs[j];
+				if (family == null || family.equals(previousJob.getJobFamily()))
+					continue next; // must wait until the previous job of the same family has completed
 			}
+			if (VERBOSE && this.batchStart < 0)
+				this.batchStart = System.currentTimeMillis();
+			this.executingJobs[thread] = job;
+			return job;
 		}
+		return null;
 	}
 	/**
 	 * When idle, give chance to do something
@@ -205,10 +280,14 @@ public abstract class JobManager implements Runnable {
 						// use local variable to avoid potential NPE (see bug 20435 NPE when searching java method
 						// and bug 42760 NullPointerException in JobManager when searching)
 						Thread t = this.processingThread;
+						Thread[] workers = this.workerThreads;
 						int originalPriority = t == null ? -1 : t.getPriority();
 						try {
 							if (t != null)
 								t.setPriority(Thread.currentThread().getPriority());
+							if (workers != null)
+								for (int i = 0; i < workers.length; i++)
+									workers[i].setPriority(Thread.currentThread().getPriority());
 							synchronized(this) {
 								this.awaitingClients++;
 							}
@@ -258,6 +337,10 @@ public abstract class JobManager implements Runnable {
 							}
 							if (t != null && originalPriority > -1 && t.isAlive())
 								t.setPriority(originalPriority);
+							if (workers != null && originalPriority > -1)
+								for (int i = 0; i < workers.length; i++)
+									if (workers[i].isAlive())
+										workers[i].setPriority(originalPriority);
 						}
 				}
 			}
@@ -269,7 +352,36 @@ public abstract class JobManager implements Runnable {
 		}
 		return status;
 	}
+	/**
+	 * Answers the number of threads executing jobs, 1 by default.
+	 */
+	protected int getParallelism() {
+		return 1;
+	}
 	public abstract String processName();
+	/**
+	 * Lets up to the given number of worker threads run the given task once they have no job to execute,
+	 * so that a job can share its work with the idle threads instead of starting its own ones.
+	 * The task must complete without waiting for the job which requested it.
+	 * Answers the number of threads which may run the task, 0 if there is no worker thread.
+	 */
+	public synchronized int requestHelp(Runnable task, int threads) {
+		if (this.workerThreads == null)
+			return 0;
+		int helpers = Math.min(threads, this.workerThreads.length);
+		for (int i = 0; i < helpers; i++)
+			this.helpingTasks.add(task);
+		notifyAll(); // wake up the idle worker threads
+		return helpers;
+	}
+	/**
+	 * Withdraws the given task from the worker threads which have not started it yet.
+	 */
+	public synchronized void withdrawHelp(Runnable task) {
+		while (this.helpingTasks.remove(task)) {
+			// remove all the requests
+		}
+	}
 
 	public synchronized void request(IJob job) {
 
@@ -307,16 +419,39 @@ public abstract class JobManager implements Runnable {
 			discardJobs(null); // discard all jobs
 		} else {
 			/* initiate background processing */
-			this.processingThread = new Thread(this, processName());
-			this.processingThread.setDaemon(true);
-			// less prioritary by default, priority is raised if clients are actively waiting on it
-			this.processingThread.setPriority(Thread.NORM_PRIORITY-1);
-			// https://bugs.eclipse.org/bugs/show_bug.cgi?id=296343
-			// set the context loader to avoid leaking the current context loader
-			this.processingThread.setContextClassLoader(this.getClass().getClassLoader());
+			this.processingThread = newProcessingThread(this, processName());
 			this.processingThread.start();
+			// worker threads survive the crash recovery of the processing thread
+			int parallelism = getParallelism();
+			if (this.workerThreads == null)
+				this.executingJobs = new IJob[parallelism];
+			if (this.workerThreads == null && parallelism > 1) {
+				this.workerThreads = new Thread[parallelism - 1];
+				for (int i = 0; i < this.workerThreads.length; i++) {
+					final int thread = i + 1;
+					this.workerThreads[i] = newProcessingThread(new Runnable() {
+						public void run() {
+							runWorker(thread);
+						}
+					}, processName() + " (" + thread + ')'); //$NON-NLS-1$
+				}
+				for (int i = 0; i < this.workerThreads.length; i++)
+					this.workerThreads[i].start();
+				if (VERBOSE)
+					Util.verbose("Started " + parallelism + " background threads"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
 		}
 	}
+	private Thread newProcessingThread(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		// less prioritary by default, priority is raised if clients are actively waiting on it
+		thread.setPriority(Thread.NORM_PRIORITY-1);
+		// https://bugs.eclipse.org/bugs/show_bug.cgi?id=296343
+		// set the context loader to avoid leaking the current context loader
+		thread.setContextClassLoader(this.getClass().getClassLoader());
+		return thread;
+	}
 	/**
 	 * Infinite loop performing resource indexing
 	 */
@@ -351,53 +486,45 @@ public abstract class JobManager implements Runnable {
 			while (this.processingThread != null) {
 				try {
 					IJob job;
+					boolean idle = false;
 					synchronized (this) {
 						// handle shutdown case when notifyAll came before the wait but after the while loop was entered
 						if (this.processingThread == null) continue;
 
 						// must check for new job inside this sync block to avoid timing hole
-						if ((job = currentJob()) == null) {
-							if (this.progressJob != null) {
-								this.progressJob.cancel();
-								this.progressJob = null;
+						if ((job = nextJob(0)) == null) {
+							// the awaiting jobs may also wait for the ones executed by the worker threads
+							idle = currentJob() == null;
+							if (idle) {
+								if (this.progressJob != null) {
+									this.progressJob.cancel();
+									this.progressJob = null;
+								}
+								if (idlingStart < 0)
+									idlingStart = System.currentTimeMillis();
+								else
+									notifyIdle(System.currentTimeMillis() - idlingStart);
 							}
-							if (idlingStart < 0)
-								idlingStart = System.currentTimeMillis();
-							else
-								notifyIdle(System.currentTimeMillis() - idlingStart);
 							this.wait(); // wait until a new job is posted (or reenabled:38901)
 						} else {
 							idlingStart = -1;
 						}
 					}
 					if (job == null) {
-						notifyIdle(System.currentTimeMillis() - idlingStart);
-						// just woke up, delay before processing any new jobs, allow some time for the active thread to finish
-						Thread.sleep(500);
+						if (idle) {
+							notifyIdle(System.currentTimeMillis() - idlingStart);
+							// just woke up, delay before processing any new jobs, allow some time for the active thread to finish
+							Thread.sleep(500);
+						}
 						continue;
 					}
-					if (VERBOSE) {
-						Util.verbose(awaitingJobsCount() + " awaiting jobs"); //$NON-NLS-1$
-						Util.verbose("STARTING background job - " + job); //$NON-NLS-1$
-					}
-					try {
-						this.executing = true;
-						if (this.progressJob == null) {
-							this.progressJob = new ProgressJob(Messages.bind(Messages.jobmanager_indexing, "", "")); //$NON-NLS-1$ //$NON-NLS-2$
-							this.progressJob.setPriority(Job.LONG);
-							this.progressJob.setSystem(true);
-							this.progressJob.schedule();
-						}
-						/*boolean status = */job.execute(null);
-						//if (status == FAILED) request(job);
-					} finally {
-						this.executing = false;
-						if (VERBOSE)
-							Util.verbose("FINISHED background job - " + job); //$NON-NLS-1$
-						moveToNextJob();
-						if (this.awaitingClients == 0)
-							Thread.sleep(50);
+					if (this.progressJob == null) {
+						this.progressJob = new ProgressJob(Messages.bind(Messages.jobmanager_indexing, "", "")); //$NON-NLS-1$ //$NON-NLS-2$
+						this.progressJob.setPriority(Job.LONG);
+						this.progressJob.setSystem(true);
+						this.progressJob.schedule();
 					}
+					executeJob(job, 0);
 				} catch (InterruptedException e) { // background indexing was interrupted
 				}
 			}
@@ -425,6 +552,72 @@ public abstract class JobManager implements Runnable {
 			throw e;
 		}
 	}
+	/**
+	 * Loop performing the jobs which can be executed concurrently with the ones of the processing thread
+	 */
+	void runWorker(int thread) {
+		while (this.workerThreads != null) {
+			try {
+				IJob job;
+				Runnable helpingTask = null;
+				synchronized (this) {
+					// handle shutdown case when notifyAll came before the wait but after the while loop was entered
+					if (this.workerThreads == null) continue;
+
+					if ((job = nextJob(thread)) == null) {
+						if (this.helpingTasks.isEmpty()) {
+							this.wait(); // wait until a new job is posted, another one has completed or a job needs help
+							continue;
+						}
+						helpingTask = this.helpingTasks.removeFirst();
+					}
+				}
+				if (job != null)
+					executeJob(job, thread);
+				else
+					helpingTask.run();
+			} catch (InterruptedException e) { // background indexing was interrupted
+			} catch (RuntimeException e) {
+				if (this.workerThreads != null) { // if not shutting down
+					// log exception
+					Util.log(e, "Background Indexer Crash Recovery"); //$NON-NLS-1$
+
+					// keep job manager alive, some indexes will be inconsistent
+					discardJobs(null);
+				}
+			}
+		}
+	}
+	private void executeJob(IJob job, int thread) throws InterruptedException {
+		if (VERBOSE) {
+			Util.verbose(awaitingJobsCount() + " awaiting jobs"); //$NON-NLS-1$
+			Util.verbose("STARTING background job - " + job); //$NON-NLS-1$
+		}
+		try {
+			/*boolean status = */job.execute(null);
+			//if (status == FAILED) request(job);
+		} finally {
+			if (VERBOSE)
+				Util.verbose("FINISHED background job - " + job); //$NON-NLS-1$
+			synchronized (this) {
+				this.executingJobs[thread] = null;
+				moveToNextJob(job);
+				if (VERBOSE) {
+					this.batchJobs++;
+					if (this.jobStart > this.jobEnd && this.batchStart >= 0) {
+						long time = System.currentTimeMillis() - this.batchStart;
+						Util.verbose("-> " + this.batchJobs + " background jobs completed in " + time + "ms (" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+							+ (this.batchJobs * 1000L / (time > 0 ? time : 1)) + " jobs/s on " + this.executingJobs.length + " threads)"); //$NON-NLS-1$ //$NON-NLS-2$
+						this.batchStart = -1;
+						this.batchJobs = 0;
+					}
+				}
+				notifyAll(); // wake up the threads waiting for the jobs of the same family
+			}
+			if (this.awaitingClients == 0)
+				Thread.sleep(50);
+		}
+	}
 	/**
 	 * Stop background processing, and wait until the current job is completed before returning
 	 */
@@ -436,14 +629,19 @@ public abstract class JobManager implements Runnable {
 		disable();
 		discardJobs(null); // will wait until current executing job has completed
 		Thread thread = this.processingThread;
+		Thread[] workers = this.workerThreads;
 		try {
 			if (thread != null) { // see http://bugs.eclipse.org/bugs/show_bug.cgi?id=31858
 				synchronized (this) {
 					this.processingThread = null; // mark the job manager as shutting down so that the thread will stop by itself
+					this.workerThreads = null;
 					notifyAll(); // ensure its awake so it can be shutdown
 				}
 				// in case processing thread is handling a job
 				thread.join();
+				if (workers != null)
+					for (int i = 0; i < workers.length; i++)
+						workers[i].join();
 			}
 			Job job = this.progressJob;
 			if (job != null) {
@@ -457,6 +655,7 @@ public abstract class JobManager implements Runnable {
 	public String toString() {
 		StringBuffer buffer = new StringBuffer(10);
 		buffer.append("Enable count:").append(this.enableCount).append('\n'); //$NON-NLS-1$
+		buffer.append("Threads:").append(this.executingJobs.length).append('\n'); //$NON-NLS-1$
 		int numJobs = this.jobEnd - this.jobStart + 1;
 		buffer.append("Jobs in queue:").append(numJobs).append('\n'); //$NON-NLS-1$
 		for (int i = 0; i < numJobs && i < 15; i++) {